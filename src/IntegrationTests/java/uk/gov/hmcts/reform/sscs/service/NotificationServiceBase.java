@@ -2,6 +2,9 @@ package uk.gov.hmcts.reform.sscs.service;
 
 import static org.mockito.MockitoAnnotations.openMocks;
 import static uk.gov.hmcts.reform.sscs.ccd.domain.EventType.APPEAL_RECEIVED;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.eventScopedDocumentCache;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.mainMemoryOnly;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.sequentialFanOut;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +33,7 @@ import uk.gov.hmcts.reform.sscs.factory.NotificationFactory;
 import uk.gov.hmcts.reform.sscs.idam.IdamService;
 import uk.gov.hmcts.reform.sscs.idam.IdamTokens;
 import uk.gov.hmcts.reform.sscs.service.docmosis.PdfLetterService;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
 
 @RunWith(JUnitParamsRunner.class)
 @SpringBootTest
@@ -58,6 +62,9 @@ public class NotificationServiceBase {
     @Autowired
     private NotificationValidService notificationValidService;
 
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
     @Autowired
     private NotificationFactory notificationFactory;
 
@@ -111,9 +118,9 @@ public class NotificationServiceBase {
 
     NotificationService initialiseNotificationService() {
         SendNotificationService sendNotificationService = new SendNotificationService(notificationSender,
-                notificationHandler, notificationValidService, pdfLetterService, pdfStoreService);
+                notificationHandler, notificationValidService, pdfLetterService, eventScopedDocumentCache(pdfStoreService), mainMemoryOnly(), pipelineMetrics, sequentialFanOut(), sequentialFanOut());
         return new NotificationService(notificationFactory, reminderService, notificationValidService,
-            notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, false
+            notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, pipelineMetrics, sequentialFanOut(), false
         );
     }
 
@@ -11,11 +11,16 @@ import static org.mockito.Mockito.when;
 import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.APPELLANT_NAME;
 import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.NAME;
 import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.REPRESENTATIVE_NAME;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.eventScopedDocumentCache;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.mainMemoryOnly;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.sequentialFanOut;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import junitparams.JUnitParamsRunner;
 import org.apache.commons.io.FileUtils;
@@ -56,12 +61,14 @@ import uk.gov.hmcts.reform.sscs.service.NotificationHandler;
 import uk.gov.hmcts.reform.sscs.service.NotificationSender;
 import uk.gov.hmcts.reform.sscs.service.NotificationService;
 import uk.gov.hmcts.reform.sscs.service.NotificationValidService;
+import uk.gov.hmcts.reform.sscs.service.NotifyRateLimiter;
 import uk.gov.hmcts.reform.sscs.service.OutOfHoursCalculator;
 import uk.gov.hmcts.reform.sscs.service.PdfStoreService;
 import uk.gov.hmcts.reform.sscs.service.ReminderService;
 import uk.gov.hmcts.reform.sscs.service.SaveCorrespondenceAsyncService;
 import uk.gov.hmcts.reform.sscs.service.SendNotificationService;
 import uk.gov.hmcts.reform.sscs.service.docmosis.PdfLetterService;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
 import uk.gov.service.notify.NotificationClient;
 import uk.gov.service.notify.NotificationClientException;
 import uk.gov.service.notify.SendEmailResponse;
@@ -106,6 +113,12 @@ public class NotificationsItBase {
     @Autowired
     private NotificationValidService notificationValidService;
 
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private NotifyRateLimiter notifyRateLimiter;
+
     @Autowired
     private NotificationFactory factory;
 
@@ -163,9 +176,10 @@ public class NotificationsItBase {
 
     @Before
     public void setup() throws Exception {
-        NotificationSender sender = new NotificationSender(notificationClient, null, notificationTestRecipients, markdownTransformationService, saveCorrespondenceAsyncService, saveCorrespondence);
+        NotificationSender sender = new NotificationSender(notificationClient, null, notificationTestRecipients, markdownTransformationService, saveCorrespondenceAsyncService, notifyRateLimiter, new SimpleMeterRegistry(), Optional.empty(), saveCorrespondence);
 
-        SendNotificationService sendNotificationService = new SendNotificationService(sender, notificationHandler, notificationValidService, pdfLetterService, pdfStoreService);
+        SendNotificationService sendNotificationService = new SendNotificationService(sender, notificationHandler, notificationValidService, pdfLetterService,
+            eventScopedDocumentCache(pdfStoreService), mainMemoryOnly(), pipelineMetrics, sequentialFanOut(), sequentialFanOut());
 
         setupNotificationService(sendNotificationService);
 
@@ -196,7 +210,7 @@ public class NotificationsItBase {
     }
 
     private void setupNotificationService(SendNotificationService sendNotificationService) {
-        service = new NotificationService(factory, reminderService, notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, false);
+        service = new NotificationService(factory, reminderService, notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, pipelineMetrics, sequentialFanOut(), false);
     }
 
     protected NotificationService getNotificationService() {
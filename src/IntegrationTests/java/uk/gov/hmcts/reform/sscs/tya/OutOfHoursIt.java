@@ -6,13 +6,18 @@ import static helper.IntegrationTestHelper.updateEmbeddedJson;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.eventScopedDocumentCache;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.mainMemoryOnly;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.sequentialFanOut;
 
 import helper.IntegrationTestHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Optional;
 import java.util.UUID;
 import javax.servlet.http.HttpServletResponse;
 import junitparams.JUnitParamsRunner;
@@ -53,12 +58,14 @@ import uk.gov.hmcts.reform.sscs.service.NotificationHandler;
 import uk.gov.hmcts.reform.sscs.service.NotificationSender;
 import uk.gov.hmcts.reform.sscs.service.NotificationService;
 import uk.gov.hmcts.reform.sscs.service.NotificationValidService;
+import uk.gov.hmcts.reform.sscs.service.NotifyRateLimiter;
 import uk.gov.hmcts.reform.sscs.service.OutOfHoursCalculator;
 import uk.gov.hmcts.reform.sscs.service.PdfStoreService;
 import uk.gov.hmcts.reform.sscs.service.ReminderService;
 import uk.gov.hmcts.reform.sscs.service.SaveCorrespondenceAsyncService;
 import uk.gov.hmcts.reform.sscs.service.SendNotificationService;
 import uk.gov.hmcts.reform.sscs.service.docmosis.PdfLetterService;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
 import uk.gov.hmcts.reform.sscs.service.reminder.JobGroupGenerator;
 import uk.gov.service.notify.NotificationClient;
 import uk.gov.service.notify.SendEmailResponse;
@@ -97,6 +104,12 @@ public class OutOfHoursIt {
     @Autowired
     NotificationValidService notificationValidService;
 
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private NotifyRateLimiter notifyRateLimiter;
+
     @MockBean
     private AuthorisationService authorisationService;
 
@@ -156,11 +169,12 @@ public class OutOfHoursIt {
         when(outOfHoursCalculator.getStartOfNextInHoursPeriod()).thenReturn(zoned);
         when(outOfHoursCalculator.isItOutOfHours()).thenReturn(true);
 
-        notificationHandler = new NotificationHandler(outOfHoursCalculator, jobScheduler, jobGroupGenerator);
+        notificationHandler = new NotificationHandler(outOfHoursCalculator, jobScheduler, jobGroupGenerator, pipelineMetrics);
 
-        NotificationSender sender = new NotificationSender(notificationClient, null, notificationTestRecipients, markdownTransformationService, saveCorrespondenceAsyncService, false);
-        SendNotificationService sendNotificationService = new SendNotificationService(sender, notificationHandler, notificationValidService, pdfLetterService, pdfStoreService);
-        NotificationService service = new NotificationService(factory, reminderService, notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, false);
+        NotificationSender sender = new NotificationSender(notificationClient, null, notificationTestRecipients, markdownTransformationService, saveCorrespondenceAsyncService, notifyRateLimiter, new SimpleMeterRegistry(), Optional.empty(), false);
+        SendNotificationService sendNotificationService = new SendNotificationService(sender, notificationHandler, notificationValidService, pdfLetterService,
+            eventScopedDocumentCache(pdfStoreService), mainMemoryOnly(), pipelineMetrics, sequentialFanOut(), sequentialFanOut());
+        NotificationService service = new NotificationService(factory, reminderService, notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, pipelineMetrics, sequentialFanOut(), false);
         controller = new NotificationController(service, authorisationService, ccdService, deserializer, idamService);
         this.mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
         String path = getClass().getClassLoader().getResource("json/ccdResponse.json").getFile();
@@ -10,6 +10,7 @@ import javax.annotation.PostConstruct;
 import javax.servlet.ServletContextListener;
 import okhttp3.OkHttpClient;
 import org.quartz.spi.JobFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -34,6 +35,7 @@ import uk.gov.hmcts.reform.sscs.ccd.config.CcdRequestDetails;
 import uk.gov.hmcts.reform.sscs.ccd.deserialisation.SscsCaseCallbackDeserializer;
 import uk.gov.hmcts.reform.sscs.ccd.service.CcdService;
 import uk.gov.hmcts.reform.sscs.ccd.service.UpdateCcdCaseService;
+import uk.gov.hmcts.reform.sscs.config.DocmosisHttpClientConfiguration;
 import uk.gov.hmcts.reform.sscs.docmosis.service.DocmosisPdfGenerationService;
 import uk.gov.hmcts.reform.sscs.idam.IdamService;
 import uk.gov.hmcts.reform.sscs.jobscheduler.config.QuartzConfiguration;
@@ -94,6 +96,7 @@ public class TrackYourAppealNotificationsApplication {
     }
 
     @Bean
+    @Primary
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
@@ -188,7 +191,7 @@ public class TrackYourAppealNotificationsApplication {
     public DocmosisPdfGenerationService docmosisPdfGenerationService(
             @Value("${pdf-service.uri}") String pdfServiceEndpoint,
             @Value("${pdf-service.accessKey}") String pdfServiceAccessKey,
-            RestTemplate restTemplate) {
+            @Qualifier(DocmosisHttpClientConfiguration.DOCMOSIS_REST_TEMPLATE) RestTemplate restTemplate) {
         return new DocmosisPdfGenerationService(pdfServiceEndpoint, pdfServiceAccessKey, restTemplate);
     }
 
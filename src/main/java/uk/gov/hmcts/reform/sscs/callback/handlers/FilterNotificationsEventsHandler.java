@@ -17,7 +17,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import uk.gov.hmcts.reform.sscs.callback.CallbackHandler;
 import uk.gov.hmcts.reform.sscs.ccd.callback.DispatchPriority;
-import uk.gov.hmcts.reform.sscs.ccd.domain.Appointee;
 import uk.gov.hmcts.reform.sscs.ccd.domain.ProcessRequestAction;
 import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
 import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
@@ -84,22 +83,7 @@ public class FilterNotificationsEventsHandler implements CallbackHandler {
             return false;
         }
 
-        Appointee appointeeBefore = null;
-        if (callback.getOldSscsCaseData() != null
-                && "yes".equalsIgnoreCase(callback.getOldSscsCaseData().getAppeal().getAppellant().getIsAppointee())
-                && callback.getOldSscsCaseData().getAppeal().getAppellant().getAppointee() != null) {
-            appointeeBefore = callback.getOldSscsCaseData().getAppeal().getAppellant().getAppointee();
-        }
-
-        Appointee appointeeAfter = null;
-        if ("yes".equalsIgnoreCase(callback.getNewSscsCaseData().getAppeal().getAppellant().getIsAppointee())
-                && callback.getNewSscsCaseData().getAppeal().getAppellant().getAppointee() != null) {
-            appointeeAfter = callback.getNewSscsCaseData().getAppeal().getAppellant().getAppointee();
-        }
-
-
-        return ((appointeeBefore == null && appointeeAfter != null)
-                || (appointeeBefore != null && appointeeAfter != null && !appointeeBefore.equals(appointeeAfter)));
+        return callback.getChangeSet().isAppointeeAddedOrChanged();
     }
 
     private boolean shouldHandleForHearingRoute(SscsCaseDataWrapper callback) {
@@ -0,0 +1,36 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import uk.gov.hmcts.reform.sscs.service.LetterPdfRetryScheduler;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
+
+@Configuration
+public class CorrespondenceAsyncConfig {
+
+    public static final String CORRESPONDENCE_RECORD = "correspondenceRecordExecutor";
+
+    /**
+     * Saves correspondence into CCD off the sending thread. The pool and its queue are bounded, and
+     * once both are full a save waits on the {@link LetterPdfRetryScheduler} and is handed back to the
+     * pool later, so the sending thread never runs a save and its retries itself.
+     */
+    @Bean(name = CORRESPONDENCE_RECORD)
+    public ThreadPoolTaskExecutor correspondenceRecordExecutor(LetterAsyncConfigProperties properties,
+                                                               PipelineMetrics pipelineMetrics,
+                                                               LetterPdfRetryScheduler letterPdfRetryScheduler) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("correspondence-record-");
+        executor.setCorePoolSize(Math.max(1, properties.getRecordThreads()));
+        executor.setMaxPoolSize(Math.max(1, properties.getRecordThreads()));
+        executor.setQueueCapacity(Math.max(1, properties.getRecordQueueCapacity()));
+        executor.setRejectedExecutionHandler(letterPdfRetryScheduler::deferRejectedSave);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        pipelineMetrics.registerQueue(PipelineStage.RECORD, "correspondence-record", executor.getThreadPoolExecutor().getQueue());
+        return executor;
+    }
+}
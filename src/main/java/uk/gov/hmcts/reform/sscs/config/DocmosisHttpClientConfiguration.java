@@ -0,0 +1,48 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * The HTTP client used to render PDFs with Docmosis and to check its status. Connections are kept
+ * alive in a pool and shared by renders and health checks, so neither pays for a new TLS handshake
+ * on every request, and a render stuck on a slow Docmosis times out instead of holding its thread.
+ */
+@Configuration
+public class DocmosisHttpClientConfiguration {
+
+    public static final String DOCMOSIS_REST_TEMPLATE = "docmosisRestTemplate";
+
+    @Bean(name = DOCMOSIS_REST_TEMPLATE)
+    public RestTemplate docmosisRestTemplate(@Value("${pdf-service.http.maxConnections}") int maxConnections,
+                                             @Value("${pdf-service.http.keepAliveSeconds}") long keepAliveSeconds,
+                                             @Value("${pdf-service.http.connectTimeoutMs}") long connectTimeoutMs,
+                                             @Value("${pdf-service.http.readTimeoutMs}") long readTimeoutMs,
+                                             @Value("${pdf-service.http.acquireTimeoutMs}") long acquireTimeoutMs,
+                                             MeterRegistry meterRegistry) {
+        ConnectionPool connectionPool = new ConnectionPool(maxConnections, keepAliveSeconds, TimeUnit.SECONDS);
+        Gauge.builder("docmosis.http.connections", connectionPool, ConnectionPool::connectionCount)
+            .register(meterRegistry);
+        Gauge.builder("docmosis.http.connections.idle", connectionPool, ConnectionPool::idleConnectionCount)
+            .register(meterRegistry);
+
+        OkHttpClient client = new OkHttpClient.Builder()
+            .connectionPool(connectionPool)
+            .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+            .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+            .build();
+
+        RestTemplate restTemplate = new RestTemplate(new OkHttp3ClientHttpRequestFactory(client));
+        restTemplate.getInterceptors().add(
+            new DocmosisRequestMetrics(maxConnections, acquireTimeoutMs, meterRegistry));
+        return restTemplate;
+    }
+}
@@ -0,0 +1,142 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Times every request to Docmosis and counts those in flight. OkHttp only bounds the idle
+ * connections it keeps for blocking calls, so requests past the connection limit, which is shared by
+ * every Docmosis host, wait here for one to finish and fail once they have waited the acquire timeout.
+ */
+class DocmosisRequestMetrics implements ClientHttpRequestInterceptor {
+
+    private final Semaphore connections;
+    private final long acquireTimeoutMs;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight;
+
+    DocmosisRequestMetrics(int maxConnections, long acquireTimeoutMs, MeterRegistry meterRegistry) {
+        this.connections = new Semaphore(maxConnections, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.meterRegistry = meterRegistry;
+        this.inFlight = meterRegistry.gauge("docmosis.http.requests.active", new AtomicInteger());
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+        throws IOException {
+        acquireConnection();
+        InFlightRequest inFlightRequest = new InFlightRequest(request);
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            inFlightRequest.finish("IO_ERROR");
+            throw e;
+        }
+        try {
+            return inFlightRequest.responded(response);
+        } catch (IOException | RuntimeException e) {
+            // the caller never sees this response, so it would never close it
+            response.close();
+            inFlightRequest.finish("IO_ERROR");
+            throw e;
+        }
+    }
+
+    private void acquireConnection() throws IOException {
+        try {
+            if (!connections.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out waiting for a connection to Docmosis after " + acquireTimeoutMs + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection to Docmosis");
+        }
+    }
+
+    private Timer requestTimer(HttpRequest request, String outcome) {
+        return Timer.builder("docmosis.http.requests")
+            .tags("operation", StringUtils.substringAfterLast(request.getURI().getPath(), "/"),
+                "method", request.getMethodValue(),
+                "outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * A request holds its connection until the response body has been read and closed.
+     */
+    private class InFlightRequest {
+        private final HttpRequest request;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        InFlightRequest(HttpRequest request) {
+            this.request = request;
+            inFlight.incrementAndGet();
+        }
+
+        ClientHttpResponse responded(ClientHttpResponse response) throws IOException {
+            HttpStatus.Series series = HttpStatus.Series.resolve(response.getRawStatusCode());
+            String outcome = series == null ? "UNKNOWN" : series.name();
+            return new ClientHttpResponse() {
+                @Override
+                public HttpStatus getStatusCode() throws IOException {
+                    return response.getStatusCode();
+                }
+
+                @Override
+                public int getRawStatusCode() throws IOException {
+                    return response.getRawStatusCode();
+                }
+
+                @Override
+                public String getStatusText() throws IOException {
+                    return response.getStatusText();
+                }
+
+                @Override
+                public HttpHeaders getHeaders() {
+                    return response.getHeaders();
+                }
+
+                @Override
+                public InputStream getBody() throws IOException {
+                    return response.getBody();
+                }
+
+                @Override
+                public void close() {
+                    try {
+                        response.close();
+                    } finally {
+                        finish(outcome);
+                    }
+                }
+            };
+        }
+
+        void finish(String outcome) {
+            if (finished.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                connections.release();
+                requestTimer(request, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
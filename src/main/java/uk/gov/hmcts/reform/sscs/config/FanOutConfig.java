@@ -0,0 +1,37 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.gov.hmcts.reform.sscs.service.pipeline.FanOutExecutor;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
+
+@Configuration
+public class FanOutConfig {
+
+    public static final String RECIPIENT_FAN_OUT = "recipientFanOutExecutor";
+    public static final String CHANNEL_FAN_OUT = "channelFanOutExecutor";
+    public static final String LETTER_ASSEMBLY_FAN_OUT = "letterAssemblyFanOutExecutor";
+
+    @Bean(name = RECIPIENT_FAN_OUT, destroyMethod = "shutdown")
+    public FanOutExecutor recipientFanOutExecutor(@Value("${pipeline.fanOut.recipients.threads}") int threads,
+                                                  @Value("${pipeline.fanOut.recipients.queueCapacity}") int queueCapacity,
+                                                  PipelineMetrics pipelineMetrics) {
+        return new FanOutExecutor("recipient-fan-out", threads, queueCapacity, PipelineStage.PERSONALISE, pipelineMetrics);
+    }
+
+    @Bean(name = CHANNEL_FAN_OUT, destroyMethod = "shutdown")
+    public FanOutExecutor channelFanOutExecutor(@Value("${pipeline.fanOut.channels.threads}") int threads,
+                                                @Value("${pipeline.fanOut.channels.queueCapacity}") int queueCapacity,
+                                                PipelineMetrics pipelineMetrics) {
+        return new FanOutExecutor("channel-fan-out", threads, queueCapacity, PipelineStage.SEND, pipelineMetrics);
+    }
+
+    @Bean(name = LETTER_ASSEMBLY_FAN_OUT, destroyMethod = "shutdown")
+    public FanOutExecutor letterAssemblyFanOutExecutor(@Value("${pipeline.fanOut.letterAssembly.threads}") int threads,
+                                                       @Value("${pipeline.fanOut.letterAssembly.queueCapacity}") int queueCapacity,
+                                                       PipelineMetrics pipelineMetrics) {
+        return new FanOutExecutor("letter-assembly-fan-out", threads, queueCapacity, PipelineStage.RENDER, pipelineMetrics);
+    }
+}
@@ -1,5 +1,6 @@
 package uk.gov.hmcts.reform.sscs.config;
 
+import java.util.concurrent.ThreadLocalRandom;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -15,4 +16,20 @@ public class LetterAsyncConfigProperties {
     private double multiplier;
     private long maxDelay;
     private long initialDelay;
+    private int threads;
+    private int maxPending;
+    private int maxPendingSaves;
+    private int recordThreads;
+    private int recordQueueCapacity;
+
+    /**
+     * The wait after a failed attempt to fetch a letter PDF: the delay grown by the multiplier for each
+     * earlier attempt, then stretched by up to another multiple at random so letters sent together are
+     * not fetched together, and capped at the max delay.
+     */
+    public long backoffAfterAttempt(int attempt) {
+        double grown = delay * Math.pow(multiplier, attempt - 1.0);
+        double jittered = grown * (1 + ThreadLocalRandom.current().nextDouble() * Math.max(0, multiplier - 1));
+        return (long) (maxDelay > 0 ? Math.min(jittered, maxDelay) : jittered);
+    }
 }
@@ -11,6 +11,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 import uk.gov.hmcts.reform.sscs.ccd.domain.*;
+import uk.gov.hmcts.reform.sscs.config.NotificationTemplateIndex.Channel;
 import uk.gov.hmcts.reform.sscs.domain.notify.Link;
 import uk.gov.hmcts.reform.sscs.domain.notify.Template;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
@@ -43,10 +44,17 @@ public class NotificationConfig {
     @Value("${helpline.telephoneScotland}")
     private String helplineTelephoneScotland;
 
-    private Environment env;
+    private final NotificationTemplateIndex templateIndex;
+    private final Map<Benefit, String> smsSenderTemplateIds = new EnumMap<>(Benefit.class);
 
     NotificationConfig(@Autowired Environment env) {
-        this.env = env;
+        this.templateIndex = NotificationTemplateIndex.compile(env);
+        for (Benefit benefit : Benefit.values()) {
+            String smsSender = env.getProperty("smsSender." + benefit.toString().toLowerCase(Locale.ENGLISH));
+            if (smsSender != null) {
+                smsSenderTemplateIds.put(benefit, smsSender);
+            }
+        }
     }
 
     public Link getManageEmailsLink() {
@@ -110,17 +118,17 @@ public class NotificationConfig {
             .map(SchedulingAndListingFields::getHearingRoute)
             .orElse(null);
 
-        String docmosisTemplateId = getTemplateId(appealHearingType, hearingRoute, docmosisTemplateName, "docmosisId", languagePreference);
+        String docmosisTemplateId = getTemplateId(appealHearingType, hearingRoute, docmosisTemplateName, Channel.DOCMOSIS, languagePreference);
         if (StringUtils.isNotBlank(docmosisTemplateId)) {
             if (docmosisTemplateName.split("\\.")[0].equals("appealReceived") && !State.READY_TO_LIST.getId().equals(createdInGapsFrom)) {
                 docmosisTemplateId = null;
             }
         }
         return Template.builder()
-            .emailTemplateId(getTemplateId(appealHearingType, hearingRoute, emailTemplateName, "emailId", languagePreference))
-            .smsTemplateId(getSmsTemplates(appealHearingType, hearingRoute, smsTemplateName, "smsId",languagePreference))
-            .smsSenderTemplateId(benefit == null ? "" : env.getProperty("smsSender." + benefit.toString().toLowerCase(Locale.ENGLISH)))
-            .letterTemplateId(getTemplateId(appealHearingType, hearingRoute, letterTemplateName, "letterId",languagePreference))
+            .emailTemplateId(getTemplateId(appealHearingType, hearingRoute, emailTemplateName, Channel.EMAIL, languagePreference))
+            .smsTemplateId(getSmsTemplates(appealHearingType, hearingRoute, smsTemplateName, Channel.SMS, languagePreference))
+            .smsSenderTemplateId(benefit == null ? "" : smsSenderTemplateIds.get(benefit))
+            .letterTemplateId(getTemplateId(appealHearingType, hearingRoute, letterTemplateName, Channel.LETTER, languagePreference))
             .docmosisTemplateId(docmosisTemplateId)
             .build();
     }
@@ -133,7 +141,7 @@ public class NotificationConfig {
     }
 
     private List<String> getSmsTemplates(@NotNull AppealHearingType appealHearingType, HearingRoute hearingRoute, String smsTemplateName,
-                                         final String notificationType, LanguagePreference languagePreference) {
+                                         final Channel notificationType, LanguagePreference languagePreference) {
         return Optional.ofNullable(getTemplateId(appealHearingType, hearingRoute, smsTemplateName, notificationType, languagePreference)).map(value -> {
             List<String> ids = new ArrayList<>();
             ids.add(value);
@@ -145,28 +153,8 @@ public class NotificationConfig {
     }
 
     private String getTemplateId(@NotNull AppealHearingType appealHearingType, HearingRoute hearingRoute, String templateName,
-                                 final String notificationType, LanguagePreference languagePreference) {
-        String hearingTypeName = appealHearingType.name().toLowerCase(Locale.ENGLISH);
-        String hearingRouteName = hearingRoute == null ? "" : hearingRoute.toString();
-
-        String name;
-        String templateId = null;
-
-        if (!hearingRouteName.isEmpty()) {
-            name = "notification." + languagePreference.getCode() + "." + hearingRouteName + "." + hearingTypeName + "." + templateName + "."
-                + notificationType;
-            templateId = env.getProperty(name);
-        }
-        if (templateId == null) {
-            name = "notification." + languagePreference.getCode() + "." + hearingTypeName + "." + templateName + "."
-                + notificationType;
-            templateId = env.getProperty(name);
-        }
-        if (templateId == null) {
-            name = "notification." + languagePreference.getCode() + "." + templateName + "." + notificationType;
-            templateId = env.getProperty(name);
-        }
-        return StringUtils.stripToNull(templateId);
+                                 final Channel notificationType, LanguagePreference languagePreference) {
+        return templateIndex.getTemplateId(languagePreference, hearingRoute, appealHearingType, templateName, notificationType);
     }
 
 }
@@ -0,0 +1,51 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import uk.gov.hmcts.reform.sscs.ccd.callback.DocumentType;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+
+/**
+ * What is decided about a notification from its type alone. Built once for every type by
+ * {@link NotificationDecisionTable}.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class NotificationDecision {
+
+    public enum PersonalisationKind {
+        SYA_APPEAL_CREATED_AND_RECEIVED,
+        WITH_REPRESENTATIVE,
+        SUBSCRIPTION,
+        ACTION_FURTHER_EVIDENCE,
+        DEFAULT
+    }
+
+    private final NotificationEventType notificationEventType;
+    private final PersonalisationKind personalisationKind;
+    /**
+     * The type this notification is sent as instead, or null if it is sent as itself.
+     */
+    private final NotificationEventType overrideType;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, NotificationEventType> overrideTypesByReissuedDocument;
+    /**
+     * The document sent with a bundled letter, or null if there is none.
+     */
+    private final DocumentType bundledDocumentType;
+    private final boolean welshBundledDocument;
+    private final boolean bundledLetter;
+    private final boolean mandatoryLetter;
+    private final boolean docmosisLetter;
+    private final boolean interlocLetter;
+
+    /**
+     * The type a reissued document of this code is sent as, or null if reissuing it does not change
+     * the notification.
+     */
+    public NotificationEventType getOverrideTypeForReissuedDocument(String reissuedDocumentCode) {
+        return reissuedDocumentCode == null ? null : overrideTypesByReissuedDocument.get(reissuedDocumentCode);
+    }
+}
@@ -0,0 +1,184 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.DOCMOSIS_LETTERS;
+import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENTS_FOR_ACTION_FURTHER_EVIDENCE;
+import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENTS_FOR_REPRESENTATIVE_PERSONALISATION;
+import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENTS_FOR_SYA_PERSONALISATION;
+import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENT_TYPES_FOR_BUNDLED_LETTER;
+import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENT_TYPES_FOR_INTERLOC_LETTERS;
+import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENT_TYPES_FOR_MANDATORY_LETTERS;
+import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.*;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.hmcts.reform.sscs.ccd.callback.DocumentType;
+import uk.gov.hmcts.reform.sscs.ccd.domain.EventType;
+import uk.gov.hmcts.reform.sscs.config.NotificationDecision.PersonalisationKind;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+
+/**
+ * The {@link NotificationDecision} for every notification type, compiled once from the sets in
+ * {@link NotificationEventTypeLists} and the tables below, so sending a notification looks its
+ * decision up rather than walking the sets and if/else chains again. The table is checked when it
+ * is compiled, and a table that contradicts itself fails the application at startup.
+ */
+@Slf4j
+public final class NotificationDecisionTable {
+
+    private static final Map<NotificationEventType, NotificationEventType> OVERRIDE_TYPES = new EnumMap<>(Map.of(
+        DRAFT_TO_VALID_APPEAL_CREATED, VALID_APPEAL_CREATED,
+        DRAFT_TO_NON_COMPLIANT, NON_COMPLIANT
+    ));
+
+    private static final Set<NotificationEventType> REISSUABLE_DOCUMENT_TYPES = EnumSet.of(
+        ISSUE_FINAL_DECISION,
+        ISSUE_FINAL_DECISION_WELSH,
+        DECISION_ISSUED,
+        DECISION_ISSUED_WELSH,
+        DIRECTION_ISSUED,
+        DIRECTION_ISSUED_WELSH,
+        ISSUE_ADJOURNMENT_NOTICE,
+        ISSUE_ADJOURNMENT_NOTICE_WELSH
+    );
+
+    private static final Map<NotificationEventType, DocumentType> BUNDLED_DOCUMENT_TYPES = bundledDocumentTypes();
+
+    // A Welsh adjournment notice is sent with the latest adjournment notice, whatever its language.
+    private static final Set<NotificationEventType> WELSH_BUNDLED_DOCUMENTS = EnumSet.of(
+        ACTION_POSTPONEMENT_REQUEST_WELSH,
+        DECISION_ISSUED_WELSH,
+        DIRECTION_ISSUED_WELSH,
+        ISSUE_FINAL_DECISION_WELSH,
+        PROCESS_AUDIO_VIDEO_WELSH
+    );
+
+    private static final Map<NotificationEventType, NotificationDecision> DECISIONS = compile();
+
+    private NotificationDecisionTable() {
+    }
+
+    /**
+     * The decision for a notification type. A missing type is decided as {@link NotificationEventType#DO_NOT_SEND}.
+     */
+    public static NotificationDecision decisionFor(NotificationEventType notificationEventType) {
+        return DECISIONS.get(notificationEventType == null ? DO_NOT_SEND : notificationEventType);
+    }
+
+    /**
+     * Checks the compiled table again; {@link NotificationDecisionTableCheck} calls it at startup.
+     */
+    public static void check() {
+        check(DECISIONS);
+    }
+
+    private static Map<NotificationEventType, NotificationDecision> compile() {
+        Map<String, NotificationEventType> overrideTypesByReissuedDocument = new HashMap<>();
+        for (NotificationEventType reissuableDocumentType : REISSUABLE_DOCUMENT_TYPES) {
+            overrideTypesByReissuedDocument.put(reissuableDocumentType.getEvent().getCcdType(), reissuableDocumentType);
+        }
+        Map<String, NotificationEventType> reissuedDocumentOverrides = Collections.unmodifiableMap(overrideTypesByReissuedDocument);
+
+        Map<NotificationEventType, NotificationDecision> decisions = new EnumMap<>(NotificationEventType.class);
+        for (NotificationEventType notificationEventType : NotificationEventType.values()) {
+            decisions.put(notificationEventType, new NotificationDecision(
+                notificationEventType,
+                personalisationKind(notificationEventType),
+                OVERRIDE_TYPES.get(notificationEventType),
+                REISSUE_DOCUMENT.equals(notificationEventType) ? reissuedDocumentOverrides : Collections.emptyMap(),
+                BUNDLED_DOCUMENT_TYPES.get(notificationEventType),
+                WELSH_BUNDLED_DOCUMENTS.contains(notificationEventType),
+                EVENT_TYPES_FOR_BUNDLED_LETTER.contains(notificationEventType),
+                EVENT_TYPES_FOR_MANDATORY_LETTERS.contains(notificationEventType),
+                DOCMOSIS_LETTERS.contains(notificationEventType),
+                EVENT_TYPES_FOR_INTERLOC_LETTERS.contains(notificationEventType)));
+        }
+        check(decisions);
+        log.info("Compiled {} notification decisions", decisions.size());
+        return Collections.unmodifiableMap(decisions);
+    }
+
+    private static PersonalisationKind personalisationKind(NotificationEventType notificationEventType) {
+        if (EVENTS_FOR_SYA_PERSONALISATION.contains(notificationEventType)) {
+            return PersonalisationKind.SYA_APPEAL_CREATED_AND_RECEIVED;
+        } else if (EVENTS_FOR_REPRESENTATIVE_PERSONALISATION.contains(notificationEventType)) {
+            return PersonalisationKind.WITH_REPRESENTATIVE;
+        } else if (SUBSCRIPTION_UPDATED.equals(notificationEventType)) {
+            return PersonalisationKind.SUBSCRIPTION;
+        } else if (EVENTS_FOR_ACTION_FURTHER_EVIDENCE.contains(notificationEventType)) {
+            return PersonalisationKind.ACTION_FURTHER_EVIDENCE;
+        }
+        return PersonalisationKind.DEFAULT;
+    }
+
+    private static Map<NotificationEventType, DocumentType> bundledDocumentTypes() {
+        Map<NotificationEventType, DocumentType> documentTypes = new EnumMap<>(NotificationEventType.class);
+        documentTypes.put(ACTION_POSTPONEMENT_REQUEST, DocumentType.POSTPONEMENT_REQUEST_DIRECTION_NOTICE);
+        documentTypes.put(ACTION_POSTPONEMENT_REQUEST_WELSH, DocumentType.POSTPONEMENT_REQUEST_DIRECTION_NOTICE);
+        documentTypes.put(ADMIN_CORRECTION_HEADER, DocumentType.CORRECTED_DECISION_NOTICE);
+        documentTypes.put(CORRECTION_GRANTED, DocumentType.CORRECTION_GRANTED);
+        documentTypes.put(CORRECTION_REFUSED, DocumentType.CORRECTION_REFUSED);
+        documentTypes.put(DECISION_ISSUED, DocumentType.DECISION_NOTICE);
+        documentTypes.put(DECISION_ISSUED_WELSH, DocumentType.DECISION_NOTICE);
+        documentTypes.put(DIRECTION_ISSUED, DocumentType.DIRECTION_NOTICE);
+        documentTypes.put(DIRECTION_ISSUED_WELSH, DocumentType.DIRECTION_NOTICE);
+        documentTypes.put(ISSUE_ADJOURNMENT_NOTICE, DocumentType.ADJOURNMENT_NOTICE);
+        documentTypes.put(ISSUE_ADJOURNMENT_NOTICE_WELSH, DocumentType.ADJOURNMENT_NOTICE);
+        documentTypes.put(ISSUE_FINAL_DECISION, DocumentType.FINAL_DECISION_NOTICE);
+        documentTypes.put(ISSUE_FINAL_DECISION_WELSH, DocumentType.FINAL_DECISION_NOTICE);
+        documentTypes.put(LIBERTY_TO_APPLY_GRANTED, DocumentType.LIBERTY_TO_APPLY_GRANTED);
+        documentTypes.put(LIBERTY_TO_APPLY_REFUSED, DocumentType.LIBERTY_TO_APPLY_REFUSED);
+        documentTypes.put(PERMISSION_TO_APPEAL_GRANTED, DocumentType.PERMISSION_TO_APPEAL_GRANTED);
+        documentTypes.put(PERMISSION_TO_APPEAL_REFUSED, DocumentType.PERMISSION_TO_APPEAL_REFUSED);
+        documentTypes.put(PROCESS_AUDIO_VIDEO, DocumentType.AUDIO_VIDEO_EVIDENCE_DIRECTION_NOTICE);
+        documentTypes.put(PROCESS_AUDIO_VIDEO_WELSH, DocumentType.AUDIO_VIDEO_EVIDENCE_DIRECTION_NOTICE);
+        documentTypes.put(REVIEW_AND_SET_ASIDE, DocumentType.REVIEW_AND_SET_ASIDE);
+        documentTypes.put(SET_ASIDE_GRANTED, DocumentType.SET_ASIDE_GRANTED);
+        documentTypes.put(SET_ASIDE_REFUSED, DocumentType.SET_ASIDE_REFUSED);
+        documentTypes.put(SOR_EXTEND_TIME, DocumentType.STATEMENT_OF_REASONS_GRANTED);
+        documentTypes.put(SOR_REFUSED, DocumentType.STATEMENT_OF_REASONS_REFUSED);
+        return documentTypes;
+    }
+
+    static void check(Map<NotificationEventType, NotificationDecision> decisions) {
+        for (NotificationEventType notificationEventType : NotificationEventType.values()) {
+            NotificationDecision decision = decisions.get(notificationEventType);
+            if (decision == null || decision.getNotificationEventType() != notificationEventType) {
+                throw new IllegalStateException("No notification decision for " + notificationEventType);
+            }
+            if (decision.isBundledLetter() && decision.getBundledDocumentType() == null) {
+                throw new IllegalStateException("Bundled letter " + notificationEventType + " has no document to bundle");
+            }
+            if (decision.isWelshBundledDocument() && decision.getBundledDocumentType() == null) {
+                throw new IllegalStateException("Welsh bundled document set for " + notificationEventType + " without a document");
+            }
+            if (decision.getOverrideType() != null) {
+                checkOverride(decisions, notificationEventType, decision.getOverrideType());
+            }
+        }
+        for (NotificationEventType reissuableDocumentType : REISSUABLE_DOCUMENT_TYPES) {
+            EventType event = reissuableDocumentType.getEvent();
+            NotificationEventType overrideType = event == null ? null
+                : decisions.get(REISSUE_DOCUMENT).getOverrideTypeForReissuedDocument(event.getCcdType());
+            if (overrideType != reissuableDocumentType) {
+                throw new IllegalStateException("Reissued " + reissuableDocumentType + " is not sent as itself");
+            }
+            checkOverride(decisions, REISSUE_DOCUMENT, overrideType);
+            if (!decisions.get(overrideType).isBundledLetter()) {
+                throw new IllegalStateException("Reissued " + overrideType + " is not a bundled letter");
+            }
+        }
+    }
+
+    private static void checkOverride(Map<NotificationEventType, NotificationDecision> decisions,
+                                      NotificationEventType notificationEventType, NotificationEventType overrideType) {
+        if (overrideType == DO_NOT_SEND || decisions.get(overrideType).getOverrideType() != null) {
+            throw new IllegalStateException(notificationEventType + " is overridden by " + overrideType
+                + ", which is not sent as itself");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import javax.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compiles and checks the {@link NotificationDecisionTable} while the application starts, so a table
+ * that contradicts itself fails startup rather than the first notification that looks a decision up.
+ */
+@Component
+public class NotificationDecisionTableCheck {
+
+    @PostConstruct
+    public void check() {
+        NotificationDecisionTable.check();
+    }
+}
@@ -78,6 +78,14 @@ public final class NotificationEventTypeLists {
         BUNDLE_CREATED_FOR_UPPER_TRIBUNAL
     );
 
+    // handled by FilterNotificationsEventsHandler only when the case data meets extra conditions
+    public static final Set<NotificationEventType> EVENTS_TO_HANDLE_CONDITIONALLY = EnumSet.of(
+        ACTION_POSTPONEMENT_REQUEST,
+        DEATH_OF_APPELLANT,
+        HEARING_BOOKED,
+        PROVIDE_APPOINTEE_DETAILS
+    );
+
     public static final Set<NotificationEventType> EVENT_TYPES_FOR_DORMANT_CASES = EnumSet.of(
         ACTION_HEARING_RECORDING_REQUEST,
         ADMIN_APPEAL_WITHDRAWN,
@@ -0,0 +1,21 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "notification-outbox")
+@Getter
+@Setter
+public class NotificationOutboxConfigProperties {
+    private int workers;
+    private int batchSize;
+    private long pollIntervalMs;
+    private int maxBatchesPerPoll;
+    private long leaseSeconds;
+    private int maxAttempts;
+    private long retryDelaySeconds;
+    private long retentionHours;
+}
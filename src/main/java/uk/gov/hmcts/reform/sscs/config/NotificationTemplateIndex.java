@@ -0,0 +1,180 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+import uk.gov.hmcts.reform.sscs.ccd.domain.HearingRoute;
+import uk.gov.hmcts.reform.sscs.ccd.domain.LanguagePreference;
+
+/**
+ * The template ids under {@code notification.*}, read once at startup. A template can be set for a
+ * hearing route and hearing type, for a hearing type, or for every case, and the most specific one
+ * set for a case is used: {@code notification.<language>.[<route>.<hearing type>.|<hearing type>.]<template name>.<channel>}.
+ * A blank template id is kept, so a hearing route or hearing type can switch a notification off
+ * rather than fall back to the template for every case. A property under {@code notification.}
+ * that does not name a known language and channel is logged and left out.
+ */
+@Slf4j
+public final class NotificationTemplateIndex {
+
+    static final String PREFIX = "notification.";
+
+    public enum Channel {
+        EMAIL("emailId"),
+        SMS("smsId"),
+        LETTER("letterId"),
+        DOCMOSIS("docmosisId");
+
+        private final String key;
+
+        Channel(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        static Channel fromKey(String key) {
+            return Arrays.stream(values()).filter(channel -> channel.key.equals(key)).findFirst().orElse(null);
+        }
+    }
+
+    private final Map<LanguagePreference, Map<Channel, Map<String, TemplateIds>>> templates;
+    private final int size;
+
+    private NotificationTemplateIndex(Map<LanguagePreference, Map<Channel, Map<String, TemplateIds>>> templates, int size) {
+        this.templates = templates;
+        this.size = size;
+    }
+
+    public static NotificationTemplateIndex compile(Environment env) {
+        if (!(env instanceof ConfigurableEnvironment)) {
+            throw new IllegalStateException("Notification templates can only be read from a ConfigurableEnvironment");
+        }
+        TreeSet<String> names = new TreeSet<>();
+        for (PropertySource<?> propertySource : ((ConfigurableEnvironment) env).getPropertySources()) {
+            if (propertySource instanceof EnumerablePropertySource) {
+                for (String name : ((EnumerablePropertySource<?>) propertySource).getPropertyNames()) {
+                    if (name.startsWith(PREFIX)) {
+                        names.add(name);
+                    }
+                }
+            }
+        }
+
+        Map<LanguagePreference, Map<Channel, Map<String, TemplateIds>>> templates = new EnumMap<>(LanguagePreference.class);
+        int size = 0;
+        for (String name : names) {
+            if (add(templates, name, StringUtils.stripToEmpty(env.getProperty(name)))) {
+                size++;
+            } else {
+                log.warn("Ignoring {}, notification templates must be notification.<english|welsh>.[<hearing route>.][<hearing type>.]"
+                    + "<template name>.<emailId|smsId|letterId|docmosisId>", name);
+            }
+        }
+        log.info("Compiled {} notification templates", size);
+        return new NotificationTemplateIndex(templates, size);
+    }
+
+    /**
+     * The template id for the most specific of hearing route and hearing type, hearing type, or every
+     * case, or null if none is set or the most specific one set is blank.
+     */
+    public String getTemplateId(LanguagePreference languagePreference, HearingRoute hearingRoute,
+                                AppealHearingType appealHearingType, String templateName, Channel channel) {
+        Map<Channel, Map<String, TemplateIds>> byChannel = templates.get(languagePreference);
+        Map<String, TemplateIds> byName = byChannel == null ? null : byChannel.get(channel);
+        TemplateIds templateIds = byName == null || templateName == null ? null : byName.get(templateName);
+        return templateIds == null ? null : templateIds.get(hearingRoute, appealHearingType);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean add(Map<LanguagePreference, Map<Channel, Map<String, TemplateIds>>> templates,
+                               String name, String templateId) {
+        String[] parts = name.substring(PREFIX.length()).split("\\.");
+        LanguagePreference languagePreference = parts.length < 3 ? null : languagePreference(parts[0]);
+        Channel channel = parts.length < 3 ? null : Channel.fromKey(parts[parts.length - 1]);
+        if (languagePreference == null || channel == null) {
+            return false;
+        }
+
+        int last = parts.length - 1;
+        HearingRoute hearingRoute = last > 3 ? hearingRoute(parts[1]) : null;
+        AppealHearingType appealHearingType = hearingRoute != null ? appealHearingType(parts[2]) : null;
+        if (hearingRoute == null || appealHearingType == null) {
+            hearingRoute = null;
+            appealHearingType = last > 2 ? appealHearingType(parts[1]) : null;
+        }
+        int templateNameStart = hearingRoute != null ? 3 : appealHearingType != null ? 2 : 1;
+        String templateName = String.join(".", Arrays.copyOfRange(parts, templateNameStart, last));
+
+        templates.computeIfAbsent(languagePreference, key -> new EnumMap<>(Channel.class))
+            .computeIfAbsent(channel, key -> new HashMap<>())
+            .computeIfAbsent(templateName, key -> new TemplateIds())
+            .put(hearingRoute, appealHearingType, templateId);
+        return true;
+    }
+
+    private static LanguagePreference languagePreference(String code) {
+        return Arrays.stream(LanguagePreference.values())
+            .filter(languagePreference -> languagePreference.getCode().equals(code))
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static HearingRoute hearingRoute(String name) {
+        return Arrays.stream(HearingRoute.values())
+            .filter(hearingRoute -> hearingRoute.toString().equals(name))
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static AppealHearingType appealHearingType(String name) {
+        return Arrays.stream(AppealHearingType.values())
+            .filter(appealHearingType -> appealHearingType.name().toLowerCase(Locale.ENGLISH).equals(name))
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static class TemplateIds {
+        private String everyCase;
+        private final Map<AppealHearingType, String> byHearingType = new EnumMap<>(AppealHearingType.class);
+        private final Map<HearingRoute, Map<AppealHearingType, String>> byHearingRoute = new EnumMap<>(HearingRoute.class);
+
+        void put(HearingRoute hearingRoute, AppealHearingType appealHearingType, String templateId) {
+            if (hearingRoute != null) {
+                byHearingRoute.computeIfAbsent(hearingRoute, key -> new EnumMap<>(AppealHearingType.class))
+                    .put(appealHearingType, templateId);
+            } else if (appealHearingType != null) {
+                byHearingType.put(appealHearingType, templateId);
+            } else {
+                everyCase = templateId;
+            }
+        }
+
+        String get(HearingRoute hearingRoute, AppealHearingType appealHearingType) {
+            String templateId = null;
+            if (hearingRoute != null && appealHearingType != null) {
+                templateId = byHearingRoute.getOrDefault(hearingRoute, Collections.emptyMap()).get(appealHearingType);
+            }
+            if (templateId == null && appealHearingType != null) {
+                templateId = byHearingType.get(appealHearingType);
+            }
+            return StringUtils.stripToNull(templateId != null ? templateId : everyCase);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "gov.uk.notification.api.rate-limit")
+@Getter
+@Setter
+public class NotifyRateLimitConfigProperties {
+    /**
+     * Emails and SMS per second allowed for each API key. Zero or less sends without limiting.
+     */
+    private double messagesPerSecond;
+    /**
+     * Letters and precompiled letters per second allowed for each API key. Zero or less sends without limiting.
+     */
+    private double lettersPerSecond;
+    private long maxWaitMs;
+}
@@ -0,0 +1,19 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "pending-letters")
+@Getter
+@Setter
+public class PendingLetterConfigProperties {
+    private int workers;
+    private int batchSize;
+    private long pollIntervalMs;
+    private int maxBatchesPerPoll;
+    private long leaseSeconds;
+    private long retentionHours;
+}
@@ -0,0 +1,18 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "amqp.consumer")
+@Getter
+@Setter
+public class TopicConsumerConfigProperties {
+    /**
+     * Number of case-sharded workers. Zero keeps processing on the JMS listener thread.
+     */
+    private int workers;
+    private int queueDepth;
+}
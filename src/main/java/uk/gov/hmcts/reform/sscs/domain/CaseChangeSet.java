@@ -0,0 +1,185 @@
+package uk.gov.hmcts.reform.sscs.domain;
+
+import static java.util.Objects.nonNull;
+import static org.apache.commons.collections4.ListUtils.emptyIfNull;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Appeal;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Appellant;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Appointee;
+import uk.gov.hmcts.reform.sscs.ccd.domain.DatedRequestOutcome;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Hearing;
+import uk.gov.hmcts.reform.sscs.ccd.domain.HearingDetails;
+import uk.gov.hmcts.reform.sscs.ccd.domain.HearingRecordingRequest;
+import uk.gov.hmcts.reform.sscs.ccd.domain.RequestOutcome;
+import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
+import uk.gov.hmcts.reform.sscs.ccd.domain.SscsHearingRecordingCaseData;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Subscription;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Subscriptions;
+import uk.gov.hmcts.reform.sscs.config.SubscriptionType;
+import uk.gov.hmcts.reform.sscs.model.PartyItemList;
+
+/**
+ * What an event changed on the case, worked out in one pass over the case before and after it, so
+ * the rules deciding whether and to whom to notify read the change rather than each comparing the
+ * two cases again. A missing case before the event is treated as an empty one, and a missing case
+ * after it as one that changed nothing.
+ */
+public final class CaseChangeSet {
+
+    private final SscsCaseData oldSscsCaseData;
+    private final SscsCaseData newSscsCaseData;
+    private final boolean appointeeAddedOrChanged;
+    private final Map<SubscriptionType, Subscription> subscriptionsBefore;
+    private final List<HearingRecordingRequest> newReleasedHearingRecordings;
+    private final boolean newConfidentialityOutcomeForAppellant;
+    private final boolean newConfidentialityOutcomeForJointParty;
+    private volatile Boolean latestHearingUnchanged;
+
+    private CaseChangeSet(SscsCaseData oldSscsCaseData, SscsCaseData newSscsCaseData) {
+        this.oldSscsCaseData = oldSscsCaseData;
+        this.newSscsCaseData = newSscsCaseData;
+        this.appointeeAddedOrChanged = isAppointeeAddedOrChanged(appointee(oldSscsCaseData), appointee(newSscsCaseData));
+        this.subscriptionsBefore = subscriptions(oldSscsCaseData);
+        this.newReleasedHearingRecordings = newReleasedHearingRecordings(oldSscsCaseData, newSscsCaseData);
+        this.newConfidentialityOutcomeForAppellant = nonNull(oldSscsCaseData) && nonNull(newSscsCaseData)
+            && isNewRequestOutcome(oldSscsCaseData.getConfidentialityRequestOutcomeAppellant(),
+                newSscsCaseData.getConfidentialityRequestOutcomeAppellant());
+        this.newConfidentialityOutcomeForJointParty = nonNull(oldSscsCaseData) && nonNull(newSscsCaseData)
+            && isNewRequestOutcome(oldSscsCaseData.getConfidentialityRequestOutcomeJointParty(),
+                newSscsCaseData.getConfidentialityRequestOutcomeJointParty());
+    }
+
+    public static CaseChangeSet between(SscsCaseData oldSscsCaseData, SscsCaseData newSscsCaseData) {
+        return new CaseChangeSet(oldSscsCaseData, newSscsCaseData);
+    }
+
+    boolean isFor(SscsCaseData oldSscsCaseData, SscsCaseData newSscsCaseData) {
+        return this.oldSscsCaseData == oldSscsCaseData && this.newSscsCaseData == newSscsCaseData;
+    }
+
+    /**
+     * Whether the appellant has an appointee they did not have before, or a different one.
+     */
+    public boolean isAppointeeAddedOrChanged() {
+        return appointeeAddedOrChanged;
+    }
+
+    /**
+     * The subscription of this type before the event, as it was stored on the case.
+     */
+    public Subscription getSubscriptionBefore(SubscriptionType subscriptionType) {
+        return subscriptionsBefore.get(subscriptionType);
+    }
+
+    public List<HearingRecordingRequest> getNewReleasedHearingRecordings() {
+        return newReleasedHearingRecordings;
+    }
+
+    public boolean hasNewReleasedHearingRecordingFor(PartyItemList partyItemList) {
+        return newReleasedHearingRecordings.stream()
+            .anyMatch(recording -> partyItemList.getCode().equals(recording.getValue().getRequestingParty()));
+    }
+
+    public boolean hasNewConfidentialityOutcomeForAppellant() {
+        return newConfidentialityOutcomeForAppellant;
+    }
+
+    public boolean hasNewConfidentialityOutcomeForJointParty() {
+        return newConfidentialityOutcomeForJointParty;
+    }
+
+    /**
+     * Whether the latest hearing is the one that was booked before, at the same time, venue and channel.
+     * Only hearing events ask, so it is worked out on first use.
+     */
+    public boolean isLatestHearingUnchanged() {
+        Boolean unchanged = latestHearingUnchanged;
+        if (unchanged == null) {
+            unchanged = nonNull(oldSscsCaseData) && nonNull(newSscsCaseData)
+                && isSameHearing(oldSscsCaseData.getLatestHearing(), newSscsCaseData.getLatestHearing());
+            latestHearingUnchanged = unchanged;
+        }
+        return unchanged;
+    }
+
+    private static Appointee appointee(SscsCaseData sscsCaseData) {
+        return Optional.ofNullable(sscsCaseData)
+            .map(SscsCaseData::getAppeal)
+            .map(Appeal::getAppellant)
+            .filter(appellant -> "yes".equalsIgnoreCase(appellant.getIsAppointee()))
+            .map(Appellant::getAppointee)
+            .orElse(null);
+    }
+
+    private static boolean isAppointeeAddedOrChanged(Appointee appointeeBefore, Appointee appointeeAfter) {
+        return appointeeAfter != null && !appointeeAfter.equals(appointeeBefore);
+    }
+
+    private static Map<SubscriptionType, Subscription> subscriptions(SscsCaseData sscsCaseData) {
+        Map<SubscriptionType, Subscription> subscriptions = new EnumMap<>(SubscriptionType.class);
+        Subscriptions caseSubscriptions = sscsCaseData == null ? null : sscsCaseData.getSubscriptions();
+        if (caseSubscriptions != null) {
+            subscriptions.put(SubscriptionType.APPELLANT, caseSubscriptions.getAppellantSubscription());
+            subscriptions.put(SubscriptionType.APPOINTEE, caseSubscriptions.getAppointeeSubscription());
+            subscriptions.put(SubscriptionType.REPRESENTATIVE, caseSubscriptions.getRepresentativeSubscription());
+            subscriptions.put(SubscriptionType.JOINT_PARTY, caseSubscriptions.getJointPartySubscription());
+        }
+        return subscriptions;
+    }
+
+    private static List<HearingRecordingRequest> newReleasedHearingRecordings(SscsCaseData oldSscsCaseData,
+                                                                              SscsCaseData newSscsCaseData) {
+        Set<HearingRecordingRequest> released = new HashSet<>(releasedHearingRecordings(oldSscsCaseData));
+        return releasedHearingRecordings(newSscsCaseData).stream()
+            .filter(recording -> !released.contains(recording))
+            .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+    }
+
+    private static List<HearingRecordingRequest> releasedHearingRecordings(SscsCaseData sscsCaseData) {
+        return emptyIfNull(Optional.ofNullable(sscsCaseData)
+            .map(SscsCaseData::getSscsHearingRecordingCaseData)
+            .map(SscsHearingRecordingCaseData::getCitizenReleasedHearings)
+            .orElse(null));
+    }
+
+    private static boolean isNewRequestOutcome(DatedRequestOutcome previousRequestOutcome,
+                                               DatedRequestOutcome latestRequestOutcome) {
+        if (latestRequestOutcome == null) {
+            return false;
+        }
+        RequestOutcome latest = latestRequestOutcome.getRequestOutcome();
+        return (RequestOutcome.GRANTED.equals(latest) && !isMatchingOutcome(previousRequestOutcome, RequestOutcome.GRANTED))
+            || (RequestOutcome.REFUSED.equals(latest) && !isMatchingOutcome(previousRequestOutcome, RequestOutcome.REFUSED));
+    }
+
+    private static boolean isMatchingOutcome(DatedRequestOutcome datedRequestOutcome, RequestOutcome requestOutcome) {
+        return datedRequestOutcome != null && requestOutcome.equals(datedRequestOutcome.getRequestOutcome());
+    }
+
+    private static boolean isSameHearing(Hearing oldHearing, Hearing newHearing) {
+        if (oldHearing == null || newHearing == null) {
+            return false;
+        }
+        HearingDetails oldHearingDetails = oldHearing.getValue();
+        HearingDetails newHearingDetails = newHearing.getValue();
+        return hasNonNullHearingDetails(oldHearingDetails, newHearingDetails)
+            && newHearingDetails.getHearingId().equals(oldHearingDetails.getHearingId())
+            && newHearingDetails.getHearingDateTime().equals(oldHearingDetails.getHearingDateTime())
+            && newHearingDetails.getEpimsId().equals(oldHearingDetails.getEpimsId())
+            && Optional.ofNullable(oldHearingDetails.getHearingChannel())
+                .equals(Optional.ofNullable(newHearingDetails.getHearingChannel()));
+    }
+
+    private static boolean hasNonNullHearingDetails(HearingDetails oldHearingDetails, HearingDetails newHearingDetails) {
+        return nonNull(oldHearingDetails) && nonNull(oldHearingDetails.getHearingId())
+            && nonNull(newHearingDetails) && nonNull(newHearingDetails.getHearingId());
+    }
+}
@@ -1,13 +1,16 @@
 package uk.gov.hmcts.reform.sscs.domain;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
 import uk.gov.hmcts.reform.sscs.ccd.domain.State;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
 
 @Data
-@Builder(toBuilder = true)
 public class SscsCaseDataWrapper {
 
     private SscsCaseData newSscsCaseData;
@@ -15,4 +18,30 @@ public class SscsCaseDataWrapper {
     private NotificationEventType notificationEventType;
     private State state;
 
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile CaseChangeSet changeSet;
+
+    @Builder(toBuilder = true)
+    SscsCaseDataWrapper(SscsCaseData newSscsCaseData, SscsCaseData oldSscsCaseData,
+                        NotificationEventType notificationEventType, State state) {
+        this.newSscsCaseData = newSscsCaseData;
+        this.oldSscsCaseData = oldSscsCaseData;
+        this.notificationEventType = notificationEventType;
+        this.state = state;
+    }
+
+    /**
+     * What this event changed on the case, worked out the first time a rule asks and again only if
+     * the case before or after is replaced.
+     */
+    public CaseChangeSet getChangeSet() {
+        CaseChangeSet current = changeSet;
+        if (current == null || !current.isFor(oldSscsCaseData, newSscsCaseData)) {
+            current = CaseChangeSet.between(oldSscsCaseData, newSscsCaseData);
+            changeSet = current;
+        }
+        return current;
+    }
 }
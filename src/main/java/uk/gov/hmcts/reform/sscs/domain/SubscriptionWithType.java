@@ -25,4 +25,11 @@ public class SubscriptionWithType {
         this.party = party;
         this.entity = entity;
     }
+
+    /**
+     * Identifies this recipient within a case so a failed notification can be retried for it alone.
+     */
+    public String recipientKey() {
+        return partyId == null ? subscriptionType.name() : subscriptionType.name() + ":" + partyId;
+    }
 }
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 import lombok.Builder;
 import lombok.Value;
+import lombok.With;
 import uk.gov.hmcts.reform.sscs.utility.PhoneNumbersUtil;
 
 @Value
@@ -14,6 +15,7 @@ public class Notification {
 
     private final Template template;
     private final Destination destination;
+    @With
     private final Map<String, Object> placeholders;
     private final Reference reference;
     private final String appealNumber;
@@ -0,0 +1,10 @@
+package uk.gov.hmcts.reform.sscs.domain.notify;
+
+/**
+ * The channels a recipient is notified on, so a retry can send again only the channel that failed.
+ */
+public enum NotificationChannel {
+    EMAIL,
+    SMS,
+    LETTER
+}
@@ -1,11 +1,14 @@
 package uk.gov.hmcts.reform.sscs.domain.notify;
 
 import static java.util.Objects.isNull;
-import static java.util.Objects.nonNull;
 
 import com.fasterxml.jackson.annotation.JsonEnumDefaultValue;
-import java.util.Arrays;
-import java.util.Objects;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import uk.gov.hmcts.reform.sscs.ccd.domain.EventType;
@@ -87,6 +90,30 @@ public enum NotificationEventType {
 
     public static final String SUBSCRIPTION_OLD_ID = "subscriptionOld";
 
+    // Looked up for every message, so indexed once rather than scanned. Where two notifications share
+    // an id or CCD event the first declared wins, as it did when the values were scanned in order.
+    private static final Map<String, NotificationEventType> BY_LOWER_CASE_ID = new HashMap<>();
+    private static final Map<EventType, NotificationEventType> BY_CCD_EVENT = new EnumMap<>(EventType.class);
+    private static final Set<String> IDS = new HashSet<>();
+    private static final NotificationEventType WITHOUT_CCD_EVENT;
+
+    static {
+        NotificationEventType withoutCcdEvent = null;
+        for (NotificationEventType notificationEventType : values()) {
+            String id = notificationEventType.getId();
+            if (id != null) {
+                BY_LOWER_CASE_ID.putIfAbsent(id.toLowerCase(Locale.ENGLISH), notificationEventType);
+                IDS.add(id);
+            }
+            if (notificationEventType.event != null) {
+                BY_CCD_EVENT.putIfAbsent(notificationEventType.event, notificationEventType);
+            } else if (withoutCcdEvent == null) {
+                withoutCcdEvent = notificationEventType;
+            }
+        }
+        WITHOUT_CCD_EVENT = withoutCcdEvent;
+    }
+
     private final EventType event;
     private boolean sendForOralCase;
     private boolean sendForPaperCase;
@@ -100,25 +127,16 @@ public enum NotificationEventType {
     }
 
     public static NotificationEventType getNotificationByEvent(String eventId) {
-        return Arrays.stream(NotificationEventType.values())
-            .filter(notification -> nonNull(notification.getId()))
-            .filter(notification -> notification.getId().equalsIgnoreCase(eventId))
-            .findFirst()
-            .orElse(DO_NOT_SEND);
+        NotificationEventType notificationEventType = eventId == null ? null : BY_LOWER_CASE_ID.get(eventId.toLowerCase(Locale.ENGLISH));
+        return notificationEventType == null ? DO_NOT_SEND : notificationEventType;
     }
 
     public static NotificationEventType getNotificationByCcdEvent(EventType eventType) {
-        return Arrays.stream(NotificationEventType.values())
-            .filter(notification -> notification.getEvent() == eventType)
-            .findFirst()
-            .orElse(DO_NOT_SEND);
+        return eventType == null ? WITHOUT_CCD_EVENT : BY_CCD_EVENT.getOrDefault(eventType, DO_NOT_SEND);
     }
 
     public static boolean checkEvent(String eventId) {
-        return Arrays.stream(NotificationEventType.values())
-            .map(NotificationEventType::getId)
-            .filter(Objects::nonNull)
-            .anyMatch(id -> id.equals(eventId));
+        return IDS.contains(eventId);
     }
 
     public boolean isToBeDelayed() {
@@ -0,0 +1,251 @@
+package uk.gov.hmcts.reform.sscs.domain.notify;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants;
+
+/**
+ * The placeholders of a notification. Every key in {@link PersonalisationMappingConstants} has a
+ * fixed slot, numbered once when the class is loaded, and any other key is kept in a small map
+ * alongside. A copy shares the slots of the placeholders it was copied from until either of them
+ * is changed, so a recipient's placeholders built on the case placeholders, or a letter's built on
+ * the recipient's, only copy the slots when they first differ.
+ */
+public final class Placeholders extends AbstractMap<String, Object> {
+
+    private static final Map<String, Integer> SLOTS = slots();
+    private static final String[] SLOT_KEYS = slotKeys();
+    private static final Object NULL = new Object();
+
+    private Object[] values;
+    private Map<String, Object> others;
+    private int size;
+    private boolean shared;
+    private boolean readOnly;
+
+    public Placeholders() {
+        this(new Object[SLOTS.size()], null, 0);
+    }
+
+    private Placeholders(Object[] values, Map<String, Object> others, int size) {
+        this.values = values;
+        this.others = others;
+        this.size = size;
+    }
+
+    /**
+     * A copy of these placeholders that can be changed without changing them.
+     */
+    public static Placeholders copyOf(Map<String, Object> placeholders) {
+        if (placeholders instanceof Placeholders) {
+            Placeholders source = (Placeholders) placeholders;
+            if (!source.readOnly) {
+                source.shared = true;
+            }
+            Placeholders copy = new Placeholders(source.values, source.others, source.size);
+            copy.shared = true;
+            return copy;
+        }
+        Placeholders copy = new Placeholders();
+        copy.putAll(placeholders);
+        return copy;
+    }
+
+    /**
+     * Stops any further change to these placeholders, so they can be shared between threads and copied.
+     */
+    public Placeholders readOnly() {
+        readOnly = true;
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Integer slot = slot(key);
+        if (slot != null) {
+            return values[slot] != null;
+        }
+        return others != null && others.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        Integer slot = slot(key);
+        if (slot != null) {
+            return unmask(values[slot]);
+        }
+        return others == null ? null : others.get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        checkWritable();
+        Integer slot = slot(key);
+        if (slot != null) {
+            Object previous = values[slot];
+            if (previous == null) {
+                size++;
+            }
+            ownValues()[slot] = value == null ? NULL : value;
+            return unmask(previous);
+        }
+        Map<String, Object> owned = ownOthers();
+        boolean present = owned.containsKey(key);
+        Object previous = owned.put(key, value);
+        if (!present) {
+            size++;
+        }
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        checkWritable();
+        Integer slot = slot(key);
+        if (slot != null) {
+            Object previous = values[slot];
+            if (previous == null) {
+                return null;
+            }
+            ownValues()[slot] = null;
+            size--;
+            return unmask(previous);
+        }
+        if (others == null || !others.containsKey(key)) {
+            return null;
+        }
+        size--;
+        return ownOthers().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        values = new Object[SLOTS.size()];
+        others = null;
+        size = 0;
+        shared = false;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("These placeholders are read only, copy them to change them");
+        }
+    }
+
+    private Object[] ownValues() {
+        if (shared) {
+            values = values.clone();
+            others = others == null ? null : new HashMap<>(others);
+            shared = false;
+        }
+        return values;
+    }
+
+    private Map<String, Object> ownOthers() {
+        ownValues();
+        if (others == null) {
+            others = new HashMap<>();
+        }
+        return others;
+    }
+
+    private static Integer slot(Object key) {
+        return key == null ? null : SLOTS.get(key);
+    }
+
+    private static Object unmask(Object value) {
+        return value == NULL ? null : value;
+    }
+
+    private static Map<String, Integer> slots() {
+        Map<String, Integer> slots = new HashMap<>();
+        for (Field field : PersonalisationMappingConstants.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                try {
+                    slots.putIfAbsent((String) field.get(null), slots.size());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Unable to read placeholder key " + field.getName(), e);
+                }
+            }
+        }
+        return Map.copyOf(slots);
+    }
+
+    private static String[] slotKeys() {
+        String[] keys = new String[SLOTS.size()];
+        SLOTS.forEach((key, slot) -> keys[slot] = key);
+        return keys;
+    }
+
+    /**
+     * Walks the slots, then the other keys. The other keys are read up front, so an entry can be
+     * removed while walking them.
+     */
+    private class EntryIterator implements Iterator<Entry<String, Object>> {
+        private final String[] otherKeys = others == null ? new String[0] : others.keySet().toArray(new String[0]);
+        private int next;
+        private String current;
+
+        @Override
+        public boolean hasNext() {
+            while (next < SLOT_KEYS.length && values[next] == null) {
+                next++;
+            }
+            return next < SLOT_KEYS.length + otherKeys.length;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = next < SLOT_KEYS.length ? SLOT_KEYS[next] : otherKeys[next - SLOT_KEYS.length];
+            next++;
+            String key = current;
+            return new SimpleEntry<>(key, get(key)) {
+                @Override
+                public Object setValue(Object value) {
+                    super.setValue(value);
+                    return put(key, value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            Placeholders.this.remove(current);
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package uk.gov.hmcts.reform.sscs.exception;
+
+import java.util.EnumMap;
+import java.util.Map;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
+
+/**
+ * Thrown once every channel of a recipient has been attempted, listing the channels whose notification failed so
+ * that only they are retried.
+ */
+@SuppressWarnings("squid:MaximumInheritanceDepth")
+public class ChannelNotificationException extends NotificationServiceException {
+
+    private final transient Map<NotificationChannel, NotificationServiceException> failedChannels;
+
+    public ChannelNotificationException(String caseId, Map<NotificationChannel, NotificationServiceException> failedChannels) {
+        super(caseId, failedChannels.values().iterator().next());
+        this.failedChannels = new EnumMap<>(failedChannels);
+        failedChannels.values().stream().skip(1).forEach(this::addSuppressed);
+    }
+
+    public Map<NotificationChannel, NotificationServiceException> getFailedChannels() {
+        return failedChannels;
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.hmcts.reform.sscs.exception;
+
+import java.util.List;
+import lombok.Value;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+
+/**
+ * Thrown once every recipient of an event has been attempted, listing the recipients whose notification failed so
+ * that only they are retried.
+ */
+@SuppressWarnings("squid:MaximumInheritanceDepth")
+public class RecipientNotificationException extends NotificationServiceException {
+
+    private final transient List<FailedRecipient> failedRecipients;
+
+    public RecipientNotificationException(String caseId, List<FailedRecipient> failedRecipients) {
+        super(caseId, failedRecipients.get(0).getException());
+        this.failedRecipients = List.copyOf(failedRecipients);
+        failedRecipients.stream().skip(1).map(FailedRecipient::getException).forEach(this::addSuppressed);
+    }
+
+    public List<FailedRecipient> getFailedRecipients() {
+        return failedRecipients;
+    }
+
+    @Value
+    public static class FailedRecipient {
+        NotificationEventType notificationType;
+        String recipient;
+        /**
+         * The only channel to send again, or null to send every channel.
+         */
+        NotificationChannel channel;
+        NotificationServiceException exception;
+    }
+}
@@ -29,24 +29,22 @@ import static uk.gov.hmcts.reform.sscs.service.NotificationUtils.hasRepresentati
 import static uk.gov.hmcts.reform.sscs.service.NotificationUtils.isValidSubscriptionOrIsMandatoryLetter;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.jetbrains.annotations.NotNull;
 import uk.gov.hmcts.reform.sscs.ccd.domain.Appeal;
 import uk.gov.hmcts.reform.sscs.ccd.domain.Appellant;
 import uk.gov.hmcts.reform.sscs.ccd.domain.CcdValue;
-import uk.gov.hmcts.reform.sscs.ccd.domain.DatedRequestOutcome;
-import uk.gov.hmcts.reform.sscs.ccd.domain.HearingRecordingRequest;
 import uk.gov.hmcts.reform.sscs.ccd.domain.JointParty;
 import uk.gov.hmcts.reform.sscs.ccd.domain.OtherParty;
-import uk.gov.hmcts.reform.sscs.ccd.domain.RequestOutcome;
 import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
 import uk.gov.hmcts.reform.sscs.ccd.domain.Subscription;
 import uk.gov.hmcts.reform.sscs.ccd.domain.YesNo;
 import uk.gov.hmcts.reform.sscs.config.AppealHearingType;
 import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
 import uk.gov.hmcts.reform.sscs.domain.SubscriptionWithType;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
 import uk.gov.hmcts.reform.sscs.model.PartyItemList;
 import uk.gov.hmcts.reform.sscs.reference.data.model.ConfidentialityPartyMembers;
@@ -62,6 +60,16 @@ public class CcdNotificationWrapper implements NotificationWrapper {
 
     private boolean languageSwitched = false;
 
+    private final Map<String, byte[]> downloadedDocuments = new ConcurrentHashMap<>();
+
+    private final Map<NotificationEventType, Map<String, Object>> caseScopedPersonalisation = new ConcurrentHashMap<>();
+
+    private volatile RecipientPlan recipientPlan;
+
+    private String retryRecipient;
+
+    private NotificationChannel retryChannel;
+
     public CcdNotificationWrapper(SscsCaseDataWrapper responseWrapper) {
         this.responseWrapper = responseWrapper;
     }
@@ -74,6 +82,7 @@ public class CcdNotificationWrapper implements NotificationWrapper {
     @Override
     public void setNotificationType(NotificationEventType notificationEventType) {
         responseWrapper.setNotificationEventType(notificationEventType);
+        recipientPlan = null;
     }
 
     @Override
@@ -140,29 +149,47 @@ public class CcdNotificationWrapper implements NotificationWrapper {
 
     @Override
     public List<SubscriptionWithType> getSubscriptionsBasedOnNotificationType() {
+        RecipientPlan plan = currentRecipientPlan();
+        if (plan == null) {
+            plan = new RecipientPlan(getNotificationType(), languageSwitched, resolveSubscriptionsBasedOnNotificationType());
+            recipientPlan = plan;
+        }
+        return plan.getRecipients();
+    }
+
+    @Override
+    public boolean hasRecipientPlan() {
+        return currentRecipientPlan() != null;
+    }
+
+    private RecipientPlan currentRecipientPlan() {
+        RecipientPlan plan = recipientPlan;
+        return plan != null && plan.isFor(getNotificationType(), languageSwitched) ? plan : null;
+    }
+
+    private List<SubscriptionWithType> resolveSubscriptionsBasedOnNotificationType() {
         List<SubscriptionWithType> subscriptionWithTypeList = new ArrayList<>();
 
         SscsCaseData newSscsCaseData = getNewSscsCaseData();
-        SscsCaseData oldSscsCaseData = getOldSscsCaseData();
         Appeal appeal = newSscsCaseData.getAppeal();
         Appellant appellant = appeal.getAppellant();
         JointParty jointParty = newSscsCaseData.getJointParty();
         NotificationEventType notificationEventType = getNotificationType();
 
-        if (isNotificationEventValidToSendToAppointee(newSscsCaseData, oldSscsCaseData, notificationEventType)) {
+        if (isNotificationEventValidToSendToAppointee(newSscsCaseData, notificationEventType)) {
             subscriptionWithTypeList.add(new SubscriptionWithType(getAppointeeSubscription(), APPOINTEE,
                 appellant, appellant.getAppointee()));
-        } else if (isNotificationEventValidToSendToAppellant(newSscsCaseData, oldSscsCaseData, notificationEventType)) {
+        } else if (isNotificationEventValidToSendToAppellant(newSscsCaseData, notificationEventType)) {
             subscriptionWithTypeList.add(new SubscriptionWithType(getAppellantSubscription(), APPELLANT,
                 appellant, appellant));
         }
 
-        if (isNotificationEventValidToSendToRep(newSscsCaseData, oldSscsCaseData, notificationEventType)) {
+        if (isNotificationEventValidToSendToRep(newSscsCaseData, notificationEventType)) {
             subscriptionWithTypeList.add(new SubscriptionWithType(getRepresentativeSubscription(), REPRESENTATIVE,
                 appellant, appeal.getRep()));
         }
 
-        if (isNotificationEventValidToSendToJointParty(newSscsCaseData, oldSscsCaseData, notificationEventType)) {
+        if (isNotificationEventValidToSendToJointParty(newSscsCaseData, notificationEventType)) {
             subscriptionWithTypeList.add(new SubscriptionWithType(getJointPartySubscription(), JOINT_PARTY,
                 jointParty, jointParty));
         }
@@ -253,60 +280,44 @@ public class CcdNotificationWrapper implements NotificationWrapper {
         return eligiblePartyMembers.contains(partyMember);
     }
 
-    private boolean isNotificationEventValidToSendToAppointee(SscsCaseData newSscsCaseData, SscsCaseData oldSscsCaseData, NotificationEventType notificationEventType) {
+    private boolean isNotificationEventValidToSendToAppointee(SscsCaseData newSscsCaseData, NotificationEventType notificationEventType) {
         boolean isValid = hasAppointeeSubscriptionOrIsMandatoryAppointeeLetter(responseWrapper)
             && (EVENTS_VALID_FOR_ALL_ENTITIES.contains(notificationEventType)
             || EVENTS_VALID_FOR_APPOINTEE.contains(notificationEventType)
-            || isValidProcessHearingRequestEventForParty(newSscsCaseData, oldSscsCaseData, notificationEventType, PartyItemList.APPELLANT)
+            || isValidProcessHearingRequestEventForParty(notificationEventType, PartyItemList.APPELLANT)
             || isValidRequestForInformationEventForParty(newSscsCaseData, notificationEventType, PartyItemList.APPELLANT));
         return canSendBasedOnConfidentiality(newSscsCaseData, notificationEventType, ConfidentialityPartyMembers.APPELLANT_OR_APPOINTEE.getCode()) && isValid;
     }
 
-    private boolean isNotificationEventValidToSendToAppellant(SscsCaseData newSscsCaseData, SscsCaseData oldSscsCaseData, NotificationEventType notificationEventType) {
-        boolean isValid =  (oldSscsCaseData != null && isValidReviewConfidentialityRequest(notificationEventType, oldSscsCaseData.getConfidentialityRequestOutcomeAppellant(), newSscsCaseData.getConfidentialityRequestOutcomeAppellant()))
-            || isValidProcessHearingRequestEventForParty(newSscsCaseData, oldSscsCaseData, notificationEventType, PartyItemList.APPELLANT)
+    private boolean isNotificationEventValidToSendToAppellant(SscsCaseData newSscsCaseData, NotificationEventType notificationEventType) {
+        boolean isValid =  (REVIEW_CONFIDENTIALITY_REQUEST.equals(notificationEventType) && responseWrapper.getChangeSet().hasNewConfidentialityOutcomeForAppellant())
+            || isValidProcessHearingRequestEventForParty(notificationEventType, PartyItemList.APPELLANT)
             || isValidRequestForInformationEventForParty(newSscsCaseData, notificationEventType, PartyItemList.APPELLANT)
             || !EVENTS_MAYBE_INVALID_FOR_APPELLANT.contains(notificationEventType);
         return canSendBasedOnConfidentiality(newSscsCaseData, notificationEventType, ConfidentialityPartyMembers.APPELLANT_OR_APPOINTEE.getCode()) && isValid;
     }
 
-    private boolean isValidProcessHearingRequestEventForParty(SscsCaseData newSscsCaseData, SscsCaseData oldSscsCaseData, NotificationEventType notificationEventType, PartyItemList partyItemList) {
-        return ACTION_HEARING_RECORDING_REQUEST.equals(notificationEventType) && hasHearingRecordingRequestsForParty(newSscsCaseData, oldSscsCaseData, partyItemList);
+    private boolean isValidProcessHearingRequestEventForParty(NotificationEventType notificationEventType, PartyItemList partyItemList) {
+        return ACTION_HEARING_RECORDING_REQUEST.equals(notificationEventType)
+            && responseWrapper.getChangeSet().hasNewReleasedHearingRecordingFor(partyItemList);
     }
 
-    private boolean hasHearingRecordingRequestsForParty(SscsCaseData newSscsCaseData, SscsCaseData oldSscsCaseData, PartyItemList partyItemList) {
-        List<HearingRecordingRequest> oldReleasedRecordings = new ArrayList<>();
-        if (oldSscsCaseData != null && oldSscsCaseData.getSscsHearingRecordingCaseData() != null) {
-            oldReleasedRecordings = Optional.ofNullable(oldSscsCaseData.getSscsHearingRecordingCaseData().getCitizenReleasedHearings())
-                    .orElse(new ArrayList<>());
-        }
-        return hasNewReleasedHearingRecordingForParty(newSscsCaseData, oldReleasedRecordings).stream()
-                .anyMatch(v -> partyItemList.getCode().equals(v.getValue().getRequestingParty()));
-    }
-
-    @NotNull
-    private List<HearingRecordingRequest> hasNewReleasedHearingRecordingForParty(SscsCaseData newSscsCaseData, List<HearingRecordingRequest> oldReleasedRecordings) {
-        return newSscsCaseData.getSscsHearingRecordingCaseData().getCitizenReleasedHearings().stream()
-                .filter(e -> !oldReleasedRecordings.contains(e))
-                .collect(Collectors.toList());
-    }
-
-    private boolean isNotificationEventValidToSendToRep(SscsCaseData newSscsCaseData, SscsCaseData oldSscsCaseData, NotificationEventType notificationEventType) {
+    private boolean isNotificationEventValidToSendToRep(SscsCaseData newSscsCaseData, NotificationEventType notificationEventType) {
         boolean isValid = hasRepSubscriptionOrIsMandatoryRepLetter(responseWrapper)
             && (EVENTS_VALID_FOR_ALL_ENTITIES.contains(notificationEventType)
             || EVENTS_VALID_FOR_REP.contains(notificationEventType)
-            || isValidProcessHearingRequestEventForParty(newSscsCaseData, oldSscsCaseData, notificationEventType, PartyItemList.REPRESENTATIVE)
+            || isValidProcessHearingRequestEventForParty(notificationEventType, PartyItemList.REPRESENTATIVE)
             || isValidRequestForInformationEventForParty(newSscsCaseData, notificationEventType, PartyItemList.REPRESENTATIVE));
         return canSendBasedOnConfidentiality(newSscsCaseData, notificationEventType, ConfidentialityPartyMembers.REPRESENTATIVE.getCode()) && isValid;
     }
 
-    private boolean isNotificationEventValidToSendToJointParty(SscsCaseData newSscsCaseData, SscsCaseData oldSscsCaseData, NotificationEventType notificationEventType) {
+    private boolean isNotificationEventValidToSendToJointParty(SscsCaseData newSscsCaseData, NotificationEventType notificationEventType) {
         boolean isValid = hasJointPartySubscription(responseWrapper)
             && (EVENTS_VALID_FOR_ALL_ENTITIES.contains(notificationEventType)
             || EVENTS_VALID_FOR_JOINT_PARTY.contains(notificationEventType)
             || isValidRequestForInformationEventForParty(newSscsCaseData, notificationEventType, PartyItemList.JOINT_PARTY)
-            || isValidProcessHearingRequestEventForParty(newSscsCaseData, oldSscsCaseData, notificationEventType, PartyItemList.JOINT_PARTY)
-            || (oldSscsCaseData != null && isValidReviewConfidentialityRequest(notificationEventType, oldSscsCaseData.getConfidentialityRequestOutcomeJointParty(), newSscsCaseData.getConfidentialityRequestOutcomeJointParty())));
+            || isValidProcessHearingRequestEventForParty(notificationEventType, PartyItemList.JOINT_PARTY)
+            || (REVIEW_CONFIDENTIALITY_REQUEST.equals(notificationEventType) && responseWrapper.getChangeSet().hasNewConfidentialityOutcomeForJointParty()));
         return canSendBasedOnConfidentiality(newSscsCaseData, notificationEventType, ConfidentialityPartyMembers.JOINT_PARTY.getCode()) && isValid;
     }
 
@@ -326,24 +337,6 @@ public class CcdNotificationWrapper implements NotificationWrapper {
                 && partyItem.getCode().equals(newSscsCaseData.getInformationFromPartySelected().getValue().getCode());
     }
 
-    private boolean isValidReviewConfidentialityRequest(NotificationEventType notificationEventType, DatedRequestOutcome previousRequestOutcome, DatedRequestOutcome latestRequestOutcome) {
-        return REVIEW_CONFIDENTIALITY_REQUEST.equals(notificationEventType)
-                && checkConfidentialityRequestOutcomeIsValidToSend(previousRequestOutcome, latestRequestOutcome);
-    }
-
-    private boolean checkConfidentialityRequestOutcomeIsValidToSend(DatedRequestOutcome previousRequestOutcome, DatedRequestOutcome latestRequestOutcome) {
-        return latestRequestOutcome == null ? false : checkConfidentialityRequestOutcomeIsValidToSend(previousRequestOutcome, latestRequestOutcome.getRequestOutcome());
-    }
-
-    private boolean checkConfidentialityRequestOutcomeIsValidToSend(DatedRequestOutcome previousRequestOutcome, RequestOutcome latestRequestOutcome) {
-        return (RequestOutcome.GRANTED.equals(latestRequestOutcome) && !isMatchingOutcome(previousRequestOutcome, RequestOutcome.GRANTED))
-                || (RequestOutcome.REFUSED.equals(latestRequestOutcome) && !isMatchingOutcome(previousRequestOutcome, RequestOutcome.REFUSED));
-    }
-
-    private boolean isMatchingOutcome(DatedRequestOutcome datedRequestOutcome, RequestOutcome requestOutcome) {
-        return datedRequestOutcome != null && requestOutcome != null && requestOutcome.equals(datedRequestOutcome.getRequestOutcome());
-    }
-
     @Override
     public void setNotificationEventTypeOverridden(boolean notificationEventTypeOverridden) {
         this.notificationEventTypeOverridden = notificationEventTypeOverridden;
@@ -357,6 +350,7 @@ public class CcdNotificationWrapper implements NotificationWrapper {
     @Override
     public void setSwitchLanguageType(boolean languageSwitched) {
         this.languageSwitched = languageSwitched;
+        recipientPlan = null;
     }
 
     @Override
@@ -364,6 +358,36 @@ public class CcdNotificationWrapper implements NotificationWrapper {
         return languageSwitched;
     }
 
+    @Override
+    public Map<String, byte[]> getDownloadedDocuments() {
+        return downloadedDocuments;
+    }
+
+    @Override
+    public Map<NotificationEventType, Map<String, Object>> getCaseScopedPersonalisation() {
+        return caseScopedPersonalisation;
+    }
+
+    @Override
+    public String getRetryRecipient() {
+        return retryRecipient;
+    }
+
+    @Override
+    public void setRetryRecipient(String retryRecipient) {
+        this.retryRecipient = retryRecipient;
+    }
+
+    @Override
+    public NotificationChannel getRetryChannel() {
+        return retryChannel;
+    }
+
+    @Override
+    public void setRetryChannel(NotificationChannel retryChannel) {
+        this.retryChannel = retryChannel;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -380,5 +404,32 @@ public class CcdNotificationWrapper implements NotificationWrapper {
     public int hashCode() {
         return Objects.hash(responseWrapper);
     }
-}
 
+    /**
+     * The recipients of one notification type. Sending a notification changes the subscription it
+     * was sent to, so each caller is given its own copy of every recipient.
+     */
+    private static class RecipientPlan {
+        private final NotificationEventType notificationEventType;
+        private final boolean languageSwitched;
+        private final List<SubscriptionWithType> recipients;
+
+        RecipientPlan(NotificationEventType notificationEventType, boolean languageSwitched,
+                      List<SubscriptionWithType> recipients) {
+            this.notificationEventType = notificationEventType;
+            this.languageSwitched = languageSwitched;
+            this.recipients = List.copyOf(recipients);
+        }
+
+        boolean isFor(NotificationEventType notificationEventType, boolean languageSwitched) {
+            return this.notificationEventType == notificationEventType && this.languageSwitched == languageSwitched;
+        }
+
+        List<SubscriptionWithType> getRecipients() {
+            return recipients.stream()
+                .map(recipient -> new SubscriptionWithType(recipient.getSubscription(), recipient.getSubscriptionType(),
+                    recipient.getParty(), recipient.getEntity(), recipient.getPartyId()))
+                .collect(Collectors.toUnmodifiableList());
+        }
+    }
+}
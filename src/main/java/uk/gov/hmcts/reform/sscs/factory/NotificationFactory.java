@@ -1,6 +1,6 @@
 package uk.gov.hmcts.reform.sscs.factory;
 
-import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newConcurrentMap;
 import static uk.gov.hmcts.reform.sscs.ccd.domain.Benefit.getBenefitByCodeOrThrowException;
 
 import java.util.Map;
@@ -21,7 +21,7 @@ import uk.gov.hmcts.reform.sscs.utility.PhoneNumbersUtil;
 public class NotificationFactory {
 
     private final PersonalisationFactory personalisationFactory;
-    private final Map<NotificationEventType, Personalisation> map = newHashMap();
+    private final Map<NotificationEventType, Personalisation> map = newConcurrentMap();
 
     @Autowired
     NotificationFactory(PersonalisationFactory personalisationFactory) {
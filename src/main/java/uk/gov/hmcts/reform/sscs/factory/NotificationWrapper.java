@@ -1,11 +1,13 @@
 package uk.gov.hmcts.reform.sscs.factory;
 
 import java.util.List;
+import java.util.Map;
 import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
 import uk.gov.hmcts.reform.sscs.ccd.domain.Subscription;
 import uk.gov.hmcts.reform.sscs.config.AppealHearingType;
 import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
 import uk.gov.hmcts.reform.sscs.domain.SubscriptionWithType;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
 
 public interface NotificationWrapper {
@@ -37,6 +39,11 @@ public interface NotificationWrapper {
 
     List<SubscriptionWithType> getSubscriptionsBasedOnNotificationType();
 
+    /**
+     * Whether the recipients of the current notification type have already been worked out.
+     */
+    boolean hasRecipientPlan();
+
     void setNotificationEventTypeOverridden(boolean notificationEventTypeOverridden);
 
     boolean hasNotificationEventBeenOverridden();
@@ -44,4 +51,29 @@ public interface NotificationWrapper {
     void setSwitchLanguageType(boolean languageSwitched);
 
     boolean hasLanguageSwitched();
+
+    /**
+     * Documents downloaded from the document store while handling this event, by URL.
+     */
+    Map<String, byte[]> getDownloadedDocuments();
+
+    /**
+     * Placeholders that depend only on the case, worked out once per notification type while handling this event.
+     */
+    Map<NotificationEventType, Map<String, Object>> getCaseScopedPersonalisation();
+
+    /**
+     * The only recipient to notify when this event is a retry for a single failed recipient, otherwise null.
+     */
+    String getRetryRecipient();
+
+    void setRetryRecipient(String retryRecipient);
+
+    /**
+     * The only channel to send when this event is a retry for a single failed channel of the retry recipient,
+     * otherwise null.
+     */
+    NotificationChannel getRetryChannel();
+
+    void setRetryChannel(NotificationChannel retryChannel);
 }
@@ -1,14 +1,11 @@
 package uk.gov.hmcts.reform.sscs.factory;
 
 import static java.util.Objects.isNull;
-import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENTS_FOR_ACTION_FURTHER_EVIDENCE;
-import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENTS_FOR_REPRESENTATIVE_PERSONALISATION;
-import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENTS_FOR_SYA_PERSONALISATION;
-import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.SUBSCRIPTION_UPDATED;
 
 import java.util.function.Function;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.sscs.config.NotificationDecisionTable;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
 import uk.gov.hmcts.reform.sscs.personalisation.ActionFurtherEvidencePersonalisation;
 import uk.gov.hmcts.reform.sscs.personalisation.Personalisation;
@@ -40,16 +37,17 @@ public class PersonalisationFactory implements Function<NotificationEventType, P
             return null;
         }
 
-        if (EVENTS_FOR_SYA_PERSONALISATION.contains(notificationType)) {
-            return syaAppealCreatedAndReceivedPersonalisation;
-        } else if (EVENTS_FOR_REPRESENTATIVE_PERSONALISATION.contains(notificationType)) {
-            return withRepresentativePersonalisation;
-        } else if (SUBSCRIPTION_UPDATED.equals(notificationType)) {
-            return subscriptionPersonalisation;
-        } else if (EVENTS_FOR_ACTION_FURTHER_EVIDENCE.contains(notificationType)) {
-            return actionFurtherEvidencePersonalisation;
-        } else {
-            return this.personalisation;
+        switch (NotificationDecisionTable.decisionFor(notificationType).getPersonalisationKind()) {
+            case SYA_APPEAL_CREATED_AND_RECEIVED:
+                return syaAppealCreatedAndReceivedPersonalisation;
+            case WITH_REPRESENTATIVE:
+                return withRepresentativePersonalisation;
+            case SUBSCRIPTION:
+                return subscriptionPersonalisation;
+            case ACTION_FURTHER_EVIDENCE:
+                return actionFurtherEvidencePersonalisation;
+            default:
+                return this.personalisation;
         }
     }
 }
@@ -1,34 +1,113 @@
 package uk.gov.hmcts.reform.sscs.health;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.hmcts.reform.sscs.config.DocmosisHttpClientConfiguration;
 
+/**
+ * Reports the Docmosis status last seen by a background check, so health probes return at once and
+ * do not call Docmosis themselves. A result older than the staleness window means the check itself
+ * is stuck, so it is reported as down. Turned off with {@code management.health.docmosis.enabled}.
+ */
 @Component
+@ConditionalOnEnabledHealthIndicator("docmosis")
 public class DocmosisHealthIndicator implements HealthIndicator {
 
     private static final Logger LOG = LoggerFactory.getLogger(DocmosisHealthIndicator.class);
 
     private final String docmosisStatusUri;
     private final RestTemplate restTemplate;
+    private final long refreshIntervalMs;
+    private final Duration staleAfter;
+    private final Clock clock;
+    private volatile LastCheck lastCheck;
+    private ScheduledExecutorService refresher;
 
+    @Autowired
     public DocmosisHealthIndicator(
         @Value("${pdf-service.health.uri}") String docmosisStatusUri,
-        RestTemplate restTemplate
+        @Qualifier(DocmosisHttpClientConfiguration.DOCMOSIS_REST_TEMPLATE) RestTemplate restTemplate,
+        @Value("${pdf-service.health.refreshIntervalMs}") long refreshIntervalMs,
+        @Value("${pdf-service.health.staleAfterMs}") long staleAfterMs
     ) {
+        this(docmosisStatusUri, restTemplate, refreshIntervalMs, Duration.ofMillis(staleAfterMs), Clock.systemUTC());
+    }
+
+    DocmosisHealthIndicator(String docmosisStatusUri, RestTemplate restTemplate, long refreshIntervalMs,
+                            Duration staleAfter, Clock clock) {
         this.docmosisStatusUri = docmosisStatusUri;
         this.restTemplate = restTemplate;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.staleAfter = staleAfter;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("docmosis-health-");
+        // a check stuck on Docmosis must not keep the JVM from exiting
+        threadFactory.setDaemon(true);
+        refresher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        refresher.scheduleWithFixedDelay(this::refresh, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
     }
 
     public Health health() {
+        LastCheck last = lastCheck;
+        if (last == null) {
+            return new Health.Builder().unknown().withDetail("message", "Docmosis status not checked yet").build();
+        }
+        if (last.checkedAt.plus(staleAfter).isBefore(clock.instant())) {
+            return new Health.Builder().down().withDetails(last.health.getDetails()).withDetail("stale", true).build();
+        }
+        return last.health;
+    }
+
+    public void refresh() {
+        Instant checkedAt = clock.instant();
+        long start = System.nanoTime();
+        Health.Builder builder;
+        try {
+            builder = checkStatus();
+        } catch (RuntimeException e) {
+            LOG.error("Error performing Docmosis healthcheck", e);
+            builder = new Health.Builder().down(e);
+        }
+        Health health = builder
+            .withDetail("checkedAt", checkedAt.toString())
+            .withDetail("latencyMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+            .build();
+        lastCheck = new LastCheck(health, checkedAt);
+    }
+
+    private Health.Builder checkStatus() {
 
         try {
 
@@ -46,15 +125,25 @@ public class DocmosisHealthIndicator implements HealthIndicator {
                 && response.containsKey("ready")
                 && "true".equalsIgnoreCase((String) response.get("ready"))) {
 
-                return new Health.Builder().up().build();
+                return new Health.Builder().up();
             } else {
-                return new Health.Builder().down().build();
+                return new Health.Builder().down();
             }
 
         } catch (RestClientException e) {
 
             LOG.error("Error performing Docmosis healthcheck", e);
-            return new Health.Builder().down(e).build();
+            return new Health.Builder().down(e);
+        }
+    }
+
+    private static class LastCheck {
+        private final Health health;
+        private final Instant checkedAt;
+
+        LastCheck(Health health, Instant checkedAt) {
+            this.health = health;
+            this.checkedAt = checkedAt;
         }
     }
 }
@@ -45,7 +45,6 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -68,6 +67,7 @@ import uk.gov.hmcts.reform.sscs.config.properties.EvidenceProperties;
 import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
 import uk.gov.hmcts.reform.sscs.domain.SubscriptionWithType;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+import uk.gov.hmcts.reform.sscs.domain.notify.Placeholders;
 import uk.gov.hmcts.reform.sscs.domain.notify.Template;
 import uk.gov.hmcts.reform.sscs.exception.BenefitMappingException;
 import uk.gov.hmcts.reform.sscs.extractor.HearingContactDateExtractor;
@@ -88,7 +88,10 @@ public class Personalisation<E extends NotificationWrapper> {
 
     @Autowired
     protected NotificationConfig config;
-    private boolean sendSmsSubscriptionConfirmation;
+    // set by SubscriptionPersonalisation.create and read by getTemplate on the same recipient thread
+    private final ThreadLocal<Boolean> sendSmsSubscriptionConfirmation = ThreadLocal.withInitial(() -> false);
+    // the case scoped placeholders of the event being personalised, set by create for the overridable create it calls
+    private final ThreadLocal<Map<NotificationEventType, Map<String, Object>>> caseScopedPersonalisation = new ThreadLocal<>();
     @Autowired
     private HearingContactDateExtractor hearingContactDateExtractor;
 
@@ -170,36 +173,54 @@ public class Personalisation<E extends NotificationWrapper> {
     }
 
     public Map<String, Object> create(final E notificationWrapper, final SubscriptionWithType subscriptionWithType) {
-        return create(notificationWrapper.getSscsCaseDataWrapper(), subscriptionWithType);
+        caseScopedPersonalisation.set(notificationWrapper.getCaseScopedPersonalisation());
+        try {
+            return create(notificationWrapper.getSscsCaseDataWrapper(), subscriptionWithType);
+        } finally {
+            caseScopedPersonalisation.remove();
+        }
     }
 
     protected Map<String, Object> create(final SscsCaseDataWrapper responseWrapper, final SubscriptionWithType subscriptionWithType) {
+        Map<String, Object> personalisation = Placeholders.copyOf(getCaseScopedPersonalisation(responseWrapper));
+        addRecipientPersonalisation(personalisation, responseWrapper, subscriptionWithType);
+        return personalisation;
+    }
 
-        SscsCaseData ccdResponse = responseWrapper.getNewSscsCaseData();
-        Map<String, Object> personalisation = new HashMap<>();
-        Benefit benefit = null;
+    /**
+     * The placeholders that are the same for every recipient of the event, worked out for the first
+     * recipient and shared with the rest through the notification wrapper.
+     */
+    private Map<String, Object> getCaseScopedPersonalisation(SscsCaseDataWrapper responseWrapper) {
+        Map<NotificationEventType, Map<String, Object>> cache = caseScopedPersonalisation.get();
+        NotificationEventType notificationEventType = responseWrapper.getNotificationEventType();
+        if (cache == null || notificationEventType == null) {
+            return createCaseScopedPersonalisation(responseWrapper);
+        }
+        return cache.computeIfAbsent(notificationEventType, key -> createCaseScopedPersonalisation(responseWrapper));
+    }
 
-        try {
-            if (hasBenefitType(ccdResponse)) {
-                benefit = getBenefitByCodeOrThrowException(ccdResponse.getAppeal().getBenefitType().getCode());
-
-                if (benefit.isHasAcronym()) {
-                    personalisation.put(BENEFIT_NAME_ACRONYM_LITERAL, benefit.name());
-                    personalisation.put(BENEFIT_NAME_ACRONYM_LITERAL_WELSH, benefit.name());
-                } else {
-                    personalisation.put(BENEFIT_NAME_ACRONYM_LITERAL, benefit.getDescription());
-                    personalisation.put(BENEFIT_NAME_ACRONYM_LITERAL_WELSH, benefit.getWelshDescription());
-                }
+    private Map<String, Object> createCaseScopedPersonalisation(SscsCaseDataWrapper responseWrapper) {
 
-                personalisation.put(BENEFIT_NAME_ACRONYM_SHORT_LITERAL, benefit.name());
-                personalisation.put(BENEFIT_FULL_NAME_LITERAL, benefit.getDescription());
-                personalisation.put(BENEFIT_FULL_NAME_LITERAL_WELSH, benefit.getWelshDescription());
-                personalisation.put(BENEFIT_NAME_AND_OPTIONAL_ACRONYM, getLongBenefitNameDescriptionWithOptionalAcronym(benefit.getShortName(), true));
-                personalisation.put(BENEFIT_NAME_AND_OPTIONAL_ACRONYM_WELSH, getLongBenefitNameDescriptionWithOptionalAcronym(benefit.getShortName(), false));
+        SscsCaseData ccdResponse = responseWrapper.getNewSscsCaseData();
+        Placeholders personalisation = new Placeholders();
+        Benefit benefit = getBenefit(ccdResponse);
+
+        if (benefit != null) {
+            if (benefit.isHasAcronym()) {
+                personalisation.put(BENEFIT_NAME_ACRONYM_LITERAL, benefit.name());
+                personalisation.put(BENEFIT_NAME_ACRONYM_LITERAL_WELSH, benefit.name());
             } else {
-                log.warn("Proceeding with 'null' benefit type for case !");
+                personalisation.put(BENEFIT_NAME_ACRONYM_LITERAL, benefit.getDescription());
+                personalisation.put(BENEFIT_NAME_ACRONYM_LITERAL_WELSH, benefit.getWelshDescription());
             }
-        } catch (BenefitMappingException bme) {
+
+            personalisation.put(BENEFIT_NAME_ACRONYM_SHORT_LITERAL, benefit.name());
+            personalisation.put(BENEFIT_FULL_NAME_LITERAL, benefit.getDescription());
+            personalisation.put(BENEFIT_FULL_NAME_LITERAL_WELSH, benefit.getWelshDescription());
+            personalisation.put(BENEFIT_NAME_AND_OPTIONAL_ACRONYM, getLongBenefitNameDescriptionWithOptionalAcronym(benefit.getShortName(), true));
+            personalisation.put(BENEFIT_NAME_AND_OPTIONAL_ACRONYM_WELSH, getLongBenefitNameDescriptionWithOptionalAcronym(benefit.getShortName(), false));
+        } else {
             log.warn("Proceeding with 'null' benefit type for case !");
         }
 
@@ -215,9 +236,7 @@ public class Personalisation<E extends NotificationWrapper> {
 
         personalisation.put(APPEAL_REF, getAppealReference(ccdResponse));
         personalisation.put(APPELLANT_NAME, ccdResponse.getAppeal().getAppellant().getName().getFullNameNoTitle());
-        personalisation.put(NAME, getName(subscriptionWithType, ccdResponse, responseWrapper));
         personalisation.put(CCD_ID, defaultIfBlank(ccdResponse.getCcdCaseId(), EMPTY));
-        personalisation.put(REPRESENTEE_NAME, subscriptionWithType.getParty().getName().getFullNameNoTitle());
 
         // Some templates (notably letters) can be sent out before the SC Ref is added to the case
         // this allows those templates to be populated with either the CCD Id or SC Ref
@@ -225,18 +244,12 @@ public class Personalisation<E extends NotificationWrapper> {
 
         personalisation.put(INFO_REQUEST_DETAIL, defaultIfBlank(getLatestInfoRequestDetail(ccdResponse), EMPTY));
 
-        Subscription subscription = subscriptionWithType.getSubscription();
-        subscriptionDetails(personalisation, subscription, benefit, ccdResponse);
-
         addFirstTierAgencyFields(personalisation, benefit, ccdResponse);
 
         LocalDate createdDate = LocalDate.parse(ofNullable(ccdResponse.getCaseCreated()).orElse(LocalDate.now().toString()));
         translateToWelshDate(createdDate, ccdResponse, value -> personalisation.put(CREATED_DATE_WELSH, value));
         personalisation.put(CREATED_DATE, createdDate.toString());
 
-        personalisation.put(JOINT, subscriptionWithType.getSubscriptionType() == JOINT_PARTY ? JOINT_TEXT_WITH_A_SPACE : EMPTY);
-        personalisation.put(JOINT_WELSH, subscriptionWithType.getSubscriptionType() == JOINT_PARTY ? JOINT_TEXT_WITH_A_SPACE_WELSH : EMPTY);
-
         if (isYes(ccdResponse.getJointParty().getHasJointParty())) {
             personalisation.put(JOINT_PARTY_APPEAL, "Yes");
             personalisation.put(JOINT_PARTY_NAME, ccdResponse.getJointParty().getName().getFullNameNoTitle());
@@ -277,32 +290,13 @@ public class Personalisation<E extends NotificationWrapper> {
         personalisation.put(ACCEPT_VIEW_BY_DATE_LITERAL, notificationDateConverterUtil.toEmailDate(today.plusDays(7)));
         personalisation.put(QUESTION_ROUND_EXPIRES_DATE_LITERAL, notificationDateConverterUtil.toEmailDate(today.plusDays(1)));
 
-        final String tya = tya(subscription);
-        personalisation.put(ONLINE_HEARING_REGISTER_LINK_LITERAL, config.getOnlineHearingLink() + "/register?tya=" + tya);
         personalisation.put(ONLINE_HEARING_SIGN_IN_LINK_LITERAL, config.getOnlineHearingLink() + "/sign-in");
 
-        personalisation.put(APPOINTEE_DESCRIPTION, getAppointeeDescription(subscriptionWithType.getSubscriptionType(), ccdResponse));
         personalisation.put(APPOINTEE_NAME, getName(APPOINTEE, ccdResponse, responseWrapper));
 
         personalisation.put(HEARING_TYPE, responseWrapper.getNewSscsCaseData().getAppeal().getHearingType());
 
-        if (subscriptionWithType.getSubscriptionType() == REPRESENTATIVE) {
-            personalisation.put(PersonalisationMappingConstants.REPRESENTATIVE, "Yes");
-        }
-
-        if (subscriptionWithType.getSubscriptionType() == JOINT_PARTY) {
-            personalisation.put(PersonalisationMappingConstants.JOINT_PARTY, "Yes");
-        }
-
-        setConfidentialFields(ccdResponse, subscriptionWithType, personalisation);
-
         setHelplineTelephone(ccdResponse, personalisation);
-        if (subscriptionWithType.getSubscriptionType() == OTHER_PARTY) {
-            personalisation.put(PersonalisationMappingConstants.OTHER_PARTY, personalisation.get(NAME));
-        }
-
-        personalisation.put(PARTY_TYPE, subscriptionWithType.getParty().getClass().getSimpleName());
-        personalisation.put(ENTITY_TYPE, subscriptionWithType.getEntity().getClass().getSimpleName());
 
         if (isPostHearingsEnabled) {
             LocalDate finalDecisionDate = ccdResponse.getSscsFinalDecisionCaseData().getFinalDecisionIssuedDate();
@@ -325,7 +319,51 @@ public class Personalisation<E extends NotificationWrapper> {
         personalisation.put(IS_GRANTED, isGranted);
         personalisation.put(SENDER_NAME, LetterUtils.getNameForSender(ccdResponse));
 
-        return personalisation;
+        return personalisation.readOnly();
+    }
+
+    private void addRecipientPersonalisation(Map<String, Object> personalisation, SscsCaseDataWrapper responseWrapper,
+                                             SubscriptionWithType subscriptionWithType) {
+        SscsCaseData ccdResponse = responseWrapper.getNewSscsCaseData();
+
+        personalisation.put(NAME, getName(subscriptionWithType, ccdResponse, responseWrapper));
+        personalisation.put(REPRESENTEE_NAME, subscriptionWithType.getParty().getName().getFullNameNoTitle());
+
+        Subscription subscription = subscriptionWithType.getSubscription();
+        subscriptionDetails(personalisation, subscription, getBenefit(ccdResponse), ccdResponse);
+
+        personalisation.put(JOINT, subscriptionWithType.getSubscriptionType() == JOINT_PARTY ? JOINT_TEXT_WITH_A_SPACE : EMPTY);
+        personalisation.put(JOINT_WELSH, subscriptionWithType.getSubscriptionType() == JOINT_PARTY ? JOINT_TEXT_WITH_A_SPACE_WELSH : EMPTY);
+
+        final String tya = tya(subscription);
+        personalisation.put(ONLINE_HEARING_REGISTER_LINK_LITERAL, config.getOnlineHearingLink() + "/register?tya=" + tya);
+
+        personalisation.put(APPOINTEE_DESCRIPTION, getAppointeeDescription(subscriptionWithType.getSubscriptionType(), ccdResponse));
+
+        if (subscriptionWithType.getSubscriptionType() == REPRESENTATIVE) {
+            personalisation.put(PersonalisationMappingConstants.REPRESENTATIVE, "Yes");
+        }
+
+        if (subscriptionWithType.getSubscriptionType() == JOINT_PARTY) {
+            personalisation.put(PersonalisationMappingConstants.JOINT_PARTY, "Yes");
+        }
+
+        setConfidentialFields(ccdResponse, subscriptionWithType, personalisation);
+
+        if (subscriptionWithType.getSubscriptionType() == OTHER_PARTY) {
+            personalisation.put(PersonalisationMappingConstants.OTHER_PARTY, personalisation.get(NAME));
+        }
+
+        personalisation.put(PARTY_TYPE, subscriptionWithType.getParty().getClass().getSimpleName());
+        personalisation.put(ENTITY_TYPE, subscriptionWithType.getEntity().getClass().getSimpleName());
+    }
+
+    private Benefit getBenefit(SscsCaseData ccdResponse) {
+        try {
+            return hasBenefitType(ccdResponse) ? getBenefitByCodeOrThrowException(ccdResponse.getAppeal().getBenefitType().getCode()) : null;
+        } catch (BenefitMappingException bme) {
+            return null;
+        }
     }
 
     private void setDecisionDate(Map<String, Object> personalisation, SscsCaseData ccdResponse) {
@@ -691,11 +729,11 @@ public class Personalisation<E extends NotificationWrapper> {
     }
 
     boolean isSendSmsSubscriptionConfirmation() {
-        return sendSmsSubscriptionConfirmation;
+        return sendSmsSubscriptionConfirmation.get();
     }
 
     void setSendSmsSubscriptionConfirmation(Boolean sendSmsSubscriptionConfirmation) {
-        this.sendSmsSubscriptionConfirmation = sendSmsSubscriptionConfirmation;
+        this.sendSmsSubscriptionConfirmation.set(sendSmsSubscriptionConfirmation);
     }
 
     protected Map<String, Object> setHearingArrangementDetails(Map<String, Object> personalisation, SscsCaseData ccdResponse) {
@@ -0,0 +1,214 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.ArrayUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
+
+/**
+ * Documents downloaded from the document store to be bundled into letters. Every recipient of a
+ * bundled letter needs the same document, so within an event each URL is downloaded once and
+ * shared through the {@link NotificationWrapper}. Document store binaries do not change once
+ * uploaded, so recently used documents are also kept across events, up to a number of entries and
+ * a total on the heap; documents over the spill threshold are kept in temp files instead.
+ */
+@Component
+@Slf4j
+public class CaseDocumentCache {
+
+    private final PdfStoreService pdfStoreService;
+    private final int maxEntries;
+    private final long maxHeapBytes;
+    private final long spillThresholdBytes;
+    private final Map<String, CachedDocument> documents;
+    private final Path spillDirectory;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter savedBytesCounter;
+    private long heapBytes;
+
+    @Autowired
+    public CaseDocumentCache(PdfStoreService pdfStoreService,
+                             @Value("${document-cache.maxEntries}") int maxEntries,
+                             @Value("${document-cache.maxHeapBytes}") long maxHeapBytes,
+                             @Value("${document-cache.spillThresholdBytes}") long spillThresholdBytes,
+                             MeterRegistry meterRegistry) {
+        this.pdfStoreService = pdfStoreService;
+        this.maxEntries = maxEntries;
+        this.maxHeapBytes = maxHeapBytes;
+        this.spillThresholdBytes = spillThresholdBytes;
+        this.documents = new LinkedHashMap<>(16, 0.75f, true);
+        this.spillDirectory = maxEntries > 0 ? createSpillDirectory() : null;
+
+        this.hitCounter = meterRegistry.counter("notifications.document.cache.hit");
+        this.missCounter = meterRegistry.counter("notifications.document.cache.miss");
+        this.savedBytesCounter = Counter.builder("notifications.document.cache.saved")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("notifications.document.cache.hit.ratio", this, CaseDocumentCache::hitRatio)
+            .register(meterRegistry);
+        Gauge.builder("notifications.document.cache.heap", this, CaseDocumentCache::currentHeapBytes)
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("notifications.document.cache.size", this, CaseDocumentCache::cachedDocuments)
+            .register(meterRegistry);
+    }
+
+    public byte[] download(NotificationWrapper wrapper, String documentUrl) {
+        Map<String, byte[]> eventDocuments = wrapper.getDownloadedDocuments();
+        byte[] content = eventDocuments.get(documentUrl);
+        if (content != null) {
+            recordHit(content);
+            return content;
+        }
+        return eventDocuments.computeIfAbsent(documentUrl, this::download);
+    }
+
+    byte[] download(String documentUrl) {
+        byte[] content = lookup(documentUrl);
+        if (content != null) {
+            recordHit(content);
+            return content;
+        }
+
+        missCounter.increment();
+        content = pdfStoreService.download(documentUrl);
+        if (ArrayUtils.isNotEmpty(content)) {
+            store(documentUrl, content);
+        }
+        return content;
+    }
+
+    @PreDestroy
+    public synchronized void clear() {
+        documents.values().forEach(this::discard);
+        documents.clear();
+        heapBytes = 0;
+        if (spillDirectory != null) {
+            FileUtils.deleteQuietly(spillDirectory.toFile());
+        }
+    }
+
+    private byte[] lookup(String documentUrl) {
+        CachedDocument cached;
+        synchronized (this) {
+            cached = documents.get(documentUrl);
+        }
+        if (cached == null) {
+            return null;
+        }
+        if (cached.content != null) {
+            return cached.content;
+        }
+        try {
+            return Files.readAllBytes(cached.file);
+        } catch (IOException e) {
+            log.warn("Unable to read cached document {} from {}, downloading it again", documentUrl, cached.file, e);
+            synchronized (this) {
+                if (documents.remove(documentUrl, cached)) {
+                    discard(cached);
+                }
+            }
+            return null;
+        }
+    }
+
+    private void store(String documentUrl, byte[] content) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        CachedDocument cached;
+        if (content.length > spillThresholdBytes) {
+            try {
+                Path file = Files.createTempFile(spillDirectory, "document-", ".pdf");
+                Files.write(file, content);
+                cached = new CachedDocument(null, file);
+            } catch (IOException e) {
+                log.warn("Unable to spill document {} to disk, not caching it", documentUrl, e);
+                return;
+            }
+        } else if (content.length <= maxHeapBytes) {
+            cached = new CachedDocument(content, null);
+        } else {
+            return;
+        }
+
+        synchronized (this) {
+            CachedDocument previous = documents.put(documentUrl, cached);
+            if (previous != null) {
+                discard(previous);
+            }
+            if (cached.content != null) {
+                heapBytes += cached.content.length;
+            }
+            evict();
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, CachedDocument>> eldest = documents.entrySet().iterator();
+        while (eldest.hasNext() && (documents.size() > maxEntries || heapBytes > maxHeapBytes)) {
+            CachedDocument evicted = eldest.next().getValue();
+            eldest.remove();
+            discard(evicted);
+        }
+    }
+
+    private void discard(CachedDocument cached) {
+        if (cached.content != null) {
+            heapBytes -= cached.content.length;
+        } else {
+            FileUtils.deleteQuietly(cached.file.toFile());
+        }
+    }
+
+    private void recordHit(byte[] content) {
+        hitCounter.increment();
+        savedBytesCounter.increment(content.length);
+    }
+
+    private double hitRatio() {
+        double lookups = hitCounter.count() + missCounter.count();
+        return lookups == 0 ? 0 : hitCounter.count() / lookups;
+    }
+
+    private synchronized double currentHeapBytes() {
+        return heapBytes;
+    }
+
+    private synchronized double cachedDocuments() {
+        return documents.size();
+    }
+
+    private static Path createSpillDirectory() {
+        try {
+            return Files.createTempDirectory("case-documents-");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create a directory for cached documents", e);
+        }
+    }
+
+    private static class CachedDocument {
+        private final byte[] content;
+        private final Path file;
+
+        CachedDocument(byte[] content, Path file) {
+            this.content = content;
+            this.file = file;
+        }
+    }
+}
@@ -11,9 +11,12 @@ import uk.gov.hmcts.reform.sscs.docmosis.service.DocmosisPdfGenerationService;
 @Service
 public class DocmosisPdfService  {
     private final DocmosisPdfGenerationService docmosisPdfGenerationService;
+    private final DocmosisRenderCache renderCache;
 
-    public DocmosisPdfService(DocmosisPdfGenerationService docmosisPdfGenerationService) {
+    public DocmosisPdfService(DocmosisPdfGenerationService docmosisPdfGenerationService,
+                              DocmosisRenderCache renderCache) {
         this.docmosisPdfGenerationService = docmosisPdfGenerationService;
+        this.renderCache = renderCache;
     }
 
     public byte[] createPdf(Object pdfSummary, String templatePath) {
@@ -28,9 +31,10 @@ public class DocmosisPdfService  {
     }
 
     public byte[] createPdfFromMap(Map<String, Object> placeholders, String templatePath) {
-        return docmosisPdfGenerationService.generatePdf(DocumentHolder.builder()
-                .template(new Template(templatePath, ""))
-                .placeholders(placeholders)
-                .build());
+        return renderCache.render(templatePath, placeholders, () ->
+                docmosisPdfGenerationService.generatePdf(DocumentHolder.builder()
+                        .template(new Template(templatePath, ""))
+                        .placeholders(placeholders)
+                        .build()));
     }
 }
@@ -0,0 +1,266 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * PDFs rendered by Docmosis, keyed by the template and a hash of the placeholders they were
+ * rendered from. The same placeholders always render the same document, so a retried event or a
+ * coversheet printed twice in one bundle reuses the bytes already rendered. Recently used renders
+ * are kept on the heap up to a number of entries and a total size; when a directory is configured
+ * every render is also written there, so a render survives eviction and restarts until it expires.
+ */
+@Component
+@Slf4j
+public class DocmosisRenderCache {
+
+    private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+        .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+        .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+        .build();
+
+    private final int maxEntries;
+    private final long maxHeapBytes;
+    private final Duration timeToLive;
+    private final Path diskDirectory;
+    private final Clock clock;
+    private final Map<String, CachedRender> renders;
+    private final Counter memoryHitCounter;
+    private final Counter diskHitCounter;
+    private final Counter missCounter;
+    private long heapBytes;
+
+    @Autowired
+    public DocmosisRenderCache(@Value("${docmosis-render-cache.maxEntries}") int maxEntries,
+                               @Value("${docmosis-render-cache.maxHeapBytes}") long maxHeapBytes,
+                               @Value("${docmosis-render-cache.timeToLiveMinutes}") long timeToLiveMinutes,
+                               @Value("${docmosis-render-cache.diskDirectory}") String diskDirectory,
+                               MeterRegistry meterRegistry) {
+        this(maxEntries, maxHeapBytes, Duration.ofMinutes(timeToLiveMinutes),
+            StringUtils.isBlank(diskDirectory) ? null : Paths.get(diskDirectory), meterRegistry, Clock.systemUTC());
+    }
+
+    DocmosisRenderCache(int maxEntries, long maxHeapBytes, Duration timeToLive, Path diskDirectory,
+                        MeterRegistry meterRegistry, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.maxHeapBytes = maxHeapBytes;
+        this.timeToLive = timeToLive;
+        this.diskDirectory = createDiskDirectory(diskDirectory);
+        this.clock = clock;
+        this.renders = new LinkedHashMap<>(16, 0.75f, true);
+
+        this.memoryHitCounter = meterRegistry.counter("notifications.docmosis.render.cache.hit", "tier", "memory");
+        this.diskHitCounter = meterRegistry.counter("notifications.docmosis.render.cache.hit", "tier", "disk");
+        this.missCounter = meterRegistry.counter("notifications.docmosis.render.cache.miss");
+        Gauge.builder("notifications.docmosis.render.cache.heap", this, DocmosisRenderCache::currentHeapBytes)
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("notifications.docmosis.render.cache.size", this, DocmosisRenderCache::cachedRenders)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the document rendered from these placeholders, rendering it if it is not cached.
+     */
+    public byte[] render(String templatePath, Map<String, Object> placeholders, Supplier<byte[]> renderer) {
+        if (!isEnabled()) {
+            return renderer.get();
+        }
+        String key = key(templatePath, placeholders);
+        if (key == null) {
+            return renderer.get();
+        }
+
+        byte[] content = lookup(key);
+        if (content != null) {
+            return content;
+        }
+
+        missCounter.increment();
+        content = renderer.get();
+        if (ArrayUtils.isNotEmpty(content)) {
+            store(key, content);
+        }
+        return content;
+    }
+
+    @Scheduled(fixedDelayString = "${docmosis-render-cache.purgeIntervalMs}")
+    public void purgeExpired() {
+        Instant now = clock.instant();
+        synchronized (this) {
+            Iterator<CachedRender> iterator = renders.values().iterator();
+            while (iterator.hasNext()) {
+                CachedRender cached = iterator.next();
+                if (cached.isExpired(now, timeToLive)) {
+                    iterator.remove();
+                    heapBytes -= cached.content.length;
+                }
+            }
+        }
+        if (diskDirectory == null) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDirectory, "*.pdf")) {
+            for (Path file : files) {
+                if (isExpired(file, now)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to purge expired Docmosis renders from {}", diskDirectory, e);
+        }
+    }
+
+    private boolean isEnabled() {
+        return maxEntries > 0 || diskDirectory != null;
+    }
+
+    private byte[] lookup(String key) {
+        Instant now = clock.instant();
+        synchronized (this) {
+            CachedRender cached = renders.get(key);
+            if (cached != null && !cached.isExpired(now, timeToLive)) {
+                memoryHitCounter.increment();
+                return cached.content;
+            }
+        }
+        if (diskDirectory == null) {
+            return null;
+        }
+
+        Path file = diskDirectory.resolve(key + ".pdf");
+        try {
+            if (!Files.exists(file) || isExpired(file, now)) {
+                return null;
+            }
+            byte[] content = Files.readAllBytes(file);
+            diskHitCounter.increment();
+            keepOnHeap(key, new CachedRender(content, Files.getLastModifiedTime(file).toInstant()));
+            return content;
+        } catch (IOException e) {
+            log.warn("Unable to read cached Docmosis render {}, rendering it again", file, e);
+            return null;
+        }
+    }
+
+    private void store(String key, byte[] content) {
+        Instant renderedAt = clock.instant();
+        keepOnHeap(key, new CachedRender(content, renderedAt));
+        if (diskDirectory == null) {
+            return;
+        }
+        try {
+            Path partial = Files.createTempFile(diskDirectory, key, ".partial");
+            Files.write(partial, content);
+            Files.move(partial, diskDirectory.resolve(key + ".pdf"),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to write Docmosis render {} to {}", key, diskDirectory, e);
+        }
+    }
+
+    private synchronized void keepOnHeap(String key, CachedRender cached) {
+        if (maxEntries <= 0 || cached.content.length > maxHeapBytes) {
+            return;
+        }
+        CachedRender previous = renders.put(key, cached);
+        if (previous != null) {
+            heapBytes -= previous.content.length;
+        }
+        heapBytes += cached.content.length;
+
+        Iterator<CachedRender> eldest = renders.values().iterator();
+        while (eldest.hasNext() && (renders.size() > maxEntries || heapBytes > maxHeapBytes)) {
+            heapBytes -= eldest.next().content.length;
+            eldest.remove();
+        }
+    }
+
+    private boolean isExpired(Path file, Instant now) throws IOException {
+        return Files.getLastModifiedTime(file).toInstant().plus(timeToLive).isBefore(now);
+    }
+
+    private synchronized double currentHeapBytes() {
+        return heapBytes;
+    }
+
+    private synchronized double cachedRenders() {
+        return renders.size();
+    }
+
+    /**
+     * The template and a SHA-256 of the placeholders written as JSON with every map and property in
+     * key order, so placeholder maps built in a different order share a key. Null when the
+     * placeholders can not be written as JSON, in which case the document is not cached.
+     */
+    static String key(String templatePath, Map<String, Object> placeholders) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(templatePath.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(CANONICAL_MAPPER.writeValueAsBytes(placeholders));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (JsonProcessingException e) {
+            log.warn("Unable to hash placeholders for template {}, not caching the render", templatePath, e);
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static Path createDiskDirectory(Path diskDirectory) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        try {
+            return Files.createDirectories(diskDirectory);
+        } catch (IOException e) {
+            log.warn("Unable to create {} for Docmosis renders, keeping them on the heap only", diskDirectory, e);
+            return null;
+        }
+    }
+
+    private static class CachedRender {
+        private final byte[] content;
+        private final Instant renderedAt;
+
+        CachedRender(byte[] content, Instant renderedAt) {
+            this.content = content;
+            this.renderedAt = renderedAt;
+        }
+
+        boolean isExpired(Instant now, Duration timeToLive) {
+            return renderedAt.plus(timeToLive).isBefore(now);
+        }
+    }
+}
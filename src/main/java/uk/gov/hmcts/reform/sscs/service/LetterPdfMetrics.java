@@ -0,0 +1,101 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+
+/**
+ * The {@code notifications.letter.pdf.*} meters, shared by the {@link LetterPdfRetryScheduler} and the
+ * pending letters poller so a letter's PDF is counted the same way whichever of them fetches it, and the
+ * {@code notifications.correspondence.saves.*} meters for the correspondence saves the scheduler defers.
+ */
+@Component
+public class LetterPdfMetrics {
+
+    private static final String OUTCOME_TAG = "outcome";
+
+    private final AtomicInteger pending;
+    private final Counter attemptsReady;
+    private final Counter attemptsNotReady;
+    private final Counter attemptsFailed;
+    private final Counter lettersStored;
+    private final Counter lettersAbandoned;
+    private final Counter lettersRejected;
+    private final AtomicInteger pendingSaves;
+    private final Counter savesDeferred;
+    private final Counter savesRejected;
+    private final Counter savesAbandoned;
+    private final Timer timeToPdf;
+
+    public LetterPdfMetrics(MeterRegistry meterRegistry) {
+        this.pending = meterRegistry.gauge("notifications.letter.pdf.pending", new AtomicInteger());
+        this.attemptsReady = meterRegistry.counter("notifications.letter.pdf.attempts", OUTCOME_TAG, "ready");
+        this.attemptsNotReady = meterRegistry.counter("notifications.letter.pdf.attempts", OUTCOME_TAG, "notReady");
+        this.attemptsFailed = meterRegistry.counter("notifications.letter.pdf.attempts", OUTCOME_TAG, "failed");
+        this.lettersStored = meterRegistry.counter("notifications.letter.pdf.letters", OUTCOME_TAG, "stored");
+        this.lettersAbandoned = meterRegistry.counter("notifications.letter.pdf.letters", OUTCOME_TAG, "abandoned");
+        this.lettersRejected = meterRegistry.counter("notifications.letter.pdf.letters", OUTCOME_TAG, "rejected");
+        this.pendingSaves = meterRegistry.gauge("notifications.correspondence.saves.pending", new AtomicInteger());
+        this.savesDeferred = meterRegistry.counter("notifications.correspondence.saves", OUTCOME_TAG, "deferred");
+        this.savesRejected = meterRegistry.counter("notifications.correspondence.saves", OUTCOME_TAG, "rejected");
+        this.savesAbandoned = meterRegistry.counter("notifications.correspondence.saves", OUTCOME_TAG, "abandoned");
+        this.timeToPdf = Timer.builder("notifications.letter.pdf.time.to.pdf")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Letters waiting in memory on the {@link LetterPdfRetryScheduler}, reported by the pending gauge.
+     */
+    AtomicInteger getPending() {
+        return pending;
+    }
+
+    /**
+     * Correspondence saves waiting on the {@link LetterPdfRetryScheduler} for room in the record pool,
+     * reported by the saves pending gauge.
+     */
+    AtomicInteger getPendingSaves() {
+        return pendingSaves;
+    }
+
+    public void attemptReady(Duration sinceAccepted) {
+        attemptsReady.increment();
+        timeToPdf.record(sinceAccepted);
+    }
+
+    public void attemptNotReady() {
+        attemptsNotReady.increment();
+    }
+
+    public void attemptFailed() {
+        attemptsFailed.increment();
+    }
+
+    public void letterStored() {
+        lettersStored.increment();
+    }
+
+    public void letterAbandoned() {
+        lettersAbandoned.increment();
+    }
+
+    public void letterRejected() {
+        lettersRejected.increment();
+    }
+
+    public void saveDeferred() {
+        savesDeferred.increment();
+    }
+
+    public void saveRejected() {
+        savesRejected.increment();
+    }
+
+    public void saveAbandoned() {
+        savesAbandoned.increment();
+    }
+}
@@ -0,0 +1,214 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Correspondence;
+import uk.gov.hmcts.reform.sscs.config.LetterAsyncConfigProperties;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
+import uk.gov.service.notify.NotificationClient;
+import uk.gov.service.notify.NotificationClientException;
+
+/**
+ * Fetches the PDF GOV.UK Notify renders for a letter and saves it into CCD as correspondence.
+ * Notify takes a while to render a letter, so each attempt is scheduled after the last with an
+ * exponential, jittered backoff, and a letter waiting for its next attempt holds no thread. At most
+ * {@code letter-async.maxPending} letters wait at once; past that a letter is not fetched, which is why
+ * letters go to the pending letters table first and only fall back to this when it is unavailable. Saves
+ * the correspondence record pool rejects wait here too, rather than run on the sending thread, counted
+ * and limited by {@code letter-async.maxPendingSaves} apart from the letters.
+ */
+@Slf4j
+@Component
+public class LetterPdfRetryScheduler {
+
+    private final CcdNotificationsPdfService ccdNotificationsPdfService;
+    private final PipelineMetrics pipelineMetrics;
+    private final LetterAsyncConfigProperties properties;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final LetterPdfMetrics letterPdfMetrics;
+    private final AtomicInteger pending;
+    private final AtomicInteger pendingSaves;
+
+    public LetterPdfRetryScheduler(CcdNotificationsPdfService ccdNotificationsPdfService, PipelineMetrics pipelineMetrics,
+                                   LetterAsyncConfigProperties properties, LetterPdfMetrics letterPdfMetrics) {
+        this.ccdNotificationsPdfService = ccdNotificationsPdfService;
+        this.pipelineMetrics = pipelineMetrics;
+        this.properties = properties;
+        this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, properties.getThreads()),
+            new CustomizableThreadFactory("letter-pdf-"));
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.letterPdfMetrics = letterPdfMetrics;
+        this.pending = letterPdfMetrics.getPending();
+        this.pendingSaves = letterPdfMetrics.getPendingSaves();
+        log.info("Letter PDFs fetched with {} threads, at most {} pending and {} deferred saves", scheduler.getCorePoolSize(),
+            properties.getMaxPending(), properties.getMaxPendingSaves());
+    }
+
+    /**
+     * Schedules the first attempt to fetch and save the PDF of a letter Notify has accepted.
+     *
+     * @return false if too many letters are already waiting for their PDF, so this one will not be fetched
+     */
+    public boolean schedule(NotificationClient client, String notificationId, Correspondence correspondence, String ccdCaseId) {
+        if (pending.incrementAndGet() > properties.getMaxPending()) {
+            pending.decrementAndGet();
+            letterPdfMetrics.letterRejected();
+            log.error("Too many letters waiting for their PDF, not saving letter {} as correspondence for case id: {}",
+                notificationId, ccdCaseId);
+            return false;
+        }
+        PendingLetter letter = new PendingLetter(client, notificationId, correspondence, ccdCaseId, System.nanoTime());
+        log.debug("delaying by {} milliseconds before making first attempt to get letter pdf for case id : {}",
+            properties.getInitialDelay(), ccdCaseId);
+        return scheduleAttempt(letter, 1, properties.getInitialDelay());
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    public int getPendingSaves() {
+        return pendingSaves.get();
+    }
+
+    /**
+     * Hands a save the correspondence record pool rejected back to the pool after the backoff for its
+     * attempt, so the sending thread never runs it. It counts towards {@code maxPendingSaves} while it waits,
+     * and one the pool still rejects after {@code maxAttempts} is dropped.
+     */
+    public void deferRejectedSave(Runnable save, ThreadPoolExecutor recordExecutor) {
+        DeferredSave deferred;
+        if (save instanceof DeferredSave) {
+            DeferredSave rejected = (DeferredSave) save;
+            if (rejected.attempt >= properties.getMaxAttempts()) {
+                abandonSave(rejected.attempt + " attempts to hand it to the correspondence record pool");
+                return;
+            }
+            deferred = new DeferredSave(rejected.save, rejected.attempt + 1);
+        } else {
+            if (pendingSaves.incrementAndGet() > properties.getMaxPendingSaves()) {
+                pendingSaves.decrementAndGet();
+                letterPdfMetrics.saveRejected();
+                log.error("Too many saves waiting, not saving a correspondence the correspondence record pool rejected");
+                return;
+            }
+            deferred = new DeferredSave(save, 1);
+        }
+        if (recordExecutor.isShutdown()) {
+            abandonSave("the correspondence record pool shut down");
+            return;
+        }
+        letterPdfMetrics.saveDeferred();
+        try {
+            scheduler.schedule(() -> recordExecutor.execute(deferred), backoff(deferred.attempt), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            abandonSave("shutting down");
+        }
+    }
+
+    private void abandonSave(String reason) {
+        letterPdfMetrics.saveAbandoned();
+        pendingSaves.decrementAndGet();
+        log.error("Not saving a correspondence the correspondence record pool rejected after {}", reason);
+    }
+
+    private boolean scheduleAttempt(PendingLetter letter, int attempt, long delayMs) {
+        try {
+            scheduler.schedule(() -> attempt(letter, attempt), delayMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            letterPdfMetrics.letterAbandoned();
+            pending.decrementAndGet();
+            log.error("Shutting down, not saving letter {} as correspondence for case id: {}", letter.notificationId, letter.ccdCaseId);
+            return false;
+        }
+    }
+
+    private void attempt(PendingLetter letter, int attempt) {
+        try {
+            final byte[] pdfForLetter = letter.client.getPdfForLetter(letter.notificationId);
+            letterPdfMetrics.attemptReady(Duration.ofNanos(System.nanoTime() - letter.acceptedAtNanos));
+            log.info("Using merge letter correspondence V2 to upload letter correspondence for {} ", letter.ccdCaseId);
+            pipelineMetrics.time(PipelineStage.RECORD,
+                () -> ccdNotificationsPdfService.mergeLetterCorrespondenceIntoCcdV2(pdfForLetter, Long.valueOf(letter.ccdCaseId), letter.correspondence));
+            pending.decrementAndGet();
+        } catch (NotificationClientException e) {
+            if (String.valueOf(e.getMessage()).contains("PDFNotReadyError")) {
+                letterPdfMetrics.attemptNotReady();
+                log.info("Got a PDFNotReadyError back from gov.notify for case id: {}.", letter.ccdCaseId);
+            } else {
+                letterPdfMetrics.attemptFailed();
+                log.warn("Got a strange error '{}' back from gov.notify for case id: {}.", e.getMessage(), letter.ccdCaseId);
+            }
+            retry(letter, attempt, e);
+        } catch (RuntimeException e) {
+            letterPdfMetrics.attemptFailed();
+            retry(letter, attempt, e);
+        }
+    }
+
+    private void retry(PendingLetter letter, int attempt, Exception failure) {
+        if (attempt >= properties.getMaxAttempts()) {
+            letterPdfMetrics.letterAbandoned();
+            pending.decrementAndGet();
+            log.error("Failed saving correspondence for letter {} for case id: {} after {} attempts",
+                letter.notificationId, letter.ccdCaseId, attempt, failure);
+            return;
+        }
+        scheduleAttempt(letter, attempt + 1, backoff(attempt));
+    }
+
+    long backoff(int attempt) {
+        return properties.backoffAfterAttempt(attempt);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (pending.get() > 0) {
+            log.warn("Shut down with {} letters still waiting for their PDF", pending.get());
+        }
+    }
+
+    private final class DeferredSave implements Runnable {
+        private final Runnable save;
+        private final int attempt;
+
+        private DeferredSave(Runnable save, int attempt) {
+            this.save = save;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            pendingSaves.decrementAndGet();
+            save.run();
+        }
+    }
+
+    private static final class PendingLetter {
+        private final NotificationClient client;
+        private final String notificationId;
+        private final Correspondence correspondence;
+        private final String ccdCaseId;
+        private final long acceptedAtNanos;
+
+        private PendingLetter(NotificationClient client, String notificationId, Correspondence correspondence,
+                              String ccdCaseId, long acceptedAtNanos) {
+            this.client = client;
+            this.notificationId = notificationId;
+            this.correspondence = correspondence;
+            this.ccdCaseId = ccdCaseId;
+            this.acceptedAtNanos = acceptedAtNanos;
+        }
+    }
+}
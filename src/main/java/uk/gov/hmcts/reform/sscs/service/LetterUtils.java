@@ -12,24 +12,15 @@ import static uk.gov.hmcts.reform.sscs.config.SubscriptionType.REPRESENTATIVE;
 import static uk.gov.hmcts.reform.sscs.model.PartyItemList.*;
 import static uk.gov.hmcts.reform.sscs.service.NotificationUtils.hasAppointee;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.pdfbox.multipdf.PDFMergerUtility;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import uk.gov.hmcts.reform.sscs.ccd.domain.*;
 import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
 import uk.gov.hmcts.reform.sscs.domain.SubscriptionWithType;
-import uk.gov.hmcts.reform.sscs.exception.NotificationClientRuntimeException;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
 import uk.gov.hmcts.reform.sscs.model.PartyItemList;
 
@@ -98,47 +89,6 @@ public class LetterUtils {
         }
     }
 
-    public static byte[] addBlankPageAtTheEndIfOddPage(byte[] letter) throws IOException {
-        if (ArrayUtils.isNotEmpty(letter)) {
-            PDDocument loadDoc = PDDocument.load(letter);
-            if (loadDoc.getNumberOfPages() % 2 != 0) {
-                final PDPage blankPage = new PDPage(PDRectangle.A4);
-                // need to add PDPageContentStream here to pass gov notify validation!
-                PDPageContentStream contents = new PDPageContentStream(loadDoc, blankPage);
-                contents.beginText();
-                contents.endText();
-                contents.close();
-                loadDoc.addPage(blankPage);
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                loadDoc.save(baos);
-                loadDoc.close();
-                byte[] bytes = baos.toByteArray();
-                baos.close();
-                return bytes;
-            }
-        }
-        return letter;
-    }
-
-    public static byte[] buildBundledLetter(byte[] coveringLetter, byte[] directionText) throws IOException {
-        if (coveringLetter != null && directionText != null) {
-            PDDocument bundledLetter = PDDocument.load(coveringLetter);
-
-            PDDocument loadDoc = PDDocument.load(directionText);
-
-            final PDFMergerUtility merger = new PDFMergerUtility();
-            merger.appendDocument(bundledLetter, loadDoc);
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            bundledLetter.save(baos);
-            bundledLetter.close();
-
-            return baos.toByteArray();
-        } else {
-            throw new NotificationClientRuntimeException("Can not bundle empty documents");
-        }
-    }
-
     public static boolean isAlternativeLetterFormatRequired(NotificationWrapper wrapper, SubscriptionWithType subscriptionWithType) {
         YesNo wantsReasonableAdjustment = YesNo.NO;
         ReasonableAdjustments resAdj = wrapper.getNewSscsCaseData().getReasonableAdjustments();
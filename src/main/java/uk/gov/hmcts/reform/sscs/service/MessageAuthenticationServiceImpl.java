@@ -22,6 +22,10 @@ import uk.gov.hmcts.reform.sscs.config.AppConstants;
 import uk.gov.hmcts.reform.sscs.exception.MacException;
 import uk.gov.hmcts.reform.sscs.exception.TokenException;
 
+/**
+ * Signs the appeal tokens in tracking links. A {@link Mac} can not be shared between threads, so
+ * each thread signs with its own copy of the one initialised from the secret.
+ */
 @Service
 public class MessageAuthenticationServiceImpl {
     private static final Logger LOG = getLogger(MessageAuthenticationServiceImpl.class);
@@ -29,6 +33,7 @@ public class MessageAuthenticationServiceImpl {
 
     private Mac mac;
     private String macString;
+    private final ThreadLocal<Mac> threadMac = ThreadLocal.withInitial(this::copyMac);
 
     @Autowired
     public MessageAuthenticationServiceImpl(@Value("${subscription.hmac.secret.text}") String macString) throws InvalidKeyException, NoSuchAlgorithmException {
@@ -48,11 +53,25 @@ public class MessageAuthenticationServiceImpl {
         }
     }
 
+    private Mac copyMac() {
+        try {
+            return (Mac) mac.clone();
+        } catch (CloneNotSupportedException ex) {
+            try {
+                Mac copy = getInstance(mac.getAlgorithm());
+                copy.init(new SecretKeySpec(macString.getBytes(CHARSET), mac.getAlgorithm()));
+                return copy;
+            } catch (NoSuchAlgorithmException | InvalidKeyException initEx) {
+                throw new MacException(initEx);
+            }
+        }
+    }
+
     public String generateToken(String appealNumber, String benefitType)  {
         try {
             long timestamp = now(of(AppConstants.ZONE_ID)).toInstant().toEpochMilli() / 1000;
             String originalMessage = format("%s|%s|%d", appealNumber, benefitType, timestamp);
-            byte[] digest = mac.doFinal(originalMessage.getBytes(CHARSET));
+            byte[] digest = threadMac.get().doFinal(originalMessage.getBytes(CHARSET));
             String macSubString =  printBase64Binary(digest).substring(0,10);
             String macToken = format("%s|%s", originalMessage, macSubString);
             return getEncoder().withoutPadding().encodeToString(macToken.getBytes(CHARSET));
@@ -1,16 +1,20 @@
 package uk.gov.hmcts.reform.sscs.service;
 
+import io.micrometer.core.instrument.Timer;
 import java.net.UnknownHostException;
 import java.time.ZonedDateTime;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
 import uk.gov.hmcts.reform.sscs.exception.NotificationClientRuntimeException;
 import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
 import uk.gov.hmcts.reform.sscs.jobscheduler.model.Job;
 import uk.gov.hmcts.reform.sscs.jobscheduler.services.JobScheduler;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
 import uk.gov.hmcts.reform.sscs.service.reminder.JobGroupGenerator;
 import uk.gov.service.notify.NotificationClientException;
 
@@ -21,24 +25,33 @@ public class NotificationHandler {
     private final OutOfHoursCalculator outOfHoursCalculator;
     private final JobScheduler jobScheduler;
     private final JobGroupGenerator jobGroupGenerator;
+    private final PipelineMetrics pipelineMetrics;
 
     @Autowired
-    public NotificationHandler(OutOfHoursCalculator outOfHoursCalculator, JobScheduler jobScheduler, JobGroupGenerator jobGroupGenerator) {
+    public NotificationHandler(OutOfHoursCalculator outOfHoursCalculator, JobScheduler jobScheduler, JobGroupGenerator jobGroupGenerator,
+                               PipelineMetrics pipelineMetrics) {
         this.outOfHoursCalculator = outOfHoursCalculator;
         this.jobScheduler = jobScheduler;
         this.jobGroupGenerator = jobGroupGenerator;
+        this.pipelineMetrics = pipelineMetrics;
     }
 
     public boolean sendNotification(NotificationWrapper wrapper, String notificationTemplate, final String notificationType, SendNotification sendNotification) {
         final String caseId = wrapper.getCaseId();
+        Timer.Sample sendSample = pipelineMetrics.start();
         try {
             log.info("Sending {} template {} for case id: {}", notificationType, notificationTemplate, caseId);
-            sendNotification.send();
-            log.info("{} template {} sent for case id: {}", notificationType, notificationTemplate, caseId);
+            if (sendNotification.send()) {
+                log.info("{} template {} queued in the outbox for case id: {}", notificationType, notificationTemplate, caseId);
+            } else {
+                log.info("{} template {} sent for case id: {}", notificationType, notificationTemplate, caseId);
+            }
             return true;
         } catch (Exception ex) {
             log.error("Could not send {} notification for case id: {}", notificationType, wrapper.getCaseId());
             wrapAndThrowNotificationExceptionIfRequired(wrapper, notificationTemplate, ex);
+        } finally {
+            pipelineMetrics.stop(PipelineStage.SEND, sendSample);
         }
 
         return false;
@@ -49,15 +62,25 @@ public class NotificationHandler {
     }
 
     public void scheduleNotification(NotificationWrapper wrapper, int retry, ZonedDateTime dateTime) {
+        scheduleNotification(wrapper, wrapper.getNotificationType(), wrapper.getRetryRecipient(), wrapper.getRetryChannel(),
+            retry, dateTime);
+    }
+
+    /**
+     * Schedules a retry of one event for a single recipient, and for a single channel when one is given, so the
+     * recipients and channels it already reached are not sent it again.
+     */
+    public void scheduleNotification(NotificationWrapper wrapper, NotificationEventType notificationType, String recipient,
+                                     NotificationChannel channel, int retry, ZonedDateTime dateTime) {
         final String caseId = wrapper.getCaseId();
-        String eventId = wrapper.getNotificationType().getId();
+        String eventId = notificationType.getId();
         String jobGroup = jobGroupGenerator.generate(caseId, eventId);
         log.info("Scheduled retry {} - {} for case id: {} @ {}", retry, eventId, caseId, dateTime);
 
         jobScheduler.schedule(new Job<>(
                 jobGroup,
                 eventId,
-                wrapper.getSchedulerPayload() + "," + retry,
+                schedulerPayload(wrapper.getSchedulerPayload() + "," + retry, recipient, channel),
                 dateTime
         ));
     }
@@ -68,14 +91,23 @@ public class NotificationHandler {
         String jobGroup = jobGroupGenerator.generate(caseId, eventId);
         log.info("Scheduled {} for case id: {} @ {}", eventId, caseId, dateTime);
 
+        String payload = wrapper.getRetryRecipient() == null ? wrapper.getSchedulerPayload()
+            : schedulerPayload(wrapper.getSchedulerPayload() + ",0", wrapper.getRetryRecipient(), wrapper.getRetryChannel());
         jobScheduler.schedule(new Job<>(
                 jobGroup,
                 eventId,
-                wrapper.getSchedulerPayload(),
+                payload,
                 dateTime
         ));
     }
 
+    private static String schedulerPayload(String payload, String recipient, NotificationChannel channel) {
+        if (recipient == null) {
+            return payload;
+        }
+        return channel == null ? payload + "," + recipient : payload + "," + recipient + "," + channel;
+    }
+
     private void wrapAndThrowNotificationExceptionIfRequired(NotificationWrapper wrapper, String templateId, Exception ex) {
         String caseId = wrapper.getCaseId();
         NotificationEventType notificationType = wrapper.getNotificationType();
@@ -96,6 +128,9 @@ public class NotificationHandler {
 
     @FunctionalInterface
     public interface SendNotification {
-        void send() throws NotificationClientException;
+        /**
+         * Returns true when the notification was only queued in the outbox, to be sent to GovNotify later.
+         */
+        boolean send() throws NotificationClientException;
     }
 }
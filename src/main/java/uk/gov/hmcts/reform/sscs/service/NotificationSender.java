@@ -1,10 +1,21 @@
 package uk.gov.hmcts.reform.sscs.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -16,6 +27,9 @@ import uk.gov.hmcts.reform.sscs.ccd.domain.*;
 import uk.gov.hmcts.reform.sscs.config.NotificationTestRecipients;
 import uk.gov.hmcts.reform.sscs.config.SubscriptionType;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+import uk.gov.hmcts.reform.sscs.service.outbox.NotificationOutbox;
+import uk.gov.hmcts.reform.sscs.service.outbox.OutboxChannel;
+import uk.gov.hmcts.reform.sscs.service.outbox.OutboxMessage;
 import uk.gov.service.notify.LetterResponse;
 import uk.gov.service.notify.NotificationClient;
 import uk.gov.service.notify.NotificationClientException;
@@ -30,13 +44,20 @@ public class NotificationSender {
     private static final String USING_TEST_GOV_NOTIFY_KEY_FOR = "Using test GovNotify key {} for {}";
     static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("d MMM y HH:mm");
     static final ZoneId ZONE_ID_LONDON = ZoneId.of("Europe/London");
+    private static final String LIVE_KEY = "live";
+    private static final String TEST_KEY = "test";
 
     private final NotificationClient notificationClient;
     private final NotificationClient testNotificationClient;
     private final NotificationTestRecipients notificationTestRecipients;
     private final MarkdownTransformationService markdownTransformationService;
     private final SaveCorrespondenceAsyncService saveCorrespondenceAsyncService;
+    private final NotifyRateLimiter notifyRateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final Optional<NotificationOutbox> notificationOutbox;
     private final Boolean saveCorrespondence;
+    private final Map<String, AtomicInteger> inFlightRequests = new ConcurrentHashMap<>();
+    private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>();
 
     @Autowired
     public NotificationSender(@Qualifier("notificationClient") NotificationClient notificationClient,
@@ -44,6 +65,9 @@ public class NotificationSender {
                               NotificationTestRecipients notificationTestRecipients,
                               MarkdownTransformationService markdownTransformationService,
                               SaveCorrespondenceAsyncService saveCorrespondenceAsyncService,
+                              NotifyRateLimiter notifyRateLimiter,
+                              MeterRegistry meterRegistry,
+                              Optional<NotificationOutbox> notificationOutbox,
                               @Value("${feature.save_correspondence}") Boolean saveCorrespondence
     ) {
         this.notificationClient = notificationClient;
@@ -52,11 +76,40 @@ public class NotificationSender {
         this.markdownTransformationService = markdownTransformationService;
         this.saveCorrespondence = saveCorrespondence;
         this.saveCorrespondenceAsyncService = saveCorrespondenceAsyncService;
+        this.notifyRateLimiter = notifyRateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.notificationOutbox = notificationOutbox;
+        registerConnectionGauges();
     }
 
-    public void sendEmail(String templateId, String emailAddress, Map<String, Object> personalisation, String reference,
-                          NotificationEventType notificationEventType,
-                          SscsCaseData sscsCaseData) throws NotificationClientException {
+    /**
+     * Sends the email, or queues it in the outbox when that is enabled. Returns true if it was queued, in which case a
+     * failure to send it is retried by the outbox drainer, and then by the job retries for the recipient, rather than
+     * reported to the caller.
+     */
+    public boolean sendEmail(String templateId, String emailAddress, Map<String, Object> personalisation, String reference,
+                             NotificationEventType notificationEventType,
+                             SscsCaseData sscsCaseData, String recipient) throws NotificationClientException {
+        OutboxMessage message = OutboxMessage.builder()
+            .caseId(sscsCaseData.getCcdCaseId())
+            .eventType(notificationEventType)
+            .channel(OutboxChannel.EMAIL)
+            .recipient(recipient)
+            .templateId(templateId)
+            .destination(emailAddress)
+            .placeholders(personalisation)
+            .reference(reference)
+            .build();
+        if (addToOutbox(message)) {
+            return true;
+        }
+        deliverEmail(templateId, emailAddress, personalisation, reference, notificationEventType, sscsCaseData);
+        return false;
+    }
+
+    public void deliverEmail(String templateId, String emailAddress, Map<String, Object> personalisation, String reference,
+                             NotificationEventType notificationEventType,
+                             SscsCaseData sscsCaseData) throws NotificationClientException {
 
         NotificationClient client;
 
@@ -82,18 +135,42 @@ public class NotificationSender {
 
     @Retryable
     private SendEmailResponse getSendEmailResponse(String templateId, String emailAddress, Map<String, Object> personalisation, String reference, NotificationClient client) throws NotificationClientException {
-        final SendEmailResponse sendEmailResponse;
-        try {
-            sendEmailResponse = client.sendEmail(templateId, emailAddress, personalisation, reference);
-        } catch (NotificationClientException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new NotificationClientException(e);
+        notifyRateLimiter.acquire(apiKeyName(client), NotifyRateLimiter.Channel.MESSAGE);
+        return request("email", client, () -> client.sendEmail(templateId, emailAddress, personalisation, reference));
+    }
+
+    /**
+     * Sends the SMS, or queues it in the outbox when that is enabled. Returns true if it was queued.
+     */
+    public boolean sendSms(
+            String templateId,
+            String phoneNumber,
+            Map<String, Object> personalisation,
+            String reference,
+            String smsSender,
+            NotificationEventType notificationEventType,
+            SscsCaseData sscsCaseData,
+            String recipient
+    ) throws NotificationClientException {
+        OutboxMessage message = OutboxMessage.builder()
+            .caseId(sscsCaseData.getCcdCaseId())
+            .eventType(notificationEventType)
+            .channel(OutboxChannel.SMS)
+            .recipient(recipient)
+            .templateId(templateId)
+            .destination(phoneNumber)
+            .smsSender(smsSender)
+            .placeholders(personalisation)
+            .reference(reference)
+            .build();
+        if (addToOutbox(message)) {
+            return true;
         }
-        return sendEmailResponse;
+        deliverSms(templateId, phoneNumber, personalisation, reference, smsSender, notificationEventType, sscsCaseData);
+        return false;
     }
 
-    public void sendSms(
+    public void deliverSms(
             String templateId,
             String phoneNumber,
             Map<String, Object> personalisation,
@@ -126,21 +203,14 @@ public class NotificationSender {
 
     @Retryable
     private SendSmsResponse getSendSmsResponse(String templateId, String phoneNumber, Map<String, Object> personalisation, String reference, String smsSender, NotificationClient client) throws NotificationClientException {
-        final SendSmsResponse sendSmsResponse;
-        try {
-            sendSmsResponse = client.sendSms(
-                    templateId,
-                    phoneNumber,
-                    personalisation,
-                    reference,
-                    smsSender
-            );
-        } catch (NotificationClientException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new NotificationClientException(e);
-        }
-        return sendSmsResponse;
+        notifyRateLimiter.acquire(apiKeyName(client), NotifyRateLimiter.Channel.MESSAGE);
+        return request("sms", client, () -> client.sendSms(
+                templateId,
+                phoneNumber,
+                personalisation,
+                reference,
+                smsSender
+        ));
     }
 
     public void sendLetter(String templateId, Address address, Map<String, Object> personalisation,
@@ -161,45 +231,41 @@ public class NotificationSender {
 
     @Retryable
     private SendLetterResponse getSendLetterResponse(String templateId, Map<String, Object> personalisation, String ccdCaseId, NotificationClient client) throws NotificationClientException {
-        final SendLetterResponse sendLetterResponse;
-        try {
-            sendLetterResponse = client.sendLetter(templateId, personalisation, ccdCaseId);
-        } catch (NotificationClientException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new NotificationClientException(e);
-        }
-        return sendLetterResponse;
+        notifyRateLimiter.acquire(apiKeyName(client), NotifyRateLimiter.Channel.LETTER);
+        return request("letter", client, () -> client.sendLetter(templateId, personalisation, ccdCaseId));
     }
 
     public void sendBundledLetter(String appellantPostcode, byte[] directionText, NotificationEventType notificationEventType, String name, String ccdCaseId) throws NotificationClientException {
         if (directionText != null) {
-            NotificationClient client = getLetterNotificationClient(appellantPostcode);
+            sendBundledLetter(appellantPostcode, new ByteArrayInputStream(directionText), notificationEventType, name, ccdCaseId);
+        }
+    }
 
-            ByteArrayInputStream bis = new ByteArrayInputStream(directionText);
+    public void sendBundledLetter(String appellantPostcode, Path bundledLetter, NotificationEventType notificationEventType, String name, String ccdCaseId) throws NotificationClientException {
+        try (InputStream bis = Files.newInputStream(bundledLetter)) {
+            sendBundledLetter(appellantPostcode, bis, notificationEventType, name, ccdCaseId);
+        } catch (IOException e) {
+            throw new NotificationClientException(e);
+        }
+    }
 
-            final LetterResponse sendLetterResponse = getBundledLetterResponse(ccdCaseId, client, bis);
+    private void sendBundledLetter(String appellantPostcode, InputStream bis, NotificationEventType notificationEventType, String name, String ccdCaseId) throws NotificationClientException {
+        NotificationClient client = getLetterNotificationClient(appellantPostcode);
 
-            if (saveCorrespondence) {
-                final Correspondence correspondence = getLetterCorrespondence(notificationEventType, name);
-                saveCorrespondenceAsyncService.saveLetter(client, sendLetterResponse.getNotificationId().toString(), correspondence, ccdCaseId);
-            }
+        final LetterResponse sendLetterResponse = getBundledLetterResponse(ccdCaseId, client, bis);
 
-            log.info("Letter Notification send for case id : {}, Gov notify id: {} ", ccdCaseId, (sendLetterResponse != null) ? sendLetterResponse.getNotificationId() : null);
+        if (saveCorrespondence) {
+            final Correspondence correspondence = getLetterCorrespondence(notificationEventType, name);
+            saveCorrespondenceAsyncService.saveLetter(client, sendLetterResponse.getNotificationId().toString(), correspondence, ccdCaseId);
         }
+
+        log.info("Letter Notification send for case id : {}, Gov notify id: {} ", ccdCaseId, (sendLetterResponse != null) ? sendLetterResponse.getNotificationId() : null);
     }
 
     @Retryable
-    private LetterResponse getBundledLetterResponse(String ccdCaseId, NotificationClient client, ByteArrayInputStream bis) throws NotificationClientException {
-        final LetterResponse sendLetterResponse;
-        try {
-            sendLetterResponse = client.sendPrecompiledLetterWithInputStream(ccdCaseId, bis);
-        } catch (NotificationClientException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new NotificationClientException(e);
-        }
-        return sendLetterResponse;
+    private LetterResponse getBundledLetterResponse(String ccdCaseId, NotificationClient client, InputStream bis) throws NotificationClientException {
+        notifyRateLimiter.acquire(apiKeyName(client), NotifyRateLimiter.Channel.LETTER);
+        return request("precompiledLetter", client, () -> client.sendPrecompiledLetterWithInputStream(ccdCaseId, bis));
     }
 
     public void saveLettersToReasonableAdjustment(byte[] pdfForLetter, NotificationEventType notificationEventType, String name, String ccdCaseId, SubscriptionType subscriptionType) {
@@ -255,6 +321,50 @@ public class NotificationSender {
         ).build();
     }
 
+    private boolean addToOutbox(OutboxMessage message) {
+        if (notificationOutbox.isPresent() && notificationOutbox.get().enqueue(message)) {
+            log.info("{} Notification for case id : {} added to the outbox", message.getChannel(), message.getCaseId());
+            return true;
+        }
+        return false;
+    }
+
+    private String apiKeyName(NotificationClient client) {
+        return client == testNotificationClient ? TEST_KEY : LIVE_KEY;
+    }
+
+    private <T> T request(String operation, NotificationClient client, NotifyRequest<T> request) throws NotificationClientException {
+        String key = apiKeyName(client);
+        AtomicInteger inFlight = inFlightRequests.get(key);
+        Timer.Sample requestSample = Timer.start(meterRegistry);
+        inFlight.incrementAndGet();
+        try {
+            return request.send();
+        } catch (NotificationClientException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new NotificationClientException(e);
+        } finally {
+            inFlight.decrementAndGet();
+            requestSample.stop(requestTimers.computeIfAbsent(operation + ":" + key, name -> Timer.builder("notifications.notify.request")
+                .tags("operation", operation, "key", key)
+                .publishPercentileHistogram()
+                .register(meterRegistry)));
+        }
+    }
+
+    /**
+     * Notify connections are pooled by the JDK keep-alive cache, which has no metrics of its own. Requests in flight
+     * per API key above its {@code http.maxConnections} limit are connections that get closed after use rather than reused.
+     */
+    private void registerConnectionGauges() {
+        for (String key : List.of(LIVE_KEY, TEST_KEY)) {
+            AtomicInteger inFlight = new AtomicInteger();
+            inFlightRequests.put(key, inFlight);
+            meterRegistry.gauge("notifications.notify.connections.in_use", Tags.of("key", key), inFlight);
+        }
+    }
+
     private NotificationClient getLetterNotificationClient(String postcode) {
         NotificationClient client;
         if (notificationTestRecipients.getPostcodes().contains("*")
@@ -271,4 +381,9 @@ public class NotificationSender {
     public void getBackendResponseFallback(Throwable e) {
         log.error("Failed sending.....", e);
     }
+
+    @FunctionalInterface
+    private interface NotifyRequest<T> {
+        T send() throws NotificationClientException;
+    }
 }
@@ -20,24 +20,39 @@ import static uk.gov.hmcts.reform.sscs.service.NotificationUtils.isOkToSendNotif
 import static uk.gov.hmcts.reform.sscs.service.NotificationValidService.isMandatoryLetterEventType;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import uk.gov.hmcts.reform.sscs.ccd.domain.*;
+import uk.gov.hmcts.reform.sscs.config.FanOutConfig;
 import uk.gov.hmcts.reform.sscs.config.NotificationConfig;
+import uk.gov.hmcts.reform.sscs.config.NotificationDecision;
+import uk.gov.hmcts.reform.sscs.config.NotificationDecisionTable;
+import uk.gov.hmcts.reform.sscs.domain.CaseChangeSet;
 import uk.gov.hmcts.reform.sscs.domain.SubscriptionWithType;
 import uk.gov.hmcts.reform.sscs.domain.notify.Destination;
 import uk.gov.hmcts.reform.sscs.domain.notify.Notification;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
 import uk.gov.hmcts.reform.sscs.domain.notify.Reference;
 import uk.gov.hmcts.reform.sscs.domain.notify.Template;
+import uk.gov.hmcts.reform.sscs.exception.ChannelNotificationException;
+import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
+import uk.gov.hmcts.reform.sscs.exception.RecipientNotificationException;
+import uk.gov.hmcts.reform.sscs.exception.RecipientNotificationException.FailedRecipient;
 import uk.gov.hmcts.reform.sscs.factory.NotificationFactory;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
+import uk.gov.hmcts.reform.sscs.service.pipeline.FanOutExecutor;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
 import uk.gov.hmcts.reform.sscs.utility.PhoneNumbersUtil;
 
 @Service
@@ -52,6 +67,8 @@ public class NotificationService {
     private final NotificationHandler notificationHandler;
     private final OutOfHoursCalculator outOfHoursCalculator;
     private final NotificationConfig notificationConfig;
+    private final PipelineMetrics pipelineMetrics;
+    private final FanOutExecutor recipientFanOutExecutor;
 
     @SuppressWarnings("squid:S107")
     @Autowired
@@ -63,6 +80,8 @@ public class NotificationService {
             OutOfHoursCalculator outOfHoursCalculator,
             NotificationConfig notificationConfig,
             SendNotificationService sendNotificationService,
+            PipelineMetrics pipelineMetrics,
+            @Qualifier(FanOutConfig.RECIPIENT_FAN_OUT) FanOutExecutor recipientFanOutExecutor,
             @Value("${feature.covid19}") boolean covid19Feature) {
 
         this.notificationFactory = notificationFactory;
@@ -72,6 +91,8 @@ public class NotificationService {
         this.outOfHoursCalculator = outOfHoursCalculator;
         this.notificationConfig = notificationConfig;
         this.sendNotificationService = sendNotificationService;
+        this.pipelineMetrics = pipelineMetrics;
+        this.recipientFanOutExecutor = recipientFanOutExecutor;
         this.covid19Feature = covid19Feature;
     }
 
@@ -98,9 +119,14 @@ public class NotificationService {
                 notificationHandler.scheduleNotification(notificationWrapper, ZonedDateTime.now().plusSeconds(notificationType.getDelayInSeconds()));
             } else {
                 log.info("Sending notification for Notification event {} and case id {}", notificationType.getId(), caseId);
-                sendNotificationPerSubscription(notificationWrapper);
-                reminderService.createReminders(notificationWrapper);
-                sendSecondNotification(notificationWrapper);
+                List<FailedRecipient> failedRecipients = new ArrayList<>(sendNotificationPerSubscription(notificationWrapper));
+                if (notificationWrapper.getRetryRecipient() == null) {
+                    reminderService.createReminders(notificationWrapper);
+                    failedRecipients.addAll(sendSecondNotification(notificationWrapper));
+                }
+                if (!failedRecipients.isEmpty()) {
+                    throw new RecipientNotificationException(caseId, failedRecipients);
+                }
             }
         } else if (outOfHoursCalculator.isItOutOfHours()) {
             log.info("Notification event {} is out of hours and scheduled for case id {}", notificationType.getId(), caseId);
@@ -112,23 +138,30 @@ public class NotificationService {
         return YesNo.isYes(newSscsCaseData.getFunctionalTest());
     }
 
-    private void sendSecondNotification(NotificationWrapper notificationWrapper) {
+    private List<FailedRecipient> sendSecondNotification(NotificationWrapper notificationWrapper) {
         if (notificationWrapper.getNotificationType().equals(ISSUE_FINAL_DECISION_WELSH)) {
             // Gov Notify has a limit of 10 pages, so for long notifications (especially Welsh) we need to split the sending into 2 parts
             log.info("Trigger second notification event for {}", ISSUE_FINAL_DECISION.getId());
             notificationWrapper.getSscsCaseDataWrapper().setNotificationEventType(ISSUE_FINAL_DECISION);
             notificationWrapper.setSwitchLanguageType(true);
-            sendNotificationPerSubscription(notificationWrapper);
+            return sendNotificationPerSubscription(notificationWrapper);
         } else if (notificationWrapper.getNotificationType().equals(DWP_UPLOAD_RESPONSE)) {
             log.info("Trigger second notification event for {}", UPDATE_OTHER_PARTY_DATA.getId());
             notificationWrapper.getSscsCaseDataWrapper().setNotificationEventType(UPDATE_OTHER_PARTY_DATA);
-            sendNotificationPerSubscription(notificationWrapper);
+            return sendNotificationPerSubscription(notificationWrapper);
         }
+        return List.of();
     }
 
-    private void sendNotificationPerSubscription(NotificationWrapper notificationWrapper) {
+    private List<FailedRecipient> sendNotificationPerSubscription(NotificationWrapper notificationWrapper) {
         overrideNotificationType(notificationWrapper);
-        String subscriptionTypes = notificationWrapper.getSubscriptionsBasedOnNotificationType().stream()
+        pipelineMetrics.countRecipientPlan(notificationWrapper.hasRecipientPlan());
+        String retryRecipient = notificationWrapper.getRetryRecipient();
+        List<SubscriptionWithType> subscriptions = pipelineMetrics.time(PipelineStage.PLAN,
+            notificationWrapper::getSubscriptionsBasedOnNotificationType).stream()
+            .filter(sub -> retryRecipient == null || retryRecipient.equals(sub.recipientKey()))
+            .collect(Collectors.toList());
+        String subscriptionTypes = subscriptions.stream()
             .map(sub -> String.format("Party: %s, Entity %s, Party Id %s, Subscription Type %s, Subscription %s",
                 Optional.ofNullable(sub.getParty()).map(Object::getClass).orElse(null),
                 Optional.ofNullable(sub.getEntity()).map(Object::getClass).orElse(null),
@@ -141,56 +174,64 @@ public class NotificationService {
             notificationWrapper.getCaseId(),
             subscriptionTypes);
 
-        for (SubscriptionWithType subscriptionWithType : notificationWrapper.getSubscriptionsBasedOnNotificationType()) {
+        List<Runnable> recipients = new ArrayList<>(subscriptions.size());
+        Queue<FailedRecipient> failedRecipients = new ConcurrentLinkedQueue<>();
+        for (SubscriptionWithType subscriptionWithType : subscriptions) {
             if (isSubscriptionValidToSendAfterOverride(notificationWrapper, subscriptionWithType)
                     && isValidNotification(notificationWrapper, subscriptionWithType)) {
-                sendNotification(notificationWrapper, subscriptionWithType);
-
-                if (subscriptionWithType.getSubscription() != null
-                        && NotificationEventType.SUBSCRIPTION_UPDATED.equals(notificationWrapper.getSscsCaseDataWrapper().getNotificationEventType())) {
-                    scrubEmailAndSmsIfSubscribedBefore(notificationWrapper, subscriptionWithType);
-                }
-
+                recipients.add(() -> sendNotificationToRecipient(notificationWrapper, subscriptionWithType, failedRecipients));
             } else {
                 log.error("Is not a valid notification event {} for case id {}, not sending notification.",
                         notificationWrapper.getNotificationType().getId(), notificationWrapper.getCaseId());
             }
         }
+        recipientFanOutExecutor.runAll(recipients);
+        return new ArrayList<>(failedRecipients);
     }
 
-    private void overrideNotificationType(NotificationWrapper wrapper) {
+    private void sendNotificationToRecipient(NotificationWrapper notificationWrapper, SubscriptionWithType subscriptionWithType,
+                                             Queue<FailedRecipient> failedRecipients) {
+        try {
+            sendNotification(notificationWrapper, subscriptionWithType);
+        } catch (ChannelNotificationException e) {
+            log.info("Notification event {} failed on channels {} for recipient {} on case id {}, only they are retried",
+                notificationWrapper.getNotificationType().getId(), e.getFailedChannels().keySet(), subscriptionWithType.recipientKey(),
+                notificationWrapper.getCaseId());
+            e.getFailedChannels().forEach((channel, exception) -> failedRecipients.add(new FailedRecipient(
+                notificationWrapper.getNotificationType(), subscriptionWithType.recipientKey(), channel, exception)));
+            return;
+        } catch (NotificationServiceException e) {
+            log.info("Notification event {} failed for recipient {} on case id {}, the other recipients are still notified",
+                notificationWrapper.getNotificationType().getId(), subscriptionWithType.recipientKey(), notificationWrapper.getCaseId());
+            failedRecipients.add(new FailedRecipient(notificationWrapper.getNotificationType(), subscriptionWithType.recipientKey(), null, e));
+            return;
+        } catch (RuntimeException e) {
+            // collected rather than thrown, so the failures of the other recipients are still retried
+            log.error("Notification event {} failed unexpectedly for recipient {} on case id {}, the other recipients are still notified",
+                notificationWrapper.getNotificationType().getId(), subscriptionWithType.recipientKey(), notificationWrapper.getCaseId(), e);
+            failedRecipients.add(new FailedRecipient(notificationWrapper.getNotificationType(), subscriptionWithType.recipientKey(), null,
+                new NotificationServiceException(notificationWrapper.getCaseId(), e)));
+            return;
+        }
 
-        if (REISSUE_DOCUMENT.equals(wrapper.getNotificationType()) && null != wrapper.getNewSscsCaseData().getReissueArtifactUi().getReissueFurtherEvidenceDocument()) {
-            String code = wrapper.getNewSscsCaseData().getReissueArtifactUi().getReissueFurtherEvidenceDocument().getValue().getCode();
-            if (code.equals(EventType.ISSUE_FINAL_DECISION.getCcdType())) {
-                wrapper.setNotificationType(ISSUE_FINAL_DECISION);
-                wrapper.setNotificationEventTypeOverridden(true);
-            } else if (code.equals(EventType.ISSUE_FINAL_DECISION_WELSH.getCcdType())) {
-                wrapper.setNotificationType(ISSUE_FINAL_DECISION_WELSH);
-                wrapper.setNotificationEventTypeOverridden(true);
-            } else if (code.equals(EventType.DECISION_ISSUED.getCcdType())) {
-                wrapper.setNotificationType(DECISION_ISSUED);
-                wrapper.setNotificationEventTypeOverridden(true);
-            } else if (code.equals(EventType.DIRECTION_ISSUED.getCcdType())) {
-                wrapper.setNotificationType(DIRECTION_ISSUED);
-                wrapper.setNotificationEventTypeOverridden(true);
-            } else if (code.equals(EventType.ISSUE_ADJOURNMENT_NOTICE.getCcdType())) {
-                wrapper.setNotificationType(ISSUE_ADJOURNMENT_NOTICE);
-                wrapper.setNotificationEventTypeOverridden(true);
-            } else if (code.equals(EventType.ISSUE_ADJOURNMENT_NOTICE_WELSH.getCcdType())) {
-                wrapper.setNotificationType(ISSUE_ADJOURNMENT_NOTICE_WELSH);
-                wrapper.setNotificationEventTypeOverridden(true);
-            } else if (code.equals(EventType.DECISION_ISSUED_WELSH.getCcdType())) {
-                wrapper.setNotificationType(DECISION_ISSUED_WELSH);
-                wrapper.setNotificationEventTypeOverridden(true);
-            } else if (code.equals(EventType.DIRECTION_ISSUED_WELSH.getCcdType())) {
-                wrapper.setNotificationType(DIRECTION_ISSUED_WELSH);
+        if (subscriptionWithType.getSubscription() != null
+                && NotificationEventType.SUBSCRIPTION_UPDATED.equals(notificationWrapper.getSscsCaseDataWrapper().getNotificationEventType())) {
+            scrubEmailAndSmsIfSubscribedBefore(notificationWrapper, subscriptionWithType);
+        }
+    }
+
+    private void overrideNotificationType(NotificationWrapper wrapper) {
+        NotificationDecision decision = NotificationDecisionTable.decisionFor(wrapper.getNotificationType());
+        if (REISSUE_DOCUMENT.equals(wrapper.getNotificationType())) {
+            DynamicList reissuedDocument = wrapper.getNewSscsCaseData().getReissueArtifactUi().getReissueFurtherEvidenceDocument();
+            NotificationEventType overrideType = reissuedDocument == null ? null
+                : decision.getOverrideTypeForReissuedDocument(reissuedDocument.getValue().getCode());
+            if (overrideType != null) {
+                wrapper.setNotificationType(overrideType);
                 wrapper.setNotificationEventTypeOverridden(true);
             }
-        } else if (DRAFT_TO_VALID_APPEAL_CREATED.equals(wrapper.getNotificationType())) {
-            wrapper.setNotificationType(VALID_APPEAL_CREATED);
-        } else if (DRAFT_TO_NON_COMPLIANT.equals(wrapper.getNotificationType())) {
-            wrapper.setNotificationType(NON_COMPLIANT);
+        } else if (decision.getOverrideType() != null) {
+            wrapper.setNotificationType(decision.getOverrideType());
         }
     }
 
@@ -233,7 +274,8 @@ public class NotificationService {
     }
 
     private void sendNotification(NotificationWrapper notificationWrapper, SubscriptionWithType subscriptionWithType) {
-        Notification notification = notificationFactory.create(notificationWrapper, subscriptionWithType);
+        Notification notification = pipelineMetrics.time(PipelineStage.PERSONALISE,
+            () -> notificationFactory.create(notificationWrapper, subscriptionWithType));
         sendNotificationService.sendEmailSmsLetterNotification(notificationWrapper, notification, subscriptionWithType, notificationWrapper.getNotificationType());
         processOldSubscriptionNotifications(notificationWrapper, notification, subscriptionWithType, notificationWrapper.getNotificationType());
     }
@@ -247,17 +289,18 @@ public class NotificationService {
 
     private void  processOldSubscriptionNotifications(NotificationWrapper wrapper, Notification notification, SubscriptionWithType subscriptionWithType, NotificationEventType eventType) {
         if (wrapper.getNotificationType() == NotificationEventType.SUBSCRIPTION_UPDATED) {
+            CaseChangeSet changeSet = wrapper.getSscsCaseDataWrapper().getChangeSet();
             Subscription newSubscription;
             Subscription oldSubscription;
             if (REPRESENTATIVE.equals(subscriptionWithType.getSubscriptionType())) {
                 newSubscription = wrapper.getNewSscsCaseData().getSubscriptions().getRepresentativeSubscription();
-                oldSubscription = wrapper.getOldSscsCaseData().getSubscriptions().getRepresentativeSubscription();
+                oldSubscription = changeSet.getSubscriptionBefore(REPRESENTATIVE);
             } else if (APPOINTEE.equals(subscriptionWithType.getSubscriptionType())) {
                 newSubscription = wrapper.getNewSscsCaseData().getSubscriptions().getAppointeeSubscription();
-                oldSubscription = wrapper.getOldSscsCaseData().getSubscriptions().getAppointeeSubscription();
+                oldSubscription = changeSet.getSubscriptionBefore(APPOINTEE);
             } else {
                 newSubscription = wrapper.getNewSscsCaseData().getSubscriptions().getAppellantSubscription();
-                oldSubscription = wrapper.getOldSscsCaseData().getSubscriptions().getAppellantSubscription();
+                oldSubscription = changeSet.getSubscriptionBefore(APPELLANT);
             }
 
             String emailAddress = getSubscriptionDetails(newSubscription.getEmail(), oldSubscription.getEmail());
@@ -390,20 +433,9 @@ public class NotificationService {
             return false;
         }
 
-        if (HEARING_BOOKED.equals(notificationType)) {
-            Hearing newHearing = notificationWrapper.getNewSscsCaseData().getLatestHearing();
-            Hearing oldHearing = notificationWrapper.getOldSscsCaseData().getLatestHearing();
-
-            if (nonNull(newHearing) && nonNull(oldHearing)) {
-                HearingDetails newHearingDetails = newHearing.getValue();
-                HearingDetails oldHearingDetails = oldHearing.getValue();
-
-                if (hasNonNullHearingDetails(oldHearingDetails, newHearingDetails)
-                        && newHearingDetails.getHearingId().equals(oldHearingDetails.getHearingId())
-                        && isHearingBookedInformationTheSame(newHearingDetails, oldHearingDetails)) {
-                    return false;
-                }
-            }
+        if (HEARING_BOOKED.equals(notificationType)
+                && notificationWrapper.getSscsCaseDataWrapper().getChangeSet().isLatestHearingUnchanged()) {
+            return false;
         }
 
         log.info("Notification valid to send for case id {} and event {} in state {}",
@@ -413,24 +445,6 @@ public class NotificationService {
         return true;
     }
 
-    private static boolean hasNonNullHearingDetails(HearingDetails oldHearingDetails, HearingDetails newHearingDetails) {
-        return nonNull(oldHearingDetails) && nonNull(oldHearingDetails.getHearingId())
-                && nonNull(newHearingDetails) && nonNull(newHearingDetails.getHearingId());
-    }
-
-    private boolean isHearingBookedInformationTheSame(HearingDetails newHearing, HearingDetails oldHearing) {
-        return newHearing.getHearingDateTime().equals(oldHearing.getHearingDateTime())
-                && newHearing.getEpimsId().equals(oldHearing.getEpimsId())
-                && hasHearingChannelNotChanged(newHearing, oldHearing);
-    }
-
-    private boolean hasHearingChannelNotChanged(HearingDetails newHearing, HearingDetails oldHearing) {
-        var oldHearingChannel = Optional.ofNullable(oldHearing.getHearingChannel());
-        var newHearingChannel = Optional.ofNullable(newHearing.getHearingChannel());
-
-        return oldHearingChannel.equals(newHearingChannel);
-    }
-
     private boolean isDigitalCase(final NotificationWrapper notificationWrapper) {
         return READY_TO_LIST
             .equals(notificationWrapper.getSscsCaseDataWrapper().getNewSscsCaseData().getCreatedInGapsFrom());
@@ -0,0 +1,99 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import com.google.common.util.concurrent.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.sscs.config.NotifyRateLimitConfigProperties;
+import uk.gov.service.notify.NotificationClientException;
+
+/**
+ * Token buckets in front of GOV.UK Notify, one per API key and channel, so a burst of sends is
+ * spread out at the rate Notify allows instead of being answered with 429s. A send waits for a
+ * token for at most the configured time; past that it fails like any other Notify error and is
+ * rescheduled by the usual retry.
+ */
+@Component
+@Slf4j
+public class NotifyRateLimiter {
+
+    public enum Channel {
+        MESSAGE,
+        LETTER
+    }
+
+    private final NotifyRateLimitConfigProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public NotifyRateLimiter(NotifyRateLimitConfigProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void acquire(String apiKeyName, Channel channel) throws NotificationClientException {
+        Bucket bucket = buckets.computeIfAbsent(apiKeyName + "." + channel, key -> createBucket(apiKeyName, channel));
+        if (bucket.rateLimiter == null) {
+            return;
+        }
+
+        bucket.waiting.incrementAndGet();
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = bucket.rateLimiter.tryAcquire(1, properties.getMaxWaitMs(), TimeUnit.MILLISECONDS);
+        } finally {
+            bucket.waiting.decrementAndGet();
+            bucket.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            bucket.rejected.increment();
+            log.warn("No {} token for GovNotify {} key within {}ms", channel, apiKeyName, properties.getMaxWaitMs());
+            throw new NotificationClientException(new TimeoutException(String.format(
+                "Client side rate limit reached for GovNotify %s key sending %s", apiKeyName, channel)));
+        }
+    }
+
+    private Bucket createBucket(String apiKeyName, Channel channel) {
+        double permitsPerSecond = Channel.LETTER.equals(channel)
+            ? properties.getLettersPerSecond() : properties.getMessagesPerSecond();
+        RateLimiter rateLimiter = permitsPerSecond > 0 ? RateLimiter.create(permitsPerSecond) : null;
+        log.info("GovNotify {} key sending {} limited to {} per second", apiKeyName, channel,
+            rateLimiter == null ? "unlimited" : permitsPerSecond);
+
+        AtomicInteger waiting = new AtomicInteger();
+        Gauge.builder("notifications.notify.ratelimit.queue.depth", waiting, AtomicInteger::get)
+            .tags("key", apiKeyName, "channel", channel.name())
+            .register(meterRegistry);
+        Timer waitTimer = Timer.builder("notifications.notify.ratelimit.wait")
+            .tags("key", apiKeyName, "channel", channel.name())
+            .register(meterRegistry);
+        Counter rejected = Counter.builder("notifications.notify.ratelimit.rejected")
+            .tags("key", apiKeyName, "channel", channel.name())
+            .register(meterRegistry);
+        return new Bucket(rateLimiter, waiting, waitTimer, rejected);
+    }
+
+    private static class Bucket {
+        private final RateLimiter rateLimiter;
+        private final AtomicInteger waiting;
+        private final Timer waitTimer;
+        private final Counter rejected;
+
+        Bucket(RateLimiter rateLimiter, AtomicInteger waiting, Timer waitTimer, Counter rejected) {
+            this.rateLimiter = rateLimiter;
+            this.waiting = waiting;
+            this.waitTimer = waitTimer;
+            this.rejected = rejected;
+        }
+    }
+}
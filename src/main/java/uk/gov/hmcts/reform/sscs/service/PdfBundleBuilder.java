@@ -0,0 +1,121 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import uk.gov.hmcts.reform.sscs.exception.NotificationClientRuntimeException;
+
+/**
+ * Builds a bundled letter from a leading document and the documents printed after it. Every part
+ * is parsed once and the bundle is written once; a part ending on an odd page is followed by a
+ * blank page so the next part starts on a new sheet when printed double sided.
+ */
+public class PdfBundleBuilder {
+
+    private final byte[] leadingDocument;
+    private final PdfMemoryPolicy memoryPolicy;
+    private final List<byte[]> appendedDocuments = new ArrayList<>();
+
+    public PdfBundleBuilder(byte[] leadingDocument, PdfMemoryPolicy memoryPolicy) {
+        this.leadingDocument = leadingDocument;
+        this.memoryPolicy = memoryPolicy;
+    }
+
+    /**
+     * Adds a document to the end of the bundle. An empty document is left out.
+     */
+    public PdfBundleBuilder append(byte[] document) {
+        if (ArrayUtils.isNotEmpty(document)) {
+            appendedDocuments.add(document);
+        }
+        return this;
+    }
+
+    public byte[] build() throws IOException {
+        if (appendedDocuments.isEmpty()) {
+            return leadingDocument;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) estimatedSize());
+        writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the bundle to a new temp file, which the caller deletes once it has been sent.
+     */
+    public Path writeToTempFile() throws IOException {
+        Path file = Files.createTempFile("bundled-letter-", ".pdf");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writeTo(out);
+            return file;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        if (ArrayUtils.isEmpty(leadingDocument)) {
+            throw new NotificationClientRuntimeException("Can not bundle empty documents");
+        }
+        if (appendedDocuments.isEmpty()) {
+            out.write(leadingDocument);
+            return;
+        }
+
+        List<PDDocument> parts = new ArrayList<>(appendedDocuments.size());
+        try (PDDocument bundle = load(leadingDocument)) {
+            PDFMergerUtility merger = new PDFMergerUtility();
+            for (byte[] document : appendedDocuments) {
+                addBlankPageIfOdd(bundle);
+                PDDocument part = load(document);
+                parts.add(part);
+                merger.appendDocument(bundle, part);
+            }
+            // appended pages still read their streams from the parts, so those stay open until saved
+            bundle.save(out);
+        } finally {
+            for (PDDocument part : parts) {
+                part.close();
+            }
+        }
+    }
+
+    private PDDocument load(byte[] document) throws IOException {
+        return PDDocument.load(document, "", null, null, memoryPolicy.memoryUsageSetting());
+    }
+
+    private static void addBlankPageIfOdd(PDDocument document) throws IOException {
+        if (document.getNumberOfPages() % 2 == 0) {
+            return;
+        }
+        final PDPage blankPage = new PDPage(PDRectangle.A4);
+        // need to add PDPageContentStream here to pass gov notify validation!
+        try (PDPageContentStream contents = new PDPageContentStream(document, blankPage)) {
+            contents.beginText();
+            contents.endText();
+        }
+        document.addPage(blankPage);
+    }
+
+    /**
+     * Size of the parts, which the bundle comes close to once merged.
+     */
+    public long estimatedSize() {
+        long size = ArrayUtils.getLength(leadingDocument);
+        for (byte[] document : appendedDocuments) {
+            size += document.length;
+        }
+        return size;
+    }
+}
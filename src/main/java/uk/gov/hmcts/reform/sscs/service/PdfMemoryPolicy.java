@@ -0,0 +1,36 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * How much heap PDF work may use. PDFBox keeps each loaded document on the heap up to the main
+ * memory limit and in a scratch file past it, and bundles expected to be larger than the stream
+ * threshold are written to a temp file and uploaded to GOV.UK Notify from there, so long decision
+ * notices built for several recipients at once do not each hold their whole bundle on the heap.
+ */
+@Component
+public class PdfMemoryPolicy {
+
+    private final long maxMainMemoryBytes;
+    private final long streamFromFileBytes;
+
+    @Autowired
+    public PdfMemoryPolicy(@Value("${pdf.memory.maxMainMemoryBytes}") long maxMainMemoryBytes,
+                           @Value("${pdf.memory.streamFromFileBytes}") long streamFromFileBytes) {
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.streamFromFileBytes = streamFromFileBytes;
+    }
+
+    public MemoryUsageSetting memoryUsageSetting() {
+        return maxMainMemoryBytes < 0
+            ? MemoryUsageSetting.setupMainMemoryOnly()
+            : MemoryUsageSetting.setupMixed(maxMainMemoryBytes);
+    }
+
+    public boolean shouldStreamFromFile(long bundleBytes) {
+        return streamFromFileBytes >= 0 && bundleBytes > streamFromFileBytes;
+    }
+}
@@ -3,11 +3,14 @@ package uk.gov.hmcts.reform.sscs.service;
 import static java.util.Objects.nonNull;
 
 import java.time.ZonedDateTime;
+import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import uk.gov.hmcts.reform.sscs.config.RetryConfig;
 import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
+import uk.gov.hmcts.reform.sscs.exception.RecipientNotificationException;
+import uk.gov.hmcts.reform.sscs.exception.RecipientNotificationException.FailedRecipient;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
 import uk.gov.service.notify.NotificationClientException;
 
@@ -26,14 +29,37 @@ public class RetryNotificationService {
     public void rescheduleIfHandledGovNotifyErrorStatus(final int retry,
                                                         final NotificationWrapper notificationWrapper,
                                                         final NotificationServiceException e) {
+        if (e instanceof RecipientNotificationException) {
+            for (FailedRecipient failedRecipient : ((RecipientNotificationException) e).getFailedRecipients()) {
+                if (isRetryable(retry, failedRecipient.getException())) {
+                    ZonedDateTime dateTime = retryDateTime(retry);
+                    log.info("Retry {} is rescheduling for recipient {} on channel {} @ {} for case id {} and event id {}", retry,
+                        failedRecipient.getRecipient(), failedRecipient.getChannel(), dateTime, notificationWrapper.getCaseId(),
+                        failedRecipient.getNotificationType().getId());
+                    notificationHandler.scheduleNotification(notificationWrapper, failedRecipient.getNotificationType(),
+                        failedRecipient.getRecipient(), failedRecipient.getChannel(), retry, dateTime);
+                }
+            }
+        } else if (isRetryable(retry, e)) {
+            ZonedDateTime dateTime = retryDateTime(retry);
+            log.info("Retry {} is rescheduling @ {} for case id {} and event id {}", retry, dateTime, notificationWrapper.getCaseId(), notificationWrapper.getNotificationType().getId());
+            notificationHandler.scheduleNotification(notificationWrapper, retry, dateTime);
+        }
+    }
+
+    private boolean isRetryable(int retry, NotificationServiceException e) {
+        if (e.getCause() instanceof TimeoutException) {
+            return retry > 0 && retry <= retryConfig.getMax();
+        }
         if (nonNull(e.getCause()) && e.getCause() instanceof NotificationClientException) {
             int httpResult = ((NotificationClientException) e.getCause()).getHttpResult();
-            if (retry > 0 && retry <= retryConfig.getMax() && httpResult != 400 && httpResult != 403) {
-                Integer delayInSeconds = retryConfig.getDelayInSeconds().get(retry);
-                ZonedDateTime dateTime = ZonedDateTime.now().plusSeconds(delayInSeconds);
-                log.info("Retry {} is rescheduling in {} seconds for case id {} and event id {}", retry, delayInSeconds, notificationWrapper.getCaseId(), notificationWrapper.getNotificationType().getId());
-                notificationHandler.scheduleNotification(notificationWrapper, retry, dateTime);
-            }
+            return retry > 0 && retry <= retryConfig.getMax() && httpResult != 400 && httpResult != 403;
         }
+        return false;
+    }
+
+    private ZonedDateTime retryDateTime(int retry) {
+        Integer delayInSeconds = retryConfig.getDelayInSeconds().get(retry);
+        return ZonedDateTime.now().plusSeconds(delayInSeconds);
     }
 }
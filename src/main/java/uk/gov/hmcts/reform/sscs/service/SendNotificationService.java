@@ -3,51 +3,59 @@ package uk.gov.hmcts.reform.sscs.service;
 import static java.util.Objects.nonNull;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
-import static uk.gov.hmcts.reform.sscs.ccd.callback.DocumentType.*;
 import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.*;
-import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.*;
-import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.CORRECTION_GRANTED;
-import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.CORRECTION_REFUSED;
-import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.LIBERTY_TO_APPLY_GRANTED;
-import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.LIBERTY_TO_APPLY_REFUSED;
-import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.PERMISSION_TO_APPEAL_GRANTED;
-import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.PERMISSION_TO_APPEAL_REFUSED;
-import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.REVIEW_AND_SET_ASIDE;
-import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.SET_ASIDE_GRANTED;
-import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.SET_ASIDE_REFUSED;
-import static uk.gov.hmcts.reform.sscs.service.LetterUtils.addBlankPageAtTheEndIfOddPage;
-import static uk.gov.hmcts.reform.sscs.service.LetterUtils.buildBundledLetter;
+import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel.EMAIL;
+import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel.LETTER;
+import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel.SMS;
 import static uk.gov.hmcts.reform.sscs.service.LetterUtils.getAddressToUseForLetter;
 import static uk.gov.hmcts.reform.sscs.service.LetterUtils.getNameToUseForLetter;
 import static uk.gov.hmcts.reform.sscs.service.LetterUtils.isAlternativeLetterFormatRequired;
 import static uk.gov.hmcts.reform.sscs.service.NotificationUtils.hasLetterTemplate;
 import static uk.gov.hmcts.reform.sscs.service.NotificationUtils.isOkToSendEmailNotification;
 import static uk.gov.hmcts.reform.sscs.service.NotificationUtils.isOkToSendSmsNotification;
-import static uk.gov.hmcts.reform.sscs.service.NotificationValidService.isBundledLetter;
 
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import uk.gov.hmcts.reform.sscs.ccd.callback.DocumentType;
 import uk.gov.hmcts.reform.sscs.ccd.domain.*;
 import uk.gov.hmcts.reform.sscs.config.AppConstants;
-import uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists;
+import uk.gov.hmcts.reform.sscs.config.FanOutConfig;
+import uk.gov.hmcts.reform.sscs.config.NotificationDecision;
+import uk.gov.hmcts.reform.sscs.config.NotificationDecisionTable;
 import uk.gov.hmcts.reform.sscs.config.SubscriptionType;
 import uk.gov.hmcts.reform.sscs.domain.SubscriptionWithType;
 import uk.gov.hmcts.reform.sscs.domain.notify.Notification;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+import uk.gov.hmcts.reform.sscs.domain.notify.Placeholders;
+import uk.gov.hmcts.reform.sscs.exception.ChannelNotificationException;
 import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
 import uk.gov.hmcts.reform.sscs.service.docmosis.PdfLetterService;
+import uk.gov.hmcts.reform.sscs.service.pipeline.FanOutExecutor;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
 import uk.gov.service.notify.NotificationClientException;
 
 @Service
@@ -58,11 +66,18 @@ public class SendNotificationService {
     @Value("${reminder.dwpResponseLateReminder.delay.seconds}")
     private long delay;
 
+    @Value("${pipeline.fanOut.letterAssembly.timeoutMs}")
+    private long letterAssemblyTimeoutMs;
+
     private final NotificationSender notificationSender;
     private final NotificationHandler notificationHandler;
     private final NotificationValidService notificationValidService;
     private final PdfLetterService pdfLetterService;
-    private final PdfStoreService pdfStoreService;
+    private final CaseDocumentCache caseDocumentCache;
+    private final PdfMemoryPolicy pdfMemoryPolicy;
+    private final PipelineMetrics pipelineMetrics;
+    private final FanOutExecutor channelFanOutExecutor;
+    private final FanOutExecutor letterAssemblyFanOutExecutor;
 
     @Autowired
     public SendNotificationService(
@@ -70,13 +85,21 @@ public class SendNotificationService {
             NotificationHandler notificationHandler,
             NotificationValidService notificationValidService,
             PdfLetterService pdfLetterService,
-            PdfStoreService pdfStoreService
+            CaseDocumentCache caseDocumentCache,
+            PdfMemoryPolicy pdfMemoryPolicy,
+            PipelineMetrics pipelineMetrics,
+            @Qualifier(FanOutConfig.CHANNEL_FAN_OUT) FanOutExecutor channelFanOutExecutor,
+            @Qualifier(FanOutConfig.LETTER_ASSEMBLY_FAN_OUT) FanOutExecutor letterAssemblyFanOutExecutor
     ) {
         this.notificationSender = notificationSender;
         this.notificationHandler = notificationHandler;
         this.notificationValidService = notificationValidService;
         this.pdfLetterService = pdfLetterService;
-        this.pdfStoreService = pdfStoreService;
+        this.caseDocumentCache = caseDocumentCache;
+        this.pdfMemoryPolicy = pdfMemoryPolicy;
+        this.pipelineMetrics = pipelineMetrics;
+        this.channelFanOutExecutor = channelFanOutExecutor;
+        this.letterAssemblyFanOutExecutor = letterAssemblyFanOutExecutor;
     }
 
     boolean sendEmailSmsLetterNotification(
@@ -84,20 +107,40 @@ public class SendNotificationService {
             Notification notification,
             SubscriptionWithType subscriptionWithType,
             NotificationEventType eventType) {
-        boolean emailSent = sendEmailNotification(wrapper, subscriptionWithType.getSubscription(), notification);
+        NotificationDecision decision = NotificationDecisionTable.decisionFor(eventType);
+        boolean isInterlocLetter = decision.isInterlocLetter();
+        boolean isDocmosisLetter = decision.isDocmosisLetter();
+        boolean shouldSendLetter = shouldSendLetter(wrapper, notification, isInterlocLetter, isDocmosisLetter);
+
+        // A Gov Notify letter adds the address to the placeholders, so when the channels run side by side
+        // the letter works on its own copy and the email and SMS keep reading an unchanged map.
+        Notification letterNotification = shouldSendLetter && channelFanOutExecutor.isConcurrent()
+            ? withOwnPlaceholders(notification) : notification;
+
+        Map<NotificationChannel, NotificationServiceException> failedChannels =
+            Collections.synchronizedMap(new EnumMap<>(NotificationChannel.class));
+        List<Supplier<Boolean>> channels = List.of(
+            channel(EMAIL, wrapper, failedChannels,
+                () -> sendEmailNotification(wrapper, subscriptionWithType, notification)),
+            channel(SMS, wrapper, failedChannels,
+                () -> sendSmsNotification(wrapper, subscriptionWithType, notification, eventType)),
+            channel(LETTER, wrapper, failedChannels,
+                () -> shouldSendLetter && sendLetterNotification(wrapper, letterNotification, subscriptionWithType, eventType)));
+        List<Boolean> sent = channelFanOutExecutor.invokeAll(channels);
+        if (letterNotification != notification) {
+            notification.getPlaceholders().putAll(letterNotification.getPlaceholders());
+        }
+
+        boolean emailSent = sent.get(0);
         notificationSuccessLog(wrapper, "Email", notification, notification.getEmailTemplate(), emailSent);
 
-        boolean smsSent = sendSmsNotification(wrapper, subscriptionWithType.getSubscription(), notification, eventType);
+        boolean smsSent = sent.get(1);
         if (nonNull(notification.getSmsTemplate())) {
             notificationSuccessLog(wrapper, "SMS", notification, String.join(", ", notification.getSmsTemplate()), smsSent);
         }
 
-        boolean isInterlocLetter = NotificationEventTypeLists.EVENT_TYPES_FOR_INTERLOC_LETTERS.contains(eventType);
-        boolean isDocmosisLetter = NotificationEventTypeLists.DOCMOSIS_LETTERS.contains(eventType);
-
-        boolean letterSent = false;
-        if (shouldSendLetter(wrapper, notification, isInterlocLetter, isDocmosisLetter)) {
-            letterSent = sendLetterNotification(wrapper, notification, subscriptionWithType, eventType);
+        boolean letterSent = sent.get(2);
+        if (shouldSendLetter) {
             if (isDocmosisLetter) {
                 notificationSuccessLog(wrapper, "Docmosis Letter", notification, notification.getDocmosisLetterTemplate(), letterSent);
             } else {
@@ -105,6 +148,10 @@ public class SendNotificationService {
             }
         }
 
+        if (!failedChannels.isEmpty()) {
+            throw new ChannelNotificationException(wrapper.getCaseId(), failedChannels);
+        }
+
         boolean notificationSent = emailSent || smsSent || letterSent;
 
         if (!notificationSent) {
@@ -114,6 +161,44 @@ public class SendNotificationService {
         return notificationSent;
     }
 
+    /**
+     * Sends on one channel unless the event is a retry for another channel. A failure is collected rather than thrown,
+     * so the other channels are still sent and only the failed one is retried.
+     */
+    private static Supplier<Boolean> channel(NotificationChannel channel, NotificationWrapper wrapper,
+                                             Map<NotificationChannel, NotificationServiceException> failedChannels,
+                                             Supplier<Boolean> send) {
+        return () -> {
+            if (wrapper.getRetryChannel() != null && wrapper.getRetryChannel() != channel) {
+                return false;
+            }
+            try {
+                return send.get();
+            } catch (NotificationServiceException e) {
+                failedChannels.put(channel, e);
+            } catch (RuntimeException e) {
+                log.error("{} notification failed unexpectedly for case id {}", channel, wrapper.getCaseId(), e);
+                failedChannels.put(channel, new NotificationServiceException(wrapper.getCaseId(), e));
+            }
+            return false;
+        };
+    }
+
+    /**
+     * A retry scheduled for one recipient is sent straight away rather than through the outbox, so a failure is
+     * retried again by the job retries and stops at their limit instead of going round the outbox once more.
+     */
+    private static boolean isRetry(NotificationWrapper wrapper) {
+        return wrapper.getRetryRecipient() != null;
+    }
+
+    private static Notification withOwnPlaceholders(Notification notification) {
+        if (notification.getPlaceholders() == null) {
+            return notification;
+        }
+        return notification.withPlaceholders(Placeholders.copyOf(notification.getPlaceholders()));
+    }
+
     private static void notificationSuccessLog(NotificationWrapper wrapper, String notificationType,
                                                Notification notification, String templates, boolean wasSuccessful) {
         Object partyType = Optional.ofNullable(notification)
@@ -157,17 +242,22 @@ public class SendNotificationService {
         return !isInterlocLetter && isNotBlank(notification.getLetterTemplate()) && State.READY_TO_LIST.getId().equals(createdInGapsFrom);
     }
 
-    private boolean sendSmsNotification(NotificationWrapper wrapper, Subscription subscription, Notification notification, NotificationEventType eventType) {
-        if (isOkToSendSmsNotification(wrapper, subscription, notification, eventType, notificationValidService)) {
+    private boolean sendSmsNotification(NotificationWrapper wrapper, SubscriptionWithType subscriptionWithType, Notification notification,
+                                        NotificationEventType eventType) {
+        if (isOkToSendSmsNotification(wrapper, subscriptionWithType.getSubscription(), notification, eventType, notificationValidService)) {
             return Optional.ofNullable(notification.getSmsTemplate()).map(Collection::stream).orElseGet(Stream::empty)
-                    .map(smsTemplateId -> sendSmsNotification(wrapper, notification, smsTemplateId)).reduce((previous, current) -> previous && current).orElse(false);
+                    .map(smsTemplateId -> sendSmsNotification(wrapper, subscriptionWithType, notification, smsTemplateId))
+                    .reduce((previous, current) -> previous && current).orElse(false);
         }
         return false;
     }
 
-    private boolean sendSmsNotification(NotificationWrapper wrapper, Notification notification, String smsTemplateId) {
-        NotificationHandler.SendNotification sendNotification = () ->
-                notificationSender.sendSms(
+    private boolean sendSmsNotification(NotificationWrapper wrapper, SubscriptionWithType subscriptionWithType, Notification notification,
+                                        String smsTemplateId) {
+        NotificationHandler.SendNotification sendNotification;
+        if (isRetry(wrapper)) {
+            sendNotification = () -> {
+                notificationSender.deliverSms(
                         smsTemplateId,
                         notification.getMobile(),
                         notification.getPlaceholders(),
@@ -176,6 +266,21 @@ public class SendNotificationService {
                         wrapper.getNotificationType(),
                         wrapper.getNewSscsCaseData()
                 );
+                return false;
+            };
+        } else {
+            sendNotification = () ->
+                notificationSender.sendSms(
+                        smsTemplateId,
+                        notification.getMobile(),
+                        notification.getPlaceholders(),
+                        notification.getReference(),
+                        notification.getSmsSenderTemplate(),
+                        wrapper.getNotificationType(),
+                        wrapper.getNewSscsCaseData(),
+                        subscriptionWithType.recipientKey()
+                );
+        }
         log.info("In sendSmsNotification method notificationSender is available {} ", notificationSender != null);
 
         notificationLog(notification, "sms", notification.getMobile(), wrapper);
@@ -183,11 +288,13 @@ public class SendNotificationService {
         return notificationHandler.sendNotification(wrapper, smsTemplateId, "SMS", sendNotification);
     }
 
-    private boolean sendEmailNotification(NotificationWrapper wrapper, Subscription subscription, Notification notification) {
-        if (isOkToSendEmailNotification(wrapper, subscription, notification, notificationValidService)) {
+    private boolean sendEmailNotification(NotificationWrapper wrapper, SubscriptionWithType subscriptionWithType, Notification notification) {
+        if (isOkToSendEmailNotification(wrapper, subscriptionWithType.getSubscription(), notification, notificationValidService)) {
 
-            NotificationHandler.SendNotification sendNotification = () ->
-                    notificationSender.sendEmail(
+            NotificationHandler.SendNotification sendNotification;
+            if (isRetry(wrapper)) {
+                sendNotification = () -> {
+                    notificationSender.deliverEmail(
                             notification.getEmailTemplate(),
                             notification.getEmail(),
                             notification.getPlaceholders(),
@@ -195,6 +302,20 @@ public class SendNotificationService {
                             wrapper.getNotificationType(),
                             wrapper.getNewSscsCaseData()
                     );
+                    return false;
+                };
+            } else {
+                sendNotification = () ->
+                    notificationSender.sendEmail(
+                            notification.getEmailTemplate(),
+                            notification.getEmail(),
+                            notification.getPlaceholders(),
+                            notification.getReference(),
+                            wrapper.getNotificationType(),
+                            wrapper.getNewSscsCaseData(),
+                            subscriptionWithType.recipientKey()
+                    );
+            }
 
             log.info("In sendEmailNotification method notificationSender is available {} ", notificationSender != null);
 
@@ -219,12 +340,15 @@ public class SendNotificationService {
     }
 
     private boolean sendMandatoryLetterNotification(NotificationWrapper wrapper, Notification notification, SubscriptionWithType subscriptionWithType, Address addressToUse) {
-        if (NotificationEventTypeLists.EVENT_TYPES_FOR_MANDATORY_LETTERS.contains(wrapper.getNotificationType())) {
-            if (isBundledLetter(wrapper.getNotificationType()) || (isNotBlank(notification.getDocmosisLetterTemplate()))) {
+        NotificationDecision decision = NotificationDecisionTable.decisionFor(wrapper.getNotificationType());
+        if (decision.isMandatoryLetter()) {
+            if (decision.isBundledLetter() || (isNotBlank(notification.getDocmosisLetterTemplate()))) {
                 return sendBundledAndDocmosisLetterNotification(wrapper, notification, getNameToUseForLetter(wrapper, subscriptionWithType), subscriptionWithType);
             } else if (hasLetterTemplate(notification)) {
-                NotificationHandler.SendNotification sendNotification = () ->
-                        sendLetterNotificationToAddress(wrapper, notification, addressToUse, subscriptionWithType);
+                NotificationHandler.SendNotification sendNotification = () -> {
+                    sendLetterNotificationToAddress(wrapper, notification, addressToUse, subscriptionWithType);
+                    return false;
+                };
 
                 return notificationHandler.sendNotification(wrapper, notification.getLetterTemplate(), NOTIFICATION_TYPE_LETTER, sendNotification);
             }
@@ -280,38 +404,75 @@ public class SendNotificationService {
 
     private boolean sendBundledAndDocmosisLetterNotification(NotificationWrapper wrapper, Notification notification, String nameToUse, SubscriptionWithType subscriptionWithType) {
         try {
-            byte[] bundledLetter;
             if (isNotBlank(notification.getDocmosisLetterTemplate())) {
-                byte[] letter = pdfLetterService.generateLetter(wrapper, notification, subscriptionWithType);
-                final byte[] associatedCasePdf = downloadAssociatedCasePdf(wrapper);
-                if (ArrayUtils.isNotEmpty(associatedCasePdf)) {
-                    letter = buildBundledLetter(addBlankPageAtTheEndIfOddPage(letter), associatedCasePdf);
+                boolean alternativeLetterFormat = isAlternativeLetterFormatRequired(wrapper, subscriptionWithType);
+                byte[] bundledLetter;
+                Path bundledLetterFile;
+                Timer.Sample renderSample = pipelineMetrics.start();
+                try {
+                    List<byte[]> parts = letterAssemblyFanOutExecutor.invokeAll(List.of(
+                        () -> pdfLetterService.generateLetter(wrapper, notification, subscriptionWithType),
+                        () -> downloadAssociatedCasePdf(wrapper),
+                        () -> pdfLetterService.buildCoversheet(wrapper, subscriptionWithType)),
+                        letterAssemblyTimeoutMs > 0 ? Duration.ofMillis(letterAssemblyTimeoutMs) : null);
+                    PdfBundleBuilder bundle = new PdfBundleBuilder(parts.get(0), pdfMemoryPolicy)
+                        .append(parts.get(1))
+                        .append(parts.get(2));
+                    if (!alternativeLetterFormat && pdfMemoryPolicy.shouldStreamFromFile(bundle.estimatedSize())) {
+                        bundledLetter = null;
+                        bundledLetterFile = bundle.writeToTempFile();
+                    } else {
+                        bundledLetter = bundle.build();
+                        bundledLetterFile = null;
+                    }
+                } finally {
+                    pipelineMetrics.stop(PipelineStage.RENDER, renderSample);
                 }
 
-                byte[] coversheet = pdfLetterService.buildCoversheet(wrapper, subscriptionWithType);
-                if (ArrayUtils.isNotEmpty(coversheet)) {
-                    letter = buildBundledLetter(addBlankPageAtTheEndIfOddPage(letter), coversheet);
+                NotificationHandler.SendNotification sendNotification;
+                if (alternativeLetterFormat) {
+                    sendNotification = () -> {
+                        notificationSender.saveLettersToReasonableAdjustment(bundledLetter,
+                            wrapper.getNotificationType(),
+                            nameToUse,
+                            wrapper.getCaseId(),
+                            subscriptionWithType.getSubscriptionType());
+                        return false;
+                    };
+                } else if (bundledLetterFile != null) {
+                    sendNotification = () -> {
+                        notificationSender.sendBundledLetter(
+                            wrapper.getNewSscsCaseData().getAppeal().getAppellant().getAddress().getPostcode(),   // Used for whitelisting only
+                            bundledLetterFile,
+                            wrapper.getNotificationType(),
+                            nameToUse,
+                            wrapper.getCaseId());
+                        return false;
+                    };
+                } else {
+                    sendNotification = () -> {
+                        notificationSender.sendBundledLetter(
+                            wrapper.getNewSscsCaseData().getAppeal().getAppellant().getAddress().getPostcode(),   // Used for whitelisting only
+                            bundledLetter,
+                            wrapper.getNotificationType(),
+                            nameToUse,
+                            wrapper.getCaseId());
+                        return false;
+                    };
                 }
-                bundledLetter = letter;
-
-                boolean alternativeLetterFormat = isAlternativeLetterFormatRequired(wrapper, subscriptionWithType);
-                NotificationHandler.SendNotification sendNotification = alternativeLetterFormat
-                        ? () -> notificationSender.saveLettersToReasonableAdjustment(bundledLetter,
-                        wrapper.getNotificationType(),
-                        nameToUse,
-                        wrapper.getCaseId(),
-                        subscriptionWithType.getSubscriptionType())
-                        : () -> notificationSender.sendBundledLetter(
-                        wrapper.getNewSscsCaseData().getAppeal().getAppellant().getAddress().getPostcode(),   // Used for whitelisting only
-                        bundledLetter,
-                        wrapper.getNotificationType(),
-                        nameToUse,
-                        wrapper.getCaseId());
 
                 log.info("In sendBundledAndDocmosisLetterNotification method notificationSender is available {} ", notificationSender != null);
 
                 notificationLog(notification, "Docmosis Letter", nameToUse, wrapper);
 
+                if (bundledLetterFile != null) {
+                    try {
+                        notificationHandler.sendNotification(wrapper, notification.getDocmosisLetterTemplate(), NOTIFICATION_TYPE_LETTER, sendNotification);
+                        return true;
+                    } finally {
+                        Files.deleteIfExists(bundledLetterFile);
+                    }
+                }
                 if (ArrayUtils.isNotEmpty(bundledLetter)) {
                     notificationHandler.sendNotification(wrapper, notification.getDocmosisLetterTemplate(), NOTIFICATION_TYPE_LETTER, sendNotification);
                     return true;
@@ -321,6 +482,16 @@ public class SendNotificationService {
             NotificationServiceException exception = new NotificationServiceException(wrapper.getCaseId(), ioe);
             log.error("Error on GovUKNotify for case id: " + wrapper.getCaseId() + ", sendBundledAndDocmosisLetterNotification", exception);
             throw exception;
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof TimeoutException)) {
+                throw e;
+            }
+            // The assembly tasks still running were cancelled and interrupted and their parts are thrown away, and
+            // nothing was sent as the letter only goes out once it is assembled. Raised as a failure of the letter
+            // channel alone, so the retry service reschedules the letter without sending the email or SMS again.
+            NotificationServiceException exception = new NotificationServiceException(wrapper.getCaseId(), (TimeoutException) e.getCause());
+            log.error("Letter assembly timed out for case id: " + wrapper.getCaseId() + ", sendBundledAndDocmosisLetterNotification", exception);
+            throw exception;
         }
         return false;
     }
@@ -346,63 +517,20 @@ public class SendNotificationService {
         String documentUrl = getBundledLetterDocumentUrl(notificationEventType, newSscsCaseData);
 
         if (null != documentUrl) {
-            associatedCasePdf = pdfStoreService.download(documentUrl);
+            associatedCasePdf = caseDocumentCache.download(wrapper, documentUrl);
         }
         return associatedCasePdf;
     }
 
     protected static String getBundledLetterDocumentUrl(NotificationEventType notificationEventType, SscsCaseData newSscsCaseData) {
-        if (DIRECTION_ISSUED.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(DIRECTION_NOTICE));
-        } else if (DECISION_ISSUED.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(DECISION_NOTICE));
-        } else if (ISSUE_FINAL_DECISION.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(FINAL_DECISION_NOTICE));
-        } else if (ISSUE_FINAL_DECISION_WELSH.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestWelshDocumentForDocumentType(FINAL_DECISION_NOTICE).orElse(null));
-        } else if (ISSUE_ADJOURNMENT_NOTICE.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(ADJOURNMENT_NOTICE));
-        } else if (ISSUE_ADJOURNMENT_NOTICE_WELSH.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(ADJOURNMENT_NOTICE));
-        } else if (DECISION_ISSUED_WELSH.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestWelshDocumentForDocumentType(DECISION_NOTICE).orElse(null));
-        } else if (DIRECTION_ISSUED_WELSH.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestWelshDocumentForDocumentType(DIRECTION_NOTICE).orElse(null));
-        } else if (PROCESS_AUDIO_VIDEO.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(AUDIO_VIDEO_EVIDENCE_DIRECTION_NOTICE));
-        } else if (PROCESS_AUDIO_VIDEO_WELSH.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestWelshDocumentForDocumentType(AUDIO_VIDEO_EVIDENCE_DIRECTION_NOTICE).orElse(null));
-        } else if (ACTION_POSTPONEMENT_REQUEST.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(POSTPONEMENT_REQUEST_DIRECTION_NOTICE));
-        } else if (ACTION_POSTPONEMENT_REQUEST_WELSH.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestWelshDocumentForDocumentType(POSTPONEMENT_REQUEST_DIRECTION_NOTICE).orElse(null));
-        } else if (CORRECTION_GRANTED.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(DocumentType.CORRECTION_GRANTED));
-        } else if (CORRECTION_REFUSED.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(DocumentType.CORRECTION_REFUSED));
-        } else if (REVIEW_AND_SET_ASIDE.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(DocumentType.REVIEW_AND_SET_ASIDE));
-        } else if (PERMISSION_TO_APPEAL_GRANTED.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(DocumentType.PERMISSION_TO_APPEAL_GRANTED));
-        } else if (PERMISSION_TO_APPEAL_REFUSED.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(DocumentType.PERMISSION_TO_APPEAL_REFUSED));
-        } else if (SET_ASIDE_GRANTED.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(DocumentType.SET_ASIDE_GRANTED));
-        } else if (SET_ASIDE_REFUSED.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(DocumentType.SET_ASIDE_REFUSED));
-        } else if (SOR_EXTEND_TIME.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(STATEMENT_OF_REASONS_GRANTED));
-        } else if (SOR_REFUSED.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(STATEMENT_OF_REASONS_REFUSED));
-        } else if (LIBERTY_TO_APPLY_GRANTED.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(DocumentType.LIBERTY_TO_APPLY_GRANTED));
-        } else if (LIBERTY_TO_APPLY_REFUSED.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(DocumentType.LIBERTY_TO_APPLY_REFUSED));
-        } else if (ADMIN_CORRECTION_HEADER.equals(notificationEventType)) {
-            return getDocumentForType(newSscsCaseData.getLatestDocumentForDocumentType(CORRECTED_DECISION_NOTICE));
+        NotificationDecision decision = NotificationDecisionTable.decisionFor(notificationEventType);
+        DocumentType documentType = decision.getBundledDocumentType();
+        if (documentType == null) {
+            return null;
         }
-
-        return null;
+        return getDocumentForType(decision.isWelshBundledDocument()
+            ? newSscsCaseData.getLatestWelshDocumentForDocumentType(documentType).orElse(null)
+            : newSscsCaseData.getLatestDocumentForDocumentType(documentType));
     }
 
     private static String getDocumentForType(AbstractDocument sscsDocument) {
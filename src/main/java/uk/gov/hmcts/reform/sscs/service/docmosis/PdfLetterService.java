@@ -8,8 +8,6 @@ import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.LE
 import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.LETTER_ADDRESS_POSTCODE;
 import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.APPEAL_RECEIVED;
 import static uk.gov.hmcts.reform.sscs.personalisation.Personalisation.translateToWelshDate;
-import static uk.gov.hmcts.reform.sscs.service.LetterUtils.addBlankPageAtTheEndIfOddPage;
-import static uk.gov.hmcts.reform.sscs.service.LetterUtils.buildBundledLetter;
 import static uk.gov.hmcts.reform.sscs.service.LetterUtils.getAddressToUseForLetter;
 import static uk.gov.hmcts.reform.sscs.service.LetterUtils.getNameToUseForLetter;
 
@@ -17,7 +15,6 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -34,9 +31,12 @@ import uk.gov.hmcts.reform.sscs.domain.SubscriptionWithType;
 import uk.gov.hmcts.reform.sscs.domain.docmosis.PdfCoverSheet;
 import uk.gov.hmcts.reform.sscs.domain.notify.Notification;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+import uk.gov.hmcts.reform.sscs.domain.notify.Placeholders;
 import uk.gov.hmcts.reform.sscs.exception.NotificationClientRuntimeException;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
 import uk.gov.hmcts.reform.sscs.service.DocmosisPdfService;
+import uk.gov.hmcts.reform.sscs.service.PdfBundleBuilder;
+import uk.gov.hmcts.reform.sscs.service.PdfMemoryPolicy;
 import uk.gov.hmcts.reform.sscs.service.conversion.LocalDateToWelshStringConverter;
 
 @Service
@@ -52,12 +52,15 @@ public class PdfLetterService {
     private final DocmosisPdfService docmosisPdfService;
     private final DocmosisTemplatesConfig docmosisTemplatesConfig;
     private final EvidenceProperties evidenceProperties;
+    private final PdfMemoryPolicy pdfMemoryPolicy;
 
     @Autowired
-    public PdfLetterService(DocmosisPdfService docmosisPdfService, DocmosisTemplatesConfig docmosisTemplatesConfig, EvidenceProperties evidenceProperties) {
+    public PdfLetterService(DocmosisPdfService docmosisPdfService, DocmosisTemplatesConfig docmosisTemplatesConfig, EvidenceProperties evidenceProperties,
+                            PdfMemoryPolicy pdfMemoryPolicy) {
         this.docmosisPdfService = docmosisPdfService;
         this.docmosisTemplatesConfig = docmosisTemplatesConfig;
         this.evidenceProperties = evidenceProperties;
+        this.pdfMemoryPolicy = pdfMemoryPolicy;
     }
 
     public byte[] buildCoversheet(NotificationWrapper wrapper, SubscriptionWithType subscriptionWithType) {
@@ -65,7 +68,7 @@ public class PdfLetterService {
             byte[] coversheet = generateCoversheet(wrapper, subscriptionWithType);
             if (REQUIRES_TWO_COVERSHEET.contains(wrapper.getNotificationType())
                     && ArrayUtils.isNotEmpty(coversheet)) {
-                return buildBundledLetter(addBlankPageAtTheEndIfOddPage(coversheet), coversheet);
+                return new PdfBundleBuilder(coversheet, pdfMemoryPolicy).append(coversheet).build();
             }
             return coversheet;
         } catch (IOException e) {
@@ -113,7 +116,7 @@ public class PdfLetterService {
                                  SubscriptionWithType subscriptionWithType) {
         if (StringUtils.isNotBlank(notification.getDocmosisLetterTemplate())) {
 
-            Map<String, Object> placeholders = new HashMap<>(notification.getPlaceholders());
+            Map<String, Object> placeholders = Placeholders.copyOf(notification.getPlaceholders());
             placeholders.put(SSCS_URL_LITERAL, SSCS_URL);
             placeholders.put(GENERATED_DATE_LITERAL, LocalDateTime.now().toLocalDate().toString());
 
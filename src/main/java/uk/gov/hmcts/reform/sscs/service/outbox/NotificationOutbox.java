@@ -0,0 +1,143 @@
+package uk.gov.hmcts.reform.sscs.service.outbox;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+
+/**
+ * Outgoing emails and SMS stored in the job scheduler database before they are sent, so each one
+ * is sent and retried on its own rather than as part of the whole event. Rows are claimed with
+ * {@code FOR UPDATE SKIP LOCKED} and a lease, so any number of pods can drain the table at once
+ * and a row claimed by a pod that dies is picked up again once its lease runs out.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "feature.notification-outbox.enabled", havingValue = "true")
+public class NotificationOutbox {
+
+    static final String PENDING = "PENDING";
+    static final String SENDING = "SENDING";
+    static final String SENT = "SENT";
+    static final String FAILED = "FAILED";
+
+    private static final String INSERT_SQL = "INSERT INTO notification_outbox "
+        + "(case_id, event_type, channel, recipient, template_id, destination, sms_sender, placeholders, reference, status, "
+        + "attempts, next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, '" + PENDING + "', 0, ?, ?)";
+    private static final String CLAIM_SQL = "UPDATE notification_outbox SET status = '" + SENDING + "', "
+        + "claimed_until = ?, attempts = attempts + 1 WHERE id IN ("
+        + "SELECT id FROM notification_outbox "
+        + "WHERE (status = '" + PENDING + "' AND next_attempt_at <= ?) OR (status = '" + SENDING + "' AND claimed_until < ?) "
+        + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) "
+        + "RETURNING id, case_id, event_type, channel, recipient, template_id, destination, sms_sender, placeholders, reference, "
+        + "attempts";
+    private static final String SENT_SQL = "UPDATE notification_outbox SET status = '" + SENT + "', "
+        + "sent_at = ?, claimed_until = NULL, last_error = NULL WHERE id = ?";
+    private static final String RETRY_SQL = "UPDATE notification_outbox SET status = '" + PENDING + "', "
+        + "next_attempt_at = ?, claimed_until = NULL, last_error = ? WHERE id = ?";
+    private static final String FAILED_SQL = "UPDATE notification_outbox SET status = '" + FAILED + "', "
+        + "claimed_until = NULL, last_error = ? WHERE id = ?";
+    private static final String PURGE_SQL = "DELETE FROM notification_outbox WHERE status = '" + SENT + "' AND sent_at < ?";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+
+    @Autowired
+    public NotificationOutbox(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, Clock.systemUTC());
+    }
+
+    NotificationOutbox(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Stores a send for the drainer. Returns false if it could not be stored, in which case the
+     * caller should send it straight away rather than lose it.
+     *
+     * <p>The placeholders are stored as the JSON GovNotify is sent, rather than as the objects they
+     * were built from, so a queued send is given exactly the same personalisation as a direct one.
+     */
+    public boolean enqueue(OutboxMessage message) {
+        try {
+            Timestamp now = Timestamp.from(clock.instant());
+            jdbcTemplate.update(INSERT_SQL, message.getCaseId(), message.getEventType().name(), message.getChannel().name(),
+                message.getRecipient(), message.getTemplateId(), message.getDestination(), message.getSmsSender(),
+                new JSONObject(message.getPlaceholders()).toString(), message.getReference(), now, now);
+            return true;
+        } catch (DataAccessException | JSONException e) {
+            log.warn("Unable to add {} {} to the outbox for case id {}, sending directly",
+                message.getEventType(), message.getChannel(), message.getCaseId(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Claims up to a batch of sends that are due, or whose previous claim has expired. A claimed
+     * row whose placeholders can not be read comes back without placeholders.
+     */
+    public List<OutboxMessage> claim(int batchSize, Duration lease) {
+        Instant now = clock.instant();
+        return jdbcTemplate.query(CLAIM_SQL, this::toMessage,
+            Timestamp.from(now.plus(lease)), Timestamp.from(now), Timestamp.from(now), batchSize);
+    }
+
+    public void markSent(long id) {
+        jdbcTemplate.update(SENT_SQL, Timestamp.from(clock.instant()), id);
+    }
+
+    public void markForRetry(long id, Duration delay, String error) {
+        jdbcTemplate.update(RETRY_SQL, Timestamp.from(clock.instant().plus(delay)), truncate(error), id);
+    }
+
+    public void markFailed(long id, String error) {
+        jdbcTemplate.update(FAILED_SQL, truncate(error), id);
+    }
+
+    public int purgeSentBefore(Duration retention) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.from(clock.instant().minus(retention)));
+    }
+
+    private OutboxMessage toMessage(ResultSet rs, int rowNum) throws SQLException {
+        Map<String, Object> placeholders = null;
+        try {
+            placeholders = new JSONObject(rs.getString("placeholders")).toMap();
+        } catch (JSONException e) {
+            log.error("Unreadable placeholders for outbox row {}", rs.getLong("id"), e);
+        }
+        return OutboxMessage.builder()
+            .id(rs.getLong("id"))
+            .caseId(rs.getString("case_id"))
+            .eventType(NotificationEventType.valueOf(rs.getString("event_type")))
+            .channel(OutboxChannel.valueOf(rs.getString("channel")))
+            .recipient(rs.getString("recipient"))
+            .templateId(rs.getString("template_id"))
+            .destination(rs.getString("destination"))
+            .smsSender(rs.getString("sms_sender"))
+            .placeholders(placeholders)
+            .reference(rs.getString("reference"))
+            .attempts(rs.getInt("attempts"))
+            .build();
+    }
+
+    private static String truncate(String error) {
+        return StringUtils.abbreviate(error, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,217 @@
+package uk.gov.hmcts.reform.sscs.service.outbox;
+
+import static java.util.stream.Collectors.toList;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
+import uk.gov.hmcts.reform.sscs.config.NotificationOutboxConfigProperties;
+import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
+import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
+import uk.gov.hmcts.reform.sscs.exception.RecipientNotificationException;
+import uk.gov.hmcts.reform.sscs.exception.RecipientNotificationException.FailedRecipient;
+import uk.gov.hmcts.reform.sscs.factory.CcdNotificationWrapper;
+import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
+import uk.gov.hmcts.reform.sscs.service.NotificationSender;
+import uk.gov.hmcts.reform.sscs.service.RetryNotificationService;
+import uk.gov.hmcts.reform.sscs.service.pipeline.FanOutExecutor;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
+import uk.gov.service.notify.NotificationClientException;
+
+/**
+ * Sends the emails and SMS waiting in the {@link NotificationOutbox} on a pool of workers. Each row
+ * is retried on its own with a growing delay until it is sent or runs out of attempts, so one
+ * failing recipient no longer sends the whole event round again.
+ *
+ * <p>A row rejected by GovNotify or out of attempts is marked failed, counted in
+ * {@code notifications.outbox.failed} and handed back to the {@link RetryNotificationService} as a
+ * failure of its recipient's channel, so the job retries reschedule it if the failure is one they
+ * retry. A retry is sent straight away rather than queued again, so it stops at their limit.
+ *
+ * <p>The outbox is polled on its own thread, and each poll claims at most
+ * {@code maxBatchesPerPoll} batches, so a backlog of slow sends never holds up the other
+ * scheduled jobs.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "feature.notification-outbox.enabled", havingValue = "true")
+public class NotificationOutboxDrainer {
+
+    private final NotificationOutbox notificationOutbox;
+    private final NotificationSender notificationSender;
+    private final RetryNotificationService retryNotificationService;
+    private final NotificationOutboxConfigProperties properties;
+    private final FanOutExecutor workers;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private ScheduledExecutorService poller;
+
+    public NotificationOutboxDrainer(NotificationOutbox notificationOutbox,
+                                     NotificationSender notificationSender,
+                                     RetryNotificationService retryNotificationService,
+                                     NotificationOutboxConfigProperties properties,
+                                     PipelineMetrics pipelineMetrics,
+                                     MeterRegistry meterRegistry) {
+        this.notificationOutbox = notificationOutbox;
+        this.notificationSender = notificationSender;
+        this.retryNotificationService = retryNotificationService;
+        this.properties = properties;
+        // room for two batches, so a single batch never fills the queue enough to pause the topic listener
+        this.workers = new FanOutExecutor("notification-outbox", properties.getWorkers(), properties.getBatchSize() * 2,
+            PipelineStage.SEND, pipelineMetrics);
+        this.sentCounter = meterRegistry.counter("notifications.outbox.sent");
+        this.retriedCounter = meterRegistry.counter("notifications.outbox.retried");
+        this.failedCounter = meterRegistry.counter("notifications.outbox.failed");
+    }
+
+    @PostConstruct
+    public void start() {
+        poller = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("notification-outbox-poll-"));
+        poller.scheduleWithFixedDelay(this::poll, properties.getPollIntervalMs(), properties.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // an exception would cancel every later poll
+            log.error("Unable to drain the notification outbox", e);
+        }
+    }
+
+    void drain() {
+        List<OutboxMessage> batch;
+        int batches = 0;
+        do {
+            batch = claimBatch();
+            workers.runAll(batch.stream().map(message -> (Runnable) () -> deliver(message)).collect(toList()));
+        } while (batch.size() >= properties.getBatchSize() && ++batches < properties.getMaxBatchesPerPoll());
+    }
+
+    @Scheduled(fixedDelayString = "${notification-outbox.purgeIntervalMs}")
+    public void purgeSent() {
+        Duration retention = Duration.ofHours(properties.getRetentionHours());
+        try {
+            int purged = notificationOutbox.purgeSentBefore(retention);
+            log.info("Purged {} sent outbox notifications older than {}", purged, retention);
+        } catch (DataAccessException e) {
+            log.warn("Unable to purge sent outbox notifications", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        workers.shutdown();
+    }
+
+    private List<OutboxMessage> claimBatch() {
+        try {
+            return notificationOutbox.claim(properties.getBatchSize(), Duration.ofSeconds(properties.getLeaseSeconds()));
+        } catch (DataAccessException e) {
+            log.warn("Unable to claim notifications from the outbox", e);
+            return Collections.emptyList();
+        }
+    }
+
+    void deliver(OutboxMessage message) {
+        try {
+            sendAndRecord(message);
+        } catch (DataAccessException e) {
+            log.error("Unable to update outbox notification {} for case id {}, it will be claimed again once its lease expires",
+                message.getId(), message.getCaseId(), e);
+        }
+    }
+
+    private void sendAndRecord(OutboxMessage message) {
+        if (message.getPlaceholders() == null) {
+            fail(message, "Placeholders could not be read");
+            return;
+        }
+        try {
+            send(message);
+        } catch (NotificationClientException e) {
+            handleFailure(message, e, isRejectedByNotify(e));
+            return;
+        } catch (RuntimeException e) {
+            handleFailure(message, e, false);
+            return;
+        }
+        notificationOutbox.markSent(message.getId());
+        sentCounter.increment();
+    }
+
+    private void send(OutboxMessage message) throws NotificationClientException {
+        SscsCaseData caseData = SscsCaseData.builder().ccdCaseId(message.getCaseId()).build();
+        if (OutboxChannel.SMS.equals(message.getChannel())) {
+            notificationSender.deliverSms(message.getTemplateId(), message.getDestination(), message.getPlaceholders(),
+                message.getReference(), message.getSmsSender(), message.getEventType(), caseData);
+        } else {
+            notificationSender.deliverEmail(message.getTemplateId(), message.getDestination(), message.getPlaceholders(),
+                message.getReference(), message.getEventType(), caseData);
+        }
+    }
+
+    private void handleFailure(OutboxMessage message, Exception e, boolean permanent) {
+        if (permanent || message.getAttempts() >= properties.getMaxAttempts()) {
+            fail(message, e.getMessage());
+            handBackToJobRetries(message, e);
+            return;
+        }
+        Duration delay = Duration.ofSeconds(properties.getRetryDelaySeconds() << Math.min(message.getAttempts() - 1, 16));
+        log.warn("Unable to send {} {} for case id {} on attempt {}, retrying in {}", message.getEventType(),
+            message.getChannel(), message.getCaseId(), message.getAttempts(), delay, e);
+        notificationOutbox.markForRetry(message.getId(), delay, e.getMessage());
+        retriedCounter.increment();
+    }
+
+    private void fail(OutboxMessage message, String error) {
+        log.error("Giving up sending {} {} for case id {} after {} attempts: {}", message.getEventType(),
+            message.getChannel(), message.getCaseId(), message.getAttempts(), error);
+        notificationOutbox.markFailed(message.getId(), error);
+        failedCounter.increment();
+    }
+
+    private void handBackToJobRetries(OutboxMessage message, Exception e) {
+        if (message.getRecipient() == null) {
+            return;
+        }
+        NotificationWrapper wrapper = new CcdNotificationWrapper(SscsCaseDataWrapper.builder()
+            .newSscsCaseData(SscsCaseData.builder().ccdCaseId(message.getCaseId()).build())
+            .notificationEventType(message.getEventType())
+            .build());
+        FailedRecipient failedRecipient = new FailedRecipient(message.getEventType(), message.getRecipient(),
+            NotificationChannel.valueOf(message.getChannel().name()), new NotificationServiceException(message.getCaseId(), e));
+        try {
+            retryNotificationService.rescheduleIfHandledGovNotifyErrorStatus(1, wrapper,
+                new RecipientNotificationException(message.getCaseId(), List.of(failedRecipient)));
+        } catch (RuntimeException rescheduleFailure) {
+            log.error("Unable to hand {} {} for case id {} back to the job retries", message.getEventType(),
+                message.getChannel(), message.getCaseId(), rescheduleFailure);
+        }
+    }
+
+    private static boolean isRejectedByNotify(NotificationClientException e) {
+        return e.getHttpResult() == HttpStatus.BAD_REQUEST.value() || e.getHttpResult() == HttpStatus.FORBIDDEN.value();
+    }
+}
@@ -0,0 +1,6 @@
+package uk.gov.hmcts.reform.sscs.service.outbox;
+
+public enum OutboxChannel {
+    EMAIL,
+    SMS
+}
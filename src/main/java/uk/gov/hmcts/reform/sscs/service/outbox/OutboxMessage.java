@@ -0,0 +1,25 @@
+package uk.gov.hmcts.reform.sscs.service.outbox;
+
+import java.util.Map;
+import lombok.Builder;
+import lombok.Value;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+
+@Value
+@Builder(toBuilder = true)
+public class OutboxMessage {
+    private final Long id;
+    private final String caseId;
+    private final NotificationEventType eventType;
+    private final OutboxChannel channel;
+    /**
+     * The recipient the send is handed back to the job retries for once the outbox gives up on it.
+     */
+    private final String recipient;
+    private final String templateId;
+    private final String destination;
+    private final String smsSender;
+    private final Map<String, Object> placeholders;
+    private final String reference;
+    private final int attempts;
+}
@@ -0,0 +1,18 @@
+package uk.gov.hmcts.reform.sscs.service.pendingletter;
+
+import java.time.Instant;
+import lombok.Builder;
+import lombok.Value;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Correspondence;
+
+@Value
+@Builder
+public class PendingLetter {
+    private final Long id;
+    private final String notificationId;
+    private final String caseId;
+    private final String apiKey;
+    private final Correspondence correspondence;
+    private final int attempts;
+    private final Instant createdAt;
+}
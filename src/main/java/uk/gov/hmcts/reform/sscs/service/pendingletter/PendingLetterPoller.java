@@ -0,0 +1,203 @@
+package uk.gov.hmcts.reform.sscs.service.pendingletter;
+
+import static java.util.stream.Collectors.toList;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Correspondence;
+import uk.gov.hmcts.reform.sscs.config.LetterAsyncConfigProperties;
+import uk.gov.hmcts.reform.sscs.config.PendingLetterConfigProperties;
+import uk.gov.hmcts.reform.sscs.service.CcdNotificationsPdfService;
+import uk.gov.hmcts.reform.sscs.service.LetterPdfMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.FanOutExecutor;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
+import uk.gov.service.notify.NotificationClient;
+import uk.gov.service.notify.NotificationClientException;
+
+/**
+ * Fetches the PDFs of the letters waiting in {@link PendingLetters} from GOV.UK Notify and saves them
+ * into CCD as correspondence. Each poll claims due letters a batch at a time and fetches a batch on
+ * a pool of workers; a letter whose PDF is not ready yet goes back into the table with the same
+ * jittered backoff as {@code letter-async}, so a restart loses no letters and holds up none.
+ *
+ * <p>The table is polled on its own thread, and each poll claims at most {@code maxBatchesPerPoll}
+ * batches, so a backlog of letters never holds up the other scheduled jobs.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "feature.pending-letters.enabled", havingValue = "true")
+public class PendingLetterPoller {
+
+    static final String LIVE_KEY = "live";
+    static final String TEST_KEY = "test";
+
+    private final PendingLetters pendingLetters;
+    private final CcdNotificationsPdfService ccdNotificationsPdfService;
+    private final NotificationClient notificationClient;
+    private final NotificationClient testNotificationClient;
+    private final PendingLetterConfigProperties properties;
+    private final LetterAsyncConfigProperties letterAsyncProperties;
+    private final PipelineMetrics pipelineMetrics;
+    private final LetterPdfMetrics letterPdfMetrics;
+    private final FanOutExecutor workers;
+    private ScheduledExecutorService poller;
+
+    public PendingLetterPoller(PendingLetters pendingLetters,
+                               CcdNotificationsPdfService ccdNotificationsPdfService,
+                               @Qualifier("notificationClient") NotificationClient notificationClient,
+                               @Qualifier("testNotificationClient") NotificationClient testNotificationClient,
+                               PendingLetterConfigProperties properties,
+                               LetterAsyncConfigProperties letterAsyncProperties,
+                               PipelineMetrics pipelineMetrics,
+                               LetterPdfMetrics letterPdfMetrics) {
+        this.pendingLetters = pendingLetters;
+        this.ccdNotificationsPdfService = ccdNotificationsPdfService;
+        this.notificationClient = notificationClient;
+        this.testNotificationClient = testNotificationClient;
+        this.properties = properties;
+        this.letterAsyncProperties = letterAsyncProperties;
+        this.pipelineMetrics = pipelineMetrics;
+        this.letterPdfMetrics = letterPdfMetrics;
+        this.workers = new FanOutExecutor("pending-letters", properties.getWorkers(), properties.getBatchSize() * 2,
+            PipelineStage.RECORD, pipelineMetrics);
+    }
+
+    /**
+     * Stores a letter Notify has accepted so its PDF is fetched by whichever pod polls for it first.
+     *
+     * @return false if the letter could not be stored, so the caller should fetch the PDF itself
+     */
+    public boolean add(NotificationClient client, String notificationId, Correspondence correspondence, String ccdCaseId) {
+        String apiKey = client == testNotificationClient ? TEST_KEY : LIVE_KEY;
+        if (!pendingLetters.add(notificationId, ccdCaseId, apiKey, correspondence,
+            Duration.ofMillis(letterAsyncProperties.getInitialDelay()))) {
+            return false;
+        }
+        letterPdfMetrics.letterStored();
+        log.info("Letter {} for case id {} stored until its PDF is ready", notificationId, ccdCaseId);
+        return true;
+    }
+
+    @PostConstruct
+    public void start() {
+        poller = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("pending-letters-poll-"));
+        poller.scheduleWithFixedDelay(this::poll, properties.getPollIntervalMs(), properties.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        try {
+            fetchDueLetters();
+        } catch (RuntimeException e) {
+            // an exception would cancel every later poll
+            log.error("Unable to fetch pending letters", e);
+        }
+    }
+
+    void fetchDueLetters() {
+        List<PendingLetter> batch;
+        int batches = 0;
+        do {
+            batch = claimBatch();
+            workers.runAll(batch.stream().map(letter -> (Runnable) () -> fetch(letter)).collect(toList()));
+        } while (batch.size() >= properties.getBatchSize() && ++batches < properties.getMaxBatchesPerPoll());
+    }
+
+    @Scheduled(fixedDelayString = "${pending-letters.purgeIntervalMs}")
+    public void purgeSaved() {
+        Duration retention = Duration.ofHours(properties.getRetentionHours());
+        try {
+            int purged = pendingLetters.purgeSavedBefore(retention);
+            log.info("Purged {} saved pending letters older than {}", purged, retention);
+        } catch (DataAccessException e) {
+            log.warn("Unable to purge saved pending letters", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        workers.shutdown();
+    }
+
+    private List<PendingLetter> claimBatch() {
+        try {
+            return pendingLetters.claim(properties.getBatchSize(), Duration.ofSeconds(properties.getLeaseSeconds()));
+        } catch (DataAccessException e) {
+            log.warn("Unable to claim pending letters", e);
+            return Collections.emptyList();
+        }
+    }
+
+    void fetch(PendingLetter letter) {
+        try {
+            fetchAndSave(letter);
+        } catch (DataAccessException e) {
+            log.error("Unable to update pending letter {} for case id {}, it will be claimed again once its lease expires",
+                letter.getNotificationId(), letter.getCaseId(), e);
+        }
+    }
+
+    private void fetchAndSave(PendingLetter letter) {
+        if (letter.getCorrespondence() == null) {
+            fail(letter, "Correspondence could not be read");
+            return;
+        }
+        NotificationClient client = TEST_KEY.equals(letter.getApiKey()) ? testNotificationClient : notificationClient;
+        try {
+            final byte[] pdfForLetter = client.getPdfForLetter(letter.getNotificationId());
+            letterPdfMetrics.attemptReady(Duration.between(letter.getCreatedAt(), Instant.now()));
+            log.info("Using merge letter correspondence V2 to upload letter correspondence for {} ", letter.getCaseId());
+            pipelineMetrics.time(PipelineStage.RECORD,
+                () -> ccdNotificationsPdfService.mergeLetterCorrespondenceIntoCcdV2(pdfForLetter, Long.valueOf(letter.getCaseId()),
+                    letter.getCorrespondence()));
+        } catch (NotificationClientException e) {
+            if (String.valueOf(e.getMessage()).contains("PDFNotReadyError")) {
+                letterPdfMetrics.attemptNotReady();
+                log.info("Got a PDFNotReadyError back from gov.notify for case id: {}.", letter.getCaseId());
+            } else {
+                letterPdfMetrics.attemptFailed();
+                log.warn("Got a strange error '{}' back from gov.notify for case id: {}.", e.getMessage(), letter.getCaseId());
+            }
+            retry(letter, e);
+            return;
+        } catch (RuntimeException e) {
+            letterPdfMetrics.attemptFailed();
+            retry(letter, e);
+            return;
+        }
+        pendingLetters.markSaved(letter.getId());
+    }
+
+    private void retry(PendingLetter letter, Exception failure) {
+        if (letter.getAttempts() >= letterAsyncProperties.getMaxAttempts()) {
+            fail(letter, failure.getMessage());
+            return;
+        }
+        Duration delay = Duration.ofMillis(letterAsyncProperties.backoffAfterAttempt(letter.getAttempts()));
+        pendingLetters.markForRetry(letter.getId(), delay, failure.getMessage());
+    }
+
+    private void fail(PendingLetter letter, String error) {
+        log.error("Failed saving correspondence for letter {} for case id: {} after {} attempts: {}",
+            letter.getNotificationId(), letter.getCaseId(), letter.getAttempts(), error);
+        pendingLetters.markFailed(letter.getId(), error);
+        letterPdfMetrics.letterAbandoned();
+    }
+}
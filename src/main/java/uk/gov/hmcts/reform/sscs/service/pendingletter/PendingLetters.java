@@ -0,0 +1,135 @@
+package uk.gov.hmcts.reform.sscs.service.pendingletter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Correspondence;
+
+/**
+ * Letters sent through GOV.UK Notify whose PDF has still to be fetched and saved into CCD, stored in
+ * the job scheduler database so they outlive a restart of the pod that sent them. Rows are claimed
+ * with {@code FOR UPDATE SKIP LOCKED} and a lease, in the same way as the notification outbox, so
+ * every pod polls the table and a row claimed by a pod that dies is picked up again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "feature.pending-letters.enabled", havingValue = "true")
+public class PendingLetters {
+
+    static final String PENDING = "PENDING";
+    static final String FETCHING = "FETCHING";
+    static final String SAVED = "SAVED";
+    static final String FAILED = "FAILED";
+
+    private static final String INSERT_SQL = "INSERT INTO pending_letter "
+        + "(notification_id, case_id, api_key, correspondence, status, attempts, next_attempt_at, created_at) "
+        + "VALUES (?, ?, ?, ?, '" + PENDING + "', 0, ?, ?) ON CONFLICT (notification_id) DO NOTHING";
+    private static final String CLAIM_SQL = "UPDATE pending_letter SET status = '" + FETCHING + "', "
+        + "claimed_until = ?, attempts = attempts + 1 WHERE id IN ("
+        + "SELECT id FROM pending_letter "
+        + "WHERE (status = '" + PENDING + "' AND next_attempt_at <= ?) OR (status = '" + FETCHING + "' AND claimed_until < ?) "
+        + "ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) "
+        + "RETURNING id, notification_id, case_id, api_key, correspondence, attempts, created_at";
+    private static final String SAVED_SQL = "UPDATE pending_letter SET status = '" + SAVED + "', "
+        + "saved_at = ?, claimed_until = NULL, last_error = NULL WHERE id = ?";
+    private static final String RETRY_SQL = "UPDATE pending_letter SET status = '" + PENDING + "', "
+        + "next_attempt_at = ?, claimed_until = NULL, last_error = ? WHERE id = ?";
+    private static final String FAILED_SQL = "UPDATE pending_letter SET status = '" + FAILED + "', "
+        + "claimed_until = NULL, last_error = ? WHERE id = ?";
+    private static final String PURGE_SQL = "DELETE FROM pending_letter WHERE status = '" + SAVED + "' AND saved_at < ?";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    @Autowired
+    public PendingLetters(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this(jdbcTemplate, objectMapper, Clock.systemUTC());
+    }
+
+    PendingLetters(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    /**
+     * Stores a letter whose PDF is first fetched after the given delay. A letter already stored is
+     * left as it is. Returns false if it could not be stored, in which case the caller should fetch
+     * the PDF itself rather than lose the correspondence.
+     */
+    public boolean add(String notificationId, String caseId, String apiKey, Correspondence correspondence, Duration firstAttemptAfter) {
+        try {
+            Instant now = clock.instant();
+            jdbcTemplate.update(INSERT_SQL, notificationId, caseId, apiKey, objectMapper.writeValueAsString(correspondence),
+                Timestamp.from(now.plus(firstAttemptAfter)), Timestamp.from(now));
+            return true;
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Unable to store letter {} for case id {} until its PDF is ready", notificationId, caseId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Claims up to a batch of letters that are due, or whose previous claim has expired. A claimed
+     * row whose correspondence can not be read comes back without correspondence.
+     */
+    public List<PendingLetter> claim(int batchSize, Duration lease) {
+        Instant now = clock.instant();
+        return jdbcTemplate.query(CLAIM_SQL, this::toLetter,
+            Timestamp.from(now.plus(lease)), Timestamp.from(now), Timestamp.from(now), batchSize);
+    }
+
+    public void markSaved(long id) {
+        jdbcTemplate.update(SAVED_SQL, Timestamp.from(clock.instant()), id);
+    }
+
+    public void markForRetry(long id, Duration delay, String error) {
+        jdbcTemplate.update(RETRY_SQL, Timestamp.from(clock.instant().plus(delay)), truncate(error), id);
+    }
+
+    public void markFailed(long id, String error) {
+        jdbcTemplate.update(FAILED_SQL, truncate(error), id);
+    }
+
+    public int purgeSavedBefore(Duration retention) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.from(clock.instant().minus(retention)));
+    }
+
+    private PendingLetter toLetter(ResultSet rs, int rowNum) throws SQLException {
+        Correspondence correspondence = null;
+        try {
+            correspondence = objectMapper.readValue(rs.getString("correspondence"), Correspondence.class);
+        } catch (JsonProcessingException e) {
+            log.error("Unreadable correspondence for pending letter {}", rs.getLong("id"), e);
+        }
+        return PendingLetter.builder()
+            .id(rs.getLong("id"))
+            .notificationId(rs.getString("notification_id"))
+            .caseId(rs.getString("case_id"))
+            .apiKey(rs.getString("api_key"))
+            .correspondence(correspondence)
+            .attempts(rs.getInt("attempts"))
+            .createdAt(rs.getTimestamp("created_at").toInstant())
+            .build();
+    }
+
+    private static String truncate(String error) {
+        return StringUtils.abbreviate(error, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,136 @@
+package uk.gov.hmcts.reform.sscs.service.pipeline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Runs independent pieces of one callback, such as the notification for each recipient, side by
+ * side on a bounded pool and waits for all of them. Every task runs to completion even when another
+ * fails; the first failure in task order is then rethrown unchanged, with the rest attached as
+ * suppressed, so callers see the same exception they would have seen running the tasks in a loop.
+ * With no threads configured the tasks run one after another on the calling thread.
+ */
+@Slf4j
+public class FanOutExecutor {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+
+    public FanOutExecutor(String name, int threads, int queueCapacity, PipelineStage stage, PipelineMetrics pipelineMetrics) {
+        this.name = name;
+        if (threads > 0) {
+            executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                new CustomizableThreadFactory(name + "-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            pipelineMetrics.registerQueue(stage, name, executor.getQueue());
+        } else {
+            executor = null;
+        }
+        log.info("{} fan out running with {} threads", name, Math.max(0, threads));
+    }
+
+    public boolean isConcurrent() {
+        return executor != null;
+    }
+
+    public void runAll(List<Runnable> tasks) {
+        List<Supplier<Void>> suppliers = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            suppliers.add(() -> {
+                task.run();
+                return null;
+            });
+        }
+        invokeAll(suppliers);
+    }
+
+    public <T> List<T> invokeAll(List<Supplier<T>> tasks) {
+        return invokeAll(tasks, null);
+    }
+
+    /**
+     * Waits at most the timeout for all the tasks, otherwise cancels the ones still running, which
+     * interrupts them, and throws a {@link CompletionException} caused by a {@link TimeoutException}.
+     * Tasks run one after another on the calling thread are not timed.
+     */
+    public <T> List<T> invokeAll(List<Supplier<T>> tasks, Duration timeout) {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (!isConcurrent() || tasks.size() < 2) {
+            tasks.forEach(task -> results.add(task.get()));
+            return results;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        tasks.forEach(task -> futures.add(executor.submit(task::get)));
+        long deadline = timeout == null ? 0 : System.nanoTime() + timeout.toNanos();
+
+        RuntimeException failure = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(timeout == null
+                    ? futures.get(i).get()
+                    : futures.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            } catch (ExecutionException e) {
+                RuntimeException cause = unwrap(e);
+                log.error("{} task {} of {} failed", name, i + 1, futures.size(), cause);
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            } catch (TimeoutException e) {
+                futures.forEach(future -> future.cancel(true));
+                log.error("{} tasks did not all finish within {}, cancelled them", name, timeout);
+                throw new CompletionException(new TimeoutException(
+                    String.format("%s tasks did not all finish within %s", name, timeout)));
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new CompletionException(cause);
+    }
+
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
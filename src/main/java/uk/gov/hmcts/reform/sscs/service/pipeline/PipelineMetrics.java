@@ -0,0 +1,111 @@
+package uk.gov.hmcts.reform.sscs.service.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency of each notification stage and depth of the queues feeding them, so a slow dependency
+ * (Docmosis when rendering, GOV.UK Notify when sending, CCD when recording) shows up against its
+ * own stage rather than as one long callback. Each stage's bounded pool registers its queue here
+ * under its stage; see {@link PipelineStage} for which pool serves which stage.
+ */
+@Component
+public class PipelineMetrics {
+
+    private static final String STAGE_TAG = "stage";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<PipelineStage, Timer> stageTimers = new EnumMap<>(PipelineStage.class);
+    private final Map<PipelineStage, List<BlockingQueue<?>>> queues = new EnumMap<>(PipelineStage.class);
+    private final Counter recipientPlansComputed;
+    private final Counter recipientPlansReused;
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (PipelineStage stage : PipelineStage.values()) {
+            stageTimers.put(stage, Timer.builder("notifications.pipeline.stage.latency")
+                .tag(STAGE_TAG, stage.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+            queues.put(stage, new CopyOnWriteArrayList<>());
+            Gauge.builder("notifications.pipeline.stage.saturation", stage, this::getSaturation)
+                .tag(STAGE_TAG, stage.name())
+                .register(meterRegistry);
+        }
+        recipientPlansComputed = meterRegistry.counter("notifications.pipeline.recipient.plan", "outcome", "computed");
+        recipientPlansReused = meterRegistry.counter("notifications.pipeline.recipient.plan", "outcome", "reused");
+    }
+
+    public <T> T time(PipelineStage stage, Supplier<T> work) {
+        return stageTimers.get(stage).record(work);
+    }
+
+    public void time(PipelineStage stage, Runnable work) {
+        stageTimers.get(stage).record(work);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stop(PipelineStage stage, Timer.Sample sample) {
+        sample.stop(stageTimers.get(stage));
+    }
+
+    public void countRecipientPlan(boolean reused) {
+        (reused ? recipientPlansReused : recipientPlansComputed).increment();
+    }
+
+    public void registerQueue(PipelineStage stage, String name, BlockingQueue<?> queue) {
+        Gauge.builder("notifications.pipeline.queue.depth", queue, Collection::size)
+            .tags(STAGE_TAG, stage.name(), "queue", name)
+            .register(meterRegistry);
+        queues.get(stage).add(queue);
+    }
+
+    /**
+     * Fill ratio, between 0 and 1, of the fullest registered queue.
+     */
+    public double getSaturation() {
+        return getSaturation(getFullestStage());
+    }
+
+    /**
+     * Fill ratio, between 0 and 1, of the fullest queue registered for the stage.
+     */
+    public double getSaturation(PipelineStage stage) {
+        return queues.get(stage).stream()
+            .mapToDouble(PipelineMetrics::saturation)
+            .max()
+            .orElse(0);
+    }
+
+    /**
+     * The stage whose fullest queue is fullest, which is the stage holding the pipeline back.
+     */
+    public PipelineStage getFullestStage() {
+        PipelineStage fullest = PipelineStage.DECODE;
+        for (PipelineStage stage : PipelineStage.values()) {
+            if (getSaturation(stage) > getSaturation(fullest)) {
+                fullest = stage;
+            }
+        }
+        return fullest;
+    }
+
+    private static double saturation(BlockingQueue<?> queue) {
+        int size = queue.size();
+        int capacity = size + queue.remainingCapacity();
+        return capacity == 0 ? 0 : (double) size / capacity;
+    }
+}
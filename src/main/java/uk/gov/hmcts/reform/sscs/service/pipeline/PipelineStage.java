@@ -0,0 +1,21 @@
+package uk.gov.hmcts.reform.sscs.service.pipeline;
+
+/**
+ * The stages a callback passes through, each with its own bounded pool and queue once its threads
+ * are configured. Plan to send hand work to their pool and join it within the callback, so a
+ * failure still reaches the retry handling for the event and events for a case stay in order.
+ */
+public enum PipelineStage {
+    /** Decoding callbacks, on the JMS listener thread. */
+    DECODE,
+    /** Planning recipients, on the case sharded topic consumer workers ({@code amqp.consumer}). */
+    PLAN,
+    /** Personalising each recipient, on the recipient fan-out pool ({@code pipeline.fanOut.recipients}). */
+    PERSONALISE,
+    /** Rendering and assembling letters, on the letter assembly pool ({@code pipeline.fanOut.letterAssembly}). */
+    RENDER,
+    /** Sending each channel to GOV.UK Notify, on the channel fan-out pool ({@code pipeline.fanOut.channels}). */
+    SEND,
+    /** Recording correspondence in CCD, on the correspondence record pool and letter PDF scheduler ({@code letter-async}). */
+    RECORD
+}
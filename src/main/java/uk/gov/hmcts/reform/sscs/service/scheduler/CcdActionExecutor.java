@@ -9,6 +9,7 @@ import uk.gov.hmcts.reform.sscs.ccd.deserialisation.SscsCaseCallbackDeserializer
 import uk.gov.hmcts.reform.sscs.ccd.service.CcdService;
 import uk.gov.hmcts.reform.sscs.ccd.service.UpdateCcdCaseService;
 import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
 import uk.gov.hmcts.reform.sscs.factory.CcdNotificationWrapper;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
 import uk.gov.hmcts.reform.sscs.idam.IdamService;
@@ -36,7 +37,15 @@ public class CcdActionExecutor extends BaseActionExecutor<String> {
 
     @Override
     protected NotificationWrapper getWrapper(SscsCaseDataWrapper wrapper, String payload) {
-        return new CcdNotificationWrapper(wrapper);
+        NotificationWrapper notificationWrapper = new CcdNotificationWrapper(wrapper);
+        String[] strings = payload.split(",");
+        if (strings.length > 2) {
+            notificationWrapper.setRetryRecipient(strings[2]);
+        }
+        if (strings.length > 3) {
+            notificationWrapper.setRetryChannel(NotificationChannel.valueOf(strings[3]));
+        }
+        return notificationWrapper;
     }
 
     @Override
@@ -0,0 +1,107 @@
+package uk.gov.hmcts.reform.sscs.servicebus;
+
+import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENTS_TO_HANDLE;
+import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENTS_TO_HANDLE_CONDITIONALLY;
+import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENTS_TO_HANDLE_POSTHEARINGS_A;
+import static uk.gov.hmcts.reform.sscs.config.NotificationEventTypeLists.EVENTS_TO_HANDLE_POSTHEARINGS_B;
+import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.getNotificationByCcdEvent;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.sscs.ccd.domain.EventType;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+
+/**
+ * Reads only the top level event_id of a raw CCD callback and decides whether the callback can
+ * be dropped before it is deserialised. Anything it cannot read is let through to the full
+ * deserialiser so that the existing error handling applies.
+ */
+@Slf4j
+@Component
+public class CallbackEventFilter {
+
+    private static final String EVENT_ID = "event_id";
+    private static final String SKIPPED_METRIC = "notifications.callback.skipped";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final boolean enabled;
+    private final Set<String> notifiableEventIds;
+    private final MeterRegistry meterRegistry;
+
+    public CallbackEventFilter(@Value("${feature.callback-event-filter.enabled}") boolean enabled,
+                               @Value("${feature.postHearings.enabled}") boolean isPostHearingsEnabled,
+                               @Value("${feature.postHearingsB.enabled}") boolean isPostHearingsBEnabled,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+        this.notifiableEventIds = buildNotifiableEventIds(isPostHearingsEnabled, isPostHearingsBEnabled);
+    }
+
+    public boolean canSkip(String message) {
+        if (!enabled) {
+            return false;
+        }
+        Optional<String> eventId = readEventId(message);
+        if (eventId.isEmpty() || notifiableEventIds.contains(eventId.get())) {
+            return false;
+        }
+        skippedCounter(eventId.get()).increment();
+        log.debug("Skipping callback for event {} as it can not produce a notification", eventId.get());
+        return true;
+    }
+
+    Optional<String> readEventId(String message) {
+        try (JsonParser parser = jsonFactory.createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Optional.empty();
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (EVENT_ID.equals(fieldName)) {
+                    return value == JsonToken.VALUE_STRING ? Optional.of(parser.getText()) : Optional.empty();
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            log.debug("Unable to read event id from callback, passing it on for deserialisation", e);
+        }
+        return Optional.empty();
+    }
+
+    private Counter skippedCounter(String eventId) {
+        return meterRegistry.counter(SKIPPED_METRIC, "event", eventId);
+    }
+
+    private static Set<String> buildNotifiableEventIds(boolean isPostHearingsEnabled, boolean isPostHearingsBEnabled) {
+        Set<NotificationEventType> handled = EnumSet.noneOf(NotificationEventType.class);
+        handled.addAll(EVENTS_TO_HANDLE);
+        handled.addAll(EVENTS_TO_HANDLE_CONDITIONALLY);
+        if (isPostHearingsEnabled) {
+            handled.addAll(EVENTS_TO_HANDLE_POSTHEARINGS_A);
+        }
+        if (isPostHearingsBEnabled) {
+            handled.addAll(EVENTS_TO_HANDLE_POSTHEARINGS_B);
+        }
+
+        // match on both the CCD id and the enum name so the filter never drops a callback the
+        // deserialiser would have mapped to a handled event
+        return Arrays.stream(EventType.values())
+            .filter(eventType -> handled.contains(getNotificationByCcdEvent(eventType)))
+            .flatMap(eventType -> Stream.of(eventType.getCcdType(), eventType.name()))
+            .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,91 @@
+package uk.gov.hmcts.reform.sscs.servicebus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.sscs.config.TopicConsumerConfigProperties;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
+
+/**
+ * Spreads callbacks over single threaded shards chosen by the CCD case id, so callbacks for
+ * different cases run concurrently while callbacks for the same case keep their topic order.
+ * When every slot of a shard's queue is taken the caller blocks, which holds the JMS listener
+ * back rather than buffering an unbounded number of messages in memory. A callback's message is
+ * only acknowledged once its shard has dispatched it, so callbacks still queued when the pod dies
+ * or shuts down are redelivered by the broker rather than lost.
+ */
+@Slf4j
+@Component
+public class CaseShardedExecutor {
+
+    private final List<ThreadPoolExecutor> shards;
+
+    public CaseShardedExecutor(TopicConsumerConfigProperties properties, PipelineMetrics pipelineMetrics) {
+        int workers = Math.max(0, properties.getWorkers());
+        int queueDepth = Math.max(1, properties.getQueueDepth());
+        List<ThreadPoolExecutor> executors = new ArrayList<>(workers);
+        for (int shard = 0; shard < workers; shard++) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth),
+                new CustomizableThreadFactory("topic-consumer-" + shard + "-"),
+                CaseShardedExecutor::waitForSpace);
+            pipelineMetrics.registerQueue(PipelineStage.PLAN, "topic-consumer-" + shard, executor.getQueue());
+            executors.add(executor);
+        }
+        shards = Collections.unmodifiableList(executors);
+        log.info("Topic consumer running with {} case sharded workers and queue depth {}", workers, queueDepth);
+    }
+
+    public boolean isConcurrent() {
+        return !shards.isEmpty();
+    }
+
+    public void execute(long caseId, Runnable task) {
+        if (!isConcurrent()) {
+            task.run();
+            return;
+        }
+        shards.get(shardFor(caseId)).execute(task);
+    }
+
+    int shardFor(long caseId) {
+        return Math.floorMod(Long.hashCode(caseId), shards.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shards.forEach(ThreadPoolExecutor::shutdown);
+        for (ThreadPoolExecutor shard : shards) {
+            try {
+                if (!shard.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Topic consumer shard did not finish within 30 seconds, {} unacknowledged callbacks left for redelivery",
+                        shard.shutdownNow().size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                shard.shutdownNow();
+            }
+        }
+    }
+
+    private static void waitForSpace(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Topic consumer is shutting down");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a topic consumer shard", e);
+        }
+    }
+}
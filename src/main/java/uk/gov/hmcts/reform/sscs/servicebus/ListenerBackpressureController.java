@@ -0,0 +1,96 @@
+package uk.gov.hmcts.reform.sscs.servicebus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+import org.springframework.jms.listener.MessageListenerContainer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+
+/**
+ * Stops taking callbacks off the topic while the notification stages downstream of the listener
+ * are saturated and starts again once they have drained, leaving the backlog on Service Bus
+ * rather than in memory. The check runs on its own thread, so a long scheduled job elsewhere can
+ * never hold it up and leave the listener stopped.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "feature.bypass-notifications-service.enabled", havingValue = "false", matchIfMissing = true)
+public class ListenerBackpressureController {
+
+    private final JmsListenerEndpointRegistry jmsListenerEndpointRegistry;
+    private final PipelineMetrics pipelineMetrics;
+    private final double highWatermark;
+    private final double lowWatermark;
+    private final long checkIntervalMs;
+    private final AtomicBoolean paused = new AtomicBoolean();
+    private ScheduledExecutorService checker;
+
+    public ListenerBackpressureController(JmsListenerEndpointRegistry jmsListenerEndpointRegistry,
+                                          PipelineMetrics pipelineMetrics,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${pipeline.backpressure.highWatermark}") double highWatermark,
+                                          @Value("${pipeline.backpressure.lowWatermark}") double lowWatermark,
+                                          @Value("${pipeline.backpressure.checkIntervalMs}") long checkIntervalMs) {
+        this.jmsListenerEndpointRegistry = jmsListenerEndpointRegistry;
+        this.pipelineMetrics = pipelineMetrics;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.checkIntervalMs = checkIntervalMs;
+        meterRegistry.gauge("notifications.pipeline.listener.paused", paused, p -> p.get() ? 1 : 0);
+    }
+
+    @PostConstruct
+    public void start() {
+        checker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("listener-backpressure-"));
+        checker.scheduleWithFixedDelay(this::check, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+    }
+
+    private void check() {
+        try {
+            checkSaturation();
+        } catch (RuntimeException e) {
+            // an exception would cancel every later check and could leave the listener stopped
+            log.error("Unable to check notification pipeline saturation", e);
+        }
+    }
+
+    void checkSaturation() {
+        MessageListenerContainer container = jmsListenerEndpointRegistry.getListenerContainer(TopicConsumer.LISTENER_ID);
+        if (container == null) {
+            return;
+        }
+
+        double saturation = pipelineMetrics.getSaturation();
+        if (!paused.get() && container.isRunning() && saturation >= highWatermark) {
+            log.warn("Notification pipeline is {}% full at the {} stage, pausing the topic listener",
+                Math.round(saturation * 100), pipelineMetrics.getFullestStage());
+            paused.set(true);
+            container.stop(() -> log.info("Topic listener paused"));
+        } else if (paused.get() && saturation <= lowWatermark) {
+            log.info("Notification pipeline is {}% full, resuming the topic listener", Math.round(saturation * 100));
+            paused.set(false);
+            container.start();
+        }
+    }
+
+    boolean isPaused() {
+        return paused.get();
+    }
+}
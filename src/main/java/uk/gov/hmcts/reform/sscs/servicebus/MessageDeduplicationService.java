@@ -0,0 +1,167 @@
+package uk.gov.hmcts.reform.sscs.servicebus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records every callback taken off the topic in the job scheduler database, keyed by its broker
+ * message id, so that a redelivered or concurrently delivered message is only dispatched once. A
+ * callback published again with the same case data, such as a resend, has its own message id and
+ * is dispatched as usual. A message is claimed before it is
+ * dispatched and marked processed once it has been handled; a claim is released if handling fails,
+ * and a claim left by a pod that died is taken over once its lease runs out, so neither stops the
+ * message being processed when it comes round again. Recently seen message ids are kept in memory
+ * so that a redelivery to the same pod does not need a database round trip.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "feature.message-deduplication.enabled", havingValue = "true")
+public class MessageDeduplicationService {
+
+    static final String CLAIMED = "CLAIMED";
+    static final String PROCESSED = "PROCESSED";
+
+    private static final String INSERT_SQL = "INSERT INTO processed_message "
+        + "(message_id, case_id, event_id, status, claimed_until, processed_at) "
+        + "VALUES (?, ?, ?, '" + CLAIMED + "', ?, ?) ON CONFLICT DO NOTHING";
+    private static final String EXPIRED_CLAIM_SQL = "DELETE FROM processed_message WHERE status = '" + CLAIMED + "' "
+        + "AND claimed_until < ? AND message_id = ?";
+    private static final String PROCESSED_SQL = "UPDATE processed_message SET status = '" + PROCESSED + "', "
+        + "claimed_until = NULL WHERE message_id = ?";
+    private static final String RELEASE_SQL = "DELETE FROM processed_message WHERE message_id = ? AND status = '" + CLAIMED + "'";
+    private static final String PURGE_SQL = "DELETE FROM processed_message WHERE processed_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration timeToLive;
+    private final Duration claimLease;
+    private final Clock clock;
+    private final Map<String, Instant> recentMessages;
+    private final Counter duplicateCounter;
+    private final Timer lookupTimer;
+
+    @Autowired
+    public MessageDeduplicationService(JdbcTemplate jdbcTemplate,
+                                       @Value("${message-deduplication.cacheSize}") int cacheSize,
+                                       @Value("${message-deduplication.timeToLiveHours}") long timeToLiveHours,
+                                       @Value("${message-deduplication.claimLeaseSeconds}") long claimLeaseSeconds,
+                                       MeterRegistry meterRegistry) {
+        this(jdbcTemplate, cacheSize, Duration.ofHours(timeToLiveHours), Duration.ofSeconds(claimLeaseSeconds),
+            meterRegistry, Clock.systemUTC());
+    }
+
+    MessageDeduplicationService(JdbcTemplate jdbcTemplate, int cacheSize, Duration timeToLive,
+                                Duration claimLease, MeterRegistry meterRegistry, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timeToLive = timeToLive;
+        this.claimLease = claimLease;
+        this.clock = clock;
+        this.recentMessages = Collections.synchronizedMap(new LruMap(cacheSize));
+        this.duplicateCounter = meterRegistry.counter("notifications.callback.duplicate");
+        this.lookupTimer = Timer.builder("notifications.callback.dedup.lookup")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Claims the message for this pod. Returns false when the message has already been processed or
+     * is being processed. If the store can not be reached the message is processed rather than risk
+     * losing a notification. A claimed message must be passed to {@link #markProcessed} or
+     * {@link #release} once handled.
+     */
+    public boolean isFirstDelivery(String messageId, long caseId, String eventId) {
+        return lookupTimer.record(() -> claim(messageId, caseId, eventId));
+    }
+
+    /**
+     * Records that a claimed message has been handled, so it is ignored for the rest of its time to live.
+     */
+    public void markProcessed(String messageId) {
+        try {
+            jdbcTemplate.update(PROCESSED_SQL, messageId);
+        } catch (DataAccessException e) {
+            log.warn("Unable to mark message id {} as processed, it may be processed again once its claim expires", messageId, e);
+        }
+    }
+
+    /**
+     * Gives up the claim on a message that could not be handled, so a redelivery is processed.
+     */
+    public void release(String messageId) {
+        recentMessages.remove(messageId);
+        try {
+            jdbcTemplate.update(RELEASE_SQL, messageId);
+        } catch (DataAccessException e) {
+            log.warn("Unable to release message id {}, a redelivery is ignored until its claim expires", messageId, e);
+        }
+    }
+
+    private boolean claim(String messageId, long caseId, String eventId) {
+        Instant now = clock.instant();
+        Instant seenAt = recentMessages.get(messageId);
+        if (seenAt != null && seenAt.plus(timeToLive).isAfter(now)) {
+            duplicateCounter.increment();
+            return false;
+        }
+
+        try {
+            String caseIdValue = String.valueOf(caseId);
+            Timestamp claimedUntil = Timestamp.from(now.plus(claimLease));
+            int inserted = jdbcTemplate.update(INSERT_SQL, messageId, caseIdValue, eventId, claimedUntil, Timestamp.from(now));
+            if (inserted == 0 && jdbcTemplate.update(EXPIRED_CLAIM_SQL, Timestamp.from(now), messageId) > 0) {
+                log.info("Taking over expired claim on message id {} for case id {}", messageId, caseId);
+                inserted = jdbcTemplate.update(INSERT_SQL, messageId, caseIdValue, eventId, claimedUntil, Timestamp.from(now));
+            }
+            recentMessages.put(messageId, now);
+            if (inserted == 0) {
+                duplicateCounter.increment();
+                return false;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Unable to record message id {} for case id {}, processing without deduplication",
+                messageId, caseId, e);
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${message-deduplication.purgeIntervalMs}")
+    public void purgeExpired() {
+        try {
+            int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.from(clock.instant().minus(timeToLive)));
+            log.info("Purged {} processed message records older than {}", purged, timeToLive);
+        } catch (DataAccessException e) {
+            log.warn("Unable to purge processed message records", e);
+        }
+    }
+
+    private static class LruMap extends LinkedHashMap<String, Instant> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
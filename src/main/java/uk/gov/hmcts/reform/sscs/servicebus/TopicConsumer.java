@@ -5,6 +5,10 @@ import static java.util.Objects.requireNonNull;
 import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.*;
 import static uk.gov.hmcts.reform.sscs.service.NotificationUtils.buildSscsCaseDataWrapper;
 
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import javax.jms.JMSException;
+import javax.jms.Message;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.jms.annotation.JmsListener;
@@ -19,35 +23,89 @@ import uk.gov.hmcts.reform.sscs.ccd.domain.DwpState;
 import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
 import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
 
 @Slf4j
 @Component
 @Lazy(false)
 public class TopicConsumer {
 
+    public static final String LISTENER_ID = "topicConsumer";
+
     private final CallbackDispatcher dispatcher;
     private final SscsCaseCallbackDeserializer sscsDeserializer;
+    private final CaseShardedExecutor caseShardedExecutor;
+    private final CallbackEventFilter callbackEventFilter;
+    private final Optional<MessageDeduplicationService> messageDeduplicationService;
+    private final PipelineMetrics pipelineMetrics;
 
     public TopicConsumer(CallbackDispatcher dispatcher,
-                         SscsCaseCallbackDeserializer sscsDeserializer) {
+                         SscsCaseCallbackDeserializer sscsDeserializer,
+                         CaseShardedExecutor caseShardedExecutor,
+                         CallbackEventFilter callbackEventFilter,
+                         Optional<MessageDeduplicationService> messageDeduplicationService,
+                         PipelineMetrics pipelineMetrics) {
         this.dispatcher = dispatcher;
         this.sscsDeserializer = sscsDeserializer;
+        this.caseShardedExecutor = caseShardedExecutor;
+        this.callbackEventFilter = callbackEventFilter;
+        this.messageDeduplicationService = messageDeduplicationService;
+        this.pipelineMetrics = pipelineMetrics;
     }
 
     @JmsListener(
+        id = LISTENER_ID,
         destination = "${amqp.topic}",
         containerFactory = "topicJmsListenerContainerFactory",
         subscription = "${amqp.subscription}"
     )
-    public void onMessage(String message, @Header(JmsHeaders.MESSAGE_ID) String messageId) {
-        processMessage(message, messageId);
+    public void onMessage(String message, @Header(JmsHeaders.MESSAGE_ID) String messageId, Message jmsMessage) {
+        // the message is acknowledged once it has been dispatched, on the listener thread or a shard, so a
+        // crash or a failed dispatch leaves it to be redelivered once its lock expires
+        processMessage(message, messageId, () -> acknowledge(jmsMessage, messageId));
     }
 
 
-    private void processMessage(String message, String messageId) {
+    private void processMessage(String message, String messageId, Runnable acknowledge) {
         try {
-            Callback<SscsCaseData> callback = sscsDeserializer.deserialize(message);
+            if (callbackEventFilter.canSkip(message)) {
+                acknowledge.run();
+                return;
+            }
+            Callback<SscsCaseData> callback = pipelineMetrics.time(PipelineStage.DECODE,
+                () -> sscsDeserializer.deserialize(message));
             requireNonNull(callback, "callback must not be null");
+            caseShardedExecutor.execute(callback.getCaseDetails().getId(), () -> {
+                if (dispatch(callback, messageId)) {
+                    acknowledge.run();
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            log.warn("Message id {} not dispatched as the topic consumer is shutting down, it will be redelivered", messageId);
+        } catch (Exception exception) {
+            // unrecoverable. Catch to remove it from the queue.
+            log.error(format(" Message id %s Caught unrecoverable error: %s", exception.getMessage(), messageId), exception);
+            acknowledge.run();
+        }
+    }
+
+    private static void acknowledge(Message jmsMessage, String messageId) {
+        try {
+            jmsMessage.acknowledge();
+        } catch (JMSException e) {
+            log.warn("Unable to acknowledge message id {}, it may be redelivered", messageId, e);
+        }
+    }
+
+    /**
+     * Returns false if the callback could not be handled and should be redelivered. A
+     * {@link NotificationServiceException} has already been handed to the notification retries, so
+     * the callback is not redelivered for it.
+     */
+    private boolean dispatch(Callback<SscsCaseData> callback, String messageId) {
+        try {
             CaseDetails<SscsCaseData> caseDetailsBefore = callback.getCaseDetailsBefore().orElse(null);
 
             NotificationEventType event = getNotificationByCcdEvent(callback.getEvent());
@@ -55,7 +113,7 @@ public class TopicConsumer {
 
             if (ISSUE_FINAL_DECISION.equals(event)
                     && DwpState.CORRECTION_GRANTED.equals(caseData.getDwpState())) {
-                return;
+                return true;
             }
 
 
@@ -69,7 +127,23 @@ public class TopicConsumer {
                 sscsCaseDataWrapper.getNewSscsCaseData().getCcdCaseId(),
                 sscsCaseDataWrapper.getNotificationEventType(),
                 messageId);
-            dispatcher.handle(sscsCaseDataWrapper);
+            if (isDuplicate(callback, messageId)) {
+                log.info("Message id {} for case id {} has already been processed, ignoring",
+                    messageId, callback.getCaseDetails().getId());
+                return true;
+            }
+            try {
+                dispatcher.handle(sscsCaseDataWrapper);
+            } catch (NotificationServiceException exception) {
+                messageDeduplicationService.ifPresent(service -> service.markProcessed(messageId));
+                throw exception;
+            } catch (RuntimeException exception) {
+                messageDeduplicationService.ifPresent(service -> service.release(messageId));
+                log.error(format(" Message id %s could not be handled, leaving it to be redelivered: %s", messageId, exception.getMessage()),
+                    exception);
+                return false;
+            }
+            messageDeduplicationService.ifPresent(service -> service.markProcessed(messageId));
             log.info("Sscs Case CCD callback `{}` handled for Case ID `{}` with message id {}", callback.getEvent(),
                 callback.getCaseDetails().getId(),
                 messageId);
@@ -77,5 +151,13 @@ public class TopicConsumer {
             // unrecoverable. Catch to remove it from the queue.
             log.error(format(" Message id %s Caught unrecoverable error: %s", exception.getMessage(), messageId), exception);
         }
+        return true;
+    }
+
+    private boolean isDuplicate(Callback<SscsCaseData> callback, String messageId) {
+        return messageDeduplicationService
+            .map(service -> !service.isFirstDelivery(messageId, callback.getCaseDetails().getId(),
+                String.valueOf(callback.getEvent())))
+            .orElse(false);
     }
 }
@@ -27,6 +27,9 @@ import org.springframework.jms.core.JmsTemplate;
 @ConditionalOnProperty(name = "feature.bypass-notifications-service.enabled", havingValue = "false", matchIfMissing = true)
 public class MessagingConfig {
 
+    // Qpid JMS session mode in which acknowledging a message acknowledges only that message
+    static final int INDIVIDUAL_ACKNOWLEDGE = 101;
+
     @Bean
     public String jmsUrlString(@Value("${amqp.host}") final String host) {
         return String.format("amqps://%1s?amqp.idleTimeout=3600000", host);
@@ -107,6 +110,9 @@ public class MessagingConfig {
         returnValue.setConnectionFactory(connectionFactory);
         returnValue.setSubscriptionDurable(Boolean.TRUE);
         returnValue.setErrorHandler(new JmsErrorHandler());
+        // each callback is acknowledged by itself once dispatched, which may be on a case shard after the
+        // listener returns, rather than by the container, so one that fails to dispatch is redelivered
+        returnValue.setSessionAcknowledgeMode(INDIVIDUAL_ACKNOWLEDGE);
         return returnValue;
     }
 
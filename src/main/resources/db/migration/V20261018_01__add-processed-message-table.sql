@@ -0,0 +1,12 @@
+CREATE TABLE processed_message
+  (
+    MESSAGE_ID VARCHAR(200) NOT NULL,
+    CASE_ID VARCHAR(50) NOT NULL,
+    EVENT_ID VARCHAR(100) NOT NULL,
+    PAYLOAD_HASH CHAR(64) NOT NULL,
+    PROCESSED_AT TIMESTAMP NOT NULL,
+    PRIMARY KEY (MESSAGE_ID)
+);
+
+CREATE UNIQUE INDEX idx_processed_message_case_event_hash ON processed_message(CASE_ID, EVENT_ID, PAYLOAD_HASH);
+CREATE INDEX idx_processed_message_processed_at ON processed_message(PROCESSED_AT);
@@ -0,0 +1,23 @@
+CREATE TABLE notification_outbox
+  (
+    ID BIGSERIAL NOT NULL,
+    CASE_ID VARCHAR(50) NOT NULL,
+    EVENT_TYPE VARCHAR(100) NOT NULL,
+    CHANNEL VARCHAR(20) NOT NULL,
+    TEMPLATE_ID VARCHAR(100) NOT NULL,
+    DESTINATION VARCHAR(320) NOT NULL,
+    SMS_SENDER VARCHAR(100),
+    PLACEHOLDERS TEXT NOT NULL,
+    REFERENCE VARCHAR(100),
+    STATUS VARCHAR(20) NOT NULL,
+    ATTEMPTS INTEGER NOT NULL DEFAULT 0,
+    NEXT_ATTEMPT_AT TIMESTAMP NOT NULL,
+    CLAIMED_UNTIL TIMESTAMP,
+    LAST_ERROR VARCHAR(1000),
+    CREATED_AT TIMESTAMP NOT NULL,
+    SENT_AT TIMESTAMP,
+    PRIMARY KEY (ID)
+);
+
+CREATE INDEX idx_notification_outbox_status_next_attempt ON notification_outbox(STATUS, NEXT_ATTEMPT_AT);
+CREATE INDEX idx_notification_outbox_case_id ON notification_outbox(CASE_ID);
@@ -0,0 +1,19 @@
+CREATE TABLE pending_letter
+  (
+    ID BIGSERIAL NOT NULL,
+    NOTIFICATION_ID VARCHAR(50) NOT NULL,
+    CASE_ID VARCHAR(50) NOT NULL,
+    API_KEY VARCHAR(10) NOT NULL,
+    CORRESPONDENCE TEXT NOT NULL,
+    STATUS VARCHAR(20) NOT NULL,
+    ATTEMPTS INTEGER NOT NULL DEFAULT 0,
+    NEXT_ATTEMPT_AT TIMESTAMP NOT NULL,
+    CLAIMED_UNTIL TIMESTAMP,
+    LAST_ERROR VARCHAR(1000),
+    CREATED_AT TIMESTAMP NOT NULL,
+    SAVED_AT TIMESTAMP,
+    PRIMARY KEY (ID)
+);
+
+CREATE UNIQUE INDEX idx_pending_letter_notification_id ON pending_letter(NOTIFICATION_ID);
+CREATE INDEX idx_pending_letter_status_next_attempt ON pending_letter(STATUS, NEXT_ATTEMPT_AT);
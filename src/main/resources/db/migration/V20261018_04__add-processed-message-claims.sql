@@ -0,0 +1,2 @@
+ALTER TABLE processed_message ADD COLUMN STATUS VARCHAR(20) NOT NULL DEFAULT 'PROCESSED';
+ALTER TABLE processed_message ADD COLUMN CLAIMED_UNTIL TIMESTAMP;
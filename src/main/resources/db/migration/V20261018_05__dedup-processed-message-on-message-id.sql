@@ -0,0 +1,2 @@
+DROP INDEX IF EXISTS idx_processed_message_case_event_hash;
+ALTER TABLE processed_message DROP COLUMN PAYLOAD_HASH;
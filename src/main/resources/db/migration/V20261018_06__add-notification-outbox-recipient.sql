@@ -0,0 +1 @@
+ALTER TABLE notification_outbox ADD COLUMN RECIPIENT VARCHAR(100);
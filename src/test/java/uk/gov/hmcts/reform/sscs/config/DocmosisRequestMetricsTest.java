@@ -0,0 +1,108 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+public class DocmosisRequestMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DocmosisRequestMetrics metrics;
+    private HttpRequest request;
+    private ClientHttpRequestExecution execution;
+
+    @Before
+    public void setUp() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new DocmosisRequestMetrics(1, 10, meterRegistry);
+
+        request = mock(HttpRequest.class);
+        when(request.getURI()).thenReturn(URI.create("https://docmosis.aat.platform.hmcts.net/rs/render"));
+        when(request.getMethodValue()).thenReturn(HttpMethod.POST.name());
+
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(response.getRawStatusCode()).thenReturn(200);
+        execution = mock(ClientHttpRequestExecution.class);
+        when(execution.execute(any(), any())).thenReturn(response);
+    }
+
+    @Test
+    public void timesARequestUntilItsResponseIsClosed() throws IOException {
+        ClientHttpResponse response = metrics.intercept(request, new byte[0], execution);
+
+        assertEquals(1.0, activeRequests(), 0);
+        response.close();
+        response.close();
+
+        assertEquals(0.0, activeRequests(), 0);
+        assertEquals(1, meterRegistry.get("docmosis.http.requests")
+            .tags("operation", "render", "method", "POST", "outcome", "SUCCESSFUL").timer().count());
+    }
+
+    @Test
+    public void waitsForAConnectionWhenAllAreInUse() throws IOException {
+        ClientHttpResponse first = metrics.intercept(request, new byte[0], execution);
+
+        try {
+            metrics.intercept(request, new byte[0], execution);
+            fail("Expected to time out waiting for a connection");
+        } catch (IOException e) {
+            assertEquals("Timed out waiting for a connection to Docmosis after 10ms", e.getMessage());
+        }
+        first.close();
+
+        metrics.intercept(request, new byte[0], execution).close();
+        assertEquals(2, meterRegistry.get("docmosis.http.requests").timer().count());
+    }
+
+    @Test
+    public void releasesTheConnectionWhenARequestFails() throws IOException {
+        when(execution.execute(any(), any())).thenThrow(new IOException("Connection reset"));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                metrics.intercept(request, new byte[0], execution);
+            } catch (IOException e) {
+                assertEquals("Connection reset", e.getMessage());
+            }
+        }
+
+        assertEquals(0.0, activeRequests(), 0);
+        assertEquals(2, meterRegistry.get("docmosis.http.requests").tag("outcome", "IO_ERROR").timer().count());
+    }
+
+    @Test
+    public void closesAResponseWhoseStatusCannotBeRead() throws IOException {
+        ClientHttpResponse unreadable = mock(ClientHttpResponse.class);
+        when(unreadable.getRawStatusCode()).thenThrow(new IOException("Stream closed"));
+        when(execution.execute(any(), any())).thenReturn(unreadable);
+
+        try {
+            metrics.intercept(request, new byte[0], execution);
+            fail("Expected the status to be unreadable");
+        } catch (IOException e) {
+            assertEquals("Stream closed", e.getMessage());
+        }
+
+        verify(unreadable).close();
+        assertEquals(0.0, activeRequests(), 0);
+        assertEquals(1, meterRegistry.get("docmosis.http.requests").tag("outcome", "IO_ERROR").timer().count());
+    }
+
+    private double activeRequests() {
+        return meterRegistry.get("docmosis.http.requests.active").gauge().value();
+    }
+}
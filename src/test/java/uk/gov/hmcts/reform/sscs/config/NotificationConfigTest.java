@@ -2,8 +2,6 @@ package uk.gov.hmcts.reform.sscs.config;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 import static uk.gov.hmcts.reform.sscs.config.AppealHearingType.ORAL;
 
 import junitparams.JUnitParamsRunner;
@@ -11,7 +9,7 @@ import junitparams.Parameters;
 import junitparams.converters.Nullable;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.springframework.core.env.Environment;
+import org.springframework.mock.env.MockEnvironment;
 import uk.gov.hmcts.reform.sscs.ccd.domain.Appeal;
 import uk.gov.hmcts.reform.sscs.ccd.domain.Benefit;
 import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
@@ -22,7 +20,7 @@ import uk.gov.hmcts.reform.sscs.factory.CcdNotificationWrapper;
 @RunWith(JUnitParamsRunner.class)
 public class NotificationConfigTest {
 
-    private final Environment env = mock(Environment.class);
+    private final MockEnvironment env = new MockEnvironment();
 
     @Test
     @Parameters({
@@ -35,13 +33,10 @@ public class NotificationConfigTest {
                                    String letterTemplateName, String letterTemplateKey, String letterTemplateId,
                                    String docmosisTemplateKey, String docmosisTemplateId, @Nullable String expectedDocmosisTemplateId, String createdInGapsFrom) {
 
-        when(env.getProperty(emailTemplateKey)).thenReturn(emailTemplateId);
-        when(env.containsProperty(emailTemplateKey)).thenReturn(true);
-        when(env.getProperty(smsTemplateKey)).thenReturn(smsTemplateId);
-        when(env.containsProperty(smsTemplateKey)).thenReturn(true);
-        when(env.getProperty(letterTemplateKey)).thenReturn(letterTemplateId);
-        when(env.getProperty(docmosisTemplateKey)).thenReturn(docmosisTemplateId);
-        when(env.containsProperty(letterTemplateKey)).thenReturn(true);
+        env.setProperty(emailTemplateKey, emailTemplateId);
+        env.setProperty(smsTemplateKey, smsTemplateId);
+        env.setProperty(letterTemplateKey, letterTemplateId);
+        env.setProperty(docmosisTemplateKey, docmosisTemplateId);
 
         CcdNotificationWrapper wrapper = new CcdNotificationWrapper(SscsCaseDataWrapper.builder().newSscsCaseData(SscsCaseData.builder().appeal(Appeal.builder().hearingType(ORAL.name()).build()).build()).build());
 
@@ -65,14 +60,11 @@ public class NotificationConfigTest {
                                    String letterTemplateName, String letterTemplateKey, String letterTemplateId,
                                    String docmosisTemplateKey, String docmosisTemplateId, @Nullable String expectedDocmosisTemplateId, String createdInGapsFrom) {
         String englishSmsTemplateId = "smsEnglishTemplateId";
-        when(env.getProperty(emailTemplateKey)).thenReturn(emailTemplateId);
-        when(env.containsProperty(emailTemplateKey)).thenReturn(true);
-        when(env.getProperty(smsTemplateKey)).thenReturn(smsTemplateId);
-        when(env.getProperty("notification.english.oral.smsTemplateName.smsId")).thenReturn(englishSmsTemplateId);
-        when(env.containsProperty(smsTemplateKey)).thenReturn(true);
-        when(env.getProperty(letterTemplateKey)).thenReturn(letterTemplateId);
-        when(env.getProperty(docmosisTemplateKey)).thenReturn(docmosisTemplateId);
-        when(env.containsProperty(letterTemplateKey)).thenReturn(true);
+        env.setProperty(emailTemplateKey, emailTemplateId);
+        env.setProperty(smsTemplateKey, smsTemplateId);
+        env.setProperty("notification.english.oral.smsTemplateName.smsId", englishSmsTemplateId);
+        env.setProperty(letterTemplateKey, letterTemplateId);
+        env.setProperty(docmosisTemplateKey, docmosisTemplateId);
 
         CcdNotificationWrapper wrapper = new CcdNotificationWrapper(SscsCaseDataWrapper.builder().newSscsCaseData(SscsCaseData.builder().languagePreferenceWelsh("Yes").appeal(Appeal.builder().hearingType(ORAL.name()).build()).build()).build());
 
@@ -94,9 +86,8 @@ public class NotificationConfigTest {
         String switchedDocmosisTemplateKey = "notification.english.letterTemplateName.docmosisId";
         String docmosisTemplateId = "docmosisTemplateId";
 
-        when(env.getProperty(letterTemplateKey)).thenReturn(letterTemplateId);
-        when(env.getProperty(switchedDocmosisTemplateKey)).thenReturn(docmosisTemplateId);
-        when(env.containsProperty(letterTemplateKey)).thenReturn(true);
+        env.setProperty(letterTemplateKey, letterTemplateId);
+        env.setProperty(switchedDocmosisTemplateKey, docmosisTemplateId);
 
         CcdNotificationWrapper wrapper = new CcdNotificationWrapper(SscsCaseDataWrapper.builder().newSscsCaseData(SscsCaseData.builder().languagePreferenceWelsh("Yes").appeal(Appeal.builder().hearingType(ORAL.name()).build()).build()).build());
         wrapper.setSwitchLanguageType(true);
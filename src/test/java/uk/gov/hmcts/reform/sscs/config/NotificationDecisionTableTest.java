@@ -0,0 +1,87 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.*;
+
+import java.util.EnumMap;
+import java.util.Map;
+import org.junit.Test;
+import uk.gov.hmcts.reform.sscs.ccd.callback.DocumentType;
+import uk.gov.hmcts.reform.sscs.ccd.domain.EventType;
+import uk.gov.hmcts.reform.sscs.config.NotificationDecision.PersonalisationKind;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+
+public class NotificationDecisionTableTest {
+
+    @Test
+    public void everyNotificationTypeHasADecisionThatAgreesWithTheLists() {
+        NotificationDecisionTable.check();
+
+        for (NotificationEventType notificationEventType : NotificationEventType.values()) {
+            NotificationDecision decision = NotificationDecisionTable.decisionFor(notificationEventType);
+            assertSame(notificationEventType, decision.getNotificationEventType());
+            assertEquals(NotificationEventTypeLists.EVENT_TYPES_FOR_MANDATORY_LETTERS.contains(notificationEventType), decision.isMandatoryLetter());
+            assertEquals(NotificationEventTypeLists.DOCMOSIS_LETTERS.contains(notificationEventType), decision.isDocmosisLetter());
+            assertEquals(NotificationEventTypeLists.EVENT_TYPES_FOR_BUNDLED_LETTER.contains(notificationEventType), decision.isBundledLetter());
+        }
+        assertSame(NotificationDecisionTable.decisionFor(DO_NOT_SEND), NotificationDecisionTable.decisionFor(null));
+    }
+
+    @Test
+    public void reissuedDocumentsAreSentAsTheNotificationThatIssuedThem() {
+        NotificationDecision reissue = NotificationDecisionTable.decisionFor(REISSUE_DOCUMENT);
+
+        assertEquals(ISSUE_FINAL_DECISION_WELSH, reissue.getOverrideTypeForReissuedDocument(EventType.ISSUE_FINAL_DECISION_WELSH.getCcdType()));
+        assertEquals(ISSUE_ADJOURNMENT_NOTICE, reissue.getOverrideTypeForReissuedDocument(EventType.ISSUE_ADJOURNMENT_NOTICE.getCcdType()));
+        assertNull(reissue.getOverrideTypeForReissuedDocument(EventType.APPEAL_RECEIVED.getCcdType()));
+        assertNull(reissue.getOverrideTypeForReissuedDocument(null));
+        assertNull(NotificationDecisionTable.decisionFor(DECISION_ISSUED)
+            .getOverrideTypeForReissuedDocument(EventType.DECISION_ISSUED.getCcdType()));
+
+        assertEquals(VALID_APPEAL_CREATED, NotificationDecisionTable.decisionFor(DRAFT_TO_VALID_APPEAL_CREATED).getOverrideType());
+        assertEquals(NON_COMPLIANT, NotificationDecisionTable.decisionFor(DRAFT_TO_NON_COMPLIANT).getOverrideType());
+        assertNull(reissue.getOverrideType());
+    }
+
+    @Test
+    public void bundledLettersKeepTheirDocumentAndLanguage() {
+        NotificationDecision finalDecisionWelsh = NotificationDecisionTable.decisionFor(ISSUE_FINAL_DECISION_WELSH);
+        assertEquals(DocumentType.FINAL_DECISION_NOTICE, finalDecisionWelsh.getBundledDocumentType());
+        assertTrue(finalDecisionWelsh.isWelshBundledDocument());
+
+        NotificationDecision adjournmentWelsh = NotificationDecisionTable.decisionFor(ISSUE_ADJOURNMENT_NOTICE_WELSH);
+        assertEquals(DocumentType.ADJOURNMENT_NOTICE, adjournmentWelsh.getBundledDocumentType());
+        assertFalse(adjournmentWelsh.isWelshBundledDocument());
+
+        assertEquals(DocumentType.STATEMENT_OF_REASONS_GRANTED, NotificationDecisionTable.decisionFor(SOR_EXTEND_TIME).getBundledDocumentType());
+        assertNull(NotificationDecisionTable.decisionFor(APPEAL_RECEIVED).getBundledDocumentType());
+    }
+
+    @Test
+    public void personalisationFollowsTheOrderOfTheLists() {
+        assertEquals(PersonalisationKind.SUBSCRIPTION, NotificationDecisionTable.decisionFor(SUBSCRIPTION_UPDATED).getPersonalisationKind());
+        assertEquals(PersonalisationKind.DEFAULT, NotificationDecisionTable.decisionFor(DO_NOT_SEND).getPersonalisationKind());
+        for (NotificationEventType notificationEventType : NotificationEventTypeLists.EVENTS_FOR_SYA_PERSONALISATION) {
+            assertEquals(PersonalisationKind.SYA_APPEAL_CREATED_AND_RECEIVED,
+                NotificationDecisionTable.decisionFor(notificationEventType).getPersonalisationKind());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void aBundledLetterWithoutADocumentFailsTheCheck() {
+        Map<NotificationEventType, NotificationDecision> decisions = new EnumMap<>(NotificationEventType.class);
+        for (NotificationEventType notificationEventType : NotificationEventType.values()) {
+            decisions.put(notificationEventType, NotificationDecisionTable.decisionFor(notificationEventType));
+        }
+        NotificationDecision decisionIssued = decisions.get(DECISION_ISSUED);
+        decisions.put(DECISION_ISSUED, new NotificationDecision(DECISION_ISSUED, decisionIssued.getPersonalisationKind(),
+            null, Map.of(), null, false, true, decisionIssued.isMandatoryLetter(), decisionIssued.isDocmosisLetter(),
+            decisionIssued.isInterlocLetter()));
+
+        NotificationDecisionTable.check(decisions);
+    }
+}
@@ -0,0 +1,115 @@
+package uk.gov.hmcts.reform.sscs.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static uk.gov.hmcts.reform.sscs.config.AppealHearingType.ORAL;
+import static uk.gov.hmcts.reform.sscs.config.AppealHearingType.PAPER;
+import static uk.gov.hmcts.reform.sscs.config.NotificationTemplateIndex.Channel.DOCMOSIS;
+import static uk.gov.hmcts.reform.sscs.config.NotificationTemplateIndex.Channel.EMAIL;
+import static uk.gov.hmcts.reform.sscs.config.NotificationTemplateIndex.Channel.SMS;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Test;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.env.MockEnvironment;
+import uk.gov.hmcts.reform.sscs.ccd.domain.HearingRoute;
+import uk.gov.hmcts.reform.sscs.ccd.domain.LanguagePreference;
+
+public class NotificationTemplateIndexTest {
+
+    private final MockEnvironment env = new MockEnvironment();
+
+    @Test
+    public void usesTheMostSpecificTemplateSetForTheCase() {
+        env.setProperty("notification.english.hearingBooked.appellant.emailId", "everyCase");
+        env.setProperty("notification.english.oral.hearingBooked.appellant.emailId", "oral");
+        env.setProperty("notification.english.listAssist.oral.hearingBooked.appellant.emailId", "listAssistOral");
+
+        NotificationTemplateIndex index = NotificationTemplateIndex.compile(env);
+
+        assertEquals("listAssistOral", emailTemplateId(index, HearingRoute.LIST_ASSIST, ORAL));
+        assertEquals("oral", emailTemplateId(index, HearingRoute.GAPS, ORAL));
+        assertEquals("oral", emailTemplateId(index, null, ORAL));
+        assertEquals("everyCase", emailTemplateId(index, HearingRoute.LIST_ASSIST, PAPER));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void keepsChannelsAndLanguagesApart() {
+        env.setProperty("notification.english.appealReceived.appellant.emailId", "englishEmail");
+        env.setProperty("notification.welsh.appealReceived.appellant.smsId", "welshSms");
+
+        NotificationTemplateIndex index = NotificationTemplateIndex.compile(env);
+
+        assertNull(index.getTemplateId(LanguagePreference.ENGLISH, null, ORAL, "appealReceived.appellant", SMS));
+        assertNull(index.getTemplateId(LanguagePreference.WELSH, null, ORAL, "appealReceived.appellant", EMAIL));
+        assertEquals("welshSms", index.getTemplateId(LanguagePreference.WELSH, null, ORAL, "appealReceived.appellant", SMS));
+        assertNull(index.getTemplateId(LanguagePreference.ENGLISH, null, ORAL, "appealDormant.appellant", EMAIL));
+    }
+
+    @Test
+    public void aBlankTemplateIdMeansNoTemplateRatherThanTheOneForEveryCase() {
+        env.setProperty("notification.english.hearingBooked.appellant.emailId", "everyCase");
+        env.setProperty("notification.english.oral.hearingBooked.appellant.emailId", " ");
+        env.setProperty("notification.english.listAssist.paper.hearingBooked.appellant.emailId", "");
+
+        NotificationTemplateIndex index = NotificationTemplateIndex.compile(env);
+
+        assertNull(emailTemplateId(index, null, ORAL));
+        assertNull(emailTemplateId(index, HearingRoute.LIST_ASSIST, ORAL));
+        assertNull(emailTemplateId(index, HearingRoute.LIST_ASSIST, PAPER));
+        assertEquals("everyCase", emailTemplateId(index, HearingRoute.GAPS, PAPER));
+    }
+
+    @Test
+    public void leavesOutAnUnknownChannel() {
+        env.setProperty("notification.english.hearingBooked.appellant.emailid", "template");
+
+        NotificationTemplateIndex index = NotificationTemplateIndex.compile(env);
+
+        assertEquals(0, index.size());
+        assertNull(emailTemplateId(index, null, ORAL));
+    }
+
+    @Test
+    public void leavesOutAnUnknownLanguage() {
+        env.setProperty("notification.cymraeg.hearingBooked.appellant.emailId", "template");
+        env.setProperty("notification.english.hearingBooked.appellant.emailId", "english");
+
+        NotificationTemplateIndex index = NotificationTemplateIndex.compile(env);
+
+        assertEquals(1, index.size());
+        assertEquals("english", emailTemplateId(index, null, ORAL));
+    }
+
+    @Test
+    public void compilesEveryTemplateInTheApplicationConfiguration() throws IOException {
+        StandardEnvironment applicationEnv = new StandardEnvironment();
+        new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yaml"))
+            .forEach(applicationEnv.getPropertySources()::addLast);
+
+        NotificationTemplateIndex index = NotificationTemplateIndex.compile(applicationEnv);
+
+        long templateKeys = applicationEnv.getPropertySources().stream()
+            .flatMap(propertySource -> Arrays.stream(((EnumerablePropertySource<?>) propertySource).getPropertyNames()))
+            .filter(name -> name.startsWith(NotificationTemplateIndex.PREFIX))
+            .distinct()
+            .count();
+        assertTrue(index.size() > 600);
+        assertEquals("every notification key in application.yaml is a template key", templateKeys, index.size());
+        assertEquals("TB-SCS-LET-ENG-Hearing-Booked.docx", index.getTemplateId(
+            LanguagePreference.ENGLISH, HearingRoute.LIST_ASSIST, ORAL, "hearingBooked.appellant", DOCMOSIS));
+        assertEquals("e1084d78-5e2d-45d2-a54f-84339da141c1", index.getTemplateId(
+            LanguagePreference.ENGLISH, HearingRoute.LIST_ASSIST, PAPER, "responseReceived.appellant", EMAIL));
+    }
+
+    private static String emailTemplateId(NotificationTemplateIndex index, HearingRoute hearingRoute,
+                                          AppealHearingType appealHearingType) {
+        return index.getTemplateId(LanguagePreference.ENGLISH, hearingRoute, appealHearingType, "hearingBooked.appellant", EMAIL);
+    }
+}
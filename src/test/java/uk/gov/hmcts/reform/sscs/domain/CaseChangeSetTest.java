@@ -0,0 +1,152 @@
+package uk.gov.hmcts.reform.sscs.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Appeal;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Appellant;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Appointee;
+import uk.gov.hmcts.reform.sscs.ccd.domain.DatedRequestOutcome;
+import uk.gov.hmcts.reform.sscs.ccd.domain.HearingRecordingRequest;
+import uk.gov.hmcts.reform.sscs.ccd.domain.HearingRecordingRequestDetails;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Name;
+import uk.gov.hmcts.reform.sscs.ccd.domain.RequestOutcome;
+import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
+import uk.gov.hmcts.reform.sscs.ccd.domain.SscsHearingRecordingCaseData;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Subscription;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Subscriptions;
+import uk.gov.hmcts.reform.sscs.config.SubscriptionType;
+import uk.gov.hmcts.reform.sscs.model.PartyItemList;
+
+public class CaseChangeSetTest {
+
+    @Test
+    public void givenAnAppointeeIsAddedOrChanged_thenTheChangeSetSaysSo() {
+        Appointee before = Appointee.builder().name(Name.builder().firstName("Before").build()).build();
+        Appointee after = Appointee.builder().name(Name.builder().firstName("After").build()).build();
+
+        assertTrue(CaseChangeSet.between(caseWithAppointee(null), caseWithAppointee(after)).isAppointeeAddedOrChanged());
+        assertTrue(CaseChangeSet.between(caseWithAppointee(before), caseWithAppointee(after)).isAppointeeAddedOrChanged());
+        assertTrue(CaseChangeSet.between(null, caseWithAppointee(after)).isAppointeeAddedOrChanged());
+        assertFalse(CaseChangeSet.between(caseWithAppointee(after), caseWithAppointee(after)).isAppointeeAddedOrChanged());
+        assertFalse(CaseChangeSet.between(caseWithAppointee(before), caseWithAppointee(null)).isAppointeeAddedOrChanged());
+    }
+
+    @Test
+    public void onlyHearingRecordingsReleasedByTheEventAreNew() {
+        HearingRecordingRequest appellantRecording = recordingFor(PartyItemList.APPELLANT);
+        HearingRecordingRequest jointPartyRecording = recordingFor(PartyItemList.JOINT_PARTY);
+
+        CaseChangeSet changeSet = CaseChangeSet.between(
+            caseWithReleasedRecordings(List.of(appellantRecording)),
+            caseWithReleasedRecordings(List.of(appellantRecording, jointPartyRecording)));
+
+        assertEquals(List.of(jointPartyRecording), changeSet.getNewReleasedHearingRecordings());
+        assertTrue(changeSet.hasNewReleasedHearingRecordingFor(PartyItemList.JOINT_PARTY));
+        assertFalse(changeSet.hasNewReleasedHearingRecordingFor(PartyItemList.APPELLANT));
+        assertTrue(CaseChangeSet.between(SscsCaseData.builder().build(), SscsCaseData.builder().build())
+            .getNewReleasedHearingRecordings().isEmpty());
+    }
+
+    @Test
+    public void givenANewConfidentialityOutcome_thenTheChangeSetSaysSo() {
+        SscsCaseData granted = SscsCaseData.builder()
+            .confidentialityRequestOutcomeAppellant(DatedRequestOutcome.builder().requestOutcome(RequestOutcome.GRANTED).build())
+            .confidentialityRequestOutcomeJointParty(DatedRequestOutcome.builder().requestOutcome(RequestOutcome.REFUSED).build())
+            .build();
+
+        CaseChangeSet changeSet = CaseChangeSet.between(SscsCaseData.builder().build(), granted);
+        assertTrue(changeSet.hasNewConfidentialityOutcomeForAppellant());
+        assertTrue(changeSet.hasNewConfidentialityOutcomeForJointParty());
+
+        CaseChangeSet unchanged = CaseChangeSet.between(granted, granted);
+        assertFalse(unchanged.hasNewConfidentialityOutcomeForAppellant());
+        assertFalse(unchanged.hasNewConfidentialityOutcomeForJointParty());
+
+        assertFalse(CaseChangeSet.between(null, granted).hasNewConfidentialityOutcomeForAppellant());
+    }
+
+    @Test
+    public void keepsTheSubscriptionsFromBeforeTheEvent() {
+        Subscription appellantSubscription = Subscription.builder().email("before@test.com").build();
+        SscsCaseData before = SscsCaseData.builder()
+            .subscriptions(Subscriptions.builder().appellantSubscription(appellantSubscription).build())
+            .build();
+
+        CaseChangeSet changeSet = CaseChangeSet.between(before, SscsCaseData.builder().build());
+
+        assertSame(appellantSubscription, changeSet.getSubscriptionBefore(SubscriptionType.APPELLANT));
+        assertNull(changeSet.getSubscriptionBefore(SubscriptionType.REPRESENTATIVE));
+    }
+
+    @Test
+    public void theWrapperReusesItsChangeSetUntilTheCaseIsReplaced() {
+        SscsCaseDataWrapper wrapper = SscsCaseDataWrapper.builder()
+            .oldSscsCaseData(SscsCaseData.builder().build())
+            .newSscsCaseData(SscsCaseData.builder().build())
+            .build();
+
+        CaseChangeSet changeSet = wrapper.getChangeSet();
+        assertSame(changeSet, wrapper.getChangeSet());
+
+        wrapper.setNewSscsCaseData(caseWithAppointee(Appointee.builder().build()));
+        assertTrue(wrapper.getChangeSet().isAppointeeAddedOrChanged());
+    }
+
+    @Test
+    public void givenNoCaseAfterTheEvent_thenNothingIsNew() {
+        SscsCaseData before = SscsCaseData.builder()
+            .confidentialityRequestOutcomeAppellant(DatedRequestOutcome.builder().requestOutcome(RequestOutcome.GRANTED).build())
+            .build();
+
+        CaseChangeSet changeSet = CaseChangeSet.between(before, null);
+
+        assertFalse(changeSet.hasNewConfidentialityOutcomeForAppellant());
+        assertFalse(changeSet.hasNewConfidentialityOutcomeForJointParty());
+        assertFalse(changeSet.isLatestHearingUnchanged());
+        assertFalse(changeSet.isAppointeeAddedOrChanged());
+    }
+
+    @Test
+    public void aCopyOfTheWrapperWorksOutItsOwnChangeSet() {
+        SscsCaseDataWrapper wrapper = SscsCaseDataWrapper.builder()
+            .oldSscsCaseData(SscsCaseData.builder().build())
+            .newSscsCaseData(SscsCaseData.builder().build())
+            .build();
+        CaseChangeSet changeSet = wrapper.getChangeSet();
+
+        SscsCaseDataWrapper copy = wrapper.toBuilder().build();
+
+        assertNotSame(changeSet, copy.getChangeSet());
+        assertEquals(wrapper, copy);
+    }
+
+    private static SscsCaseData caseWithAppointee(Appointee appointee) {
+        return SscsCaseData.builder()
+            .appeal(Appeal.builder()
+                .appellant(Appellant.builder()
+                    .isAppointee(appointee == null ? "No" : "Yes")
+                    .appointee(appointee)
+                    .build())
+                .build())
+            .build();
+    }
+
+    private static SscsCaseData caseWithReleasedRecordings(List<HearingRecordingRequest> recordings) {
+        return SscsCaseData.builder()
+            .sscsHearingRecordingCaseData(SscsHearingRecordingCaseData.builder().citizenReleasedHearings(recordings).build())
+            .build();
+    }
+
+    private static HearingRecordingRequest recordingFor(PartyItemList party) {
+        return HearingRecordingRequest.builder()
+            .value(HearingRecordingRequestDetails.builder().requestingParty(party.getCode()).build())
+            .build();
+    }
+}
@@ -1,9 +1,11 @@
 package uk.gov.hmcts.reform.sscs.domain.notify;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
+import uk.gov.hmcts.reform.sscs.ccd.domain.EventType;
 
 public class NotificationEventTypeTest {
     @Test
@@ -31,4 +33,14 @@ public class NotificationEventTypeTest {
 
 
     }
+
+    @Test
+    public void notificationTypesAreFoundByIdAndCcdEvent() {
+        assertEquals(NotificationEventType.DECISION_ISSUED, NotificationEventType.getNotificationByEvent("decisionissued"));
+        assertEquals(NotificationEventType.SUBSCRIPTION_OLD, NotificationEventType.getNotificationByEvent(NotificationEventType.SUBSCRIPTION_OLD_ID));
+        assertEquals(NotificationEventType.DO_NOT_SEND, NotificationEventType.getNotificationByEvent("unknown"));
+        assertEquals(NotificationEventType.DO_NOT_SEND, NotificationEventType.getNotificationByEvent(null));
+        assertEquals(NotificationEventType.DECISION_ISSUED, NotificationEventType.getNotificationByCcdEvent(EventType.DECISION_ISSUED));
+        assertEquals(NotificationEventType.SUBSCRIPTION_OLD, NotificationEventType.getNotificationByCcdEvent(null));
+    }
 }
@@ -0,0 +1,94 @@
+package uk.gov.hmcts.reform.sscs.domain.notify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.APPEAL_REF;
+import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.NAME;
+import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.REGIONAL_OFFICE_NAME_LITERAL;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.junit.Test;
+
+public class PlaceholdersTest {
+
+    @Test
+    public void behavesLikeAHashMapForKnownAndOtherKeys() {
+        Placeholders placeholders = new Placeholders();
+        placeholders.put(APPEAL_REF, "SC/1234/5");
+        placeholders.put(REGIONAL_OFFICE_NAME_LITERAL, null);
+        placeholders.put("hmcts2", "image");
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put(APPEAL_REF, "SC/1234/5");
+        expected.put(REGIONAL_OFFICE_NAME_LITERAL, null);
+        expected.put("hmcts2", "image");
+
+        assertEquals(expected, placeholders);
+        assertEquals(placeholders, expected);
+        assertEquals(expected.hashCode(), placeholders.hashCode());
+        assertEquals(3, placeholders.size());
+        assertTrue(placeholders.containsKey(REGIONAL_OFFICE_NAME_LITERAL));
+        assertFalse(placeholders.containsKey(NAME));
+        assertNull(placeholders.get(null));
+
+        assertEquals("SC/1234/5", placeholders.remove(APPEAL_REF));
+        assertEquals("image", placeholders.remove("hmcts2"));
+        assertEquals(1, placeholders.size());
+    }
+
+    @Test
+    public void copiesDoNotChangeEachOther() {
+        Placeholders original = new Placeholders();
+        original.put(APPEAL_REF, "SC/1234/5");
+        original.put("hmcts2", "image");
+
+        Placeholders copy = Placeholders.copyOf(original);
+        copy.put(APPEAL_REF, "SC/9876/5");
+        copy.put("hmcts2", "other image");
+        original.put(NAME, "Harry Kane");
+
+        assertEquals("SC/1234/5", original.get(APPEAL_REF));
+        assertEquals("image", original.get("hmcts2"));
+        assertEquals("SC/9876/5", copy.get(APPEAL_REF));
+        assertEquals("other image", copy.get("hmcts2"));
+        assertFalse(copy.containsKey(NAME));
+    }
+
+    @Test
+    public void readOnlyPlaceholdersCanBeCopiedButNotChanged() {
+        Placeholders original = new Placeholders();
+        original.put(APPEAL_REF, "SC/1234/5");
+        original.readOnly();
+
+        Placeholders copy = Placeholders.copyOf(original);
+        copy.put(NAME, "Harry Kane");
+
+        assertEquals(2, copy.size());
+        assertEquals(1, original.size());
+        try {
+            original.put(NAME, "Harry Kane");
+            fail("Read only placeholders should not change");
+        } catch (UnsupportedOperationException e) {
+            assertFalse(original.containsKey(NAME));
+        }
+    }
+
+    @Test
+    public void removesEntriesWhileIterating() {
+        Placeholders placeholders = Placeholders.copyOf(Map.of(APPEAL_REF, "SC/1234/5", NAME, "Harry Kane", "hmcts2", "image"));
+
+        Iterator<Map.Entry<String, Object>> entries = placeholders.entrySet().iterator();
+        while (entries.hasNext()) {
+            if (!NAME.equals(entries.next().getKey())) {
+                entries.remove();
+            }
+        }
+
+        assertEquals(Map.of(NAME, "Harry Kane"), placeholders);
+    }
+}
@@ -310,6 +310,37 @@ public class CcdNotificationWrapperTest {
         Assert.assertEquals(SubscriptionType.REPRESENTATIVE, subsWithTypeList.get(1).getSubscriptionType());
     }
 
+    @Test
+    public void givenTheSameNotificationType_shouldReuseTheRecipientPlan() {
+        ccdNotificationWrapper = buildCcdNotificationWrapperBasedOnEventTypeWithRep(APPEAL_RECEIVED);
+        Assert.assertFalse(ccdNotificationWrapper.hasRecipientPlan());
+
+        List<SubscriptionWithType> first = ccdNotificationWrapper.getSubscriptionsBasedOnNotificationType();
+        first.get(0).setSubscription(null);
+        Assert.assertTrue(ccdNotificationWrapper.hasRecipientPlan());
+
+        List<SubscriptionWithType> second = ccdNotificationWrapper.getSubscriptionsBasedOnNotificationType();
+        Assert.assertEquals(2, second.size());
+        Assert.assertNotNull(second.get(0).getSubscription());
+    }
+
+    @Test
+    public void givenTheNotificationTypeOrLanguageChanges_shouldResolveTheRecipientsAgain() {
+        ccdNotificationWrapper = buildCcdNotificationWrapperBasedOnEventTypeWithRep(APPEAL_RECEIVED);
+        ccdNotificationWrapper.getSubscriptionsBasedOnNotificationType();
+
+        ccdNotificationWrapper.setSwitchLanguageType(true);
+        Assert.assertFalse(ccdNotificationWrapper.hasRecipientPlan());
+        ccdNotificationWrapper.getSubscriptionsBasedOnNotificationType();
+
+        ccdNotificationWrapper.getSscsCaseDataWrapper().setNotificationEventType(STRUCK_OUT);
+        Assert.assertFalse(ccdNotificationWrapper.hasRecipientPlan());
+        ccdNotificationWrapper.getSubscriptionsBasedOnNotificationType();
+
+        ccdNotificationWrapper.setNotificationType(APPEAL_RECEIVED);
+        Assert.assertFalse(ccdNotificationWrapper.hasRecipientPlan());
+    }
+
     @Test
     @Parameters({"DEATH_OF_APPELLANT","PROVIDE_APPOINTEE_DETAILS"})
     public void givenSubscriptions_shouldGetAppointeeAndRepSubscriptionTypeList(NotificationEventType notificationEventType) {
@@ -1,9 +1,13 @@
 package uk.gov.hmcts.reform.sscs.health;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 import com.google.common.collect.ImmutableMap;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
@@ -11,6 +15,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -22,9 +27,11 @@ import org.springframework.web.client.RestTemplate;
 public class DocmosisHealthIndicatorTest {
 
     private static final String DOCMOSIS_STATUS_URI = "http://docmosis/rs/render";
+    private static final Instant CHECKED_AT = Instant.parse("2026-10-18T10:00:00Z");
 
     @Mock private RestTemplate restTemplate;
     @Mock private ResponseEntity responseEntity;
+    @Mock private Clock clock;
 
     private DocmosisHealthIndicator docmosisHealthIndicator;
 
@@ -34,9 +41,14 @@ public class DocmosisHealthIndicatorTest {
         docmosisHealthIndicator =
             new DocmosisHealthIndicator(
                 DOCMOSIS_STATUS_URI,
-                restTemplate
+                restTemplate,
+                30000,
+                Duration.ofMinutes(2),
+                clock
             );
 
+        when(clock.instant()).thenReturn(CHECKED_AT);
+
         doReturn(responseEntity)
             .when(restTemplate)
             .exchange(
@@ -58,7 +70,9 @@ public class DocmosisHealthIndicatorTest {
 
         when(responseEntity.getBody()).thenReturn(exampleReadyResponse);
 
-        assertEquals(Health.up().build(), docmosisHealthIndicator.health());
+        docmosisHealthIndicator.refresh();
+
+        assertEquals(Status.UP, docmosisHealthIndicator.health().getStatus());
     }
 
     @Test
@@ -72,7 +86,9 @@ public class DocmosisHealthIndicatorTest {
 
         when(responseEntity.getBody()).thenReturn(exampleNotReadyResponse);
 
-        assertEquals(Health.down().build(), docmosisHealthIndicator.health());
+        docmosisHealthIndicator.refresh();
+
+        assertEquals(Status.DOWN, docmosisHealthIndicator.health().getStatus());
     }
 
     @Test
@@ -86,7 +102,9 @@ public class DocmosisHealthIndicatorTest {
 
         when(responseEntity.getBody()).thenReturn(exampleUnexpectedResponse);
 
-        assertEquals(Health.down().build(), docmosisHealthIndicator.health());
+        docmosisHealthIndicator.refresh();
+
+        assertEquals(Status.DOWN, docmosisHealthIndicator.health().getStatus());
     }
 
     @Test
@@ -94,7 +112,9 @@ public class DocmosisHealthIndicatorTest {
 
         when(responseEntity.getBody()).thenReturn(null);
 
-        assertEquals(Health.down().build(), docmosisHealthIndicator.health());
+        docmosisHealthIndicator.refresh();
+
+        assertEquals(Status.DOWN, docmosisHealthIndicator.health().getStatus());
     }
 
     @Test
@@ -110,6 +130,49 @@ public class DocmosisHealthIndicatorTest {
                 any(ParameterizedTypeReference.class)
             )).thenThrow(underlyingException);
 
-        assertEquals(Health.down(underlyingException).build(), docmosisHealthIndicator.health());
+        docmosisHealthIndicator.refresh();
+
+        Health health = docmosisHealthIndicator.health();
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(Health.down(underlyingException).build().getDetails().get("error"), health.getDetails().get("error"));
+    }
+
+    @Test
+    public void should_report_the_time_and_latency_of_the_last_check() {
+
+        when(responseEntity.getBody()).thenReturn(ImmutableMap.of("ready", "true"));
+
+        docmosisHealthIndicator.refresh();
+
+        Health health = docmosisHealthIndicator.health();
+        assertEquals("2026-10-18T10:00:00Z", health.getDetails().get("checkedAt"));
+        assertTrue(health.getDetails().containsKey("latencyMs"));
+        verify(restTemplate, times(1)).exchange(
+            eq(DOCMOSIS_STATUS_URI), eq(HttpMethod.GET), eq(null), any(ParameterizedTypeReference.class));
+    }
+
+    @Test
+    public void should_report_as_unknown_before_the_first_check() {
+
+        assertEquals(Status.UNKNOWN, docmosisHealthIndicator.health().getStatus());
+        verifyNoInteractions(restTemplate);
+
+        when(responseEntity.getBody()).thenReturn(ImmutableMap.of("ready", "true"));
+        docmosisHealthIndicator.refresh();
+
+        assertEquals(Status.UP, docmosisHealthIndicator.health().getStatus());
+    }
+
+    @Test
+    public void should_report_as_down_once_the_last_check_is_stale() {
+
+        when(responseEntity.getBody()).thenReturn(ImmutableMap.of("ready", "true"));
+        docmosisHealthIndicator.refresh();
+
+        when(clock.instant()).thenReturn(CHECKED_AT.plus(Duration.ofMinutes(3)));
+
+        Health health = docmosisHealthIndicator.health();
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(true, health.getDetails().get("stale"));
     }
 }
@@ -9,6 +9,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
@@ -2251,4 +2252,43 @@ public class PersonalisationTest {
             .infoRequests(infoRequests)
             .build();
     }
+
+    @Test
+    public void worksOutCaseScopedPlaceholdersOnceForAllRecipientsOfAnEvent() {
+        Name repName = Name.builder().firstName("Peter").lastName("Smith").build();
+        SscsCaseData sscsCaseData = SscsCaseData.builder()
+            .ccdCaseId(CASE_ID)
+            .caseReference("SC/1234/5")
+            .appeal(Appeal.builder()
+                .benefitType(BenefitType.builder().code(PIP.name()).build())
+                .appellant(Appellant.builder().name(name).build())
+                .rep(Representative.builder().name(repName).hasRepresentative("Yes").build())
+                .build())
+            .subscriptions(Subscriptions.builder()
+                .appellantSubscription(Subscription.builder().tya("GLSCRR").build())
+                .representativeSubscription(Subscription.builder().tya("REPTYA").build())
+                .build())
+            .build();
+        NotificationWrapper notificationWrapper = new CcdNotificationWrapper(SscsCaseDataWrapper.builder()
+            .newSscsCaseData(sscsCaseData)
+            .notificationEventType(APPEAL_RECEIVED)
+            .build());
+
+        Map<String, Object> appellant = personalisation.create(notificationWrapper, new SubscriptionWithType(
+            sscsCaseData.getSubscriptions().getAppellantSubscription(), APPELLANT,
+            sscsCaseData.getAppeal().getAppellant(), sscsCaseData.getAppeal().getAppellant()));
+        Map<String, Object> representative = personalisation.create(notificationWrapper, new SubscriptionWithType(
+            sscsCaseData.getSubscriptions().getRepresentativeSubscription(), REPRESENTATIVE,
+            sscsCaseData.getAppeal().getAppellant(), sscsCaseData.getAppeal().getRep()));
+
+        verify(regionalProcessingCenterService, times(1)).getByScReferenceCode("SC/1234/5");
+        verify(hearingContactDateExtractor, times(1)).extract(any());
+        assertEquals(ADDRESS1, representative.get(REGIONAL_OFFICE_NAME_LITERAL));
+        assertEquals(appellant.get(BENEFIT_FULL_NAME_LITERAL), representative.get(BENEFIT_FULL_NAME_LITERAL));
+        assertEquals("Harry Kane", appellant.get(NAME));
+        assertEquals("GLSCRR", appellant.get(APPEAL_ID_LITERAL));
+        assertEquals("REPTYA", representative.get(APPEAL_ID_LITERAL));
+        assertEquals("Yes", representative.get(PersonalisationMappingConstants.REPRESENTATIVE));
+        assertNull(appellant.get(PersonalisationMappingConstants.REPRESENTATIVE));
+    }
 }
@@ -0,0 +1,97 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.eventScopedDocumentCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
+import uk.gov.hmcts.reform.sscs.factory.CcdNotificationWrapper;
+import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
+
+public class CaseDocumentCacheTest {
+
+    private static final String SMALL_URL = "http://dm-store/documents/small/binary";
+    private static final String LARGE_URL = "http://dm-store/documents/large/binary";
+    private static final byte[] SMALL = new byte[10];
+    private static final byte[] LARGE = new byte[100];
+
+    @Mock
+    private PdfStoreService pdfStoreService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CaseDocumentCache cache;
+
+    @Before
+    public void setup() {
+        openMocks(this);
+        when(pdfStoreService.download(SMALL_URL)).thenReturn(SMALL);
+        when(pdfStoreService.download(LARGE_URL)).thenReturn(LARGE);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CaseDocumentCache(pdfStoreService, 2, 25, 50, meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        cache.clear();
+    }
+
+    @Test
+    public void downloadsADocumentOnceForAllRecipientsOfAnEvent() {
+        CaseDocumentCache eventScoped = eventScopedDocumentCache(pdfStoreService);
+        NotificationWrapper wrapper = newWrapper();
+
+        assertArrayEquals(SMALL, eventScoped.download(wrapper, SMALL_URL));
+        assertArrayEquals(SMALL, eventScoped.download(wrapper, SMALL_URL));
+        assertArrayEquals(SMALL, eventScoped.download(newWrapper(), SMALL_URL));
+
+        verify(pdfStoreService, times(2)).download(SMALL_URL);
+    }
+
+    @Test
+    public void keepsDocumentsAcrossEvents() {
+        cache.download(newWrapper(), SMALL_URL);
+        cache.download(newWrapper(), SMALL_URL);
+
+        verify(pdfStoreService, times(1)).download(SMALL_URL);
+        assertEquals(1.0, meterRegistry.counter("notifications.document.cache.hit").count(), 0);
+        assertEquals(10.0, meterRegistry.counter("notifications.document.cache.saved").count(), 0);
+        assertEquals(0.5, meterRegistry.get("notifications.document.cache.hit.ratio").gauge().value(), 0);
+    }
+
+    @Test
+    public void keepsLargeDocumentsOffTheHeap() {
+        assertArrayEquals(LARGE, cache.download(newWrapper(), LARGE_URL));
+        assertArrayEquals(LARGE, cache.download(newWrapper(), LARGE_URL));
+
+        verify(pdfStoreService, times(1)).download(LARGE_URL);
+        assertEquals(0.0, meterRegistry.get("notifications.document.cache.heap").gauge().value(), 0);
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedDocumentWhenFull() {
+        when(pdfStoreService.download("other")).thenReturn(new byte[10]);
+        when(pdfStoreService.download("third")).thenReturn(new byte[10]);
+
+        cache.download(SMALL_URL);
+        cache.download("other");
+        cache.download("third");
+        cache.download(SMALL_URL);
+
+        verify(pdfStoreService, times(2)).download(SMALL_URL);
+        assertEquals(2.0, meterRegistry.get("notifications.document.cache.size").gauge().value(), 0);
+        assertEquals(20.0, meterRegistry.get("notifications.document.cache.heap").gauge().value(), 0);
+    }
+
+    private static NotificationWrapper newWrapper() {
+        return new CcdNotificationWrapper(SscsCaseDataWrapper.builder().build());
+    }
+}
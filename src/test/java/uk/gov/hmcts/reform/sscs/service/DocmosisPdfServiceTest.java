@@ -5,6 +5,7 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.disabledRenderCache;
 
 import java.util.HashMap;
 import org.junit.Before;
@@ -57,7 +58,7 @@ public class DocmosisPdfServiceTest {
                 )
         )).thenReturn(expectedPdf);
 
-        byte[] pdfBytes = new DocmosisPdfService(docmosisPdfGenerationService).createPdf(pdfCoverSheet, template);
+        byte[] pdfBytes = new DocmosisPdfService(docmosisPdfGenerationService, disabledRenderCache()).createPdf(pdfCoverSheet, template);
 
         assertThat(pdfBytes, is(expectedPdf));
     }
@@ -0,0 +1,139 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.disabledRenderCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DocmosisRenderCacheTest {
+
+    private static final String TEMPLATE = "TB-SCS-GNO-ENG-00012.docx";
+    private static final byte[] PDF = new byte[]{2, 4, 6, 0, 1};
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger renders;
+    private Supplier<byte[]> renderer;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        renders = new AtomicInteger();
+        renderer = () -> {
+            renders.incrementAndGet();
+            return PDF;
+        };
+    }
+
+    @Test
+    public void rendersIdenticalPlaceholdersOnce() {
+        DocmosisRenderCache cache = newCache(10, Duration.ofHours(1), null, Clock.systemUTC());
+
+        assertArrayEquals(PDF, cache.render(TEMPLATE, placeholders("name", "Harry Kane", "case_id", "1234"), renderer));
+        assertArrayEquals(PDF, cache.render(TEMPLATE, placeholders("case_id", "1234", "name", "Harry Kane"), renderer));
+
+        assertEquals(1, renders.get());
+        assertEquals(1.0, meterRegistry.counter("notifications.docmosis.render.cache.hit", "tier", "memory").count(), 0);
+        assertEquals(1.0, meterRegistry.counter("notifications.docmosis.render.cache.miss").count(), 0);
+    }
+
+    @Test
+    public void rendersAgainForDifferentPlaceholdersOrTemplate() {
+        DocmosisRenderCache cache = newCache(10, Duration.ofHours(1), null, Clock.systemUTC());
+
+        cache.render(TEMPLATE, placeholders("name", "Harry Kane"), renderer);
+        cache.render(TEMPLATE, placeholders("name", "Jane Smith"), renderer);
+        cache.render("TB-SCS-GNO-WEL-00012.docx", placeholders("name", "Harry Kane"), renderer);
+
+        assertEquals(3, renders.get());
+    }
+
+    @Test
+    public void hashesNestedPlaceholdersInKeyOrder() {
+        Map<String, Object> first = placeholders("address", placeholders("line1", "1 Road", "postcode", "TS1 1ST"));
+        Map<String, Object> second = placeholders("address", placeholders("postcode", "TS1 1ST", "line1", "1 Road"));
+
+        assertEquals(DocmosisRenderCache.key(TEMPLATE, first), DocmosisRenderCache.key(TEMPLATE, second));
+    }
+
+    @Test
+    public void rendersAgainOnceARenderHasExpired() {
+        Instant renderedAt = Instant.parse("2026-10-18T10:00:00Z");
+        Clock clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(renderedAt, renderedAt, renderedAt.plus(Duration.ofMinutes(6)));
+        DocmosisRenderCache cache = newCache(10, Duration.ofMinutes(5), null, clock);
+
+        cache.render(TEMPLATE, placeholders("name", "Harry Kane"), renderer);
+        cache.render(TEMPLATE, placeholders("name", "Harry Kane"), renderer);
+
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedRenderWhenFull() {
+        DocmosisRenderCache cache = newCache(2, Duration.ofHours(1), null, Clock.systemUTC());
+
+        for (String name : List.of("first", "second", "third", "first")) {
+            cache.render(TEMPLATE, placeholders("name", name), renderer);
+        }
+
+        assertEquals(4, renders.get());
+        assertEquals(2.0, meterRegistry.get("notifications.docmosis.render.cache.size").gauge().value(), 0);
+    }
+
+    @Test
+    public void readsRendersEvictedFromTheHeapFromDisk() {
+        Path directory = temporaryFolder.getRoot().toPath();
+        DocmosisRenderCache cache = newCache(1, Duration.ofHours(1), directory, Clock.systemUTC());
+
+        cache.render(TEMPLATE, placeholders("name", "first"), renderer);
+        cache.render(TEMPLATE, placeholders("name", "second"), renderer);
+        DocmosisRenderCache restarted = newCache(0, Duration.ofHours(1), directory, Clock.systemUTC());
+
+        assertArrayEquals(PDF, cache.render(TEMPLATE, placeholders("name", "first"), renderer));
+        assertArrayEquals(PDF, restarted.render(TEMPLATE, placeholders("name", "second"), renderer));
+
+        assertEquals(2, renders.get());
+        assertEquals(2.0, meterRegistry.counter("notifications.docmosis.render.cache.hit", "tier", "disk").count(), 0);
+    }
+
+    @Test
+    public void rendersEveryTimeWhenDisabled() {
+        DocmosisRenderCache cache = disabledRenderCache();
+
+        cache.render(TEMPLATE, placeholders("name", "Harry Kane"), renderer);
+        cache.render(TEMPLATE, placeholders("name", "Harry Kane"), renderer);
+
+        assertEquals(2, renders.get());
+    }
+
+    private DocmosisRenderCache newCache(int maxEntries, Duration timeToLive, Path directory, Clock clock) {
+        return new DocmosisRenderCache(maxEntries, 1024, timeToLive, directory, meterRegistry, clock);
+    }
+
+    private static Map<String, Object> placeholders(Object... keysAndValues) {
+        Map<String, Object> placeholders = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            placeholders.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return placeholders;
+    }
+}
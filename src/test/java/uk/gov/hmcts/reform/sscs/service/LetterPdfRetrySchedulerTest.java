@@ -0,0 +1,196 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Correspondence;
+import uk.gov.hmcts.reform.sscs.ccd.domain.CorrespondenceDetails;
+import uk.gov.hmcts.reform.sscs.config.LetterAsyncConfigProperties;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.service.notify.NotificationClient;
+import uk.gov.service.notify.NotificationClientException;
+
+public class LetterPdfRetrySchedulerTest {
+    private static final String NOTIFICATION_ID = "123";
+    private static final String CCD_ID = "82828";
+    private static final byte[] PDF = "%PDF bytes".getBytes();
+
+    @Mock
+    private CcdNotificationsPdfService ccdNotificationsPdfService;
+
+    @Mock
+    private NotificationClient notificationClient;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Correspondence correspondence = Correspondence.builder()
+        .value(CorrespondenceDetails.builder().to("Mr Blobby").build())
+        .build();
+    private LetterAsyncConfigProperties properties;
+    private LetterPdfRetryScheduler scheduler;
+
+    @Before
+    public void setup() {
+        openMocks(this);
+        properties = new LetterAsyncConfigProperties();
+        properties.setMaxAttempts(3);
+        properties.setDelay(1);
+        properties.setMultiplier(2);
+        properties.setMaxDelay(5);
+        properties.setInitialDelay(1);
+        properties.setThreads(1);
+        properties.setMaxPending(10);
+        properties.setMaxPendingSaves(10);
+        scheduler = new LetterPdfRetryScheduler(ccdNotificationsPdfService, new PipelineMetrics(meterRegistry), properties,
+            new LetterPdfMetrics(meterRegistry));
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void savesTheLetterOnceNotifyHasRenderedIt() throws NotificationClientException {
+        when(notificationClient.getPdfForLetter(NOTIFICATION_ID))
+            .thenThrow(new NotificationClientException("400 PDFNotReadyError"))
+            .thenReturn(PDF);
+
+        assertTrue(scheduler.schedule(notificationClient, NOTIFICATION_ID, correspondence, CCD_ID));
+
+        verify(ccdNotificationsPdfService, timeout(2000)).mergeLetterCorrespondenceIntoCcdV2(PDF, Long.valueOf(CCD_ID), correspondence);
+        verify(notificationClient, times(2)).getPdfForLetter(NOTIFICATION_ID);
+        assertEquals(1.0, meterRegistry.get("notifications.letter.pdf.attempts").tag("outcome", "notReady").counter().count(), 0);
+        assertEquals(1, meterRegistry.get("notifications.letter.pdf.time.to.pdf").timer().count());
+    }
+
+    @Test
+    public void givesUpOnALetterAfterTheLastAttempt() throws NotificationClientException {
+        when(notificationClient.getPdfForLetter(NOTIFICATION_ID)).thenThrow(new NotificationClientException("400 BadRequestError"));
+
+        scheduler.schedule(notificationClient, NOTIFICATION_ID, correspondence, CCD_ID);
+
+        verify(notificationClient, timeout(2000).times(3)).getPdfForLetter(NOTIFICATION_ID);
+        verify(ccdNotificationsPdfService, never()).mergeLetterCorrespondenceIntoCcdV2(any(), any(), any());
+        waitForNoPendingLetters();
+        assertEquals(1.0, meterRegistry.get("notifications.letter.pdf.letters").tag("outcome", "abandoned").counter().count(), 0);
+    }
+
+    @Test
+    public void doesNotTakeMoreLettersThanItMayHavePending() {
+        properties.setMaxPending(1);
+        properties.setInitialDelay(60000);
+
+        assertTrue(scheduler.schedule(notificationClient, NOTIFICATION_ID, correspondence, CCD_ID));
+        assertFalse(scheduler.schedule(notificationClient, "456", correspondence, CCD_ID));
+
+        assertEquals(1, scheduler.getPending());
+        assertEquals(1.0, meterRegistry.get("notifications.letter.pdf.letters").tag("outcome", "rejected").counter().count(), 0);
+    }
+
+    @Test
+    public void handsASaveTheRecordPoolRejectedBackToThePoolRatherThanRunningItOnTheSendingThread() throws InterruptedException {
+        properties.setDelay(100);
+        properties.setMaxDelay(1000);
+        ThreadPoolExecutor recordExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+            scheduler::deferRejectedSave);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch saved = new CountDownLatch(1);
+        AtomicReference<Thread> savedOn = new AtomicReference<>();
+        try {
+            recordExecutor.execute(() -> await(busy));
+            recordExecutor.execute(() -> await(busy));
+            recordExecutor.execute(() -> {
+                savedOn.set(Thread.currentThread());
+                saved.countDown();
+            });
+
+            assertEquals(1, scheduler.getPendingSaves());
+            assertEquals(0, scheduler.getPending());
+            busy.countDown();
+
+            assertTrue(saved.await(2, TimeUnit.SECONDS));
+            assertNotSame(Thread.currentThread(), savedOn.get());
+            waitForNoPendingSaves();
+            assertEquals(1.0, meterRegistry.get("notifications.correspondence.saves").tag("outcome", "deferred").counter().count(), 0);
+            assertTrue(meterRegistry.find("notifications.letter.pdf.letters").tag("outcome", "deferred").counters().isEmpty());
+        } finally {
+            busy.countDown();
+            recordExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void dropsARejectedSavePastItsOwnLimitWithoutTouchingTheLetters() {
+        properties.setMaxPendingSaves(1);
+        properties.setDelay(60000);
+        properties.setMaxDelay(60000);
+        ThreadPoolExecutor recordExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        try {
+            scheduler.deferRejectedSave(() -> { }, recordExecutor);
+            scheduler.deferRejectedSave(() -> { }, recordExecutor);
+
+            assertEquals(1, scheduler.getPendingSaves());
+            assertEquals(0, scheduler.getPending());
+            assertEquals(1.0, meterRegistry.get("notifications.correspondence.saves").tag("outcome", "rejected").counter().count(), 0);
+            assertEquals(0.0, meterRegistry.get("notifications.letter.pdf.letters").tag("outcome", "rejected").counter().count(), 0);
+        } finally {
+            recordExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void backsOffExponentiallyUpToTheMaximumDelay() {
+        properties.setDelay(100);
+        properties.setMaxDelay(1000);
+
+        long first = scheduler.backoff(1);
+        long third = scheduler.backoff(3);
+
+        assertTrue(first >= 100 && first <= 200);
+        assertTrue(third >= 400 && third <= 800);
+        assertEquals(1000, scheduler.backoff(10));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void waitForNoPendingLetters() {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (scheduler.getPending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertEquals(0, scheduler.getPending());
+    }
+
+    private void waitForNoPendingSaves() {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (scheduler.getPendingSaves() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertEquals(0, scheduler.getPendingSaves());
+    }
+}
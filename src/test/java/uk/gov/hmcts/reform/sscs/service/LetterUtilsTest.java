@@ -5,7 +5,6 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static uk.gov.hmcts.reform.sscs.config.AppConstants.REP_SALUTATION;
 import static uk.gov.hmcts.reform.sscs.config.SubscriptionType.APPELLANT;
@@ -16,16 +15,12 @@ import static uk.gov.hmcts.reform.sscs.config.SubscriptionType.REPRESENTATIVE;
 import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.*;
 import static uk.gov.hmcts.reform.sscs.model.PartyItemList.DWP;
 import static uk.gov.hmcts.reform.sscs.model.PartyItemList.HMCTS;
-import static uk.gov.hmcts.reform.sscs.service.LetterUtils.addBlankPageAtTheEndIfOddPage;
-import static uk.gov.hmcts.reform.sscs.service.LetterUtils.buildBundledLetter;
 import static uk.gov.hmcts.reform.sscs.service.LetterUtils.getAddressToUseForLetter;
 import static uk.gov.hmcts.reform.sscs.service.LetterUtils.getNameToUseForLetter;
 import static uk.gov.hmcts.reform.sscs.service.NotificationServiceTest.APPELLANT_WITH_ADDRESS;
 import static uk.gov.hmcts.reform.sscs.service.SendNotificationServiceTest.APPELLANT_WITH_ADDRESS_AND_APPOINTEE;
 import static uk.gov.hmcts.reform.sscs.service.SendNotificationServiceTest.REP_WITH_ADDRESS;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -34,9 +29,6 @@ import java.util.stream.Stream;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.pdfbox.io.IOUtils;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Before;
 import org.junit.Test;
@@ -47,7 +39,6 @@ import uk.gov.hmcts.reform.sscs.config.SubscriptionType;
 import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
 import uk.gov.hmcts.reform.sscs.domain.SubscriptionWithType;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
-import uk.gov.hmcts.reform.sscs.exception.NotificationClientRuntimeException;
 import uk.gov.hmcts.reform.sscs.factory.CcdNotificationWrapper;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
 
@@ -197,52 +188,6 @@ public class LetterUtilsTest {
         };
     }
 
-    @Test
-    public void successfulBundleLetter() throws IOException {
-        byte[] sampleDirectionText = IOUtils.toByteArray(getClass().getClassLoader().getResourceAsStream("pdfs/direction-text.pdf"));
-        byte[] sampleDirectionCoversheet = IOUtils.toByteArray(getClass().getClassLoader().getResourceAsStream("pdfs/direction-notice-coversheet-sample.pdf"));
-
-        assertNotNull(buildBundledLetter(sampleDirectionCoversheet, sampleDirectionText));
-    }
-
-    @Test(expected = NotificationClientRuntimeException.class)
-    public void shouldNotBundleLetterWhenCoverSheetIsNull() throws IOException {
-        byte[] sampleDirectionText = IOUtils.toByteArray(getClass().getClassLoader().getResourceAsStream("pdfs/direction-text.pdf"));
-
-        buildBundledLetter(null, sampleDirectionText);
-    }
-
-    @Test(expected = NotificationClientRuntimeException.class)
-    public void shouldNotBundleLetterWhenAttachmentIsNull() throws IOException {
-        byte[] sampleDirectionCoversheet = IOUtils.toByteArray(getClass().getClassLoader().getResourceAsStream("pdfs/direction-notice-coversheet-sample.pdf"));
-
-        buildBundledLetter(sampleDirectionCoversheet, null);
-    }
-
-    @Test
-    @Parameters({"1", "2", "3", "4"})
-    public void willAddABlankPageAtTheEndIfAnOddPageIsGiven(int pages) throws IOException {
-        PDDocument originalDocument = new PDDocument();
-
-        // Create a new blank page and add it to the originalDocument
-        PDPage blankPage = new PDPage();
-        for (int i = 1; i <= pages; i++) {
-            originalDocument.addPage(blankPage);
-        }
-        assertEquals(pages, originalDocument.getNumberOfPages());
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        originalDocument.save(baos);
-        originalDocument.close();
-        byte[] bytes = baos.toByteArray();
-        baos.close();
-
-        byte[] newBytes = addBlankPageAtTheEndIfOddPage(bytes);
-        PDDocument newDocument = PDDocument.load(newBytes);
-        int expectedPages = (pages % 2 == 0) ? pages : pages + 1;
-        assertEquals(expectedPages, newDocument.getNumberOfPages());
-    }
-
     @Test
     @Parameters({"APPELLANT", "JOINT_PARTY", "APPOINTEE", "REPRESENTATIVE"})
     public void isAlternativeLetterFormatRequired(SubscriptionType subscriptionType) {
@@ -2,10 +2,21 @@ package uk.gov.hmcts.reform.sscs.service;
 
 import static org.junit.Assert.assertEquals;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.hmcts.reform.sscs.config.AppConstants;
 
 @RunWith(MockitoJUnitRunner.class)
 public class MessageAuthenticationServiceImplTest {
@@ -24,4 +35,28 @@ public class MessageAuthenticationServiceImplTest {
 
         assertEquals("M3wwMDJ8M", startEncryptedToken);
     }
+
+    @Test
+    public void shouldSignEveryTokenCorrectlyWhenGeneratedOnManyThreads() throws Exception {
+        Mac mac = Mac.getInstance(AppConstants.MAC_ALGO);
+        mac.init(new SecretKeySpec("our-big-secret".getBytes(StandardCharsets.UTF_8), AppConstants.MAC_ALGO));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> tokens = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                String appealNumber = String.valueOf(i);
+                tokens.add(executor.submit(() -> service.generateToken(appealNumber, "002")));
+            }
+
+            for (Future<String> token : tokens) {
+                String decoded = new String(Base64.getDecoder().decode(token.get()), StandardCharsets.UTF_8);
+                String message = StringUtils.substringBeforeLast(decoded, "|");
+                String expected = Base64.getEncoder()
+                    .encodeToString(mac.doFinal(message.getBytes(StandardCharsets.UTF_8))).substring(0, 10);
+                assertEquals(expected, StringUtils.substringAfterLast(decoded, "|"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
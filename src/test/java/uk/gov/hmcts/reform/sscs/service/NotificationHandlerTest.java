@@ -9,6 +9,7 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.net.UnknownHostException;
 import java.time.ZonedDateTime;
 import org.junit.Before;
@@ -20,12 +21,14 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.slf4j.LoggerFactory;
 import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
 import uk.gov.hmcts.reform.sscs.exception.NotificationClientRuntimeException;
 import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
 import uk.gov.hmcts.reform.sscs.jobscheduler.model.Job;
 import uk.gov.hmcts.reform.sscs.jobscheduler.services.JobScheduler;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
 import uk.gov.hmcts.reform.sscs.service.reminder.JobGroupGenerator;
 import uk.gov.service.notify.NotificationClientException;
 
@@ -54,7 +57,8 @@ public class NotificationHandlerTest {
 
     @Before
     public void setUp() {
-        underTest = new NotificationHandler(outOfHoursCalculator, jobScheduler, jobGroupGenerator);
+        underTest = new NotificationHandler(outOfHoursCalculator, jobScheduler, jobGroupGenerator,
+            new PipelineMetrics(new SimpleMeterRegistry()));
 
         Logger logger = (Logger) LoggerFactory.getLogger(NotificationHandler.class.getName());
         logger.addAppender(mockAppender);
@@ -158,6 +162,40 @@ public class NotificationHandlerTest {
         assertThat(value.payload, is(expectedPayload));
     }
 
+    @Test
+    public void shouldScheduleARetryForASingleRecipient() {
+        final int retry = 2;
+        when(notificationWrapper.getSchedulerPayload()).thenReturn("payload");
+        final String caseId = "caseId";
+        when(notificationWrapper.getCaseId()).thenReturn(caseId);
+
+        final ZonedDateTime whenToScheduleJob = ZonedDateTime.now();
+        when(jobGroupGenerator.generate(caseId, A_NOTIFICATION_THAT_CANNOT_TRIGGER_OUT_OF_HOURS.getId())).thenReturn("group");
+
+        underTest.scheduleNotification(notificationWrapper, A_NOTIFICATION_THAT_CANNOT_TRIGGER_OUT_OF_HOURS, "OTHER_PARTY:2", null, retry, whenToScheduleJob);
+        final ArgumentCaptor<Job> argument = ArgumentCaptor.forClass(Job.class);
+        verify(jobScheduler).schedule(argument.capture());
+
+        final Job value = argument.getValue();
+        assertThat(value.name, is(A_NOTIFICATION_THAT_CANNOT_TRIGGER_OUT_OF_HOURS.getId()));
+        assertThat(value.payload, is("payload,2,OTHER_PARTY:2"));
+    }
+
+    @Test
+    public void shouldScheduleARetryForASingleChannelOfARecipient() {
+        when(notificationWrapper.getSchedulerPayload()).thenReturn("payload");
+        final String caseId = "caseId";
+        when(notificationWrapper.getCaseId()).thenReturn(caseId);
+        when(jobGroupGenerator.generate(caseId, A_NOTIFICATION_THAT_CANNOT_TRIGGER_OUT_OF_HOURS.getId())).thenReturn("group");
+
+        underTest.scheduleNotification(notificationWrapper, A_NOTIFICATION_THAT_CANNOT_TRIGGER_OUT_OF_HOURS, "OTHER_PARTY:2",
+            NotificationChannel.LETTER, 1, ZonedDateTime.now());
+        final ArgumentCaptor<Job> argument = ArgumentCaptor.forClass(Job.class);
+        verify(jobScheduler).schedule(argument.capture());
+
+        assertThat(argument.getValue().payload, is("payload,1,OTHER_PARTY:2,LETTER"));
+    }
+
     @Test(expected = NotificationClientRuntimeException.class)
     public void shouldThrowNotificationClientRuntimeExceptionForAnyNotificationException() throws Exception {
         doThrow(new NotificationClientException(new UnknownHostException()))
@@ -212,6 +250,15 @@ public class NotificationHandlerTest {
         verifyExpectedLogMessage(mockAppender, captorLoggingEvent, notificationWrapper.getNewSscsCaseData().getCcdCaseId(), "Could not send Email notification for case id:", Level.ERROR);
     }
 
+    @Test
+    public void shouldLogANotificationQueuedInTheOutboxAsQueuedRatherThanSent() throws Exception {
+        stubData();
+        when(sendNotification.send()).thenReturn(true);
+
+        underTest.sendNotification(notificationWrapper, "someTemplate", "Email", sendNotification);
+        verifyExpectedLogMessage(mockAppender, captorLoggingEvent, notificationWrapper.getNewSscsCaseData().getCcdCaseId(), "Email template someTemplate queued in the outbox for case id: 123", Level.INFO);
+    }
+
     private void stubData() {
         String caseId = "123";
         when(notificationWrapper.getCaseId()).thenReturn(caseId);
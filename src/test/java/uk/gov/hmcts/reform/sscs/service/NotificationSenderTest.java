@@ -2,12 +2,15 @@ package uk.gov.hmcts.reform.sscs.service;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -15,10 +18,15 @@ import static org.mockito.Mockito.when;
 import static uk.gov.hmcts.reform.sscs.service.NotificationSender.DATE_TIME_FORMATTER;
 import static uk.gov.hmcts.reform.sscs.service.NotificationSender.ZONE_ID_LONDON;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
@@ -36,8 +44,12 @@ import org.mockito.junit.MockitoRule;
 import org.springframework.test.util.ReflectionTestUtils;
 import uk.gov.hmcts.reform.sscs.ccd.domain.*;
 import uk.gov.hmcts.reform.sscs.config.NotificationTestRecipients;
+import uk.gov.hmcts.reform.sscs.config.NotifyRateLimitConfigProperties;
 import uk.gov.hmcts.reform.sscs.config.SubscriptionType;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+import uk.gov.hmcts.reform.sscs.service.outbox.NotificationOutbox;
+import uk.gov.hmcts.reform.sscs.service.outbox.OutboxChannel;
+import uk.gov.hmcts.reform.sscs.service.outbox.OutboxMessage;
 import uk.gov.service.notify.*;
 
 @RunWith(JUnitParamsRunner.class)
@@ -47,6 +59,7 @@ public class NotificationSenderTest {
     public static final String CCD_CASE_ID = "78980909090099";
     public static final SscsCaseData SSCS_CASE_DATA = SscsCaseData.builder().build();
     public static final String SMS_SENDER = "sms-sender";
+    public static final String RECIPIENT = "APPELLANT";
     private NotificationSender notificationSender;
     private String templateId;
     private Map<String, Object> personalisation;
@@ -82,6 +95,8 @@ public class NotificationSenderTest {
     @Captor
     private ArgumentCaptor<Correspondence> correspondenceArgumentCaptor;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @Before
     public void setUp() {
         templateId = "templateId";
@@ -89,7 +104,9 @@ public class NotificationSenderTest {
         reference = "reference";
 
         final Boolean saveCorrespondence = false;
-        notificationSender = new NotificationSender(notificationClient, testNotificationClient, blacklist, markdownTransformationService, saveCorrespondenceAsyncService, saveCorrespondence);
+        meterRegistry = new SimpleMeterRegistry();
+        notificationSender = new NotificationSender(notificationClient, testNotificationClient, blacklist, markdownTransformationService, saveCorrespondenceAsyncService,
+            new NotifyRateLimiter(new NotifyRateLimitConfigProperties(), meterRegistry), meterRegistry, Optional.empty(), saveCorrespondence);
     }
 
     @Test
@@ -99,7 +116,7 @@ public class NotificationSenderTest {
                 .thenReturn(sendEmailResponse);
         when(sendEmailResponse.getNotificationId()).thenReturn(UUID.randomUUID());
 
-        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA);
+        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
 
         verifyNoInteractions(notificationClient);
         verify(testNotificationClient).sendEmail(templateId, emailAddress, personalisation, reference);
@@ -112,12 +129,43 @@ public class NotificationSenderTest {
                 .thenReturn(sendEmailResponse);
         when(sendEmailResponse.getNotificationId()).thenReturn(UUID.randomUUID());
 
-        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA);
+        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
 
         verifyNoInteractions(testNotificationClient);
         verify(notificationClient).sendEmail(templateId, emailAddress, personalisation, reference);
     }
 
+    @Test
+    public void recordsNotifyRequestLatencyPerOperationAndKey() throws NotificationClientException {
+        String emailAddress = "random@example.com";
+        when(notificationClient.sendEmail(templateId, emailAddress, personalisation, reference))
+                .thenReturn(sendEmailResponse);
+        when(sendEmailResponse.getNotificationId()).thenReturn(UUID.randomUUID());
+
+        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
+        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
+
+        assertEquals(1, meterRegistry.get("notifications.notify.request").timers().size());
+        assertEquals(2, meterRegistry.get("notifications.notify.request")
+                .tag("operation", "email").tag("key", "live").timer().count());
+    }
+
+    @Test
+    public void exposesNotifyConnectionsInUse() throws NotificationClientException {
+        String emailAddress = "random@example.com";
+        double[] inUseDuringRequest = new double[1];
+        when(notificationClient.sendEmail(templateId, emailAddress, personalisation, reference)).thenAnswer(invocation -> {
+            inUseDuringRequest[0] = meterRegistry.get("notifications.notify.connections.in_use").tag("key", "live").gauge().value();
+            return sendEmailResponse;
+        });
+        when(sendEmailResponse.getNotificationId()).thenReturn(UUID.randomUUID());
+
+        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
+
+        assertEquals(1, inUseDuringRequest[0], 0);
+        assertEquals(0, meterRegistry.get("notifications.notify.connections.in_use").tag("key", "live").gauge().value(), 0);
+    }
+
     @Test
     public void sendEmailToTestSenderIfOnBlacklist() throws NotificationClientException {
         String emailAddress = "random@example.com";
@@ -126,7 +174,7 @@ public class NotificationSenderTest {
                 .thenReturn(sendEmailResponse);
         when(sendEmailResponse.getNotificationId()).thenReturn(UUID.randomUUID());
 
-        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA);
+        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
 
         verifyNoInteractions(notificationClient);
         verify(testNotificationClient).sendEmail(templateId, emailAddress, personalisation, reference);
@@ -139,7 +187,7 @@ public class NotificationSenderTest {
                 .thenReturn(sendSmsResponse);
         when(sendSmsResponse.getNotificationId()).thenReturn(UUID.randomUUID());
 
-        notificationSender.sendSms(templateId, phoneNumber, personalisation, reference, SMS_SENDER, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA);
+        notificationSender.sendSms(templateId, phoneNumber, personalisation, reference, SMS_SENDER, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
 
         verifyNoInteractions(testNotificationClient);
         verify(notificationClient).sendSms(templateId, phoneNumber, personalisation, reference, SMS_SENDER);
@@ -153,7 +201,7 @@ public class NotificationSenderTest {
                 .thenReturn(sendSmsResponse);
         when(sendSmsResponse.getNotificationId()).thenReturn(UUID.randomUUID());
 
-        notificationSender.sendSms(templateId, phoneNumber, personalisation, reference, SMS_SENDER, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA);
+        notificationSender.sendSms(templateId, phoneNumber, personalisation, reference, SMS_SENDER, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
 
         verifyNoInteractions(notificationClient);
         verify(testNotificationClient).sendSms(templateId, phoneNumber, personalisation, reference, SMS_SENDER);
@@ -173,6 +221,26 @@ public class NotificationSenderTest {
         verify(notificationClient).sendPrecompiledLetterWithInputStream(any(), any());
     }
 
+    @Test
+    public void sendBundledLetterFromFile() throws IOException, NotificationClientException {
+        byte[] sampleDirectionCoversheet = IOUtils.toByteArray(getClass().getClassLoader().getResourceAsStream("pdfs/direction-notice-coversheet-sample.pdf"));
+        Path bundledLetter = Files.createTempFile("bundled-letter-", ".pdf");
+        Files.write(bundledLetter, sampleDirectionCoversheet);
+        when(notificationClient.sendPrecompiledLetterWithInputStream(eq(CCD_CASE_ID), any())).thenAnswer(invocation -> {
+            assertArrayEquals(sampleDirectionCoversheet, IOUtils.toByteArray(invocation.getArgument(1, InputStream.class)));
+            return letterResponse;
+        });
+        when(letterResponse.getNotificationId()).thenReturn(UUID.randomUUID());
+
+        try {
+            notificationSender.sendBundledLetter("LN8 4DX", bundledLetter, NotificationEventType.APPEAL_RECEIVED, "Bob Squires", CCD_CASE_ID);
+        } finally {
+            Files.delete(bundledLetter);
+        }
+
+        verify(notificationClient).sendPrecompiledLetterWithInputStream(eq(CCD_CASE_ID), any());
+    }
+
     @Test
     public void sendBundledLetterToSenderIfOnBlacklist() throws IOException, NotificationClientException {
         String postcode = "TS1 1ST";
@@ -227,7 +295,7 @@ public class NotificationSenderTest {
                 .thenReturn(sendEmailResponse);
         when(sendEmailResponse.getNotificationId()).thenReturn(UUID.randomUUID());
 
-        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA);
+        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
 
         verifyNoInteractions(testNotificationClient);
         verify(notificationClient).sendEmail(templateId, emailAddress, personalisation, reference);
@@ -253,7 +321,7 @@ public class NotificationSenderTest {
                 .thenReturn(null);
         when(sendEmailResponse.getNotificationId()).thenReturn(UUID.randomUUID());
 
-        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA);
+        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
 
         verifyNoInteractions(testNotificationClient);
         verify(notificationClient).sendEmail(templateId, emailAddress, personalisation, reference);
@@ -270,7 +338,7 @@ public class NotificationSenderTest {
         when(notificationClient.sendSms(templateId, smsNumber, personalisation, reference, "Sender"))
                 .thenReturn(sendSmsResponse);
 
-        notificationSender.sendSms(templateId, smsNumber, personalisation, reference, "Sender", NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA);
+        notificationSender.sendSms(templateId, smsNumber, personalisation, reference, "Sender", NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
 
         verifyNoInteractions(testNotificationClient);
         verify(notificationClient).sendSms(templateId, smsNumber, personalisation, reference, "Sender");
@@ -296,7 +364,7 @@ public class NotificationSenderTest {
         when(notificationClient.sendSms(templateId, smsNumber, personalisation, reference, "Sender"))
                 .thenReturn(null);
 
-        notificationSender.sendSms(templateId, smsNumber, personalisation, reference, "Sender", NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA);
+        notificationSender.sendSms(templateId, smsNumber, personalisation, reference, "Sender", NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
 
         verifyNoInteractions(testNotificationClient);
         verify(notificationClient).sendSms(templateId, smsNumber, personalisation, reference, "Sender");
@@ -311,7 +379,7 @@ public class NotificationSenderTest {
         Exception exception = (error.equals("null")) ? new NullPointerException(error) : new NotificationClientException(error);
         doThrow(exception).when(testNotificationClient).sendEmail(templateId, emailAddress, personalisation, reference);
 
-        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA);
+        notificationSender.sendEmail(templateId, emailAddress, personalisation, reference, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
     }
 
     @Test(expected = NotificationClientException.class)
@@ -321,7 +389,7 @@ public class NotificationSenderTest {
         Exception exception = (error.equals("null")) ? new NullPointerException(error) : new NotificationClientException(error);
         doThrow(exception).when(notificationClient).sendSms(templateId, smsNumber, personalisation, reference, "Sender");
 
-        notificationSender.sendSms(templateId, smsNumber, personalisation, reference, "Sender", NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA);
+        notificationSender.sendSms(templateId, smsNumber, personalisation, reference, "Sender", NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
     }
 
     @Test(expected = NotificationClientException.class)
@@ -366,6 +434,40 @@ public class NotificationSenderTest {
         verifyNoInteractions(saveCorrespondenceAsyncService);
     }
 
+    @Test
+    public void sendEmailIsAddedToTheOutboxInsteadOfSent() throws NotificationClientException {
+        NotificationOutbox notificationOutbox = mock(NotificationOutbox.class);
+        when(notificationOutbox.enqueue(any(OutboxMessage.class))).thenReturn(true);
+        notificationSender = new NotificationSender(notificationClient, testNotificationClient, blacklist, markdownTransformationService, saveCorrespondenceAsyncService,
+            new NotifyRateLimiter(new NotifyRateLimitConfigProperties(), meterRegistry), meterRegistry, Optional.of(notificationOutbox), false);
+
+        assertTrue(notificationSender.sendEmail(templateId, "random@example.com", personalisation, reference, NotificationEventType.APPEAL_RECEIVED,
+            SscsCaseData.builder().ccdCaseId(CCD_CASE_ID).build(), RECIPIENT));
+
+        ArgumentCaptor<OutboxMessage> message = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(notificationOutbox).enqueue(message.capture());
+        assertEquals(CCD_CASE_ID, message.getValue().getCaseId());
+        assertEquals(OutboxChannel.EMAIL, message.getValue().getChannel());
+        assertEquals(RECIPIENT, message.getValue().getRecipient());
+        assertEquals("random@example.com", message.getValue().getDestination());
+        verifyNoInteractions(notificationClient);
+    }
+
+    @Test
+    public void sendSmsIsSentDirectlyWhenItCannotBeAddedToTheOutbox() throws NotificationClientException {
+        NotificationOutbox notificationOutbox = mock(NotificationOutbox.class);
+        when(notificationOutbox.enqueue(any(OutboxMessage.class))).thenReturn(false);
+        notificationSender = new NotificationSender(notificationClient, testNotificationClient, blacklist, markdownTransformationService, saveCorrespondenceAsyncService,
+            new NotifyRateLimiter(new NotifyRateLimitConfigProperties(), meterRegistry), meterRegistry, Optional.of(notificationOutbox), false);
+        String smsNumber = "07999999999";
+        when(notificationClient.sendSms(templateId, smsNumber, personalisation, reference, SMS_SENDER))
+            .thenReturn(sendSmsResponse);
+
+        notificationSender.sendSms(templateId, smsNumber, personalisation, reference, SMS_SENDER, NotificationEventType.APPEAL_RECEIVED, SSCS_CASE_DATA, RECIPIENT);
+
+        verify(notificationClient).sendSms(templateId, smsNumber, personalisation, reference, SMS_SENDER);
+    }
+
     @Test
     public void recoverWillConsumeThrowable() {
         notificationSender.getBackendResponseFallback(new NotificationClientException("400 BadRequestError"));
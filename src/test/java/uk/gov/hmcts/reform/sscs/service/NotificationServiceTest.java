@@ -2,11 +2,13 @@ package uk.gov.hmcts.reform.sscs.service;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.BDDMockito.given;
@@ -15,7 +17,9 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -54,11 +58,15 @@ import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.SYA_A
 import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.UPDATE_OTHER_PARTY_DATA;
 import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.VALID_APPEAL_CREATED;
 import static uk.gov.hmcts.reform.sscs.service.NotificationUtils.getSubscription;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.eventScopedDocumentCache;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.mainMemoryOnly;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.sequentialFanOut;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -88,9 +96,13 @@ import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
 import uk.gov.hmcts.reform.sscs.domain.SubscriptionWithType;
 import uk.gov.hmcts.reform.sscs.domain.notify.Destination;
 import uk.gov.hmcts.reform.sscs.domain.notify.Notification;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
 import uk.gov.hmcts.reform.sscs.domain.notify.Reference;
 import uk.gov.hmcts.reform.sscs.domain.notify.Template;
+import uk.gov.hmcts.reform.sscs.exception.ChannelNotificationException;
+import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
+import uk.gov.hmcts.reform.sscs.exception.RecipientNotificationException;
 import uk.gov.hmcts.reform.sscs.factory.CcdNotificationWrapper;
 import uk.gov.hmcts.reform.sscs.factory.NotificationFactory;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
@@ -98,6 +110,7 @@ import uk.gov.hmcts.reform.sscs.idam.IdamService;
 import uk.gov.hmcts.reform.sscs.idam.IdamTokens;
 import uk.gov.hmcts.reform.sscs.reference.data.model.HearingChannel;
 import uk.gov.hmcts.reform.sscs.service.docmosis.PdfLetterService;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
 
 @RunWith(JUnitParamsRunner.class)
 public class NotificationServiceTest {
@@ -128,6 +141,8 @@ public class NotificationServiceTest {
 
     private NotificationService notificationService;
 
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics(new SimpleMeterRegistry());
+
     @Mock
     private NotificationSender notificationSender;
 
@@ -1065,7 +1080,7 @@ public class NotificationServiceTest {
         when(factory.create(ccdNotificationWrapper, getSubscriptionWithType(ccdNotificationWrapper))).thenReturn(notification);
         notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false);
 
-        verify(notificationSender, never()).sendEmail(notification.getEmailTemplate(), notification.getEmail(), notification.getPlaceholders(), notification.getReference(), sscsCaseDataWrapper.getNotificationEventType(), ccdNotificationWrapper.getNewSscsCaseData());
+        verify(notificationSender, never()).sendEmail(eq(notification.getEmailTemplate()), eq(notification.getEmail()), eq(notification.getPlaceholders()), eq(notification.getReference()), eq(sscsCaseDataWrapper.getNotificationEventType()), eq(ccdNotificationWrapper.getNewSscsCaseData()), any());
 
         verifyNoErrorsLogged(mockAppender, captorLoggingEvent);
     }
@@ -1076,7 +1091,7 @@ public class NotificationServiceTest {
         when(factory.create(ccdNotificationWrapper, getSubscriptionWithType(ccdNotificationWrapper))).thenReturn(notification);
         notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false);
 
-        verify(notificationSender, never()).sendSms(notification.getSmsTemplate().get(0), notification.getMobile(), notification.getPlaceholders(), notification.getReference(), notification.getSmsSenderTemplate(), sscsCaseDataWrapper.getNotificationEventType(), ccdNotificationWrapper.getNewSscsCaseData());
+        verify(notificationSender, never()).sendSms(eq(notification.getSmsTemplate().get(0)), eq(notification.getMobile()), eq(notification.getPlaceholders()), eq(notification.getReference()), eq(notification.getSmsSenderTemplate()), eq(sscsCaseDataWrapper.getNotificationEventType()), eq(ccdNotificationWrapper.getNewSscsCaseData()), any());
 
         verifyNoErrorsLogged(mockAppender, captorLoggingEvent);
     }
@@ -1087,7 +1102,7 @@ public class NotificationServiceTest {
         when(factory.create(ccdNotificationWrapper, getSubscriptionWithType(ccdNotificationWrapper))).thenReturn(notification);
         notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false);
 
-        verify(notificationSender, never()).sendEmail(notification.getEmailTemplate(), notification.getEmail(), notification.getPlaceholders(), notification.getReference(), sscsCaseDataWrapper.getNotificationEventType(), ccdNotificationWrapper.getNewSscsCaseData());
+        verify(notificationSender, never()).sendEmail(eq(notification.getEmailTemplate()), eq(notification.getEmail()), eq(notification.getPlaceholders()), eq(notification.getReference()), eq(sscsCaseDataWrapper.getNotificationEventType()), eq(ccdNotificationWrapper.getNewSscsCaseData()), any());
         verifyNoErrorsLogged(mockAppender, captorLoggingEvent);
     }
 
@@ -1098,7 +1113,7 @@ public class NotificationServiceTest {
         when(factory.create(ccdNotificationWrapper, getSubscriptionWithType(ccdNotificationWrapper))).thenReturn(notification);
         notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false);
 
-        verify(notificationSender, never()).sendSms(anyString(), eq(notification.getMobile()), eq(notification.getPlaceholders()), eq(notification.getReference()), eq(notification.getSmsSenderTemplate()), eq(sscsCaseDataWrapper.getNotificationEventType()), eq(ccdNotificationWrapper.getNewSscsCaseData()));
+        verify(notificationSender, never()).sendSms(anyString(), eq(notification.getMobile()), eq(notification.getPlaceholders()), eq(notification.getReference()), eq(notification.getSmsSenderTemplate()), eq(sscsCaseDataWrapper.getNotificationEventType()), eq(ccdNotificationWrapper.getNewSscsCaseData()), any());
 
         verifyNoErrorsLogged(mockAppender, captorLoggingEvent);
     }
@@ -1118,8 +1133,8 @@ public class NotificationServiceTest {
 
         notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false);
 
-        verify(notificationSender, never()).sendSms(anyString(), eq(notification.getMobile()), eq(notification.getPlaceholders()), eq(notification.getReference()), eq(notification.getSmsSenderTemplate()), eq(sscsCaseDataWrapper.getNotificationEventType()), eq(ccdNotificationWrapper.getNewSscsCaseData()));
-        verify(notificationSender, never()).sendEmail(notification.getEmailTemplate(), notification.getEmail(), notification.getPlaceholders(), notification.getReference(), sscsCaseDataWrapper.getNotificationEventType(), ccdNotificationWrapper.getNewSscsCaseData());
+        verify(notificationSender, never()).sendSms(anyString(), eq(notification.getMobile()), eq(notification.getPlaceholders()), eq(notification.getReference()), eq(notification.getSmsSenderTemplate()), eq(sscsCaseDataWrapper.getNotificationEventType()), eq(ccdNotificationWrapper.getNewSscsCaseData()), any());
+        verify(notificationSender, never()).sendEmail(eq(notification.getEmailTemplate()), eq(notification.getEmail()), eq(notification.getPlaceholders()), eq(notification.getReference()), eq(sscsCaseDataWrapper.getNotificationEventType()), eq(ccdNotificationWrapper.getNewSscsCaseData()), any());
 
         verifyNoErrorsLogged(mockAppender, captorLoggingEvent);
     }
@@ -1148,7 +1163,7 @@ public class NotificationServiceTest {
 
         notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false);
 
-        verify(notificationSender, never()).sendEmail(notification.getEmailTemplate(), notification.getEmail(), notification.getPlaceholders(), notification.getReference(), sscsCaseDataWrapper.getNotificationEventType(), ccdNotificationWrapper.getNewSscsCaseData());
+        verify(notificationSender, never()).sendEmail(eq(notification.getEmailTemplate()), eq(notification.getEmail()), eq(notification.getPlaceholders()), eq(notification.getReference()), eq(sscsCaseDataWrapper.getNotificationEventType()), eq(ccdNotificationWrapper.getNewSscsCaseData()), any());
 
         verifyNoErrorsLogged(mockAppender, captorLoggingEvent);
     }
@@ -1161,7 +1176,7 @@ public class NotificationServiceTest {
 
         notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false);
 
-        verify(notificationSender, never()).sendEmail(notification.getEmailTemplate(), notification.getEmail(), notification.getPlaceholders(), notification.getReference(), sscsCaseDataWrapper.getNotificationEventType(), ccdNotificationWrapper.getNewSscsCaseData());
+        verify(notificationSender, never()).sendEmail(eq(notification.getEmailTemplate()), eq(notification.getEmail()), eq(notification.getPlaceholders()), eq(notification.getReference()), eq(sscsCaseDataWrapper.getNotificationEventType()), eq(ccdNotificationWrapper.getNewSscsCaseData()), any());
 
         verifyNoErrorsLogged(mockAppender, captorLoggingEvent);
     }
@@ -1369,10 +1384,11 @@ public class NotificationServiceTest {
         CcdNotificationWrapper ccdNotificationWrapper = buildBaseWrapper(HEARING_BOOKED, APPELLANT_WITH_ADDRESS, null, null);
         ccdNotificationWrapper.getNewSscsCaseData().setDwpState(DwpState.FINAL_DECISION_ISSUED);
 
-        SendNotificationService sendNotificationService = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService, pdfStoreService);
+        SendNotificationService sendNotificationService = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService,
+            eventScopedDocumentCache(pdfStoreService), mainMemoryOnly(), pipelineMetrics, sequentialFanOut(), sequentialFanOut());
 
         final NotificationService notificationService = new NotificationService(factory, reminderService,
-                notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, false
+                notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, pipelineMetrics, sequentialFanOut(), false
         );
 
         notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false);
@@ -1535,10 +1551,11 @@ public class NotificationServiceTest {
         given(notificationValidService.isNotificationStillValidToSend(anyList(), eq(notificationEventType)))
                 .willReturn(true);
 
-        SendNotificationService sendNotificationService = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService, pdfStoreService);
+        SendNotificationService sendNotificationService = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService,
+            eventScopedDocumentCache(pdfStoreService), mainMemoryOnly(), pipelineMetrics, sequentialFanOut(), sequentialFanOut());
 
         final NotificationService notificationService = new NotificationService(factory, reminderService,
-                notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, true
+                notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, pipelineMetrics, sequentialFanOut(), true
         );
 
         notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false);
@@ -1650,10 +1667,11 @@ public class NotificationServiceTest {
     }
 
     private void sendWrapperAndVerifyNoMoreInteractions(CcdNotificationWrapper ccdNotificationWrapper) {
-        SendNotificationService sendNotificationService = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService, pdfStoreService);
+        SendNotificationService sendNotificationService = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService,
+            eventScopedDocumentCache(pdfStoreService), mainMemoryOnly(), pipelineMetrics, sequentialFanOut(), sequentialFanOut());
 
         final NotificationService notificationService = new NotificationService(factory, reminderService,
-                notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, false
+                notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, pipelineMetrics, sequentialFanOut(), false
         );
 
         notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false);
@@ -2028,6 +2046,96 @@ public class NotificationServiceTest {
                 any(NotificationHandler.SendNotification.class));
     }
 
+    @Test
+    public void givenOneRecipientFails_thenTheOtherRecipientsAreStillNotifiedAndOnlyTheFailedOneIsReported() {
+        final CcdNotificationWrapper ccdNotificationWrapper = buildBaseWrapperOtherParty(UPDATE_OTHER_PARTY_DATA, APPELLANT_WITH_ADDRESS, SscsDocument.builder().value(SscsDocumentDetails.builder().build()).build());
+        List<String> attemptedRecipients = new ArrayList<>();
+        NotificationService notificationService = getNotificationServiceRecordingRecipients(attemptedRecipients, 1);
+
+        RecipientNotificationException exception = catchThrowableOfType(
+            () -> notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false), RecipientNotificationException.class);
+
+        assertEquals(2, attemptedRecipients.size());
+        assertEquals(1, exception.getFailedRecipients().size());
+        assertEquals(attemptedRecipients.get(0), exception.getFailedRecipients().get(0).getRecipient());
+        assertEquals(UPDATE_OTHER_PARTY_DATA, exception.getFailedRecipients().get(0).getNotificationType());
+        verify(reminderService).createReminders(ccdNotificationWrapper);
+    }
+
+    @Test
+    public void givenARetryForOneRecipient_thenOnlyThatRecipientIsNotified() {
+        final CcdNotificationWrapper ccdNotificationWrapper = buildBaseWrapperOtherParty(UPDATE_OTHER_PARTY_DATA, APPELLANT_WITH_ADDRESS, SscsDocument.builder().value(SscsDocumentDetails.builder().build()).build());
+        String retryRecipient = ccdNotificationWrapper.getSubscriptionsBasedOnNotificationType().get(1).recipientKey();
+        ccdNotificationWrapper.setRetryRecipient(retryRecipient);
+        List<String> attemptedRecipients = new ArrayList<>();
+        NotificationService notificationService = getNotificationServiceRecordingRecipients(attemptedRecipients, 0);
+
+        notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, true);
+
+        assertEquals(List.of(retryRecipient), attemptedRecipients);
+        verifyNoInteractions(reminderService);
+    }
+
+    @Test
+    public void givenOneRecipientFailsUnexpectedly_thenTheOtherRecipientsFailuresAreStillReported() {
+        final CcdNotificationWrapper ccdNotificationWrapper = buildBaseWrapperOtherParty(UPDATE_OTHER_PARTY_DATA, APPELLANT_WITH_ADDRESS, SscsDocument.builder().value(SscsDocumentDetails.builder().build()).build());
+        List<String> attemptedRecipients = new ArrayList<>();
+        IllegalStateException unexpected = new IllegalStateException("unexpected");
+        NotificationService notificationService = getNotificationServiceRecordingRecipients(attemptedRecipients,
+            Map.of(1, unexpected, 2, new NotificationServiceException(CASE_ID, new RuntimeException("error"))));
+
+        RecipientNotificationException exception = catchThrowableOfType(
+            () -> notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false), RecipientNotificationException.class);
+
+        assertEquals(2, exception.getFailedRecipients().size());
+        assertEquals(attemptedRecipients.get(0), exception.getFailedRecipients().get(0).getRecipient());
+        assertSame(unexpected, exception.getFailedRecipients().get(0).getException().getCause());
+        assertEquals(attemptedRecipients.get(1), exception.getFailedRecipients().get(1).getRecipient());
+    }
+
+    @Test
+    public void givenOneChannelOfARecipientFails_thenOnlyThatChannelIsReported() {
+        final CcdNotificationWrapper ccdNotificationWrapper = buildBaseWrapperOtherParty(UPDATE_OTHER_PARTY_DATA, APPELLANT_WITH_ADDRESS, SscsDocument.builder().value(SscsDocumentDetails.builder().build()).build());
+        List<String> attemptedRecipients = new ArrayList<>();
+        NotificationServiceException smsFailure = new NotificationServiceException(CASE_ID, new RuntimeException("error"));
+        NotificationService notificationService = getNotificationServiceRecordingRecipients(attemptedRecipients,
+            Map.of(1, new ChannelNotificationException(CASE_ID, Map.of(NotificationChannel.SMS, smsFailure))));
+
+        RecipientNotificationException exception = catchThrowableOfType(
+            () -> notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false), RecipientNotificationException.class);
+
+        assertEquals(1, exception.getFailedRecipients().size());
+        assertEquals(attemptedRecipients.get(0), exception.getFailedRecipients().get(0).getRecipient());
+        assertEquals(NotificationChannel.SMS, exception.getFailedRecipients().get(0).getChannel());
+        assertSame(smsFailure, exception.getFailedRecipients().get(0).getException());
+    }
+
+    private NotificationService getNotificationServiceRecordingRecipients(List<String> attemptedRecipients, int failingAttempt) {
+        return getNotificationServiceRecordingRecipients(attemptedRecipients,
+            Map.of(failingAttempt, new NotificationServiceException(CASE_ID, new RuntimeException("error"))));
+    }
+
+    private NotificationService getNotificationServiceRecordingRecipients(List<String> attemptedRecipients,
+                                                                          Map<Integer, RuntimeException> failures) {
+        given(factory.create(any(NotificationWrapper.class), any(SubscriptionWithType.class))).willReturn(
+            new Notification(Template.builder().docmosisTemplateId(LETTER_TEMPLATE_ID).build(), Destination.builder().build(), new HashMap<>(), new Reference(), null));
+        given(notificationValidService.isHearingTypeValidToSendNotification(any(SscsCaseData.class), any())).willReturn(true);
+        given(notificationValidService.isNotificationStillValidToSend(anyList(), any())).willReturn(true);
+
+        SendNotificationService sendNotificationService = mock(SendNotificationService.class);
+        doAnswer(invocation -> {
+            attemptedRecipients.add(invocation.<SubscriptionWithType>getArgument(2).recipientKey());
+            RuntimeException failure = failures.get(attemptedRecipients.size());
+            if (failure != null) {
+                throw failure;
+            }
+            return true;
+        }).when(sendNotificationService).sendEmailSmsLetterNotification(any(), any(), any(), any());
+
+        return new NotificationService(factory, reminderService, notificationValidService, notificationHandler, outOfHoursCalculator,
+            notificationConfig, sendNotificationService, pipelineMetrics, sequentialFanOut(), false);
+    }
+
     @Test
     public void givenDwpUploadResponseReceivedAndNewOtherPartyHasBeenAdded_thenOverrideNotificationTypeAndSendToLetterToOtherParty() throws IOException {
 
@@ -2109,10 +2217,11 @@ public class NotificationServiceTest {
         CcdNotificationWrapper ccdNotificationWrapper = buildBaseWrapper(POSTPONEMENT, APPELLANT_WITH_ADDRESS, null, null);
         ccdNotificationWrapper.getNewSscsCaseData().getSchedulingAndListingFields().setHearingRoute(HearingRoute.GAPS);
 
-        SendNotificationService sendNotificationService = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService, pdfStoreService);
+        SendNotificationService sendNotificationService = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService,
+            eventScopedDocumentCache(pdfStoreService), mainMemoryOnly(), pipelineMetrics, sequentialFanOut(), sequentialFanOut());
 
         final NotificationService notificationService = new NotificationService(factory, reminderService,
-                notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, false
+                notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, pipelineMetrics, sequentialFanOut(), false
         );
 
         notificationService.manageNotificationAndSubscription(ccdNotificationWrapper, false);
@@ -2140,10 +2249,11 @@ public class NotificationServiceTest {
     }
 
     private NotificationService getNotificationService() {
-        SendNotificationService sendNotificationService = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService, pdfStoreService);
+        SendNotificationService sendNotificationService = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService,
+            eventScopedDocumentCache(pdfStoreService), mainMemoryOnly(), pipelineMetrics, sequentialFanOut(), sequentialFanOut());
 
         final NotificationService notificationService = new NotificationService(factory, reminderService,
-                notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, false
+                notificationValidService, notificationHandler, outOfHoursCalculator, notificationConfig, sendNotificationService, pipelineMetrics, sequentialFanOut(), false
         );
         return notificationService;
     }
@@ -0,0 +1,68 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeoutException;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.hmcts.reform.sscs.config.NotifyRateLimitConfigProperties;
+import uk.gov.hmcts.reform.sscs.service.NotifyRateLimiter.Channel;
+import uk.gov.service.notify.NotificationClientException;
+
+public class NotifyRateLimiterTest {
+
+    private NotifyRateLimitConfigProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private NotifyRateLimiter notifyRateLimiter;
+
+    @Before
+    public void setup() {
+        properties = new NotifyRateLimitConfigProperties();
+        properties.setMessagesPerSecond(0.001);
+        properties.setLettersPerSecond(0.001);
+        properties.setMaxWaitMs(10);
+        meterRegistry = new SimpleMeterRegistry();
+        notifyRateLimiter = new NotifyRateLimiter(properties, meterRegistry);
+    }
+
+    @Test
+    public void rejectsSendWhenNoTokenWithinMaxWait() throws NotificationClientException {
+        notifyRateLimiter.acquire("live", Channel.MESSAGE);
+
+        try {
+            notifyRateLimiter.acquire("live", Channel.MESSAGE);
+            fail("Expected the second message to be rate limited");
+        } catch (NotificationClientException e) {
+            assertEquals(TimeoutException.class, e.getCause().getClass());
+        }
+        assertEquals(1.0, meterRegistry.get("notifications.notify.ratelimit.rejected")
+            .tag("key", "live").tag("channel", "MESSAGE").counter().count(), 0);
+        assertEquals(2, meterRegistry.get("notifications.notify.ratelimit.wait")
+            .tag("key", "live").tag("channel", "MESSAGE").timer().count());
+    }
+
+    @Test
+    public void keepsSeparateBucketsPerKeyAndChannel() throws NotificationClientException {
+        notifyRateLimiter.acquire("live", Channel.MESSAGE);
+
+        notifyRateLimiter.acquire("live", Channel.LETTER);
+        notifyRateLimiter.acquire("test", Channel.MESSAGE);
+
+        assertEquals(0.0, meterRegistry.get("notifications.notify.ratelimit.rejected")
+            .tag("key", "test").tag("channel", "MESSAGE").counter().count(), 0);
+    }
+
+    @Test
+    public void doesNotLimitWhenRateIsNotSet() throws NotificationClientException {
+        notifyRateLimiter = new NotifyRateLimiter(new NotifyRateLimitConfigProperties(), meterRegistry);
+
+        for (int i = 0; i < 100; i++) {
+            notifyRateLimiter.acquire("live", Channel.MESSAGE);
+        }
+
+        assertEquals(0, meterRegistry.get("notifications.notify.ratelimit.wait")
+            .tag("key", "live").tag("channel", "MESSAGE").timer().count());
+    }
+}
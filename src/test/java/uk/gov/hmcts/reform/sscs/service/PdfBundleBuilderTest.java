@@ -0,0 +1,97 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.mainMemoryOnly;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.hmcts.reform.sscs.exception.NotificationClientRuntimeException;
+
+public class PdfBundleBuilderTest {
+
+    private byte[] directionText;
+    private byte[] coversheet;
+
+    @Before
+    public void setup() throws IOException {
+        directionText = IOUtils.toByteArray(getClass().getClassLoader().getResourceAsStream("pdfs/direction-text.pdf"));
+        coversheet = IOUtils.toByteArray(getClass().getClassLoader().getResourceAsStream("pdfs/direction-notice-coversheet-sample.pdf"));
+    }
+
+    @Test
+    public void bundlesEveryPageOfEachDocumentPaddingAllButTheLastToAnEvenNumber() throws IOException {
+        byte[] bundle = new PdfBundleBuilder(pdfWithPages(3), mainMemoryOnly()).append(directionText).append(coversheet).build();
+
+        assertEquals(evenPages(3) + evenPages(pageCount(directionText)) + pageCount(coversheet), pageCount(bundle));
+    }
+
+    @Test
+    public void startsEachAppendedDocumentOnANewSheet() throws IOException {
+        byte[] bundle = new PdfBundleBuilder(pdfWithPages(1), mainMemoryOnly()).append(pdfWithPages(3)).append(pdfWithPages(1)).build();
+
+        assertEquals(2 + 4 + 1, pageCount(bundle));
+    }
+
+    @Test
+    public void bundlesTheSamePagesWhenPartsAreKeptInScratchFiles() throws IOException {
+        PdfMemoryPolicy scratchFiles = new PdfMemoryPolicy(0, -1);
+
+        byte[] bundle = new PdfBundleBuilder(pdfWithPages(1), scratchFiles).append(directionText).append(coversheet).build();
+
+        assertEquals(pageCount(new PdfBundleBuilder(pdfWithPages(1), mainMemoryOnly()).append(directionText).append(coversheet).build()),
+            pageCount(bundle));
+    }
+
+    @Test
+    public void writesTheBundleToATempFile() throws IOException {
+        PdfBundleBuilder builder = new PdfBundleBuilder(pdfWithPages(1), mainMemoryOnly()).append(pdfWithPages(1));
+
+        Path file = builder.writeToTempFile();
+        try {
+            assertEquals(3, pageCount(Files.readAllBytes(file)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void leavesALetterWithNothingAppendedUntouched() throws IOException {
+        byte[] letter = pdfWithPages(1);
+
+        assertArrayEquals(letter, new PdfBundleBuilder(letter, mainMemoryOnly()).append(null).append(new byte[0]).build());
+    }
+
+    @Test(expected = NotificationClientRuntimeException.class)
+    public void shouldNotBundleDocumentsAfterAnEmptyLetter() throws IOException {
+        new PdfBundleBuilder(new byte[0], mainMemoryOnly()).append(coversheet).build();
+    }
+
+    private static byte[] pdfWithPages(int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                document.addPage(new PDPage());
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static int evenPages(int pages) {
+        return pages + pages % 2;
+    }
+
+    private static int pageCount(byte[] pdf) throws IOException {
+        try (PDDocument document = PDDocument.load(pdf)) {
+            return document.getNumberOfPages();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package uk.gov.hmcts.reform.sscs.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import uk.gov.hmcts.reform.sscs.service.pipeline.FanOutExecutor;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
+
+/**
+ * Pipeline components that behave as the service did before they were tuned: nothing cached past an
+ * event, every PDF kept on the heap and every recipient notified one after another.
+ */
+public final class PipelineTestUtils {
+
+    private PipelineTestUtils() {
+    }
+
+    /**
+     * A cache that only shares documents between the recipients of one event.
+     */
+    public static CaseDocumentCache eventScopedDocumentCache(PdfStoreService pdfStoreService) {
+        return new CaseDocumentCache(pdfStoreService, 0, 0, 0, new SimpleMeterRegistry());
+    }
+
+    /**
+     * A cache that keeps nothing, so every document is rendered.
+     */
+    public static DocmosisRenderCache disabledRenderCache() {
+        return new DocmosisRenderCache(0, 0, Duration.ZERO, null, new SimpleMeterRegistry(), Clock.systemUTC());
+    }
+
+    /**
+     * Keeps every document on the heap and never streams from a file, as PDFBox does by default.
+     */
+    public static PdfMemoryPolicy mainMemoryOnly() {
+        return new PdfMemoryPolicy(-1, -1);
+    }
+
+    /**
+     * Runs every task one after another on the calling thread.
+     */
+    public static FanOutExecutor sequentialFanOut() {
+        return new FanOutExecutor("sequential", 0, 0, PipelineStage.PERSONALISE, new PipelineMetrics(new SimpleMeterRegistry()));
+    }
+}
@@ -1,16 +1,21 @@
 package uk.gov.hmcts.reform.sscs.service;
 
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.SYA_APPEAL_CREATED;
 
 import java.time.ZonedDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import org.junit.Before;
@@ -25,7 +30,10 @@ import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
 import uk.gov.hmcts.reform.sscs.ccd.domain.State;
 import uk.gov.hmcts.reform.sscs.config.RetryConfig;
 import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
 import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
+import uk.gov.hmcts.reform.sscs.exception.RecipientNotificationException.FailedRecipient;
+import uk.gov.hmcts.reform.sscs.exception.RecipientNotificationException;
 import uk.gov.hmcts.reform.sscs.factory.CcdNotificationWrapper;
 import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
 import uk.gov.service.notify.NotificationClientException;
@@ -105,4 +113,54 @@ public class RetryNotificationServiceTest {
         assertTrue(argument.getValue().isBefore(expectedRescheduledDateTime) || argument.getValue().isEqual(expectedRescheduledDateTime));
     }
 
+    @Test
+    public void shouldRescheduleOnlyTheLetterWhoseAssemblyTimedOut() {
+        NotificationServiceException exception = new NotificationServiceException("123", new TimeoutException("letter-assembly tasks did not all finish"));
+        RecipientNotificationException recipientException = new RecipientNotificationException("123", List.of(
+            new FailedRecipient(SYA_APPEAL_CREATED, "APPELLANT", NotificationChannel.LETTER, exception)));
+
+        service.rescheduleIfHandledGovNotifyErrorStatus(1, notificationWrapper, recipientException);
+
+        verify(notificationHandler).scheduleNotification(eq(notificationWrapper), eq(SYA_APPEAL_CREATED), eq("APPELLANT"),
+            eq(NotificationChannel.LETTER), eq(1), any(ZonedDateTime.class));
+        verifyNoMoreInteractions(notificationHandler);
+    }
+
+    @Test
+    public void shouldNotRescheduleATimedOutLetterAboveMaxRetry() {
+        service.rescheduleIfHandledGovNotifyErrorStatus(MAX_RETRY + 1, notificationWrapper,
+            new NotificationServiceException("123", new TimeoutException("letter-assembly tasks did not all finish")));
+
+        verifyNoInteractions(notificationHandler);
+    }
+
+    @Test
+    public void shouldRescheduleOnlyTheRecipientsThatFailedWithARetryableError() {
+        NotificationClientException retryable = mock(NotificationClientException.class);
+        when(retryable.getHttpResult()).thenReturn(500);
+        NotificationClientException notRetryable = mock(NotificationClientException.class);
+        when(notRetryable.getHttpResult()).thenReturn(400);
+        RecipientNotificationException exception = new RecipientNotificationException("123", List.of(
+            new FailedRecipient(SYA_APPEAL_CREATED, "APPELLANT", null, new NotificationServiceException("123", retryable)),
+            new FailedRecipient(SYA_APPEAL_CREATED, "OTHER_PARTY:2", null, new NotificationServiceException("123", notRetryable))));
+
+        service.rescheduleIfHandledGovNotifyErrorStatus(1, notificationWrapper, exception);
+
+        verify(notificationHandler).scheduleNotification(eq(notificationWrapper), eq(SYA_APPEAL_CREATED), eq("APPELLANT"), isNull(), eq(1), any(ZonedDateTime.class));
+        verifyNoMoreInteractions(notificationHandler);
+    }
+
+    @Test
+    public void shouldRescheduleOnlyTheChannelThatFailed() {
+        NotificationClientException retryable = mock(NotificationClientException.class);
+        when(retryable.getHttpResult()).thenReturn(500);
+        RecipientNotificationException exception = new RecipientNotificationException("123", List.of(
+            new FailedRecipient(SYA_APPEAL_CREATED, "APPELLANT", NotificationChannel.SMS, new NotificationServiceException("123", retryable))));
+
+        service.rescheduleIfHandledGovNotifyErrorStatus(1, notificationWrapper, exception);
+
+        verify(notificationHandler).scheduleNotification(eq(notificationWrapper), eq(SYA_APPEAL_CREATED), eq("APPELLANT"),
+            eq(NotificationChannel.SMS), eq(1), any(ZonedDateTime.class));
+        verifyNoMoreInteractions(notificationHandler);
+    }
 }
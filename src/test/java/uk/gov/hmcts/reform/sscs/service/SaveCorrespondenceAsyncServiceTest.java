@@ -3,9 +3,12 @@ package uk.gov.hmcts.reform.sscs.service;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import org.junit.Before;
@@ -18,6 +21,8 @@ import uk.gov.hmcts.reform.sscs.ccd.domain.CorrespondenceType;
 import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
 import uk.gov.hmcts.reform.sscs.config.SubscriptionType;
 import uk.gov.hmcts.reform.sscs.model.LetterType;
+import uk.gov.hmcts.reform.sscs.service.pendingletter.PendingLetterPoller;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
 import uk.gov.service.notify.NotificationClient;
 import uk.gov.service.notify.NotificationClientException;
 
@@ -35,31 +40,48 @@ public class SaveCorrespondenceAsyncServiceTest {
     @Mock
     private NotificationClient notificationClient;
 
+    @Mock
+    private LetterPdfRetryScheduler letterPdfRetryScheduler;
+
+    @Mock
+    private PendingLetterPoller pendingLetterPoller;
+
 
     @Before
-    public void setup() throws NotificationClientException {
+    public void setup() {
         openMocks(this);
-        service = new SaveCorrespondenceAsyncService(ccdNotificationsPdfService);
+        service = new SaveCorrespondenceAsyncService(ccdNotificationsPdfService, new PipelineMetrics(new SimpleMeterRegistry()), letterPdfRetryScheduler, Optional.empty());
         correspondence = Correspondence.builder().value(CorrespondenceDetails.builder().to("Mr Blobby").build()).build();
-        SscsCaseData sscsCaseData = SscsCaseData.builder().build();
-        byte[] bytes = "%PDF bytes".getBytes();
-        when(notificationClient.getPdfForLetter(eq(NOTIFICATION_ID))).thenReturn(bytes);
-        when(ccdNotificationsPdfService.mergeLetterCorrespondenceIntoCcd(eq(bytes), eq(Long.valueOf(CCD_ID)), eq(correspondence))).thenReturn(sscsCaseData);
     }
 
     @Test
-    public void willGetLetterFromNotifyAndUploadIntoCcd() throws NotificationClientException {
+    public void willScheduleGettingTheLetterFromNotifyRatherThanWaitingForIt() {
         service.saveLetter(notificationClient, NOTIFICATION_ID, correspondence, CCD_ID);
 
-        verify(notificationClient).getPdfForLetter(eq(NOTIFICATION_ID));
-        verify(ccdNotificationsPdfService).mergeLetterCorrespondenceIntoCcdV2(any(), eq(Long.valueOf(CCD_ID)), eq(correspondence));
+        verify(letterPdfRetryScheduler).schedule(notificationClient, NOTIFICATION_ID, correspondence, CCD_ID);
+        verifyNoInteractions(notificationClient, ccdNotificationsPdfService);
     }
 
-    @Test(expected = NotificationClientException.class)
-    @Parameters({"400 PDFNotReadyError", "400 BadRequestError"})
-    public void notificationClientExceptionIsReThrown(String message) throws NotificationClientException {
-        when(notificationClient.getPdfForLetter(eq(NOTIFICATION_ID))).thenThrow(new NotificationClientException(message));
+    @Test
+    public void willStoreTheLetterWhenPendingLettersAreEnabled() {
+        when(pendingLetterPoller.add(notificationClient, NOTIFICATION_ID, correspondence, CCD_ID)).thenReturn(true);
+        service = new SaveCorrespondenceAsyncService(ccdNotificationsPdfService, new PipelineMetrics(new SimpleMeterRegistry()),
+            letterPdfRetryScheduler, Optional.of(pendingLetterPoller));
+
         service.saveLetter(notificationClient, NOTIFICATION_ID, correspondence, CCD_ID);
+
+        verify(pendingLetterPoller).add(notificationClient, NOTIFICATION_ID, correspondence, CCD_ID);
+        verifyNoInteractions(letterPdfRetryScheduler);
+    }
+
+    @Test
+    public void willScheduleGettingTheLetterWhenItCanNotBeStored() {
+        service = new SaveCorrespondenceAsyncService(ccdNotificationsPdfService, new PipelineMetrics(new SimpleMeterRegistry()),
+            letterPdfRetryScheduler, Optional.of(pendingLetterPoller));
+
+        service.saveLetter(notificationClient, NOTIFICATION_ID, correspondence, CCD_ID);
+
+        verify(letterPdfRetryScheduler).schedule(notificationClient, NOTIFICATION_ID, correspondence, CCD_ID);
     }
 
     @Test
@@ -1,8 +1,10 @@
 package uk.gov.hmcts.reform.sscs.service;
 
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeastOnce;
@@ -24,6 +26,9 @@ import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.*;
 import static uk.gov.hmcts.reform.sscs.service.LetterUtils.getAddressToUseForLetter;
 import static uk.gov.hmcts.reform.sscs.service.NotificationServiceTest.verifyExpectedLogMessage;
 import static uk.gov.hmcts.reform.sscs.service.NotificationServiceTest.verifyNoErrorsLogged;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.eventScopedDocumentCache;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.mainMemoryOnly;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.sequentialFanOut;
 import static uk.gov.hmcts.reform.sscs.service.SendNotificationHelper.getRepSalutation;
 import static uk.gov.hmcts.reform.sscs.service.SendNotificationService.getBundledLetterDocumentUrl;
 
@@ -31,11 +36,17 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import org.junit.Before;
@@ -45,6 +56,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
 import uk.gov.hmcts.reform.sscs.ccd.callback.DocumentType;
 import uk.gov.hmcts.reform.sscs.ccd.domain.*;
 import uk.gov.hmcts.reform.sscs.config.AppealHearingType;
@@ -53,10 +65,16 @@ import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
 import uk.gov.hmcts.reform.sscs.domain.SubscriptionWithType;
 import uk.gov.hmcts.reform.sscs.domain.notify.Destination;
 import uk.gov.hmcts.reform.sscs.domain.notify.Notification;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
 import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
 import uk.gov.hmcts.reform.sscs.domain.notify.Template;
+import uk.gov.hmcts.reform.sscs.exception.ChannelNotificationException;
+import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
 import uk.gov.hmcts.reform.sscs.factory.CcdNotificationWrapper;
 import uk.gov.hmcts.reform.sscs.service.docmosis.PdfLetterService;
+import uk.gov.hmcts.reform.sscs.service.pipeline.FanOutExecutor;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineStage;
 import uk.gov.service.notify.NotificationClientException;
 
 @RunWith(JUnitParamsRunner.class)
@@ -189,7 +207,9 @@ public class SendNotificationServiceTest {
     public void setup() {
         openMocks(this);
 
-        classUnderTest = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService, pdfStoreService);
+        classUnderTest = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService,
+            eventScopedDocumentCache(pdfStoreService), mainMemoryOnly(),
+            new PipelineMetrics(new SimpleMeterRegistry()), sequentialFanOut(), sequentialFanOut());
 
         Logger logger = (Logger) LoggerFactory.getLogger(SendNotificationService.class.getName());
         logger.addAppender(mockAppender);
@@ -319,6 +339,121 @@ public class SendNotificationServiceTest {
         verifyExpectedLogMessage(mockAppender, captorLoggingEvent, wrapper.getNewSscsCaseData().getCcdCaseId(), "Did not send a notification for event", Level.ERROR);
     }
 
+    @Test
+    public void sendsEmailAndSmsConcurrentlyWhenChannelsFanOut() {
+        FanOutExecutor channelFanOutExecutor = new FanOutExecutor("test-channel-fan-out", 3, 10, PipelineStage.SEND,
+            new PipelineMetrics(new SimpleMeterRegistry()));
+        classUnderTest = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService,
+            eventScopedDocumentCache(pdfStoreService), mainMemoryOnly(),
+            new PipelineMetrics(new SimpleMeterRegistry()), channelFanOutExecutor, sequentialFanOut());
+        Subscription subscription = EMAIL_SUBSCRIPTION.toBuilder().mobile("07831292000").subscribeSms(YES).wantSmsNotifications(YES).build();
+        Notification notification = Notification.builder()
+            .destination(Destination.builder().email("test@some.com").sms("07831292000").build())
+            .template(Template.builder().emailTemplateId("someEmailTemplateId").smsTemplateId(List.of("someSmsTemplateId")).build())
+            .placeholders(new HashMap<>())
+            .build();
+        when(notificationValidService.isNotificationStillValidToSend(any(), any())).thenReturn(true);
+        when(notificationValidService.isHearingTypeValidToSendNotification(any(), any())).thenReturn(true);
+        CountDownLatch bothChannelsStarted = new CountDownLatch(2);
+        when(notificationHandler.sendNotification(any(), any(), any(), any())).thenAnswer(invocation -> {
+            bothChannelsStarted.countDown();
+            return bothChannelsStarted.await(5, TimeUnit.SECONDS);
+        });
+
+        try {
+            boolean sent = classUnderTest.sendEmailSmsLetterNotification(buildBaseWrapper(APPELLANT_WITH_ADDRESS, APPEAL_RECEIVED, READY_TO_LIST.getId()),
+                notification, new SubscriptionWithType(subscription, APPELLANT, null, null), APPEAL_RECEIVED);
+
+            assertTrue(sent);
+            verify(notificationHandler).sendNotification(any(), eq("someEmailTemplateId"), eq("Email"), any());
+            verify(notificationHandler).sendNotification(any(), eq("someSmsTemplateId"), eq("SMS"), any());
+        } finally {
+            channelFanOutExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void raisesARetryableLetterFailureAndInterruptsTheAssemblyWhenItTimesOut() throws InterruptedException {
+        FanOutExecutor letterAssemblyFanOutExecutor = new FanOutExecutor("test-letter-assembly-fan-out", 3, 10, PipelineStage.RENDER,
+            new PipelineMetrics(new SimpleMeterRegistry()));
+        classUnderTest = new SendNotificationService(notificationSender, notificationHandler, notificationValidService, pdfLetterService,
+            eventScopedDocumentCache(pdfStoreService), mainMemoryOnly(),
+            new PipelineMetrics(new SimpleMeterRegistry()), sequentialFanOut(), letterAssemblyFanOutExecutor);
+        ReflectionTestUtils.setField(classUnderTest, "letterAssemblyTimeoutMs", 50L);
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(pdfLetterService.generateLetter(any(), any(), any())).thenAnswer(invocation -> {
+            try {
+                released.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return "PDF".getBytes();
+        });
+        SubscriptionWithType appellantEmptySubscription = new SubscriptionWithType(EMPTY_SUBSCRIPTION, APPELLANT,
+            null, null);
+
+        try {
+            ChannelNotificationException exception = catchThrowableOfType(() -> classUnderTest.sendEmailSmsLetterNotification(
+                buildBaseWrapper(APPELLANT_WITH_ADDRESS, APPEAL_RECEIVED, VALID_APPEAL.getId()), DOCMOSIS_LETTER, appellantEmptySubscription, APPEAL_RECEIVED),
+                ChannelNotificationException.class);
+
+            assertNotNull(exception);
+            assertEquals(Set.of(NotificationChannel.LETTER), exception.getFailedChannels().keySet());
+            assertTrue(exception.getFailedChannels().get(NotificationChannel.LETTER).getCause() instanceof TimeoutException);
+            assertTrue("the timed out letter was not interrupted", interrupted.await(5, TimeUnit.SECONDS));
+            verifyNoInteractions(notificationHandler);
+        } finally {
+            released.countDown();
+            letterAssemblyFanOutExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void sendsTheOtherChannelsWhenOneFailsAndReportsOnlyTheFailedChannel() {
+        Subscription subscription = EMAIL_SUBSCRIPTION.toBuilder().mobile("07831292000").subscribeSms(YES).wantSmsNotifications(YES).build();
+        when(notificationValidService.isNotificationStillValidToSend(any(), any())).thenReturn(true);
+        when(notificationValidService.isHearingTypeValidToSendNotification(any(), any())).thenReturn(true);
+        NotificationServiceException emailFailure = new NotificationServiceException(CASE_ID, new NotificationClientException("500"));
+        when(notificationHandler.sendNotification(any(), any(), eq("Email"), any())).thenThrow(emailFailure);
+        when(notificationHandler.sendNotification(any(), any(), eq("SMS"), any())).thenReturn(true);
+
+        ChannelNotificationException exception = catchThrowableOfType(() -> classUnderTest.sendEmailSmsLetterNotification(
+            buildBaseWrapper(APPELLANT_WITH_ADDRESS, APPEAL_RECEIVED, READY_TO_LIST.getId()), emailAndSmsNotification(),
+            new SubscriptionWithType(subscription, APPELLANT, null, null), APPEAL_RECEIVED),
+            ChannelNotificationException.class);
+
+        assertNotNull(exception);
+        assertEquals(Map.of(NotificationChannel.EMAIL, emailFailure), exception.getFailedChannels());
+        verify(notificationHandler).sendNotification(any(), eq("someSmsTemplateId"), eq("SMS"), any());
+    }
+
+    @Test
+    public void sendsOnlyTheChannelBeingRetried() {
+        Subscription subscription = EMAIL_SUBSCRIPTION.toBuilder().mobile("07831292000").subscribeSms(YES).wantSmsNotifications(YES).build();
+        when(notificationValidService.isNotificationStillValidToSend(any(), any())).thenReturn(true);
+        when(notificationValidService.isHearingTypeValidToSendNotification(any(), any())).thenReturn(true);
+        when(notificationHandler.sendNotification(any(), any(), any(), any())).thenReturn(true);
+        CcdNotificationWrapper wrapper = buildBaseWrapper(APPELLANT_WITH_ADDRESS, APPEAL_RECEIVED, READY_TO_LIST.getId());
+        wrapper.setRetryChannel(NotificationChannel.SMS);
+
+        boolean sent = classUnderTest.sendEmailSmsLetterNotification(wrapper, emailAndSmsNotification(),
+            new SubscriptionWithType(subscription, APPELLANT, null, null), APPEAL_RECEIVED);
+
+        assertTrue(sent);
+        verify(notificationHandler).sendNotification(any(), eq("someSmsTemplateId"), eq("SMS"), any());
+        verifyNoMoreInteractions(notificationHandler);
+    }
+
+    private static Notification emailAndSmsNotification() {
+        return Notification.builder()
+            .destination(Destination.builder().email("test@some.com").sms("07831292000").build())
+            .template(Template.builder().emailTemplateId("someEmailTemplateId").smsTemplateId(List.of("someSmsTemplateId")).build())
+            .placeholders(new HashMap<>())
+            .build();
+    }
+
     @Test
     public void getRepNameWhenRepHasName() {
         CcdNotificationWrapper wrapper = buildBaseWrapper(APPELLANT_WITH_ADDRESS, NotificationEventType.CASE_UPDATED, REP_WITH_ADDRESS);
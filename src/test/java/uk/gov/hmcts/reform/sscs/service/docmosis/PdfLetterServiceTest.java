@@ -19,6 +19,7 @@ import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.LE
 import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.LETTER_ADDRESS_LINE_4;
 import static uk.gov.hmcts.reform.sscs.config.PersonalisationMappingConstants.LETTER_ADDRESS_POSTCODE;
 import static uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType.APPEAL_RECEIVED;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.mainMemoryOnly;
 import static uk.gov.hmcts.reform.sscs.service.docmosis.PdfLetterService.GENERATED_DATE_LITERAL;
 import static uk.gov.hmcts.reform.sscs.service.docmosis.PdfLetterService.WELSH_GENERATED_DATE_LITERAL;
 
@@ -82,7 +83,7 @@ public class PdfLetterServiceTest {
     }
 
     private final PdfLetterService pdfLetterService =
-            new PdfLetterService(docmosisPdfService, DOCMOSIS_TEMPLATES_CONFIG, EVIDENCE_PROPERTIES);
+            new PdfLetterService(docmosisPdfService, DOCMOSIS_TEMPLATES_CONFIG, EVIDENCE_PROPERTIES, mainMemoryOnly());
 
     private final Appellant appellant = Appellant.builder()
             .name(Name.builder().firstName("Ap").lastName("pellant").build())
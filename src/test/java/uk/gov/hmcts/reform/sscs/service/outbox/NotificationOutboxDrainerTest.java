@@ -0,0 +1,208 @@
+package uk.gov.hmcts.reform.sscs.service.outbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.dao.DataAccessResourceFailureException;
+import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
+import uk.gov.hmcts.reform.sscs.config.NotificationOutboxConfigProperties;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+import uk.gov.hmcts.reform.sscs.exception.RecipientNotificationException;
+import uk.gov.hmcts.reform.sscs.exception.RecipientNotificationException.FailedRecipient;
+import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
+import uk.gov.hmcts.reform.sscs.service.NotificationSender;
+import uk.gov.hmcts.reform.sscs.service.RetryNotificationService;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.service.notify.NotificationClientException;
+
+public class NotificationOutboxDrainerTest {
+
+    private static final Map<String, Object> PLACEHOLDERS = Map.of("name", "Harry Potter");
+
+    @Mock
+    private NotificationOutbox notificationOutbox;
+
+    @Mock
+    private NotificationSender notificationSender;
+
+    @Mock
+    private RetryNotificationService retryNotificationService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationOutboxDrainer drainer;
+
+    @Before
+    public void setup() {
+        openMocks(this);
+        NotificationOutboxConfigProperties properties = new NotificationOutboxConfigProperties();
+        properties.setWorkers(0);
+        properties.setBatchSize(2);
+        properties.setMaxBatchesPerPoll(3);
+        properties.setLeaseSeconds(300);
+        properties.setMaxAttempts(3);
+        properties.setRetryDelaySeconds(60);
+        properties.setRetentionHours(168);
+        meterRegistry = new SimpleMeterRegistry();
+        drainer = new NotificationOutboxDrainer(notificationOutbox, notificationSender, retryNotificationService, properties,
+            new PipelineMetrics(meterRegistry), meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        drainer.shutdown();
+    }
+
+    @Test
+    public void sendsEachClaimedRowAndMarksItSent() throws NotificationClientException {
+        when(notificationOutbox.claim(2, Duration.ofSeconds(300)))
+            .thenReturn(List.of(email(1L, 1), sms(2L, 1)))
+            .thenReturn(Collections.emptyList());
+
+        drainer.drain();
+
+        verify(notificationSender).deliverEmail(eq("emailTemplate"), eq("harry@example.com"), eq(PLACEHOLDERS),
+            eq("ref"), eq(NotificationEventType.APPEAL_RECEIVED), any(SscsCaseData.class));
+        verify(notificationSender).deliverSms(eq("smsTemplate"), eq("07777777777"), eq(PLACEHOLDERS),
+            eq("ref"), eq("sender"), eq(NotificationEventType.APPEAL_RECEIVED), any(SscsCaseData.class));
+        verify(notificationOutbox).markSent(1L);
+        verify(notificationOutbox).markSent(2L);
+        verify(notificationOutbox, times(2)).claim(2, Duration.ofSeconds(300));
+        assertEquals(2.0, meterRegistry.counter("notifications.outbox.sent").count(), 0);
+    }
+
+    @Test
+    public void claimsNoMoreThanTheBatchesAllowedPerPoll() {
+        when(notificationOutbox.claim(2, Duration.ofSeconds(300))).thenReturn(List.of(email(1L, 1), sms(2L, 1)));
+
+        drainer.drain();
+
+        verify(notificationOutbox, times(3)).claim(2, Duration.ofSeconds(300));
+    }
+
+    @Test
+    public void retriesAFailedSendWithAGrowingDelay() throws NotificationClientException {
+        when(notificationOutbox.claim(2, Duration.ofSeconds(300))).thenReturn(List.of(email(1L, 2)));
+        doThrow(new NotificationClientException(new TimeoutException("Read timed out"))).when(notificationSender)
+            .deliverEmail(anyString(), anyString(), any(), anyString(), any(), any());
+
+        drainer.drain();
+
+        verify(notificationOutbox).markForRetry(eq(1L), eq(Duration.ofSeconds(120)), anyString());
+        verify(notificationOutbox, never()).markSent(1L);
+        assertEquals(1.0, meterRegistry.counter("notifications.outbox.retried").count(), 0);
+    }
+
+    @Test
+    public void givesUpOnTheLastAttempt() throws NotificationClientException {
+        when(notificationOutbox.claim(2, Duration.ofSeconds(300))).thenReturn(List.of(email(1L, 3)));
+        doThrow(new IllegalStateException("boom")).when(notificationSender)
+            .deliverEmail(anyString(), anyString(), any(), anyString(), any(), any());
+
+        drainer.drain();
+
+        verify(notificationOutbox).markFailed(1L, "boom");
+        verify(notificationOutbox, never()).markForRetry(eq(1L), any(), any());
+        assertEquals(1.0, meterRegistry.counter("notifications.outbox.failed").count(), 0);
+    }
+
+    @Test
+    public void handsASendItGaveUpOnBackToTheJobRetriesForItsRecipientAndChannel() throws NotificationClientException {
+        OutboxMessage message = email(1L, 3).toBuilder().recipient("OTHER_PARTY:2").build();
+        when(notificationOutbox.claim(2, Duration.ofSeconds(300))).thenReturn(List.of(message));
+        NotificationClientException failure = new NotificationClientException(new TimeoutException("Read timed out"));
+        doThrow(failure).when(notificationSender).deliverEmail(anyString(), anyString(), any(), anyString(), any(), any());
+
+        drainer.drain();
+
+        ArgumentCaptor<NotificationWrapper> wrapper = ArgumentCaptor.forClass(NotificationWrapper.class);
+        ArgumentCaptor<RecipientNotificationException> exception = ArgumentCaptor.forClass(RecipientNotificationException.class);
+        verify(retryNotificationService).rescheduleIfHandledGovNotifyErrorStatus(eq(1), wrapper.capture(), exception.capture());
+        assertEquals("123", wrapper.getValue().getCaseId());
+        assertEquals(NotificationEventType.APPEAL_RECEIVED, wrapper.getValue().getNotificationType());
+        FailedRecipient failedRecipient = exception.getValue().getFailedRecipients().get(0);
+        assertEquals("OTHER_PARTY:2", failedRecipient.getRecipient());
+        assertEquals(NotificationChannel.EMAIL, failedRecipient.getChannel());
+        assertSame(failure, failedRecipient.getException().getCause());
+    }
+
+    @Test
+    public void doesNotHandBackASendWithoutARecipient() throws NotificationClientException {
+        when(notificationOutbox.claim(2, Duration.ofSeconds(300))).thenReturn(List.of(email(1L, 3)));
+        doThrow(new IllegalStateException("boom")).when(notificationSender)
+            .deliverEmail(anyString(), anyString(), any(), anyString(), any(), any());
+
+        drainer.drain();
+
+        verify(notificationOutbox).markFailed(1L, "boom");
+        verifyNoInteractions(retryNotificationService);
+    }
+
+    @Test
+    public void givesUpWhenNotifyRejectsTheRequest() throws NotificationClientException {
+        when(notificationOutbox.claim(2, Duration.ofSeconds(300))).thenReturn(List.of(email(1L, 1)));
+        doThrow(new NotificationClientException("Should return a 400 error code")).when(notificationSender)
+            .deliverEmail(anyString(), anyString(), any(), anyString(), any(), any());
+
+        drainer.drain();
+
+        verify(notificationOutbox).markFailed(1L, "Should return a 400 error code");
+        verify(notificationOutbox, never()).markForRetry(eq(1L), any(), any());
+    }
+
+    @Test
+    public void failsARowWithUnreadablePlaceholdersWithoutSendingIt() {
+        OutboxMessage unreadable = OutboxMessage.builder().id(1L).caseId("123").eventType(NotificationEventType.APPEAL_RECEIVED)
+            .channel(OutboxChannel.EMAIL).attempts(1).build();
+        when(notificationOutbox.claim(2, Duration.ofSeconds(300))).thenReturn(List.of(unreadable));
+
+        drainer.drain();
+
+        ArgumentCaptor<String> error = ArgumentCaptor.forClass(String.class);
+        verify(notificationOutbox).markFailed(eq(1L), error.capture());
+        assertEquals("Placeholders could not be read", error.getValue());
+    }
+
+    @Test
+    public void keepsDrainingWhenTheOutboxCannotBeUpdated() {
+        when(notificationOutbox.claim(2, Duration.ofSeconds(300))).thenReturn(List.of(email(1L, 1)));
+        doThrow(new DataAccessResourceFailureException("down")).when(notificationOutbox).markSent(1L);
+
+        drainer.drain();
+
+        assertEquals(0.0, meterRegistry.counter("notifications.outbox.sent").count(), 0);
+    }
+
+    private static OutboxMessage email(long id, int attempts) {
+        return OutboxMessage.builder().id(id).caseId("123").eventType(NotificationEventType.APPEAL_RECEIVED)
+            .channel(OutboxChannel.EMAIL).templateId("emailTemplate").destination("harry@example.com")
+            .placeholders(PLACEHOLDERS).reference("ref").attempts(attempts).build();
+    }
+
+    private static OutboxMessage sms(long id, int attempts) {
+        return OutboxMessage.builder().id(id).caseId("123").eventType(NotificationEventType.APPEAL_RECEIVED)
+            .channel(OutboxChannel.SMS).templateId("smsTemplate").destination("07777777777").smsSender("sender")
+            .placeholders(PLACEHOLDERS).reference("ref").attempts(attempts).build();
+    }
+}
@@ -0,0 +1,110 @@
+package uk.gov.hmcts.reform.sscs.service.outbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Name;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationEventType;
+
+public class NotificationOutboxTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-18T10:00:00Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private NotificationOutbox outbox;
+
+    @Before
+    public void setup() {
+        openMocks(this);
+        outbox = new NotificationOutbox(jdbcTemplate, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void storesTheMessageWithItsPlaceholdersAsJson() {
+        assertTrue(outbox.enqueue(message()));
+
+        verify(jdbcTemplate).update(anyString(), eq("123"), eq("APPEAL_RECEIVED"), eq("SMS"), eq("APPELLANT"), eq("template"),
+            eq("07777777777"), eq("sender"), eq("{\"name\":\"Harry Potter\"}"), eq("ref"),
+            eq(Timestamp.from(NOW)), eq(Timestamp.from(NOW)));
+    }
+
+    @Test
+    public void reportsAMessageThatCouldNotBeStoredSoItIsSentDirectly() {
+        when(jdbcTemplate.update(anyString(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+            .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertFalse(outbox.enqueue(message()));
+    }
+
+    @Test
+    public void storesPlaceholderObjectsAsTheJsonGovNotifyIsSent() {
+        OutboxMessage message = message().toBuilder()
+            .placeholders(Map.of("name", Name.builder().firstName("Harry").lastName("Potter").build()))
+            .build();
+
+        assertTrue(outbox.enqueue(message));
+
+        ArgumentCaptor<String> placeholders = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).update(anyString(), any(), any(), any(), any(), any(), any(), any(), placeholders.capture(), any(),
+            any(), any());
+        assertEquals("Harry", new JSONObject(placeholders.getValue()).getJSONObject("name").getString("firstName"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void claimsRowsWithTheirRecipientAndPlaceholders() throws SQLException {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(1L);
+        when(row.getString("event_type")).thenReturn("APPEAL_RECEIVED");
+        when(row.getString("channel")).thenReturn("EMAIL");
+        when(row.getString("recipient")).thenReturn("APPELLANT");
+        when(row.getString("placeholders")).thenReturn("{\"name\":{\"firstName\":\"Harry\"},\"hearing_date\":\"1 May 2026\"}");
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), any(), any()))
+            .thenAnswer(invocation -> List.of(invocation.<RowMapper<OutboxMessage>>getArgument(1).mapRow(row, 0)));
+
+        OutboxMessage message = outbox.claim(10, Duration.ofMinutes(5)).get(0);
+
+        assertEquals("APPELLANT", message.getRecipient());
+        assertEquals(Map.of("name", Map.of("firstName", "Harry"), "hearing_date", "1 May 2026"), message.getPlaceholders());
+    }
+
+    @Test
+    public void scheduledRetryIsDelayedFromNow() {
+        outbox.markForRetry(1L, Duration.ofMinutes(2), "Read timed out");
+
+        verify(jdbcTemplate).update(anyString(), eq(Timestamp.from(NOW.plusSeconds(120))), eq("Read timed out"), eq(1L));
+    }
+
+    private static OutboxMessage message() {
+        return OutboxMessage.builder().caseId("123").eventType(NotificationEventType.APPEAL_RECEIVED)
+            .channel(OutboxChannel.SMS).recipient("APPELLANT").templateId("template").destination("07777777777").smsSender("sender")
+            .placeholders(Map.of("name", "Harry Potter")).reference("ref").build();
+    }
+}
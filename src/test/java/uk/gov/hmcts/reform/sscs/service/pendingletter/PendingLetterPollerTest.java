@@ -0,0 +1,149 @@
+package uk.gov.hmcts.reform.sscs.service.pendingletter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Correspondence;
+import uk.gov.hmcts.reform.sscs.ccd.domain.CorrespondenceDetails;
+import uk.gov.hmcts.reform.sscs.config.LetterAsyncConfigProperties;
+import uk.gov.hmcts.reform.sscs.config.PendingLetterConfigProperties;
+import uk.gov.hmcts.reform.sscs.service.CcdNotificationsPdfService;
+import uk.gov.hmcts.reform.sscs.service.LetterPdfMetrics;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+import uk.gov.service.notify.NotificationClient;
+import uk.gov.service.notify.NotificationClientException;
+
+public class PendingLetterPollerTest {
+
+    private static final byte[] PDF = "%PDF bytes".getBytes();
+    private static final Correspondence CORRESPONDENCE = Correspondence.builder()
+        .value(CorrespondenceDetails.builder().to("Mr Blobby").build())
+        .build();
+
+    @Mock
+    private PendingLetters pendingLetters;
+
+    @Mock
+    private CcdNotificationsPdfService ccdNotificationsPdfService;
+
+    @Mock
+    private NotificationClient notificationClient;
+
+    @Mock
+    private NotificationClient testNotificationClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PendingLetterPoller poller;
+
+    @Before
+    public void setup() {
+        openMocks(this);
+        PendingLetterConfigProperties properties = new PendingLetterConfigProperties();
+        properties.setWorkers(0);
+        properties.setBatchSize(2);
+        properties.setMaxBatchesPerPoll(3);
+        properties.setLeaseSeconds(300);
+        properties.setRetentionHours(168);
+        LetterAsyncConfigProperties letterAsyncProperties = new LetterAsyncConfigProperties();
+        letterAsyncProperties.setMaxAttempts(3);
+        letterAsyncProperties.setDelay(1000);
+        letterAsyncProperties.setMultiplier(2);
+        letterAsyncProperties.setMaxDelay(10000);
+        letterAsyncProperties.setInitialDelay(5000);
+        meterRegistry = new SimpleMeterRegistry();
+        poller = new PendingLetterPoller(pendingLetters, ccdNotificationsPdfService, notificationClient, testNotificationClient,
+            properties, letterAsyncProperties, new PipelineMetrics(meterRegistry), new LetterPdfMetrics(meterRegistry));
+    }
+
+    @After
+    public void tearDown() {
+        poller.shutdown();
+    }
+
+    @Test
+    public void storesTheLetterWithTheKeyItWasSentWith() {
+        when(pendingLetters.add(anyString(), anyString(), anyString(), any(), any())).thenReturn(true);
+
+        poller.add(testNotificationClient, "notificationId", CORRESPONDENCE, "123");
+
+        verify(pendingLetters).add("notificationId", "123", PendingLetterPoller.TEST_KEY, CORRESPONDENCE, Duration.ofSeconds(5));
+        assertEquals(1.0, meterRegistry.get("notifications.letter.pdf.letters").tag("outcome", "stored").counter().count(), 0);
+    }
+
+    @Test
+    public void savesEachClaimedLetterWhosePdfIsReady() throws NotificationClientException {
+        when(pendingLetters.claim(2, Duration.ofSeconds(300)))
+            .thenReturn(List.of(letter(1L, "live", 1), letter(2L, "test", 1)))
+            .thenReturn(Collections.emptyList());
+        when(notificationClient.getPdfForLetter("notification1")).thenReturn(PDF);
+        when(testNotificationClient.getPdfForLetter("notification2")).thenReturn(PDF);
+
+        poller.fetchDueLetters();
+
+        verify(ccdNotificationsPdfService, times(2)).mergeLetterCorrespondenceIntoCcdV2(PDF, 123L, CORRESPONDENCE);
+        verify(pendingLetters).markSaved(1L);
+        verify(pendingLetters).markSaved(2L);
+        verify(pendingLetters, times(2)).claim(2, Duration.ofSeconds(300));
+    }
+
+    @Test
+    public void claimsNoMoreThanTheBatchesAllowedPerPoll() throws NotificationClientException {
+        when(pendingLetters.claim(2, Duration.ofSeconds(300)))
+            .thenReturn(List.of(letter(1L, "live", 1), letter(2L, "live", 1)));
+        when(notificationClient.getPdfForLetter(anyString())).thenReturn(PDF);
+
+        poller.fetchDueLetters();
+
+        verify(pendingLetters, times(3)).claim(2, Duration.ofSeconds(300));
+    }
+
+    @Test
+    public void aLetterWhosePdfIsNotReadyIsRetriedLater() throws NotificationClientException {
+        when(pendingLetters.claim(2, Duration.ofSeconds(300))).thenReturn(List.of(letter(1L, "live", 2)));
+        when(notificationClient.getPdfForLetter("notification1")).thenThrow(new NotificationClientException("400 PDFNotReadyError"));
+
+        poller.fetchDueLetters();
+
+        ArgumentCaptor<Duration> delay = ArgumentCaptor.forClass(Duration.class);
+        verify(pendingLetters).markForRetry(eq(1L), delay.capture(), eq("400 PDFNotReadyError"));
+        assertTrue(delay.getValue().toMillis() >= 2000 && delay.getValue().toMillis() <= 4000);
+        verify(pendingLetters, never()).markSaved(1L);
+        verifyNoInteractions(ccdNotificationsPdfService);
+    }
+
+    @Test
+    public void givesUpOnALetterAfterTheLastAttempt() throws NotificationClientException {
+        when(pendingLetters.claim(2, Duration.ofSeconds(300))).thenReturn(List.of(letter(1L, "live", 3)));
+        when(notificationClient.getPdfForLetter("notification1")).thenThrow(new NotificationClientException("400 BadRequestError"));
+
+        poller.fetchDueLetters();
+
+        verify(pendingLetters).markFailed(1L, "400 BadRequestError");
+        verify(pendingLetters, never()).markForRetry(eq(1L), any(), anyString());
+        assertEquals(1.0, meterRegistry.get("notifications.letter.pdf.letters").tag("outcome", "abandoned").counter().count(), 0);
+    }
+
+    private static PendingLetter letter(long id, String apiKey, int attempts) {
+        return PendingLetter.builder().id(id).notificationId("notification" + id).caseId("123").apiKey(apiKey)
+            .correspondence(CORRESPONDENCE).attempts(attempts).createdAt(Instant.now()).build();
+    }
+}
@@ -0,0 +1,68 @@
+package uk.gov.hmcts.reform.sscs.service.pendingletter;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.gov.hmcts.reform.sscs.ccd.domain.Correspondence;
+import uk.gov.hmcts.reform.sscs.ccd.domain.CorrespondenceDetails;
+
+public class PendingLettersTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-18T10:00:00Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PendingLetters pendingLetters;
+
+    @Before
+    public void setup() {
+        openMocks(this);
+        pendingLetters = new PendingLetters(jdbcTemplate, new ObjectMapper(), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void storesTheLetterWithItsCorrespondenceAsJsonDueAfterTheFirstDelay() {
+        assertTrue(pendingLetters.add("notificationId", "123", "live", correspondence(), Duration.ofSeconds(5)));
+
+        verify(jdbcTemplate).update(anyString(), eq("notificationId"), eq("123"), eq("live"), contains("\"to\":\"Mr Blobby\""),
+            eq(Timestamp.from(NOW.plusSeconds(5))), eq(Timestamp.from(NOW)));
+    }
+
+    @Test
+    public void reportsALetterThatCouldNotBeStoredSoItIsFetchedDirectly() {
+        when(jdbcTemplate.update(anyString(), any(), any(), any(), any(), any(), any()))
+            .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertFalse(pendingLetters.add("notificationId", "123", "live", correspondence(), Duration.ofSeconds(5)));
+    }
+
+    @Test
+    public void scheduledRetryIsDelayedFromNow() {
+        pendingLetters.markForRetry(1L, Duration.ofSeconds(20), "400 PDFNotReadyError");
+
+        verify(jdbcTemplate).update(anyString(), eq(Timestamp.from(NOW.plusSeconds(20))), eq("400 PDFNotReadyError"), eq(1L));
+    }
+
+    private static Correspondence correspondence() {
+        return Correspondence.builder().value(CorrespondenceDetails.builder().to("Mr Blobby").build()).build();
+    }
+}
@@ -0,0 +1,145 @@
+package uk.gov.hmcts.reform.sscs.service.pipeline;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static uk.gov.hmcts.reform.sscs.service.PipelineTestUtils.sequentialFanOut;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FanOutExecutorTest {
+
+    private FanOutExecutor fanOutExecutor;
+
+    @Before
+    public void setup() {
+        fanOutExecutor = new FanOutExecutor("test-fan-out", 3, 10, PipelineStage.PERSONALISE,
+            new PipelineMetrics(new SimpleMeterRegistry()));
+    }
+
+    @After
+    public void tearDown() {
+        fanOutExecutor.shutdown();
+    }
+
+    @Test
+    public void returnsResultsInTaskOrder() {
+        List<Supplier<String>> tasks = asList(() -> sleepThen(50, "appellant"), () -> "representative", () -> "jointParty");
+
+        assertEquals(asList("appellant", "representative", "jointParty"), fanOutExecutor.invokeAll(tasks));
+    }
+
+    @Test
+    public void runsTasksConcurrently() {
+        CountDownLatch allStarted = new CountDownLatch(3);
+        Runnable task = () -> {
+            allStarted.countDown();
+            await(allStarted);
+        };
+
+        fanOutExecutor.runAll(asList(task, task, task));
+
+        assertEquals(0, allStarted.getCount());
+    }
+
+    @Test
+    public void rethrowsFirstFailureAfterEveryTaskHasRun() {
+        RuntimeException appellantFailure = new IllegalStateException("appellant");
+        RuntimeException otherPartyFailure = new IllegalStateException("other party");
+        AtomicInteger completed = new AtomicInteger();
+
+        try {
+            fanOutExecutor.runAll(asList(
+                () -> {
+                    throw appellantFailure;
+                },
+                completed::incrementAndGet,
+                () -> {
+                    throw otherPartyFailure;
+                }));
+            fail("Expected the appellant failure");
+        } catch (IllegalStateException e) {
+            assertSame(appellantFailure, e);
+            assertSame(otherPartyFailure, e.getSuppressed()[0]);
+        }
+        assertEquals(1, completed.get());
+    }
+
+    @Test
+    public void sequentialRunsOnCallingThreadAndStopsAtFirstFailure() {
+        FanOutExecutor sequential = sequentialFanOut();
+        Thread caller = Thread.currentThread();
+        AtomicInteger completed = new AtomicInteger();
+
+        try {
+            sequential.runAll(asList(
+                () -> assertSame(caller, Thread.currentThread()),
+                () -> {
+                    throw new IllegalStateException("representative");
+                },
+                completed::incrementAndGet));
+            fail("Expected the representative failure");
+        } catch (IllegalStateException e) {
+            assertEquals("representative", e.getMessage());
+        }
+        assertFalse(sequential.isConcurrent());
+        assertEquals(0, completed.get());
+    }
+
+    @Test
+    public void cancelsTasksStillRunningAfterTheTimeout() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<Supplier<String>> tasks = asList(() -> "letter", () -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "coversheet";
+        });
+
+        try {
+            fanOutExecutor.invokeAll(tasks, Duration.ofMillis(50));
+            fail("Expected the slow task to time out");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void isConcurrentWithThreads() {
+        assertTrue(fanOutExecutor.isConcurrent());
+    }
+
+    private static String sleepThen(long millis, String result) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
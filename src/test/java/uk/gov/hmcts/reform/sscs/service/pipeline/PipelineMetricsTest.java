@@ -0,0 +1,66 @@
+package uk.gov.hmcts.reform.sscs.service.pipeline;
+
+import static org.junit.Assert.assertEquals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PipelineMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PipelineMetrics pipelineMetrics;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        pipelineMetrics = new PipelineMetrics(meterRegistry);
+    }
+
+    @Test
+    public void recordsLatencyPerStage() {
+        String result = pipelineMetrics.time(PipelineStage.RENDER, () -> "pdf");
+        pipelineMetrics.stop(PipelineStage.SEND, pipelineMetrics.start());
+
+        assertEquals("pdf", result);
+        assertEquals(1, meterRegistry.get("notifications.pipeline.stage.latency").tag("stage", "RENDER").timer().count());
+        assertEquals(1, meterRegistry.get("notifications.pipeline.stage.latency").tag("stage", "SEND").timer().count());
+        assertEquals(0, meterRegistry.get("notifications.pipeline.stage.latency").tag("stage", "RECORD").timer().count());
+    }
+
+    @Test
+    public void countsComputedAndReusedRecipientPlans() {
+        pipelineMetrics.countRecipientPlan(false);
+        pipelineMetrics.countRecipientPlan(true);
+        pipelineMetrics.countRecipientPlan(true);
+
+        assertEquals(1, meterRegistry.get("notifications.pipeline.recipient.plan").tag("outcome", "computed").counter().count(), 0);
+        assertEquals(2, meterRegistry.get("notifications.pipeline.recipient.plan").tag("outcome", "reused").counter().count(), 0);
+    }
+
+    @Test
+    public void saturationIsTheFullestQueue() {
+        BlockingQueue<String> plan = new ArrayBlockingQueue<>(4);
+        BlockingQueue<String> record = new ArrayBlockingQueue<>(10);
+        pipelineMetrics.registerQueue(PipelineStage.PLAN, "plan", plan);
+        pipelineMetrics.registerQueue(PipelineStage.RECORD, "record", record);
+
+        plan.add("a");
+        plan.add("b");
+        plan.add("c");
+        record.add("a");
+
+        assertEquals(0.75, pipelineMetrics.getSaturation(), 0.001);
+        assertEquals(0.1, pipelineMetrics.getSaturation(PipelineStage.RECORD), 0.001);
+        assertEquals(PipelineStage.PLAN, pipelineMetrics.getFullestStage());
+        assertEquals(0.75, meterRegistry.get("notifications.pipeline.stage.saturation").tag("stage", "PLAN").gauge().value(), 0.001);
+        assertEquals(3.0, meterRegistry.get("notifications.pipeline.queue.depth").tag("queue", "plan").gauge().value(), 0);
+    }
+
+    @Test
+    public void saturationIsZeroWithoutQueues() {
+        assertEquals(0, pipelineMetrics.getSaturation(), 0);
+    }
+}
@@ -19,6 +19,7 @@ import junitparams.Parameters;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import uk.gov.hmcts.reform.sscs.ccd.deserialisation.SscsCaseCallbackDeserializer;
@@ -26,7 +27,9 @@ import uk.gov.hmcts.reform.sscs.ccd.domain.*;
 import uk.gov.hmcts.reform.sscs.ccd.service.CcdService;
 import uk.gov.hmcts.reform.sscs.ccd.service.UpdateCcdCaseService;
 import uk.gov.hmcts.reform.sscs.domain.SscsCaseDataWrapper;
+import uk.gov.hmcts.reform.sscs.domain.notify.NotificationChannel;
 import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
+import uk.gov.hmcts.reform.sscs.factory.NotificationWrapper;
 import uk.gov.hmcts.reform.sscs.idam.IdamService;
 import uk.gov.hmcts.reform.sscs.idam.IdamTokens;
 import uk.gov.hmcts.reform.sscs.service.NotificationService;
@@ -128,6 +131,28 @@ public class CcdActionExecutorTest {
         verify(ccdService, times(0)).updateCase(any(), eq(123456L), any(), any(), any(), any());
     }
 
+    @Test
+    public void shouldOnlyNotifyTheRecipientNamedInARetryPayload() {
+        when(ccdService.getByCaseId(eq(123456L), eq(idamTokens))).thenReturn(caseDetails);
+        ccdActionExecutor.execute(JOB_ID, JOB_GROUP, SYA_APPEAL_CREATED.getId(), "123456,2,OTHER_PARTY:2");
+
+        ArgumentCaptor<NotificationWrapper> captor = ArgumentCaptor.forClass(NotificationWrapper.class);
+        verify(notificationService).manageNotificationAndSubscription(captor.capture(), eq(true));
+        assertEquals("OTHER_PARTY:2", captor.getValue().getRetryRecipient());
+        assertEquals(2, ccdActionExecutor.getRetry("123456,2,OTHER_PARTY:2"));
+    }
+
+    @Test
+    public void shouldOnlyNotifyTheChannelNamedInARetryPayload() {
+        when(ccdService.getByCaseId(eq(123456L), eq(idamTokens))).thenReturn(caseDetails);
+        ccdActionExecutor.execute(JOB_ID, JOB_GROUP, SYA_APPEAL_CREATED.getId(), "123456,2,OTHER_PARTY:2,LETTER");
+
+        ArgumentCaptor<NotificationWrapper> captor = ArgumentCaptor.forClass(NotificationWrapper.class);
+        verify(notificationService).manageNotificationAndSubscription(captor.capture(), eq(true));
+        assertEquals("OTHER_PARTY:2", captor.getValue().getRetryRecipient());
+        assertEquals(NotificationChannel.LETTER, captor.getValue().getRetryChannel());
+    }
+
     @Test
     @Parameters({"1", "2", "3"})
     public void shouldScheduleToRetryAgainWhenNotificationFails(int retry) {
@@ -0,0 +1,69 @@
+package uk.gov.hmcts.reform.sscs.servicebus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CallbackEventFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CallbackEventFilter filter;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new CallbackEventFilter(true, false, false, meterRegistry);
+    }
+
+    @Test
+    public void readsEventIdAfterNestedCaseDetails() throws IOException {
+        String message = IOUtils.toString(getClass().getClassLoader().getResourceAsStream("json/ccdResponse.json"),
+            StandardCharsets.UTF_8);
+
+        assertEquals(Optional.of("appealReceived"), filter.readEventId(message));
+        assertFalse(filter.canSkip(message));
+    }
+
+    @Test
+    public void skipsAndCountsEventsThatCanNotBeNotified() {
+        String message = "{\"case_details\":{\"case_data\":{\"appeal\":{}}},\"event_id\":\"uploadDocument\"}";
+
+        assertTrue(filter.canSkip(message));
+        assertTrue(filter.canSkip(message));
+
+        assertEquals(2.0, meterRegistry.counter("notifications.callback.skipped", "event", "uploadDocument").count(), 0);
+    }
+
+    @Test
+    public void doesNotSkipConditionallyHandledEvents() {
+        assertFalse(filter.canSkip("{\"event_id\":\"hearingBooked\"}"));
+    }
+
+    @Test
+    public void skipsPostHearingsEventsOnlyWhenFeatureIsDisabled() {
+        String message = "{\"event_id\":\"correctionRequest\"}";
+
+        assertTrue(filter.canSkip(message));
+        assertFalse(new CallbackEventFilter(true, true, false, meterRegistry).canSkip(message));
+    }
+
+    @Test
+    public void doesNotSkipMessagesItCanNotRead() {
+        assertFalse(filter.canSkip("message"));
+        assertFalse(filter.canSkip("{\"case_details\":{}}"));
+        assertFalse(filter.canSkip("{\"event_id\":"));
+    }
+
+    @Test
+    public void doesNotSkipWhenDisabled() {
+        assertFalse(new CallbackEventFilter(false, false, false, meterRegistry).canSkip("{\"event_id\":\"uploadDocument\"}"));
+    }
+}
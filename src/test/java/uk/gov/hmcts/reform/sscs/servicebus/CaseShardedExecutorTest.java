@@ -0,0 +1,73 @@
+package uk.gov.hmcts.reform.sscs.servicebus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Test;
+import uk.gov.hmcts.reform.sscs.config.TopicConsumerConfigProperties;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+
+public class CaseShardedExecutorTest {
+
+    private CaseShardedExecutor executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void runsOnCallingThreadWhenNoWorkersConfigured() {
+        executor = new CaseShardedExecutor(properties(0, 10), new PipelineMetrics(new SimpleMeterRegistry()));
+        Thread caller = Thread.currentThread();
+        List<Thread> ranOn = new CopyOnWriteArrayList<>();
+
+        executor.execute(1234L, () -> ranOn.add(Thread.currentThread()));
+
+        assertFalse(executor.isConcurrent());
+        assertEquals(List.of(caller), ranOn);
+    }
+
+    @Test
+    public void keepsOrderForTheSameCase() throws InterruptedException {
+        executor = new CaseShardedExecutor(properties(4, 2), new PipelineMetrics(new SimpleMeterRegistry()));
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(50);
+
+        IntStream.range(0, 50).forEach(i -> executor.execute(1234L, () -> {
+            processed.add(i);
+            done.countDown();
+        }));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(IntStream.range(0, 50).boxed().collect(Collectors.toList()), processed);
+    }
+
+    @Test
+    public void spreadsCasesOverShards() {
+        executor = new CaseShardedExecutor(properties(4, 2), new PipelineMetrics(new SimpleMeterRegistry()));
+
+        assertTrue(executor.isConcurrent());
+        assertEquals(executor.shardFor(1234L), executor.shardFor(1234L));
+        assertNotEquals(executor.shardFor(1L), executor.shardFor(2L));
+    }
+
+    private TopicConsumerConfigProperties properties(int workers, int queueDepth) {
+        TopicConsumerConfigProperties properties = new TopicConsumerConfigProperties();
+        properties.setWorkers(workers);
+        properties.setQueueDepth(queueDepth);
+        return properties;
+    }
+}
@@ -0,0 +1,88 @@
+package uk.gov.hmcts.reform.sscs.servicebus;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+import org.springframework.jms.listener.MessageListenerContainer;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
+
+public class ListenerBackpressureControllerTest {
+
+    @Mock
+    private JmsListenerEndpointRegistry registry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private PipelineMetrics pipelineMetrics;
+
+    private ListenerBackpressureController controller;
+
+    @Before
+    public void setup() {
+        openMocks(this);
+        when(registry.getListenerContainer(TopicConsumer.LISTENER_ID)).thenReturn(container);
+        when(container.isRunning()).thenReturn(true);
+        controller = new ListenerBackpressureController(registry, pipelineMetrics, new SimpleMeterRegistry(), 0.9, 0.5, 1000);
+    }
+
+    @Test
+    public void pausesListenerWhenPipelineIsSaturated() {
+        when(pipelineMetrics.getSaturation()).thenReturn(0.95);
+
+        controller.checkSaturation();
+
+        assertTrue(controller.isPaused());
+        verify(container).stop(any(Runnable.class));
+    }
+
+    @Test
+    public void staysPausedUntilPipelineDrainsBelowLowWatermark() {
+        when(pipelineMetrics.getSaturation()).thenReturn(0.95, 0.7, 0.4);
+
+        controller.checkSaturation();
+        controller.checkSaturation();
+        assertTrue(controller.isPaused());
+        verify(container, never()).start();
+
+        controller.checkSaturation();
+        assertFalse(controller.isPaused());
+        verify(container).start();
+    }
+
+    @Test
+    public void doesNothingWhenPipelineHasCapacity() {
+        when(pipelineMetrics.getSaturation()).thenReturn(0.2);
+
+        controller.checkSaturation();
+
+        assertFalse(controller.isPaused());
+        verify(container, never()).stop(any(Runnable.class));
+        verify(container, never()).start();
+    }
+
+    @Test
+    public void checksOnItsOwnThreadOnceStarted() {
+        when(pipelineMetrics.getSaturation()).thenReturn(0.95);
+        controller = new ListenerBackpressureController(registry, pipelineMetrics, new SimpleMeterRegistry(), 0.9, 0.5, 10);
+
+        controller.start();
+        try {
+            verify(container, timeout(2000)).stop(any(Runnable.class));
+        } finally {
+            controller.stop();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package uk.gov.hmcts.reform.sscs.servicebus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class MessageDeduplicationServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-18T10:00:00Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MessageDeduplicationService service;
+
+    @Before
+    public void setup() {
+        openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new MessageDeduplicationService(jdbcTemplate, 2, Duration.ofHours(1),
+            Duration.ofSeconds(50), meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void firstDeliveryIsRecorded() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(), any(), any(), any(), any())).thenReturn(1);
+
+        assertTrue(service.isFirstDelivery("1", 123L, "appealReceived"));
+        verify(jdbcTemplate).update(startsWith("INSERT"), eq("1"), eq("123"), eq("appealReceived"),
+            eq(Timestamp.from(NOW.plusSeconds(50))), eq(Timestamp.from(NOW)));
+    }
+
+    @Test
+    public void redeliveryToTheSamePodIsAnsweredFromMemory() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(), any(), any(), any(), any())).thenReturn(1);
+
+        assertTrue(service.isFirstDelivery("1", 123L, "appealReceived"));
+        assertFalse(service.isFirstDelivery("1", 123L, "appealReceived"));
+
+        verify(jdbcTemplate, times(1)).update(startsWith("INSERT"), any(), any(), any(), any(), any());
+        assertEquals(1.0, meterRegistry.counter("notifications.callback.duplicate").count(), 0);
+    }
+
+    @Test
+    public void messageAlreadyRecordedByAnotherPodIsADuplicate() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(), any(), any(), any(), any())).thenReturn(0);
+
+        assertFalse(service.isFirstDelivery("1", 123L, "appealReceived"));
+    }
+
+    @Test
+    public void messageIsProcessedWhenStoreIsUnavailable() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(), any(), any(), any(), any()))
+            .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertTrue(service.isFirstDelivery("1", 123L, "appealReceived"));
+    }
+
+    @Test
+    public void releasedMessageIsProcessedWhenRedelivered() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(), any(), any(), any(), any())).thenReturn(1);
+
+        assertTrue(service.isFirstDelivery("1", 123L, "appealReceived"));
+        service.release("1");
+
+        verify(jdbcTemplate).update(startsWith("DELETE"), eq("1"));
+        assertTrue(service.isFirstDelivery("1", 123L, "appealReceived"));
+    }
+
+    @Test
+    public void processedMessageIsMarkedSoItIsNotTakenOver() {
+        service.markProcessed("1");
+
+        verify(jdbcTemplate).update(startsWith("UPDATE"), eq("1"));
+    }
+
+    @Test
+    public void expiredClaimLeftByAnotherPodIsTakenOver() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(), any(), any(), any(), any())).thenReturn(0, 1);
+        when(jdbcTemplate.update(startsWith("DELETE"), eq(Timestamp.from(NOW)), eq("1"))).thenReturn(1);
+
+        assertTrue(service.isFirstDelivery("1", 123L, "appealReceived"));
+        verify(jdbcTemplate, times(2)).update(startsWith("INSERT"), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void theSameEventPublishedAgainUnderANewMessageIdIsNotADuplicate() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(), any(), any(), any(), any())).thenReturn(1);
+
+        assertTrue(service.isFirstDelivery("1", 123L, "appealReceived"));
+        assertTrue(service.isFirstDelivery("2", 123L, "appealReceived"));
+        assertEquals(0.0, meterRegistry.counter("notifications.callback.duplicate").count(), 0);
+    }
+}
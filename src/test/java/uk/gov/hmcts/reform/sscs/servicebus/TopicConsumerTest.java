@@ -5,10 +5,14 @@ import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.MockitoAnnotations.openMocks;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import javax.jms.JMSException;
+import javax.jms.Message;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import uk.gov.hmcts.reform.sscs.callback.CallbackDispatcher;
 import uk.gov.hmcts.reform.sscs.ccd.callback.Callback;
@@ -17,11 +21,15 @@ import uk.gov.hmcts.reform.sscs.ccd.domain.CaseDetails;
 import uk.gov.hmcts.reform.sscs.ccd.domain.EventType;
 import uk.gov.hmcts.reform.sscs.ccd.domain.SscsCaseData;
 import uk.gov.hmcts.reform.sscs.ccd.domain.State;
+import uk.gov.hmcts.reform.sscs.config.TopicConsumerConfigProperties;
 import uk.gov.hmcts.reform.sscs.exception.ClientAuthorisationException;
+import uk.gov.hmcts.reform.sscs.exception.NotificationServiceException;
+import uk.gov.hmcts.reform.sscs.service.pipeline.PipelineMetrics;
 
 public class TopicConsumerTest {
 
     private static final String MESSAGE = "message";
+    private static final String SKIPPED_MESSAGE = "{\"case_details\":{\"id\":123},\"event_id\":\"unknownEvent\"}";
     private static final Exception EXCEPTION = new RuntimeException("blah");
 
     @Mock
@@ -30,13 +38,22 @@ public class TopicConsumerTest {
     @Mock
     private SscsCaseCallbackDeserializer deserializer;
 
+    @Mock
+    private MessageDeduplicationService messageDeduplicationService;
+
+    @Mock
+    private Message jmsMessage;
+
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics(new SimpleMeterRegistry());
     private TopicConsumer topicConsumer;
     private Exception exception;
 
     @Before
     public void setup() {
         openMocks(this);
-        topicConsumer = new TopicConsumer(dispatcher, deserializer);
+        topicConsumer = new TopicConsumer(dispatcher, deserializer,
+            new CaseShardedExecutor(new TopicConsumerConfigProperties(), pipelineMetrics),
+            new CallbackEventFilter(true, false, false, new SimpleMeterRegistry()), Optional.empty(), pipelineMetrics);
         CaseDetails<SscsCaseData> caseDetails = new CaseDetails<>(
                 123L,
                 "jurisdiction",
@@ -53,7 +70,7 @@ public class TopicConsumerTest {
     public void anExceptionWillBeCaught() {
         exception = EXCEPTION;
         doThrow(exception).when(dispatcher).handle(any());
-        topicConsumer.onMessage(MESSAGE, "1");
+        topicConsumer.onMessage(MESSAGE, "1", jmsMessage);
         verify(dispatcher, atLeastOnce()).handle(any());
     }
 
@@ -62,7 +79,7 @@ public class TopicConsumerTest {
     public void nullPointerExceptionWillBeCaught() {
         exception = new NullPointerException();
         doThrow(exception).when(dispatcher).handle(any());
-        topicConsumer.onMessage(MESSAGE, "1");
+        topicConsumer.onMessage(MESSAGE, "1", jmsMessage);
         verify(dispatcher, atLeastOnce()).handle(any());
     }
 
@@ -70,14 +87,144 @@ public class TopicConsumerTest {
     public void clientAuthorisationExceptionWillBeCaught() {
         exception = new ClientAuthorisationException(EXCEPTION);
         doThrow(exception).when(dispatcher).handle(any());
-        topicConsumer.onMessage(MESSAGE, "1");
+        topicConsumer.onMessage(MESSAGE, "1", jmsMessage);
         verify(dispatcher, atLeastOnce()).handle(any());
     }
 
     @Test
-    public void handleValidRequest() {
-        topicConsumer.onMessage(MESSAGE, "1");
+    public void handleValidRequest() throws JMSException {
+        topicConsumer.onMessage(MESSAGE, "1", jmsMessage);
         verify(dispatcher).handle(any());
+        verify(jmsMessage).acknowledge();
+    }
+
+    @Test
+    public void callbackThatFailsToDispatchIsLeftForRedelivery() throws JMSException {
+        doThrow(EXCEPTION).when(dispatcher).handle(any());
+
+        topicConsumer.onMessage(MESSAGE, "1", jmsMessage);
+
+        verify(jmsMessage, never()).acknowledge();
+    }
+
+    @Test
+    public void callbackWhoseNotificationFailedIsAcknowledgedAsItIsRetriedByTheScheduler() throws JMSException {
+        topicConsumer = new TopicConsumer(dispatcher, deserializer,
+            new CaseShardedExecutor(new TopicConsumerConfigProperties(), pipelineMetrics),
+            new CallbackEventFilter(true, false, false, new SimpleMeterRegistry()),
+            Optional.of(messageDeduplicationService), pipelineMetrics);
+        when(messageDeduplicationService.isFirstDelivery(eq("1"), eq(123L), anyString())).thenReturn(true);
+        doThrow(new NotificationServiceException("123", EXCEPTION)).when(dispatcher).handle(any());
+
+        topicConsumer.onMessage(MESSAGE, "1", jmsMessage);
+
+        verify(jmsMessage).acknowledge();
+        verify(messageDeduplicationService).markProcessed("1");
+        verify(messageDeduplicationService, never()).release(anyString());
+    }
+
+    @Test
+    public void shardedCallbackIsAcknowledgedOnlyOnceItHasBeenDispatched() throws JMSException {
+        CaseShardedExecutor caseShardedExecutor = shardedExecutor();
+        topicConsumer = new TopicConsumer(dispatcher, deserializer, caseShardedExecutor,
+            new CallbackEventFilter(true, false, false, new SimpleMeterRegistry()), Optional.empty(), pipelineMetrics);
+
+        try {
+            topicConsumer.onMessage(MESSAGE, "1", jmsMessage);
+
+            verify(jmsMessage, timeout(2000)).acknowledge();
+            InOrder inOrder = inOrder(dispatcher, jmsMessage);
+            inOrder.verify(dispatcher).handle(any());
+            inOrder.verify(jmsMessage).acknowledge();
+        } finally {
+            caseShardedExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void shardedCallbackNotTakenWhileShuttingDownIsLeftForRedelivery() throws JMSException {
+        CaseShardedExecutor caseShardedExecutor = shardedExecutor();
+        caseShardedExecutor.shutdown();
+        topicConsumer = new TopicConsumer(dispatcher, deserializer, caseShardedExecutor,
+            new CallbackEventFilter(true, false, false, new SimpleMeterRegistry()), Optional.empty(), pipelineMetrics);
+
+        topicConsumer.onMessage(MESSAGE, "1", jmsMessage);
+
+        verifyNoInteractions(dispatcher);
+        verify(jmsMessage, never()).acknowledge();
     }
 
+    @Test
+    public void callbackForEventThatCanNotBeNotifiedIsNotDeserialised() {
+        topicConsumer.onMessage(SKIPPED_MESSAGE, "1", jmsMessage);
+        verifyNoInteractions(deserializer, dispatcher);
+    }
+
+    @Test
+    public void skippedShardedCallbackIsAcknowledged() throws JMSException {
+        CaseShardedExecutor caseShardedExecutor = shardedExecutor();
+        topicConsumer = new TopicConsumer(dispatcher, deserializer, caseShardedExecutor,
+            new CallbackEventFilter(true, false, false, new SimpleMeterRegistry()), Optional.empty(), pipelineMetrics);
+
+        try {
+            topicConsumer.onMessage(SKIPPED_MESSAGE, "1", jmsMessage);
+
+            verify(jmsMessage).acknowledge();
+            verifyNoInteractions(deserializer, dispatcher);
+        } finally {
+            caseShardedExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void duplicateMessageIsNotDispatched() {
+        topicConsumer = new TopicConsumer(dispatcher, deserializer,
+            new CaseShardedExecutor(new TopicConsumerConfigProperties(), pipelineMetrics),
+            new CallbackEventFilter(true, false, false, new SimpleMeterRegistry()),
+            Optional.of(messageDeduplicationService), pipelineMetrics);
+        when(messageDeduplicationService.isFirstDelivery(eq("1"), eq(123L), anyString())).thenReturn(true);
+        when(messageDeduplicationService.isFirstDelivery(eq("2"), eq(123L), anyString())).thenReturn(false);
+
+        topicConsumer.onMessage(MESSAGE, "1", jmsMessage);
+        topicConsumer.onMessage(MESSAGE, "2", jmsMessage);
+
+        verify(dispatcher, times(1)).handle(any());
+    }
+
+    @Test
+    public void claimIsReleasedWhenTheCallbackCanNotBeHandled() throws JMSException {
+        topicConsumer = new TopicConsumer(dispatcher, deserializer,
+            new CaseShardedExecutor(new TopicConsumerConfigProperties(), pipelineMetrics),
+            new CallbackEventFilter(true, false, false, new SimpleMeterRegistry()),
+            Optional.of(messageDeduplicationService), pipelineMetrics);
+        when(messageDeduplicationService.isFirstDelivery(eq("1"), eq(123L), anyString())).thenReturn(true);
+        doThrow(EXCEPTION).when(dispatcher).handle(any());
+
+        topicConsumer.onMessage(MESSAGE, "1", jmsMessage);
+
+        verify(messageDeduplicationService).release("1");
+        verify(messageDeduplicationService, never()).markProcessed(anyString());
+        verify(jmsMessage, never()).acknowledge();
+    }
+
+    @Test
+    public void handledCallbackIsMarkedProcessed() {
+        topicConsumer = new TopicConsumer(dispatcher, deserializer,
+            new CaseShardedExecutor(new TopicConsumerConfigProperties(), pipelineMetrics),
+            new CallbackEventFilter(true, false, false, new SimpleMeterRegistry()),
+            Optional.of(messageDeduplicationService), pipelineMetrics);
+        when(messageDeduplicationService.isFirstDelivery(eq("1"), eq(123L), anyString())).thenReturn(true);
+
+        topicConsumer.onMessage(MESSAGE, "1", jmsMessage);
+
+        verify(messageDeduplicationService).markProcessed("1");
+        verify(messageDeduplicationService, never()).release(anyString());
+    }
+
+    private CaseShardedExecutor shardedExecutor() {
+        TopicConsumerConfigProperties properties = new TopicConsumerConfigProperties();
+        properties.setWorkers(1);
+        properties.setQueueDepth(1);
+        return new CaseShardedExecutor(properties, pipelineMetrics);
+    }
 }